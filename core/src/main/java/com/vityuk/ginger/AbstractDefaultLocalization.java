@@ -17,12 +17,26 @@
 package com.vityuk.ginger;
 
 import com.vityuk.ginger.cache.CacheLoader;
+import com.vityuk.ginger.cache.CacheStats;
 import com.vityuk.ginger.cache.LoadingCache;
 import com.vityuk.ginger.provider.LocalizationProvider;
 import com.vityuk.ginger.proxy.ProxyBuilderFactory;
 import com.vityuk.ginger.cache.CacheBuilder;
 import com.vityuk.ginger.util.MiscUtils;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
 import static com.vityuk.ginger.util.Preconditions.checkArgument;
 import static com.vityuk.ginger.util.Preconditions.checkNotNull;
 
@@ -30,8 +44,16 @@ import static com.vityuk.ginger.util.Preconditions.checkNotNull;
  * @author Andriy Vityuk
  */
 public class AbstractDefaultLocalization<U> implements Localization<U> {
+    public static final String LOCALIZABLES_CACHE = "localizables";
+    // Locales usually come from requests, so number of distinct ones is not under control of application
+    static final int MAX_LOCALE_BOUND_LOCALIZATIONS = 256;
+
+    private static final Logger logger = Logger.getLogger(AbstractDefaultLocalization.class.getName());
 
     private final Class<U> localizableClass;
+    private final List<Locale> preloadedLocales;
+    private final List<Class<? extends U>> preloadedLocalizables;
+    private final boolean precompiledMessages;
 
     @Override
     public <T extends U> T getLocalizable(Class<T> localizable) {
@@ -50,10 +72,42 @@ public class AbstractDefaultLocalization<U> implements Localization<U> {
     protected final LocalizationProvider localizationProvider;
 
     private final LoadingCache<Class<? extends U>, U> localizableCache;
+    // Shared by localization and all localizations bound to locale from it
+    private final LoadingCache<Locale, Localization<U>> localeBoundCache;
 
     public AbstractDefaultLocalization(Class<U> localizableClass, LocalizationProvider localizationProvider) {
+        this(localizableClass, localizationProvider, Collections.<Locale>emptyList(),
+                Collections.<Class<? extends U>>emptyList(), false);
+    }
+
+    public AbstractDefaultLocalization(Class<U> localizableClass, LocalizationProvider localizationProvider,
+                                       Collection<Locale> preloadedLocales,
+                                       Collection<? extends Class<? extends U>> preloadedLocalizables,
+                                       boolean precompiledMessages) {
+        this(localizableClass, localizationProvider, preloadedLocales, preloadedLocalizables, precompiledMessages,
+                null);
+    }
+
+    /**
+     * Create localization bound to locale of {@code localeBoundProvider}, it shares localizations bound to other
+     * locales with {@code parent}.
+     */
+    protected AbstractDefaultLocalization(AbstractDefaultLocalization<U> parent,
+                                          LocalizationProvider localeBoundProvider) {
+        this(parent.localizableClass, localeBoundProvider, Collections.<Locale>emptyList(),
+                Collections.<Class<? extends U>>emptyList(), false, parent.localeBoundCache);
+    }
+
+    private AbstractDefaultLocalization(Class<U> localizableClass, LocalizationProvider localizationProvider,
+                                        Collection<Locale> preloadedLocales,
+                                        Collection<? extends Class<? extends U>> preloadedLocalizables,
+                                        boolean precompiledMessages,
+                                        LoadingCache<Locale, Localization<U>> localeBoundCache) {
         this.localizationProvider = localizationProvider;
         this.localizableClass = localizableClass;
+        this.preloadedLocales = new ArrayList<Locale>(checkNotNull(preloadedLocales));
+        this.preloadedLocalizables = new ArrayList<Class<? extends U>>(checkNotNull(preloadedLocalizables));
+        this.precompiledMessages = precompiledMessages;
 
         localizableCache = new CacheBuilder<Class<? extends U>, U>().build(new CacheLoader<Class<? extends U>, U>() {
             @Override
@@ -61,6 +115,27 @@ public class AbstractDefaultLocalization<U> implements Localization<U> {
                 return createLocalizableInstance(localizable);
             }
         });
+        this.localeBoundCache = localeBoundCache != null ? localeBoundCache : createLocaleBoundCache();
+    }
+
+    private LoadingCache<Locale, Localization<U>> createLocaleBoundCache() {
+        return new CacheBuilder<Locale, Localization<U>>().maximumSize(MAX_LOCALE_BOUND_LOCALIZATIONS)
+                .build(new CacheLoader<Locale, Localization<U>>() {
+                    @Override
+                    public Localization<U> load(Locale locale) throws Exception {
+                        return createLocaleBoundLocalization(localizationProvider.forLocale(locale));
+                    }
+                });
+    }
+
+    /**
+     * Create localization returned by {@link #forLocale(Locale)}. Subclasses override it to return their own type,
+     * usually through {@link #AbstractDefaultLocalization(AbstractDefaultLocalization, LocalizationProvider)}.
+     *
+     * @param localeBoundProvider provider bound to requested locale
+     */
+    protected Localization<U> createLocaleBoundLocalization(LocalizationProvider localeBoundProvider) {
+        return new AbstractDefaultLocalization<U>(this, localeBoundProvider);
     }
 
     @Override
@@ -78,6 +153,76 @@ public class AbstractDefaultLocalization<U> implements Localization<U> {
         return localizationProvider.getPluralMessage(key, count, parameters);
     }
 
+    @Override
+    public boolean appendMessage(Appendable appendable, String key, Object... parameters) throws IOException {
+        return localizationProvider.appendMessage(appendable, key, parameters);
+    }
+
+    @Override
+    public boolean appendSelectedMessage(Appendable appendable, String key, String selector, Object... parameters)
+            throws IOException {
+        return localizationProvider.appendSelectedMessage(appendable, key, selector, parameters);
+    }
+
+    @Override
+    public boolean appendPluralMessage(Appendable appendable, String key, int count, Object... parameters)
+            throws IOException {
+        return localizationProvider.appendPluralMessage(appendable, key, count, parameters);
+    }
+
+    @Override
+    public Localization<U> forLocale(Locale locale) {
+        checkNotNull(locale);
+        try {
+            return localeBoundCache.getUnchecked(locale);
+        } catch (Throwable e) {
+            throw MiscUtils.propagate(e.getCause());
+        }
+    }
+
+    @Override
+    public long warmUp() {
+        long startTime = System.nanoTime();
+        final ForkJoinPool pool = new ForkJoinPool();
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+            for (final Locale locale : preloadedLocales) {
+                tasks.add(pool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        localizationProvider.preload(locale, precompiledMessages, pool);
+                    }
+                }));
+            }
+            for (final Class<? extends U> localizable : preloadedLocalizables) {
+                tasks.add(pool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        getLocalizable(localizable);
+                    }
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        logger.info("Warmed up " + preloadedLocales.size() + " locale(s) and " + preloadedLocalizables.size() +
+                " localizable(s) in " + elapsedTime + " ms");
+        return elapsedTime;
+    }
+
+    @Override
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> cacheStats = new LinkedHashMap<String, CacheStats>(
+                localizationProvider.getCacheStats());
+        cacheStats.put(LOCALIZABLES_CACHE, localizableCache.stats());
+        return Collections.unmodifiableMap(cacheStats);
+    }
+
     protected  <T extends U> T createLocalizableInstance(Class<T> localizable) {
         return ProxyBuilderFactory.createProxy(localizable, localizationProvider);
     }
@@ -23,6 +23,9 @@ import com.vityuk.ginger.provider.LocalizationProvider;
 import com.vityuk.ginger.proxy.ProxyBuilderFactory;
 import com.vityuk.ginger.util.MiscUtils;
 
+import java.util.Collection;
+import java.util.Locale;
+
 import static com.vityuk.ginger.util.Preconditions.checkArgument;
 import static com.vityuk.ginger.util.Preconditions.checkNotNull;
 
@@ -34,4 +37,19 @@ public class DefaultLocalization extends AbstractDefaultLocalization<Localizable
     public DefaultLocalization(LocalizationProvider localizationProvider) {
         super(Localizable.class, localizationProvider);
     }
+
+    public DefaultLocalization(LocalizationProvider localizationProvider, Collection<Locale> preloadedLocales,
+                               Collection<? extends Class<? extends Localizable>> preloadedLocalizables,
+                               boolean precompiledMessages) {
+        super(Localizable.class, localizationProvider, preloadedLocales, preloadedLocalizables, precompiledMessages);
+    }
+
+    protected DefaultLocalization(DefaultLocalization parent, LocalizationProvider localeBoundProvider) {
+        super(parent, localeBoundProvider);
+    }
+
+    @Override
+    protected Localization<Localizable> createLocaleBoundLocalization(LocalizationProvider localeBoundProvider) {
+        return new DefaultLocalization(this, localeBoundProvider);
+    }
 }
@@ -16,6 +16,12 @@
 
 package com.vityuk.ginger;
 
+import com.vityuk.ginger.cache.CacheStats;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * Localization source
  */
@@ -57,4 +63,78 @@ public interface Localization<T> {
      * @return localized message or {@code null} if message not found
      */
     String getPluralMessage(String key, int count, Object... parameters);
+
+    /**
+     * Format localized message for a given key directly into {@link Appendable}, e.g. {@link java.io.Writer},
+     * without creating intermediate {@code String}.
+     *
+     * @param appendable destination of formatted message, must be not {@code null}
+     * @param key        message key, must be not {@code null}
+     * @param parameters {@link java.text.MessageFormat} parameters
+     * @return {@code true} if message was found and written, {@code false} otherwise
+     * @throws IOException if {@code appendable} fails
+     * @see #getMessage(String, Object...)
+     */
+    boolean appendMessage(Appendable appendable, String key, Object... parameters) throws IOException;
+
+    /**
+     * Format localized message for a given key and selector directly into {@link Appendable}.
+     *
+     * @param appendable destination of formatted message, must be not {@code null}
+     * @param key        message key, must be not {@code null}
+     * @param selector   used for choosing message from group
+     * @param parameters {@link java.text.MessageFormat} parameters
+     * @return {@code true} if message was found and written, {@code false} otherwise
+     * @throws IOException if {@code appendable} fails
+     * @see #getSelectedMessage(String, String, Object...)
+     */
+    boolean appendSelectedMessage(Appendable appendable, String key, String selector, Object... parameters)
+            throws IOException;
+
+    /**
+     * Format localized message for a given key and count directly into {@link Appendable}.
+     *
+     * @param appendable destination of formatted message, must be not {@code null}
+     * @param key        message key, must be not {@code null}
+     * @param count      used for resolving plural form
+     * @param parameters {@link java.text.MessageFormat} parameters
+     * @return {@code true} if message was found and written, {@code false} otherwise
+     * @throws IOException if {@code appendable} fails
+     * @see #getPluralMessage(String, int, Object...)
+     */
+    boolean appendPluralMessage(Appendable appendable, String key, int count, Object... parameters)
+            throws IOException;
+
+    /**
+     * Get view of this localization bound to a given locale. The view does not resolve current locale on each call
+     * and looks messages up in resources already loaded for {@code locale}, which makes it suitable for rendering
+     * many messages for explicitly known locale, e.g. in batch jobs or asynchronous code.
+     * <p/>
+     * Views are cached, so repeated calls with the same locale return the same instance. They observe reloaded
+     * resources when resource watching or cache expiration is enabled, otherwise resources are kept as they were
+     * loaded at the time of creation.
+     *
+     * @param locale locale of the view, must be not {@code null}
+     * @return localization bound to {@code locale}
+     * @throws com.vityuk.ginger.provider.ResourceNotFoundException if there are no resources for {@code locale}
+     */
+    Localization<T> forLocale(Locale locale);
+
+    /**
+     * Eagerly load resources of all preloaded locales in parallel, optionally compile all their messages and create
+     * instances of all preloaded {@link Localizable} interfaces, see {@link LocalizationBuilder}. Intended to be called
+     * at application startup, so first requests do not pay for loading.
+     *
+     * @return time taken by warm-up in milliseconds
+     * @throws com.vityuk.ginger.provider.ResourceNotFoundException if there are no resources for preloaded locale
+     */
+    long warmUp();
+
+    /**
+     * Get statistics of internal caches, e.g. loaded resources, compiled messages and localizable instances.
+     * Each call returns new snapshot.
+     *
+     * @return map of cache name to cache statistics snapshot
+     */
+    Map<String, CacheStats> getCacheStats();
 }
@@ -25,13 +25,17 @@ import com.vityuk.ginger.loader.ResourceLoader;
 import com.vityuk.ginger.locale.DefaultLocaleResolver;
 import com.vityuk.ginger.provider.DefaultLocalizationProvider;
 import com.vityuk.ginger.provider.LocalizationProvider;
+import com.vityuk.ginger.provider.ResourceNotFoundException;
 import com.vityuk.ginger.provider.format.DefaultMessageFormatFactory;
+import com.vityuk.ginger.provider.format.NativeMessageTemplateFactory;
 import com.vityuk.ginger.provider.plural.DefaultPluralFormSelectorResolver;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 import static com.vityuk.ginger.util.Preconditions.checkArgument;
 import static com.vityuk.ginger.util.Preconditions.checkNotNull;
@@ -44,12 +48,36 @@ import static com.vityuk.ginger.util.Preconditions.checkNotNull;
  * <li>{@code resourceLocation} or {@code resourceLocations} with the locations to localization resources,
  * required</li>
  * <li>{@link LocalizationLoader} for using specific resources format,
- * by default {@link PropertiesLocalizationLoader} used (supports Java properties files)</li>
+ * by default {@link PropertiesLocalizationLoader} used (supports Java properties files), bundles compiled with
+ * {@code compile-bundles} goal of ginger maven plugin are loaded with
+ * {@link com.vityuk.ginger.loader.BundleLocalizationLoader}, preferably together with
+ * {@link com.vityuk.ginger.loader.MappedFileResourceLoader}</li>
  * <li>{@link LocaleResolver} for resolving current locale, by default {@link DefaultLocaleResolver} used</li>
  * <li>{@link ResourceLoader} for resolving current locale, by default {@link ClasspathResourceLoader} and
  * {@link FileSystemResourceLoader} are used</li>
  * <li>{@code MaxResourcesCachingTimeInSec} or {@code DisabledResourcesCaching} for manipulating resources caching
  * settings, by default cached resources never expire</li>
+ * <li>{@code FailedResourcesCachingTimeInSec} for remembering missing or broken resources, so they are not
+ * searched and loaded again on every request, by default failures are not cached</li>
+ * <li>{@code FallbackLocale} used when there are no resources for requested locale, by default
+ * {@link ResourceNotFoundException} is thrown</li>
+ * <li>{@code ResourcesRefreshIntervalInSec} for reloading resources in background while previously loaded ones
+ * keep being served, by default resources are not refreshed</li>
+ * <li>{@code ResourcesWatching} for reloading resources as soon as they change, only changed resource is loaded
+ * again, reloaded resources and messages compiled from them are published atomically and cached resources never
+ * expire otherwise, only locales which have own resources are watched, requires {@link com.vityuk.ginger.loader.WatchableResourceLoader},
+ * e.g. {@link FileSystemResourceLoader} for {@code file:} locations, can not be combined with expiration or refresh
+ * of resources, by default resources are not watched</li>
+ * <li>{@code MaxMessageCacheSize} or {@code MaxMessageCacheWeightInBytes} for limiting number or estimated heap size
+ * of compiled messages kept in cache, by default cache is not limited</li>
+ * <li>{@code NativeMessageFormatting} for formatting messages with {@link NativeMessageTemplateFactory} templates
+ * instead of {@link java.text.MessageFormat}, results are the same, by default {@code MessageFormat} is used</li>
+ * <li>{@code MergedLocaleHierarchy} for merging resources of all locations for root, language and country locales
+ * into a single table per locale, so that missing keys fall back to less specific locale per key, by default only
+ * the most specific existing resource is used for each location</li>
+ * <li>{@code PreloadedLocales}, {@code PreloadedLocalizables} and {@code PrecompiledMessages} for loading resources,
+ * compiling messages and creating localizable instances ahead of time by {@link Localization#warmUp()}, by default
+ * nothing is preloaded</li>
  * </ul>
  *
  * Method {@link #build()} creates actual instance of {@code Localization}.
@@ -78,6 +106,17 @@ public class LocalizationBuilder {
     private LocalizationLoader localizationLoader;
     private List<String> resourceLocations = Collections.emptyList();
     private int maxResourcesCachingTimeInSec = -1;
+    private int resourcesRefreshIntervalInSec = -1;
+    private int failedResourcesCachingTimeInSec = -1;
+    private Locale fallbackLocale;
+    private long maxMessageCacheSize = -1;
+    private long maxMessageCacheWeightInBytes = -1;
+    private boolean nativeMessageFormatting;
+    private boolean mergedLocaleHierarchy;
+    private boolean resourcesWatching;
+    private List<Locale> preloadedLocales = Collections.emptyList();
+    private List<Class<? extends Localizable>> preloadedLocalizables = Collections.emptyList();
+    private boolean precompiledMessages;
 
     public LocalizationBuilder withLocaleResolver(LocaleResolver localeResolver) {
         this.localeResolver = checkNotNull(localeResolver, "'localeResolver' must be not null");
@@ -125,8 +164,78 @@ public class LocalizationBuilder {
         return this;
     }
 
+    public LocalizationBuilder withResourcesRefreshIntervalInSec(int resourcesRefreshIntervalInSec) {
+        checkArgument(resourcesRefreshIntervalInSec > 0, "Parameter 'resourcesRefreshIntervalInSec' must be > 0");
+        this.resourcesRefreshIntervalInSec = resourcesRefreshIntervalInSec;
+        return this;
+    }
+
+    public LocalizationBuilder withFailedResourcesCachingTimeInSec(int failedResourcesCachingTimeInSec) {
+        checkArgument(failedResourcesCachingTimeInSec > 0, "Parameter 'failedResourcesCachingTimeInSec' must be > 0");
+        this.failedResourcesCachingTimeInSec = failedResourcesCachingTimeInSec;
+        return this;
+    }
+
+    public LocalizationBuilder withFallbackLocale(Locale fallbackLocale) {
+        this.fallbackLocale = checkNotNull(fallbackLocale, "'fallbackLocale' must be not null");
+        return this;
+    }
+
+    public LocalizationBuilder withMaxMessageCacheSize(long maxMessageCacheSize) {
+        checkArgument(maxMessageCacheSize > 0, "Parameter 'maxMessageCacheSize' must be > 0");
+        checkArgument(maxMessageCacheWeightInBytes == -1, "Parameter 'maxMessageCacheWeightInBytes' is already set");
+        this.maxMessageCacheSize = maxMessageCacheSize;
+        return this;
+    }
+
+    public LocalizationBuilder withMaxMessageCacheWeightInBytes(long maxMessageCacheWeightInBytes) {
+        checkArgument(maxMessageCacheWeightInBytes > 0, "Parameter 'maxMessageCacheWeightInBytes' must be > 0");
+        checkArgument(maxMessageCacheSize == -1, "Parameter 'maxMessageCacheSize' is already set");
+        this.maxMessageCacheWeightInBytes = maxMessageCacheWeightInBytes;
+        return this;
+    }
+
+    public LocalizationBuilder withNativeMessageFormatting() {
+        nativeMessageFormatting = true;
+        return this;
+    }
+
+    public LocalizationBuilder withMergedLocaleHierarchy() {
+        mergedLocaleHierarchy = true;
+        return this;
+    }
+
+    public LocalizationBuilder withResourcesWatching() {
+        resourcesWatching = true;
+        return this;
+    }
+
+    public LocalizationBuilder withPreloadedLocales(Collection<Locale> preloadedLocales) {
+        checkNotNull(preloadedLocales, "Parameter 'preloadedLocales' must be not null");
+        this.preloadedLocales = new ArrayList<Locale>(preloadedLocales);
+        return this;
+    }
+
+    public LocalizationBuilder withPreloadedLocales(Locale... preloadedLocales) {
+        checkNotNull(preloadedLocales, "Parameter 'preloadedLocales' must be not null");
+        return withPreloadedLocales(Arrays.asList(preloadedLocales));
+    }
+
+    public LocalizationBuilder withPreloadedLocalizables(Collection<Class<? extends Localizable>> preloadedLocalizables) {
+        checkNotNull(preloadedLocalizables, "Parameter 'preloadedLocalizables' must be not null");
+        this.preloadedLocalizables = new ArrayList<Class<? extends Localizable>>(preloadedLocalizables);
+        return this;
+    }
+
+    public LocalizationBuilder withPrecompiledMessages() {
+        precompiledMessages = true;
+        return this;
+    }
+
     public Localization build() {
         checkArgument(!resourceLocations.isEmpty(), "Parameter 'resourceLocations' must be set");
+        checkArgument(!resourcesWatching || (maxResourcesCachingTimeInSec == -1 && resourcesRefreshIntervalInSec == -1),
+                "Parameter 'resourcesWatching' can not be combined with resources caching time or refresh interval");
 
         if (localeResolver == null) {
             localeResolver = defaultLocaleResolver();
@@ -144,13 +253,22 @@ public class LocalizationBuilder {
                 .withLocaleResolver(localeResolver)
                 .withLocalizationLoader(localizationLoader)
                 .withMaxCacheTimeInSec(maxResourcesCachingTimeInSec)
+                .withRefreshIntervalInSec(resourcesRefreshIntervalInSec)
+                .withFailureCacheTimeInSec(failedResourcesCachingTimeInSec)
+                .withFallbackLocale(fallbackLocale)
+                .withMaxMessageCacheSize(maxMessageCacheSize)
+                .withMaxMessageCacheWeight(maxMessageCacheWeightInBytes)
                 .withLocations(resourceLocations)
                 .withResourceLoader(resourceLoader)
                 .withMessageFormatFactory(new DefaultMessageFormatFactory())
+                .withMessageTemplateFactory(nativeMessageFormatting ? new NativeMessageTemplateFactory() : null)
+                .withMergedLocaleHierarchy(mergedLocaleHierarchy)
+                .withResourceWatching(resourcesWatching)
                 .withPluralFormSelectorResolver(new DefaultPluralFormSelectorResolver())
                 .build();
 
-        return new DefaultLocalization(localizationProvider);
+        return new DefaultLocalization(localizationProvider, preloadedLocales, preloadedLocalizables,
+                precompiledMessages);
     }
 
 
@@ -17,20 +17,30 @@
 package com.vityuk.ginger.cache;
 
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import static com.vityuk.ginger.util.Preconditions.checkArgument;
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
 import static com.vityuk.ginger.util.Preconditions.checkState;
 
 public class CacheBuilder<K, V> {
     static final int UNSET_INT = -1;
 
     long expireAfterWriteNanos = UNSET_INT;
+    long refreshAfterWriteNanos = UNSET_INT;
+    long cacheFailuresNanos = UNSET_INT;
+    Executor refreshExecutor;
+    long maximumSize = UNSET_INT;
+    long maximumWeight = UNSET_INT;
+    Weigher<? super K, ? super V> weigher;
 
     public CacheBuilder() {
     }
 
     public <K1 extends K, V1 extends V> LoadingCache<K1, V1>  build(CacheLoader<? super K1, V1> cacheLoader) {
+        checkState(weigher == null || maximumWeight != UNSET_INT, "weigher requires maximumWeight");
+        checkState(maximumWeight == UNSET_INT || weigher != null, "maximumWeight requires weigher");
         return new LocalCache.LocalLoadingCache<K1, V1>(this, cacheLoader);
     }
 
@@ -41,4 +51,73 @@ public class CacheBuilder<K, V> {
         this.expireAfterWriteNanos = unit.toNanos(duration);
         return this;
     }
+
+    /**
+     * Cache failed loads for given duration. Until then reads of the same key fail with the cause of original
+     * failure without calling {@link CacheLoader}. Expired failures are removed as new ones are cached and at most
+     * {@value LocalCache#MAX_CACHED_FAILURES} failures are kept, the oldest ones are forgotten first. By default
+     * failures are not cached.
+     */
+    public CacheBuilder<K, V> cacheFailures(long duration, TimeUnit unit) {
+        checkState(cacheFailuresNanos == UNSET_INT, "cacheFailures was already set to %s ns", cacheFailuresNanos);
+        checkArgument(duration >= 0, "duration cannot be negative: %s %s", duration, unit);
+        this.cacheFailuresNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Refresh entries once given duration passed after value was loaded. Refresh is triggered by the first read of
+     * such entry and is performed asynchronously by {@link #refreshExecutor(Executor)}, meanwhile old value keeps
+     * being served. New value replaces old one atomically once {@link CacheLoader#reload(Object, Object)}
+     * completes, failed refresh keeps old value. Every entry adds random jitter of up to 10% of the duration, so
+     * entries loaded together are not refreshed all at the same moment.
+     */
+    public CacheBuilder<K, V> refreshAfterWrite(long duration, TimeUnit unit) {
+        checkState(refreshAfterWriteNanos == UNSET_INT, "refreshAfterWrite was already set to %s ns",
+                refreshAfterWriteNanos);
+        checkArgument(duration > 0, "duration must be positive: %s %s", duration, unit);
+        this.refreshAfterWriteNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Executor for refreshes, by default shared pool of daemon threads is used.
+     */
+    public CacheBuilder<K, V> refreshExecutor(Executor executor) {
+        checkState(refreshExecutor == null, "refreshExecutor was already set");
+        this.refreshExecutor = checkNotNull(executor);
+        return this;
+    }
+
+    /**
+     * Limit number of entries in the cache. When the limit is exceeded entries are evicted according to their
+     * access frequency, entries which are rarely used are evicted first.
+     */
+    public CacheBuilder<K, V> maximumSize(long size) {
+        checkState(maximumSize == UNSET_INT, "maximumSize was already set to %s", maximumSize);
+        checkState(maximumWeight == UNSET_INT, "maximumWeight was already set to %s", maximumWeight);
+        checkArgument(size >= 0, "maximumSize cannot be negative: %s", size);
+        this.maximumSize = size;
+        return this;
+    }
+
+    /**
+     * Limit total weight of entries in the cache, weights are calculated with {@link #weigher(Weigher)}.
+     * Eviction works the same way as for {@link #maximumSize(long)}.
+     */
+    public CacheBuilder<K, V> maximumWeight(long weight) {
+        checkState(maximumWeight == UNSET_INT, "maximumWeight was already set to %s", maximumWeight);
+        checkState(maximumSize == UNSET_INT, "maximumSize was already set to %s", maximumSize);
+        checkArgument(weight >= 0, "maximumWeight cannot be negative: %s", weight);
+        this.maximumWeight = weight;
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K1 extends K, V1 extends V> CacheBuilder<K1, V1> weigher(Weigher<? super K1, ? super V1> weigher) {
+        checkState(this.weigher == null, "weigher was already set");
+        CacheBuilder<K1, V1> self = (CacheBuilder<K1, V1>) this;
+        self.weigher = checkNotNull(weigher);
+        return self;
+    }
 }
@@ -18,4 +18,13 @@ package com.vityuk.ginger.cache;
 
 public abstract class CacheLoader<K, V> {
     public abstract V load(K localizable) throws Exception;
+
+    /**
+     * Compute new value for already cached key, called by caches built with
+     * {@link CacheBuilder#refreshAfterWrite(long, java.util.concurrent.TimeUnit)}. Old value keeps being served
+     * until this method completes. By default delegates to {@link #load(Object)}.
+     */
+    public V reload(K key, V oldValue) throws Exception {
+        return load(key);
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.cache;
+
+import static com.vityuk.ginger.util.Preconditions.checkArgument;
+
+/**
+ * Immutable snapshot of {@link LoadingCache} statistics.
+ * <p/>
+ * Every {@code get} is counted either as hit or as miss. Miss leads to a load, unless other thread already loads
+ * the same key. Background refreshes are counted as loads but not as misses.
+ *
+ * @author Andriy Vityuk
+ */
+public final class CacheStats {
+    public static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final long evictionCount;
+
+    public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                      long totalLoadTime, long evictionCount) {
+        checkArgument(hitCount >= 0);
+        checkArgument(missCount >= 0);
+        checkArgument(loadSuccessCount >= 0);
+        checkArgument(loadFailureCount >= 0);
+        checkArgument(totalLoadTime >= 0);
+        checkArgument(evictionCount >= 0);
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return ratio of hits to requests, {@code 1.0} when there were no requests
+     */
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * @return total time spent loading values, in nanoseconds
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * @return average time spent loading a value, in nanoseconds
+     */
+    public double getAverageLoadPenalty() {
+        long loadCount = loadSuccessCount + loadFailureCount;
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    /**
+     * @return number of entries evicted because of size or weight limit
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Combine statistics of two caches.
+     */
+    public CacheStats plus(CacheStats other) {
+        return new CacheStats(hitCount + other.hitCount, missCount + other.missCount,
+                loadSuccessCount + other.loadSuccessCount, loadFailureCount + other.loadFailureCount,
+                totalLoadTime + other.totalLoadTime, evictionCount + other.evictionCount);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        CacheStats that = (CacheStats) o;
+        return hitCount == that.hitCount && missCount == that.missCount &&
+                loadSuccessCount == that.loadSuccessCount && loadFailureCount == that.loadFailureCount &&
+                totalLoadTime == that.totalLoadTime && evictionCount == that.evictionCount;
+    }
+
+    @Override
+    public int hashCode() {
+        long result = hitCount;
+        result = 31 * result + missCount;
+        result = 31 * result + loadSuccessCount;
+        result = 31 * result + loadFailureCount;
+        result = 31 * result + totalLoadTime;
+        result = 31 * result + evictionCount;
+        return (int) (result ^ (result >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount +
+                ", loadSuccessCount=" + loadSuccessCount + ", loadFailureCount=" + loadFailureCount +
+                ", totalLoadTime=" + totalLoadTime + ", evictionCount=" + evictionCount + '}';
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.cache;
+
+/**
+ * Approximate access frequency counter (count-min sketch) used as TinyLFU admission filter by bounded caches.
+ * <p/>
+ * Keeps {@link #DEPTH} rows of 4-bit saturating counters, frequency of a key is the minimum of its counters.
+ * Once number of recorded accesses reaches ten times sketch width all counters are halved, so history ages and
+ * recently popular keys can take over from keys which were popular long ago.
+ * <p/>
+ * Updates are intentionally not synchronized: lost increments only make estimation slightly less accurate,
+ * which is acceptable for eviction decisions and keeps recording cost close to an array write.
+ *
+ * @author Andriy Vityuk
+ */
+final class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0xc2b2ae35, 0x85ebca6b, 0x27d4eb2f};
+
+    private final byte[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long maximumEntries) {
+        int width = tableWidth(maximumEntries);
+        this.table = new byte[width * DEPTH];
+        this.mask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            int index = indexOf(hash, i);
+            if (table[index] < MAX_COUNT) {
+                table[index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, table[indexOf(hash, i)]);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        additions = 0;
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (byte) (table[i] >>> 1);
+        }
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        h ^= h >>> 16;
+        return row * (mask + 1) + (h & mask);
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 17;
+        hash *= 0xed5ad4bb;
+        hash ^= hash >>> 11;
+        return hash;
+    }
+
+    private static int tableWidth(long maximumEntries) {
+        long width = 16;
+        while (width < maximumEntries && width < (1 << 22)) {
+            width <<= 1;
+        }
+        return (int) width;
+    }
+}
@@ -22,4 +22,28 @@ public interface LoadingCache<K, V> {
 
     V get(K key) throws ExecutionException;
     V getUnchecked(K key);
+
+    /**
+     * Get value only if it is already loaded, never triggers a load. Key is used only for lookup and is not retained
+     * by cache, so it can be reused by caller.
+     *
+     * @return cached value or {@code null}
+     */
+    V getIfPresent(K key);
+
+    /**
+     * Discard cached value of given key, next access loads it again. Load which is in progress for the key does not
+     * publish its result.
+     */
+    void invalidate(K key);
+
+    /**
+     * Discard all cached values.
+     */
+    void invalidateAll();
+
+    /**
+     * @return snapshot of statistics accumulated since cache was created
+     */
+    CacheStats stats();
 }
@@ -16,46 +16,585 @@
 
 package com.vityuk.ginger.cache;
 
-import com.vityuk.ginger.util.MiscUtils;
-import com.vityuk.ginger.util.Preconditions;
-
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+import static com.vityuk.ginger.util.Preconditions.checkState;
 
+/**
+ * Concurrent {@link LoadingCache} implementation built by {@link CacheBuilder}.
+ * <p/>
+ * Reads of loaded values never take a lock. Loads are performed per key: the first thread which misses a key
+ * installs a loading placeholder and runs {@link CacheLoader#load(Object)}, all other threads missing the same key
+ * wait for that single in-flight load instead of starting their own.
+ * <p/>
+ * Bounded caches evict with CLOCK sweep over loaded entries: every read marks an entry as used (up to
+ * {@link #MAX_ACCESS_COUNT} times), the sweep gives used entries another chance and evicts the first unused one.
+ * New entries additionally pass TinyLFU admission: when a new entry pushes the cache over its bound it competes
+ * with the eviction victim by their approximate access frequency, and the less frequent of them is evicted.
+ * This keeps hot keys resident even when a long tail of rarely used keys passes through the cache.
+ * <p/>
+ * Caches with failure caching remember failed load for its own duration and rethrow its cause without calling
+ * loader again. Failure is remembered together with the exception thrown for it, so repeated reads of a failed key
+ * neither load nor create new exceptions. Failures are kept in write order: expired ones and, above
+ * {@link #MAX_CACHED_FAILURES}, the oldest ones are removed whenever a new failure is cached, so failures of
+ * arbitrary keys requested once do not accumulate.
+ * <p/>
+ * Caches with refresh serve loaded value while it is being reloaded in background, only one refresh per entry
+ * runs at a time.
+ *
+ * @author Andriy Vityuk
+ */
 public class LocalCache {
+    static final int MAX_ACCESS_COUNT = 3;
+    static final int REFRESH_JITTER_DIVISOR = 10;
+    static final int MAX_CACHED_FAILURES = 1024;
+
+    private static final Logger logger = Logger.getLogger(LocalCache.class.getName());
 
     static class LocalLoadingCache<K, V> extends AbstractLoadingCache<K, V> {
 
-        private final Map<K, ExpireableValue<V>> map = new HashMap<K, ExpireableValue<V>>();
+        private final ConcurrentMap<K, ValueReference<V>> map = new ConcurrentHashMap<K, ValueReference<V>>();
         private final CacheLoader<? super K, V> cacheLoader;
         private final long expireAfterWriteNanos;
+        private final long cacheFailuresNanos;
+        private final long refreshAfterWriteNanos;
+        private final Executor refreshExecutor;
+
+        private final long maximumWeight;
+        private final Weigher<? super K, ? super V> weigher;
+        private final FrequencySketch frequencySketch;
+        private final Queue<LoadedValueReference<K, V>> evictionQueue;
+        private final AtomicLong totalWeight = new AtomicLong();
+        private final AtomicInteger staleReferences = new AtomicInteger();
+        private final Queue<FailedValueReference<K, V>> failureQueue;
+        private final AtomicInteger failureCount = new AtomicInteger();
+        private final Lock evictionLock = new ReentrantLock();
+        private final StatsCounter statsCounter = new StatsCounter();
 
+        @SuppressWarnings("unchecked")
         public LocalLoadingCache(CacheBuilder<? super K, ? super V> cacheBuilder, CacheLoader<? super K, V>  cacheLoader) {
             this.expireAfterWriteNanos = cacheBuilder.expireAfterWriteNanos;
-            this.cacheLoader = cacheLoader;
+            this.refreshAfterWriteNanos = cacheBuilder.refreshAfterWriteNanos;
+            this.cacheFailuresNanos = cacheBuilder.cacheFailuresNanos;
+            if (refreshAfterWriteNanos == CacheBuilder.UNSET_INT) {
+                this.refreshExecutor = null;
+            } else {
+                this.refreshExecutor = cacheBuilder.refreshExecutor == null ? DefaultRefreshExecutorHolder.EXECUTOR :
+                        cacheBuilder.refreshExecutor;
+            }
+            this.cacheLoader = checkNotNull(cacheLoader);
+
+            if (cacheBuilder.maximumSize != CacheBuilder.UNSET_INT) {
+                this.maximumWeight = cacheBuilder.maximumSize;
+                this.weigher = null;
+                this.frequencySketch = new FrequencySketch(cacheBuilder.maximumSize);
+            } else if (cacheBuilder.maximumWeight != CacheBuilder.UNSET_INT) {
+                this.maximumWeight = cacheBuilder.maximumWeight;
+                this.weigher = (Weigher<? super K, ? super V>) cacheBuilder.weigher;
+                this.frequencySketch = new FrequencySketch(Math.min(cacheBuilder.maximumWeight, 1 << 16));
+            } else {
+                this.maximumWeight = CacheBuilder.UNSET_INT;
+                this.weigher = null;
+                this.frequencySketch = null;
+            }
+            this.evictionQueue = isBounded() ? new ConcurrentLinkedQueue<LoadedValueReference<K, V>>() : null;
+            this.failureQueue = cacheFailuresNanos != CacheBuilder.UNSET_INT ?
+                    new ConcurrentLinkedQueue<FailedValueReference<K, V>>() : null;
         }
 
         @Override
         public V get(K key) throws ExecutionException {
-            synchronized (map) {
-                ExpireableValue<V> v = map.get(key);
-                if (v != null && v.isExpired()) {
-                    map.remove(key);
-                    v = null;
+            V value = getIfPresent(key);
+            return value != null ? value : getOrLoad(key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getIfPresent(K key) {
+            checkNotNull(key);
+            ValueReference<V> valueReference = map.get(key);
+            if (valueReference instanceof LoadedValueReference && !isExpired(valueReference)) {
+                LoadedValueReference<K, V> loadedReference = (LoadedValueReference<K, V>) valueReference;
+                statsCounter.recordHit();
+                if (isBounded()) {
+                    recordAccess(loadedReference);
+                }
+                if (refreshAfterWriteNanos != CacheBuilder.UNSET_INT) {
+                    refreshIfNeeded(loadedReference);
+                }
+                return loadedReference.value;
+            }
+            return null;
+        }
+
+        @Override
+        public void invalidate(K key) {
+            checkNotNull(key);
+            ValueReference<V> valueReference = map.remove(key);
+            if (valueReference instanceof LoadedValueReference && isBounded()) {
+                onRemoval(valueReference);
+            }
+        }
+
+        @Override
+        public void invalidateAll() {
+            for (K key : map.keySet()) {
+                invalidate(key);
+            }
+        }
+
+        @Override
+        public CacheStats stats() {
+            return statsCounter.snapshot();
+        }
+
+        private V getOrLoad(K key) throws ExecutionException {
+            for (; ; ) {
+                ValueReference<V> valueReference = map.get(key);
+                if (valueReference != null) {
+                    if (valueReference.isLoading()) {
+                        statsCounter.recordMiss();
+                        return valueReference.waitForValue();
+                    }
+                    if (!isExpired(valueReference)) {
+                        statsCounter.recordHit();
+                        return valueReference.getValue();
+                    }
+                }
+
+                LoadingValueReference<K, V> loadingReference = new LoadingValueReference<K, V>(key, cacheLoader);
+                boolean installed = valueReference == null ? map.putIfAbsent(key, loadingReference) == null
+                        : map.replace(key, valueReference, loadingReference);
+                if (installed) {
+                    statsCounter.recordMiss();
+                    if (valueReference instanceof LoadedValueReference && isBounded()) {
+                        onRemoval(valueReference);
+                    }
+                    return load(key, loadingReference);
+                }
+                // Lost the race with another thread, start over with the winner's entry
+            }
+        }
+
+        private V load(K key, LoadingValueReference<K, V> loadingReference) throws ExecutionException {
+            long startNanos = System.nanoTime();
+            try {
+                V value = loadingReference.load();
+                // Weigher may reject loaded value, it is reported as failed load then
+                LoadedValueReference<K, V> loadedReference = newLoadedReference(key, value);
+                statsCounter.recordLoadSuccess(System.nanoTime() - startNanos);
+                if (map.replace(key, loadingReference, loadedReference) && isBounded()) {
+                    onInsertion(loadedReference);
+                }
+                return value;
+            } catch (RuntimeException e) {
+                statsCounter.recordLoadFailure(System.nanoTime() - startNanos);
+                // Loading placeholder must never stay in the map, next access will try to load again
+                map.remove(key, loadingReference);
+                throw e;
+            } catch (ExecutionException e) {
+                statsCounter.recordLoadFailure(System.nanoTime() - startNanos);
+                if (cacheFailuresNanos == CacheBuilder.UNSET_INT) {
+                    // Failures are not cached, next access will try to load again
+                    map.remove(key, loadingReference);
+                } else {
+                    FailedValueReference<K, V> failedReference =
+                            new FailedValueReference<K, V>(key, e, System.nanoTime());
+                    if (map.replace(key, loadingReference, failedReference)) {
+                        onFailure(failedReference);
+                    }
+                }
+                throw e;
+            }
+        }
+
+        private void onFailure(FailedValueReference<K, V> failedReference) {
+            failureQueue.offer(failedReference);
+            failureCount.incrementAndGet();
+            // Failures share the same duration, so the queue is ordered by expiration
+            for (; ; ) {
+                FailedValueReference<K, V> oldest = failureQueue.peek();
+                if (oldest == null || failureCount.get() <= MAX_CACHED_FAILURES && !isExpired(oldest)) {
+                    return;
                 }
-                if (v == null) {
+                if (failureQueue.remove(oldest)) {
+                    failureCount.decrementAndGet();
+                    map.remove(oldest.key, oldest);
+                }
+            }
+        }
+
+        int size() {
+            return map.size();
+        }
+
+        private boolean isExpired(ValueReference<V> valueReference) {
+            long expireNanos = valueReference instanceof FailedValueReference ? cacheFailuresNanos :
+                    expireAfterWriteNanos;
+            return expireNanos != CacheBuilder.UNSET_INT &&
+                    System.nanoTime() - valueReference.getWriteNanos() >= expireNanos;
+        }
+
+        private LoadedValueReference<K, V> newLoadedReference(K key, V value) {
+            long writeNanos = System.nanoTime();
+            long refreshNanos = 0;
+            if (refreshAfterWriteNanos != CacheBuilder.UNSET_INT) {
+                long jitterBound = refreshAfterWriteNanos / REFRESH_JITTER_DIVISOR;
+                refreshNanos = writeNanos + refreshAfterWriteNanos +
+                        (jitterBound > 0 ? ThreadLocalRandom.current().nextLong(jitterBound) : 0);
+            }
+            return new LoadedValueReference<K, V>(key, value, writeNanos, refreshNanos, weigh(key, value));
+        }
+
+        private void refreshIfNeeded(final LoadedValueReference<K, V> oldReference) {
+            // Key of the entry is used rather than the one passed to get, the latter is only used for lookup
+            final K key = oldReference.key;
+            if (System.nanoTime() - oldReference.refreshNanos < 0 || !oldReference.startRefresh()) {
+                return;
+            }
+            try {
+                refreshExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        refresh(key, oldReference);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                oldReference.cancelRefresh();
+                logger.log(Level.WARNING, "Refresh of key " + key + " was rejected", e);
+            }
+        }
+
+        private void refresh(K key, LoadedValueReference<K, V> oldReference) {
+            LoadedValueReference<K, V> newReference;
+            long startNanos = System.nanoTime();
+            try {
+                V value = checkNotNull(cacheLoader.reload(key, oldReference.value),
+                        "CacheLoader returned null for key %s", key);
+                newReference = newLoadedReference(key, value);
+                statsCounter.recordLoadSuccess(System.nanoTime() - startNanos);
+            } catch (Throwable e) {
+                statsCounter.recordLoadFailure(System.nanoTime() - startNanos);
+                // Keep serving old value, next read after refresh time will try again
+                oldReference.cancelRefresh();
+                logger.log(Level.WARNING, "Refresh of key " + key + " failed", e);
+                return;
+            }
+            if (map.replace(key, oldReference, newReference) && isBounded()) {
+                onRemoval(oldReference);
+                onInsertion(newReference);
+            }
+        }
+
+        private boolean isBounded() {
+            return maximumWeight != CacheBuilder.UNSET_INT;
+        }
+
+        private int weigh(K key, V value) {
+            if (weigher == null) {
+                return 1;
+            }
+            int weight = weigher.weigh(key, value);
+            checkState(weight >= 0, "Weigher returned negative weight %s for key %s", weight, key);
+            return weight;
+        }
+
+        private void recordAccess(LoadedValueReference<K, V> loadedReference) {
+            loadedReference.recordAccess();
+            frequencySketch.increment(loadedReference.key);
+        }
+
+        private void onInsertion(LoadedValueReference<K, V> loadedReference) {
+            frequencySketch.increment(loadedReference.key);
+            evictionQueue.offer(loadedReference);
+            if (totalWeight.addAndGet(loadedReference.weight) > maximumWeight) {
+                evict(loadedReference);
+            }
+        }
+
+        private void onRemoval(ValueReference<V> valueReference) {
+            totalWeight.addAndGet(-((LoadedValueReference<?, ?>) valueReference).weight);
+            // Replaced references are dropped from eviction queue lazily, purge them once they pile up
+            if (staleReferences.incrementAndGet() > map.size() && evictionLock.tryLock()) {
+                try {
+                    purgeStaleReferences();
+                } finally {
+                    evictionLock.unlock();
+                }
+            }
+        }
+
+        private void evict(LoadedValueReference<K, V> candidate) {
+            evictionLock.lock();
+            try {
+                while (totalWeight.get() > maximumWeight) {
+                    LoadedValueReference<K, V> victim = nextVictim(candidate);
+                    if (victim == null) {
+                        return;
+                    }
+                    if (candidate != null && victim != candidate && frequencySketch.frequency(victim.key) >
+                            frequencySketch.frequency(candidate.key)) {
+                        // Victim is used more often than the new entry, keep it and reject new entry instead
+                        evictionQueue.offer(victim);
+                        if (remove(candidate)) {
+                            // Rejected entry is still in the queue
+                            staleReferences.incrementAndGet();
+                            statsCounter.recordEviction();
+                        }
+                    } else if (remove(victim)) {
+                        statsCounter.recordEviction();
+                    }
+                    candidate = null;
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+
+        private boolean remove(LoadedValueReference<K, V> reference) {
+            if (map.remove(reference.key, reference)) {
+                totalWeight.addAndGet(-reference.weight);
+                return true;
+            }
+            return false;
+        }
+
+        private LoadedValueReference<K, V> nextVictim(LoadedValueReference<K, V> candidate) {
+            for (; ; ) {
+                LoadedValueReference<K, V> reference = evictionQueue.poll();
+                if (reference == null) {
+                    return null;
+                }
+                if (!isResident(reference)) {
+                    staleReferences.decrementAndGet();
+                    continue;
+                }
+                if (reference == candidate && !evictionQueue.isEmpty()) {
+                    // New entry competes with the victim only after the sweep
+                    evictionQueue.offer(reference);
+                    continue;
+                }
+                if (reference.resetAccess()) {
+                    // Second chance
+                    evictionQueue.offer(reference);
+                    continue;
+                }
+                return reference;
+            }
+        }
+
+        private void purgeStaleReferences() {
+            for (Iterator<LoadedValueReference<K, V>> iterator = evictionQueue.iterator(); iterator.hasNext(); ) {
+                if (!isResident(iterator.next())) {
+                    iterator.remove();
+                    staleReferences.decrementAndGet();
+                }
+            }
+        }
+
+        private boolean isResident(LoadedValueReference<K, V> reference) {
+            return map.get(reference.key) == reference;
+        }
+    }
+
+    private static abstract class ValueReference<V> {
+        abstract V getValue() throws ExecutionException;
+
+        abstract long getWriteNanos();
+
+        abstract boolean isLoading();
+
+        abstract V waitForValue() throws ExecutionException;
+    }
+
+    private static final class LoadedValueReference<K, V> extends ValueReference<V> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<LoadedValueReference> REFRESHING_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(LoadedValueReference.class, "refreshing");
+
+        private final K key;
+        private final V value;
+        private final long writeNanos;
+        private final long refreshNanos;
+        private final int weight;
+        // Not volatile on purpose, lost updates only affect eviction order
+        private int accessCount;
+        private volatile int refreshing;
+
+        LoadedValueReference(K key, V value, long writeNanos, long refreshNanos, int weight) {
+            this.key = key;
+            this.value = value;
+            this.writeNanos = writeNanos;
+            this.refreshNanos = refreshNanos;
+            this.weight = weight;
+        }
+
+        boolean startRefresh() {
+            return REFRESHING_UPDATER.compareAndSet(this, 0, 1);
+        }
+
+        void cancelRefresh() {
+            refreshing = 0;
+        }
+
+        void recordAccess() {
+            if (accessCount < MAX_ACCESS_COUNT) {
+                accessCount++;
+            }
+        }
+
+        boolean resetAccess() {
+            if (accessCount == 0) {
+                return false;
+            }
+            accessCount--;
+            return true;
+        }
+
+        @Override
+        V getValue() {
+            return value;
+        }
+
+        @Override
+        long getWriteNanos() {
+            return writeNanos;
+        }
+
+        @Override
+        boolean isLoading() {
+            return false;
+        }
+
+        @Override
+        V waitForValue() {
+            return value;
+        }
+    }
+
+    private static final class FailedValueReference<K, V> extends ValueReference<V> {
+        private final K key;
+        private final ExecutionException exception;
+        private final long writeNanos;
+
+        FailedValueReference(K key, ExecutionException exception, long writeNanos) {
+            this.key = key;
+            this.exception = exception;
+            this.writeNanos = writeNanos;
+        }
+
+        @Override
+        V getValue() throws ExecutionException {
+            throw exception;
+        }
+
+        @Override
+        long getWriteNanos() {
+            return writeNanos;
+        }
+
+        @Override
+        boolean isLoading() {
+            return false;
+        }
+
+        @Override
+        V waitForValue() throws ExecutionException {
+            return getValue();
+        }
+    }
+
+    private static final class LoadingValueReference<K, V> extends ValueReference<V> {
+        private final FutureTask<V> futureTask;
+        private volatile Thread loadingThread;
+
+        LoadingValueReference(final K key, final CacheLoader<? super K, V> cacheLoader) {
+            this.futureTask = new FutureTask<V>(new Callable<V>() {
+                @Override
+                public V call() throws Exception {
+                    return checkNotNull(cacheLoader.load(key), "CacheLoader returned null for key %s", key);
+                }
+            });
+        }
+
+        V load() throws ExecutionException {
+            loadingThread = Thread.currentThread();
+            try {
+                futureTask.run();
+            } finally {
+                loadingThread = null;
+            }
+            return waitForValue();
+        }
+
+        @Override
+        V getValue() {
+            throw new IllegalStateException("Value is still loading");
+        }
+
+        @Override
+        long getWriteNanos() {
+            throw new IllegalStateException("Value is still loading");
+        }
+
+        @Override
+        boolean isLoading() {
+            return true;
+        }
+
+        @Override
+        V waitForValue() throws ExecutionException {
+            if (loadingThread == Thread.currentThread()) {
+                throw new ExecutionException(new IllegalStateException("Recursive load of the same key"));
+            }
+            boolean interrupted = false;
+            try {
+                for (; ; ) {
                     try {
-                        V value = cacheLoader.load(key);
-                        Preconditions.checkNotNull(value);
-                        v = new ExpireableValue<V>(value, expireAfterWriteNanos);
-                        map.put(key, v);
-                    } catch (Throwable e) {
-                        throw new ExecutionException(e);
+                        return futureTask.get();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
                     }
                 }
-                return v.getValue();
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
             }
         }
     }
+
+    private static final class DefaultRefreshExecutorHolder {
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ginger-cache-refresh-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
 }
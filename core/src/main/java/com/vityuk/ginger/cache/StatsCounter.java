@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.cache;
+
+/**
+ * Accumulates statistics of a cache, see {@link CacheStats}.
+ *
+ * @author Andriy Vityuk
+ */
+final class StatsCounter {
+    private final StripedCounter hitCount = new StripedCounter();
+    private final StripedCounter missCount = new StripedCounter();
+    private final StripedCounter loadSuccessCount = new StripedCounter();
+    private final StripedCounter loadFailureCount = new StripedCounter();
+    private final StripedCounter totalLoadTime = new StripedCounter();
+    private final StripedCounter evictionCount = new StripedCounter();
+
+    void recordHit() {
+        hitCount.increment();
+    }
+
+    void recordMiss() {
+        missCount.increment();
+    }
+
+    void recordLoadSuccess(long loadTimeNanos) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadTimeNanos);
+    }
+
+    void recordLoadFailure(long loadTimeNanos) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadTimeNanos);
+    }
+
+    void recordEviction() {
+        evictionCount.increment();
+    }
+
+    CacheStats snapshot() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(),
+                totalLoadTime.sum(), evictionCount.sum());
+    }
+}
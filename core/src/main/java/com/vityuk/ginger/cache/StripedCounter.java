@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter optimized for frequent updates from many threads and rare reads.
+ * <p/>
+ * Updates are spread over several cells chosen by thread id, every cell occupies its own cache line, so threads
+ * updating the counter concurrently rarely contend on the same memory. Reading sums all cells, the result is not
+ * an atomic snapshot when updates are in progress.
+ *
+ * @author Andriy Vityuk
+ */
+final class StripedCounter {
+    private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+    // 8 longs fill 64 bytes cache line
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    void increment() {
+        add(1);
+    }
+
+    void add(long value) {
+        int index = ((int) Thread.currentThread().getId() & (STRIPES - 1)) * PADDING;
+        cells.getAndAdd(index, value);
+    }
+
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    private static int stripes(int processors) {
+        int stripes = 1;
+        while (stripes < processors && stripes < 64) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+}
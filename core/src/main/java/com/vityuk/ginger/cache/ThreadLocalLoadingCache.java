@@ -28,20 +28,25 @@ import static com.vityuk.ginger.util.Preconditions.checkNotNull;
 /**
  * This is basic {@link LoadingCache} implementation with thread local storage. It can be useful for caching
  * non-thread safe resources.
+ * <p/>
+ * Values cached by other threads can not be reached, so invalidation of any key drops values of all keys of all
+ * threads, each thread clears its storage on next access.
  *
  * @param <K> - type of cache key
  * @param <V> - type of cached value
  * @author Andriy Vityuk
  */
 public abstract class ThreadLocalLoadingCache<K, V> extends AbstractLoadingCache<K, V> {
-    private final ThreadLocal<Map<K, Object>> threadLocalCache = new ThreadLocal<Map<K, Object>>() {
+    private final ThreadLocal<ThreadCache<K>> threadLocalCache = new ThreadLocal<ThreadCache<K>>() {
         @Override
-        protected Map<K, Object> initialValue() {
-            return new HashMap<K, Object>();
+        protected ThreadCache<K> initialValue() {
+            return new ThreadCache<K>(generation);
         }
     };
+    private volatile int generation;
 
     private final CacheLoader<K, V> cacheLoader;
+    private final StatsCounter statsCounter = new StatsCounter();
 
     /**
      * Create {@code ThreadLocalLoadingCache} instance.
@@ -84,22 +89,68 @@ public abstract class ThreadLocalLoadingCache<K, V> extends AbstractLoadingCache
         Map<K, Object> cache = getCache();
         V value = getFromCache(cache, checkNotNull(key));
         if (value != null) {
+            statsCounter.recordHit();
             return value;
         }
+        statsCounter.recordMiss();
 
         V loadedValue;
+        long startNanos = System.nanoTime();
         try {
             loadedValue = checkNotNull(cacheLoader.load(key));
         } catch (Exception e) {
+            statsCounter.recordLoadFailure(System.nanoTime() - startNanos);
             throw new ExecutionException(e);
         }
+        statsCounter.recordLoadSuccess(System.nanoTime() - startNanos);
         storeInCache(cache, key, loadedValue);
 
         return loadedValue;
     }
 
+    @Override
+    public V getIfPresent(K key) {
+        V value = getFromCache(getCache(), checkNotNull(key));
+        if (value != null) {
+            statsCounter.recordHit();
+        }
+        return value;
+    }
+
+    @Override
+    public void invalidate(K key) {
+        checkNotNull(key);
+        invalidateAll();
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        generation++;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
     private Map<K, Object> getCache() {
-        return threadLocalCache.get();
+        ThreadCache<K> cache = threadLocalCache.get();
+        int currentGeneration = generation;
+        if (cache.generation != currentGeneration) {
+            cache.clear();
+            cache.generation = currentGeneration;
+        }
+        return cache;
+    }
+
+    private static class ThreadCache<K> extends HashMap<K, Object> {
+        private static final long serialVersionUID = 3154626418402386453L;
+
+        private int generation;
+
+        ThreadCache(int generation) {
+            this.generation = generation;
+        }
     }
 
     private static class DefaultThreadLocalLoadingCache<K, V> extends ThreadLocalLoadingCache<K, V> {
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.cache;
+
+/**
+ * Calculates weights of cache entries, used by {@link CacheBuilder#maximumWeight(long)}.
+ * <p/>
+ * Weight is evaluated once when entry is loaded, so it must not depend on mutable state.
+ *
+ * @author Andriy Vityuk
+ */
+public interface Weigher<K, V> {
+    /**
+     * Calculate weight of cache entry. There is no unit for weights, it is up to implementation to choose one
+     * (e.g. estimated size in bytes).
+     *
+     * @param key   entry key
+     * @param value entry value
+     * @return non negative entry weight
+     */
+    int weigh(K key, V value);
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.loader;
+
+import com.vityuk.ginger.PropertyResolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base {@link PropertyResolver} of loaded resources. Typed values are parsed on first access and memoized next to the
+ * raw value, so repeated reads of the same key neither parse nor allocate. Property keeps only the last parsed value,
+ * which is enough for the common case of a key always read as the same type.
+ *
+ * @author Andriy Vityuk
+ */
+abstract class AbstractPropertyResolver implements PropertyResolver {
+    @Override
+    public String getString(String key) {
+        Property property = getProperty(key);
+        return property == null ? null : property.value;
+    }
+
+    @Override
+    public Boolean getBoolean(String key) {
+        Property property = getProperty(key);
+        if (property == null || property.value == null) {
+            return null;
+        }
+        Object parsedValue = property.parsedValue;
+        if (parsedValue instanceof Boolean) {
+            return (Boolean) parsedValue;
+        }
+        Boolean value = Boolean.valueOf(property.value);
+        property.parsedValue = value;
+        return value;
+    }
+
+    @Override
+    public Integer getInteger(String key) {
+        Property property = getProperty(key);
+        if (property == null || property.value == null) {
+            return null;
+        }
+        Object parsedValue = property.parsedValue;
+        if (parsedValue instanceof Integer) {
+            return (Integer) parsedValue;
+        }
+        Integer value = Integer.valueOf(property.value);
+        property.parsedValue = value;
+        return value;
+    }
+
+    @Override
+    public Long getLong(String key) {
+        Property property = getProperty(key);
+        if (property == null || property.value == null) {
+            return null;
+        }
+        Object parsedValue = property.parsedValue;
+        if (parsedValue instanceof Long) {
+            return (Long) parsedValue;
+        }
+        Long value = Long.valueOf(property.value);
+        property.parsedValue = value;
+        return value;
+    }
+
+    @Override
+    public Float getFloat(String key) {
+        Property property = getProperty(key);
+        if (property == null || property.value == null) {
+            return null;
+        }
+        Object parsedValue = property.parsedValue;
+        if (parsedValue instanceof Float) {
+            return (Float) parsedValue;
+        }
+        Float value = Float.valueOf(property.value);
+        property.parsedValue = value;
+        return value;
+    }
+
+    @Override
+    public Double getDouble(String key) {
+        Property property = getProperty(key);
+        if (property == null || property.value == null) {
+            return null;
+        }
+        Object parsedValue = property.parsedValue;
+        if (parsedValue instanceof Double) {
+            return (Double) parsedValue;
+        }
+        Double value = Double.valueOf(property.value);
+        property.parsedValue = value;
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<String> getStringList(String key) {
+        Property property = getProperty(key);
+        if (property == null || property.value == null) {
+            return null;
+        }
+        Object parsedValue = property.parsedValue;
+        if (parsedValue instanceof List) {
+            return (List<String>) parsedValue;
+        }
+        List<String> value = parseStringList(property.value);
+        property.parsedValue = value;
+        return value;
+    }
+
+    @Override
+    public Map<String, String> getStringMap(String key) {
+        Property property = getProperty(key);
+        return property == null ? null : property.map;
+    }
+
+    /**
+     * Get property of key.
+     *
+     * @param key property key, must be not {@code null}
+     * @return property or {@code null} if there is no property with such key
+     */
+    protected abstract Property getProperty(String key);
+
+    private static List<String> parseStringList(String value) {
+        String[] split = value.split(",");
+        List<String> list = new ArrayList<String>(split.length);
+        for (String item: split) {
+            String it = item.trim();
+            if (!it.isEmpty()) {
+                list.add(it);
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Raw values of a single key together with the last parsed typed value. Parsed values are immutable, so racing
+     * threads may parse the same value twice, but never observe partially constructed one.
+     */
+    static final class Property {
+        private final Map<String, String> map;
+        private final String value;
+        private volatile Object parsedValue;
+
+        Property(Map<String, String> map) {
+            this.map = Collections.unmodifiableMap(map);
+            this.value = map.get("");
+        }
+    }
+}
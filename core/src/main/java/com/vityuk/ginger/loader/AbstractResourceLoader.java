@@ -42,12 +42,14 @@ public abstract class AbstractResourceLoader implements ResourceLoader {
 
     @Override
     public final InputStream openStream(String location) throws IOException {
+        return openResource(getPath(location));
+    }
+
+    protected final String getPath(String location) {
         checkNotNull(location);
         Matcher matcher = matcher(location);
         checkArgument(matcher.matches(), "Unsupported location");
-        String path = matcher.group(1);
-
-        return openResource(path);
+        return matcher.group(1);
     }
 
     private Matcher matcher(String location) {
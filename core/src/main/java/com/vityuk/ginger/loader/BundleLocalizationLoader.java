@@ -0,0 +1,246 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.loader;
+
+import com.vityuk.ginger.PropertyResolver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * Localization loader for compiled bundles written by {@link BundleWriter}.
+ * <p/>
+ * Bundle is used in place: only its header is read on load, keys are found with binary search over key hashes and
+ * values of a key are decoded on first access, so load time does not depend on bundle size. Content of
+ * {@link ByteBufferInputStream}, e.g. file mapped by {@link MappedFileResourceLoader}, is used without copying, other
+ * streams are read into heap buffer.
+ * <p/>
+ * Bundle layout, all integers are big-endian:
+ * <pre>
+ * header       magic "GBND", version, property count, entry count, string count, size of string data
+ * key index    key hash, key string, first entry and entry count of each property, sorted by key hash
+ * entries      map key string and value string of each entry, simple value has empty map key
+ * string pool  offsets of strings in string data, followed by offset of its end, and string data
+ * </pre>
+ * Strings in the pool are unique, each {@code char} is encoded in UTF-8 separately, i.e. supplementary characters are
+ * stored as surrogate pairs.
+ *
+ * @author Andriy Vityuk
+ */
+public class BundleLocalizationLoader implements LocalizationLoader {
+    static final int MAGIC = 0x47424E44;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int KEY_RECORD_SIZE = 16;
+    static final int ENTRY_RECORD_SIZE = 8;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public PropertyResolver load(InputStream inputStream) throws IOException {
+        checkNotNull(inputStream);
+        ByteBuffer buffer;
+        if (inputStream instanceof ByteBufferInputStream) {
+            buffer = ((ByteBufferInputStream) inputStream).getByteBuffer();
+        } else {
+            buffer = readFully(inputStream);
+        }
+        return new BundlePropertyResolver(buffer);
+    }
+
+    private static ByteBuffer readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(BUFFER_SIZE);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, count);
+        }
+        return ByteBuffer.wrap(outputStream.toByteArray());
+    }
+
+    /**
+     * Resolver of properties stored in bundle, decoded properties are kept by their index in key index.
+     */
+    private static final class BundlePropertyResolver extends AbstractPropertyResolver {
+        private final ByteBuffer buffer;
+        private final int propertyCount;
+        private final int entriesPosition;
+        private final int stringOffsetsPosition;
+        private final int stringDataPosition;
+        private final AtomicReferenceArray<Property> properties;
+        private volatile Set<String> keys;
+
+        public BundlePropertyResolver(ByteBuffer buffer) throws IOException {
+            this.buffer = buffer.slice();
+            if (this.buffer.remaining() < HEADER_SIZE || this.buffer.getInt(0) != MAGIC) {
+                throw new IOException("Invalid bundle format");
+            }
+            int version = this.buffer.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported bundle version: " + version);
+            }
+            propertyCount = this.buffer.getInt(8);
+            int entryCount = this.buffer.getInt(12);
+            int stringCount = this.buffer.getInt(16);
+            int stringDataSize = this.buffer.getInt(20);
+            if (propertyCount < 0 || entryCount < 0 || stringCount < 0 || stringDataSize < 0) {
+                throw new IOException("Invalid bundle format");
+            }
+            long size = HEADER_SIZE + (long) propertyCount * KEY_RECORD_SIZE + (long) entryCount * ENTRY_RECORD_SIZE +
+                    (stringCount + 1L) * 4 + stringDataSize;
+            if (size > this.buffer.remaining()) {
+                throw new IOException("Truncated bundle, expected size: " + size);
+            }
+            entriesPosition = HEADER_SIZE + propertyCount * KEY_RECORD_SIZE;
+            stringOffsetsPosition = entriesPosition + entryCount * ENTRY_RECORD_SIZE;
+            stringDataPosition = stringOffsetsPosition + (stringCount + 1) * 4;
+            properties = new AtomicReferenceArray<Property>(propertyCount);
+        }
+
+        @Override
+        public Set<String> getKeys() {
+            Set<String> keys = this.keys;
+            if (keys == null) {
+                Set<String> newKeys = new HashSet<String>(propertyCount * 4 / 3 + 1);
+                for (int i = 0; i < propertyCount; i++) {
+                    newKeys.add(getString(buffer.getInt(getKeyRecordPosition(i) + 4)));
+                }
+                keys = Collections.unmodifiableSet(newKeys);
+                this.keys = keys;
+            }
+            return keys;
+        }
+
+        @Override
+        protected Property getProperty(String key) {
+            int index = indexOf(checkNotNull(key));
+            if (index == -1) {
+                return null;
+            }
+            Property property = properties.get(index);
+            if (property == null) {
+                property = createProperty(index);
+                if (!properties.compareAndSet(index, null, property)) {
+                    // Concurrently decoded property is used, so parsed values are shared
+                    property = properties.get(index);
+                }
+            }
+            return property;
+        }
+
+        private int indexOf(String key) {
+            int hash = key.hashCode();
+            int low = 0;
+            int high = propertyCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (buffer.getInt(getKeyRecordPosition(middle)) < hash) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            // low is the first record with the same or greater hash
+            for (int i = low; i < propertyCount; i++) {
+                int position = getKeyRecordPosition(i);
+                if (buffer.getInt(position) != hash) {
+                    break;
+                }
+                if (isStringEqual(buffer.getInt(position + 4), key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Property createProperty(int index) {
+            int position = getKeyRecordPosition(index);
+            int firstEntry = buffer.getInt(position + 8);
+            int entryCount = buffer.getInt(position + 12);
+            Map<String, String> map = new HashMap<String, String>(entryCount * 4 / 3 + 1);
+            for (int i = firstEntry; i < firstEntry + entryCount; i++) {
+                int entryPosition = entriesPosition + i * ENTRY_RECORD_SIZE;
+                map.put(getString(buffer.getInt(entryPosition)), getString(buffer.getInt(entryPosition + 4)));
+            }
+            return new Property(map);
+        }
+
+        private String getString(int stringId) {
+            int position = stringDataPosition + getStringOffset(stringId);
+            int end = stringDataPosition + getStringOffset(stringId + 1);
+            char[] chars = new char[end - position];
+            int length = 0;
+            while (position < end) {
+                chars[length++] = decodeChar(position);
+                position += getEncodedLength(buffer.get(position));
+            }
+            return new String(chars, 0, length);
+        }
+
+        private boolean isStringEqual(int stringId, String value) {
+            int position = stringDataPosition + getStringOffset(stringId);
+            int end = stringDataPosition + getStringOffset(stringId + 1);
+            int length = value.length();
+            int index = 0;
+            while (position < end) {
+                if (index == length || decodeChar(position) != value.charAt(index)) {
+                    return false;
+                }
+                index++;
+                position += getEncodedLength(buffer.get(position));
+            }
+            return index == length;
+        }
+
+        private char decodeChar(int position) {
+            int first = buffer.get(position);
+            if (first >= 0) {
+                return (char) first;
+            }
+            if ((first & 0xe0) == 0xc0) {
+                return (char) (((first & 0x1f) << 6) | (buffer.get(position + 1) & 0x3f));
+            }
+            return (char) (((first & 0x0f) << 12) | ((buffer.get(position + 1) & 0x3f) << 6) |
+                    (buffer.get(position + 2) & 0x3f));
+        }
+
+        private int getStringOffset(int stringId) {
+            return buffer.getInt(stringOffsetsPosition + stringId * 4);
+        }
+
+        private static int getKeyRecordPosition(int index) {
+            return HEADER_SIZE + index * KEY_RECORD_SIZE;
+        }
+
+        private static int getEncodedLength(byte first) {
+            if (first >= 0) {
+                return 1;
+            }
+            return (first & 0xe0) == 0xc0 ? 2 : 3;
+        }
+    }
+}
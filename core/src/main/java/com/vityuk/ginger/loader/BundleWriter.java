@@ -0,0 +1,170 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.loader;
+
+import com.vityuk.ginger.PropertyResolver;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.vityuk.ginger.loader.BundleLocalizationLoader.MAGIC;
+import static com.vityuk.ginger.loader.BundleLocalizationLoader.VERSION;
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * Writer of compiled bundles, see {@link BundleLocalizationLoader} for bundle layout. Output depends only on properties
+ * content, so the same resources are always compiled into the same bundle.
+ *
+ * @author Andriy Vityuk
+ */
+public class BundleWriter {
+    private static final Comparator<String> KEY_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String key1, String key2) {
+            int hash1 = key1.hashCode();
+            int hash2 = key2.hashCode();
+            if (hash1 != hash2) {
+                return hash1 < hash2 ? -1 : 1;
+            }
+            return key1.compareTo(key2);
+        }
+    };
+
+    /**
+     * Write all properties of {@code propertyResolver} as bundle, stream is flushed but not closed.
+     *
+     * @param propertyResolver properties to write, must be not {@code null}
+     * @param outputStream     output stream, must be not {@code null}
+     */
+    public void write(PropertyResolver propertyResolver, OutputStream outputStream) throws IOException {
+        checkNotNull(propertyResolver);
+        checkNotNull(outputStream);
+
+        List<String> keys = new ArrayList<String>(propertyResolver.getKeys());
+        Collections.sort(keys, KEY_ORDER);
+
+        StringPool stringPool = new StringPool();
+        int[] keyStrings = new int[keys.size()];
+        int[] entryCounts = new int[keys.size()];
+        List<Integer> entryStrings = new ArrayList<Integer>();
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            keyStrings[i] = stringPool.add(key);
+            Map<String, String> propertyMap = getPropertyMap(propertyResolver, key);
+            List<String> mapKeys = new ArrayList<String>(propertyMap.keySet());
+            Collections.sort(mapKeys);
+            for (String mapKey : mapKeys) {
+                String value = propertyMap.get(mapKey);
+                if (value != null) {
+                    entryStrings.add(stringPool.add(mapKey));
+                    entryStrings.add(stringPool.add(value));
+                    entryCounts[i]++;
+                }
+            }
+        }
+
+        DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(outputStream));
+        dataOutputStream.writeInt(MAGIC);
+        dataOutputStream.writeInt(VERSION);
+        dataOutputStream.writeInt(keys.size());
+        dataOutputStream.writeInt(entryStrings.size() / 2);
+        dataOutputStream.writeInt(stringPool.strings.size());
+        dataOutputStream.writeInt(stringPool.dataSize);
+        int firstEntry = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            dataOutputStream.writeInt(keys.get(i).hashCode());
+            dataOutputStream.writeInt(keyStrings[i]);
+            dataOutputStream.writeInt(firstEntry);
+            dataOutputStream.writeInt(entryCounts[i]);
+            firstEntry += entryCounts[i];
+        }
+        for (Integer stringId : entryStrings) {
+            dataOutputStream.writeInt(stringId);
+        }
+        int offset = 0;
+        for (byte[] string : stringPool.strings) {
+            dataOutputStream.writeInt(offset);
+            offset += string.length;
+        }
+        dataOutputStream.writeInt(offset);
+        for (byte[] string : stringPool.strings) {
+            dataOutputStream.write(string);
+        }
+        dataOutputStream.flush();
+    }
+
+    private static Map<String, String> getPropertyMap(PropertyResolver propertyResolver, String key) {
+        Map<String, String> propertyMap = propertyResolver.getStringMap(key);
+        if (propertyMap != null) {
+            return propertyMap;
+        }
+        return Collections.singletonMap("", propertyResolver.getString(key));
+    }
+
+    /**
+     * Pool of unique strings, each {@code char} is encoded in UTF-8 separately.
+     */
+    private static final class StringPool {
+        private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+        private final List<byte[]> strings = new ArrayList<byte[]>();
+        private int dataSize;
+
+        int add(String string) {
+            Integer stringId = stringIds.get(string);
+            if (stringId == null) {
+                stringId = strings.size();
+                byte[] bytes = encode(string);
+                stringIds.put(string, stringId);
+                strings.add(bytes);
+                dataSize += bytes.length;
+            }
+            return stringId;
+        }
+
+        private static byte[] encode(String string) {
+            int length = 0;
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                length += c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+            }
+            byte[] bytes = new byte[length];
+            int position = 0;
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                if (c < 0x80) {
+                    bytes[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[position++] = (byte) (0xc0 | (c >> 6));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3f));
+                } else {
+                    bytes[position++] = (byte) (0xe0 | (c >> 12));
+                    bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            return bytes;
+        }
+    }
+}
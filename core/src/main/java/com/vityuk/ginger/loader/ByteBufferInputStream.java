@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.loader;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * {@link InputStream} over content of a {@link ByteBuffer}. Loaders which understand binary resources may take the
+ * remaining content with {@link #getByteBuffer()} instead of copying it through the stream, e.g. to use a memory
+ * mapped file directly.
+ *
+ * @author Andriy Vityuk
+ */
+public final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = checkNotNull(buffer).slice();
+    }
+
+    /**
+     * Return read-only view of remaining content, stream position is not changed.
+     */
+    public ByteBuffer getByteBuffer() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    @Override
+    public int read() {
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        return buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        checkNotNull(bytes);
+        if (length == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long count) {
+        if (count <= 0) {
+            return 0;
+        }
+        int skipped = (int) Math.min(count, buffer.remaining());
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+}
@@ -26,7 +26,7 @@ import static com.vityuk.ginger.util.Preconditions.checkArgument;
 /**
  * @author Andriy Vityuk
  */
-public class ChainedResourceLoader implements ResourceLoader {
+public class ChainedResourceLoader implements WatchableResourceLoader {
     private final Collection<ResourceLoader> resourceLoaders;
 
     public ChainedResourceLoader(Collection<ResourceLoader> resourceLoaders) {
@@ -45,6 +45,16 @@ public class ChainedResourceLoader implements ResourceLoader {
         return resourceLoader.openStream(location);
     }
 
+    @Override
+    public boolean watch(String location, ResourceChangeListener listener) throws IOException {
+        ResourceLoader resourceLoader = getSupportedResourceLoader(location);
+        checkArgument(resourceLoader != null, "Unsupported location: '" + location + "'");
+        if (resourceLoader instanceof WatchableResourceLoader) {
+            return ((WatchableResourceLoader) resourceLoader).watch(location, listener);
+        }
+        return false;
+    }
+
     private ResourceLoader getSupportedResourceLoader(String location) {
         for (ResourceLoader resourceLoader : resourceLoaders) {
             if (resourceLoader.isSupported(location)) {
@@ -16,12 +16,56 @@
 
 package com.vityuk.ginger.loader;
 
+import java.io.Closeable;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
 
-public final class FileSystemResourceLoader extends AbstractResourceLoader {
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+import static com.vityuk.ginger.util.Preconditions.checkState;
+
+/**
+ * {@link ResourceLoader} for {@code file:} locations.
+ * <p/>
+ * Changes of watched files are detected with {@link WatchService} registered for their directories, events are
+ * handled by a single daemon thread started with the first watched location. Size and checksum of each watched file
+ * are remembered, so events which do not change file content, e.g. touching of a file, are not reported to
+ * listeners.
+ *
+ * @author Andriy Vityuk
+ */
+public final class FileSystemResourceLoader extends AbstractResourceLoader implements WatchableResourceLoader,
+        Closeable {
     private static final String SCHEMA = "file";
+    private static final String WATCHER_THREAD_NAME = "ginger-resource-watcher";
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final Logger logger = Logger.getLogger(FileSystemResourceLoader.class.getName());
+
+    private final Object lock = new Object();
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<WatchKey, Path>();
+    private final Map<Path, WatchedFile> watchedFiles = new HashMap<Path, WatchedFile>();
+    private WatchService watchService;
+    private boolean closed;
 
     public FileSystemResourceLoader() {
         super(SCHEMA);
@@ -36,4 +80,203 @@ public final class FileSystemResourceLoader extends AbstractResourceLoader {
             return null;
         }
     }
+
+    @Override
+    public boolean watch(String location, ResourceChangeListener listener) throws IOException {
+        checkNotNull(listener);
+        Path file = Paths.get(getPath(location)).toAbsolutePath().normalize();
+        Path directory = file.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return false;
+        }
+
+        synchronized (lock) {
+            checkState(!closed, "Resource loader is closed");
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                startWatcherThread(watchService);
+            }
+            if (!watchedDirectories.containsValue(directory)) {
+                WatchKey watchKey = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(watchKey, directory);
+            }
+            WatchedFile watchedFile = watchedFiles.get(file);
+            if (watchedFile == null) {
+                watchedFile = new WatchedFile(FileState.read(file, null));
+                watchedFiles.put(file, watchedFile);
+            }
+            watchedFile.listeners.put(listener, location);
+        }
+        return true;
+    }
+
+    /**
+     * Stop watching all locations and terminate watching thread.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            watchedDirectories.clear();
+            watchedFiles.clear();
+            if (watchService != null) {
+                watchService.close();
+            }
+        }
+    }
+
+    private void startWatcherThread(final WatchService watchService) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                processEvents(watchService);
+            }
+        }, WATCHER_THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void processEvents(WatchService watchService) {
+        try {
+            for (; ; ) {
+                WatchKey watchKey = watchService.take();
+                Path directory;
+                synchronized (lock) {
+                    directory = watchedDirectories.get(watchKey);
+                }
+                if (directory != null) {
+                    for (WatchEvent<?> event : watchKey.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // Some events were lost, check all files of directory
+                            checkDirectory(directory);
+                        } else {
+                            checkFile(directory.resolve((Path) event.context()));
+                        }
+                    }
+                }
+                if (!watchKey.reset()) {
+                    synchronized (lock) {
+                        watchedDirectories.remove(watchKey);
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Loader was closed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkDirectory(Path directory) {
+        List<Path> files = new ArrayList<Path>();
+        synchronized (lock) {
+            for (Path file : watchedFiles.keySet()) {
+                if (directory.equals(file.getParent())) {
+                    files.add(file);
+                }
+            }
+        }
+        for (Path file : files) {
+            checkFile(file);
+        }
+    }
+
+    private void checkFile(Path file) {
+        WatchedFile watchedFile;
+        FileState oldState;
+        synchronized (lock) {
+            watchedFile = watchedFiles.get(file);
+            if (watchedFile == null) {
+                return;
+            }
+            oldState = watchedFile.state;
+        }
+
+        FileState newState;
+        try {
+            newState = FileState.read(file, oldState);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to check changes of file " + file, e);
+            return;
+        }
+
+        Map<ResourceChangeListener, String> listeners;
+        synchronized (lock) {
+            if (newState == oldState || watchedFile.state != oldState) {
+                // Content is not changed or change is already handled by concurrent check
+                return;
+            }
+            watchedFile.state = newState;
+            if (newState.isSameContent(oldState)) {
+                return;
+            }
+            listeners = new LinkedHashMap<ResourceChangeListener, String>(watchedFile.listeners);
+        }
+
+        for (Map.Entry<ResourceChangeListener, String> entry : listeners.entrySet()) {
+            try {
+                entry.getKey().onResourceChanged(entry.getValue());
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Listener failed to handle change of " + entry.getValue(), e);
+            }
+        }
+    }
+
+    private static final class WatchedFile {
+        private final Map<ResourceChangeListener, String> listeners =
+                new LinkedHashMap<ResourceChangeListener, String>();
+        private FileState state;
+
+        WatchedFile(FileState state) {
+            this.state = state;
+        }
+    }
+
+    private static final class FileState {
+        private static final FileState MISSING = new FileState(false, 0, 0);
+
+        private final boolean exists;
+        private final long size;
+        private final long checksum;
+
+        private FileState(boolean exists, long size, long checksum) {
+            this.exists = exists;
+            this.size = size;
+            this.checksum = checksum;
+        }
+
+        /**
+         * Read current state of a file. Checksum is always calculated, modification time has coarse granularity on
+         * some file systems, so write of the same size within it would be missed otherwise.
+         */
+        static FileState read(Path file, FileState previousState) throws IOException {
+            try {
+                return new FileState(true, Files.size(file), checksum(file));
+            } catch (NoSuchFileException e) {
+                return previousState != null && !previousState.exists ? previousState : MISSING;
+            } catch (FileNotFoundException e) {
+                return previousState != null && !previousState.exists ? previousState : MISSING;
+            }
+        }
+
+        boolean isSameContent(FileState other) {
+            return exists == other.exists && size == other.size && checksum == other.checksum;
+        }
+
+        private static long checksum(Path file) throws IOException {
+            CRC32 crc32 = new CRC32();
+            InputStream inputStream = Files.newInputStream(file);
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int count;
+                while ((count = inputStream.read(buffer)) != -1) {
+                    crc32.update(buffer, 0, count);
+                }
+            } finally {
+                inputStream.close();
+            }
+            return crc32.getValue();
+        }
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.loader;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link ResourceLoader} for {@code file:} locations, which maps files into memory instead of reading them.
+ * <p/>
+ * Files are returned as {@link ByteBufferInputStream}, so binary resources, e.g. compiled bundles loaded with
+ * {@link BundleLocalizationLoader}, are used straight from page cache and shared between processes. Mapping stays
+ * valid after the stream is closed, hence mapped files should be replaced by renaming new file over old one rather
+ * than rewritten in place. Changes are watched the same way as by {@link FileSystemResourceLoader}.
+ *
+ * @author Andriy Vityuk
+ */
+public final class MappedFileResourceLoader extends AbstractResourceLoader implements WatchableResourceLoader,
+        Closeable {
+    private static final String SCHEMA = "file";
+
+    private final FileSystemResourceLoader fileSystemResourceLoader = new FileSystemResourceLoader();
+
+    public MappedFileResourceLoader() {
+        super(SCHEMA);
+    }
+
+    @Override
+    protected InputStream openResource(String path) throws IOException {
+        FileInputStream inputStream;
+        try {
+            inputStream = new FileInputStream(path);
+        } catch (FileNotFoundException e) {
+            // return null according to interface contract
+            return null;
+        }
+        try {
+            FileChannel channel = inputStream.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ByteBufferInputStream(buffer);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    @Override
+    public boolean watch(String location, ResourceChangeListener listener) throws IOException {
+        return fileSystemResourceLoader.watch(location, listener);
+    }
+
+    /**
+     * Stop watching all locations, mapped files are released when their buffers are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        fileSystemResourceLoader.close();
+    }
+}
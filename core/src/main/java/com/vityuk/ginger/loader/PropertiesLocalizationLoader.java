@@ -18,80 +18,93 @@ package com.vityuk.ginger.loader;
 
 import com.vityuk.ginger.PropertyResolver;
 import com.vityuk.ginger.util.CharMatcher;
-import com.vityuk.ginger.util.MiscUtils;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static com.vityuk.ginger.util.Preconditions.checkNotNull;
 
 /**
  * Localization loader for Java properties format. Then only difference from standard Java {@link java.util.Properties}
  * is full UTF-8 support without additional conversion.
+ * <p/>
+ * Input is decoded in blocks and scanned right in the character buffer with table-driven character classes, so runs
+ * of plain characters are copied into keys and values in bulk. Resources are decoded as UTF-8 unless other charset
+ * is given.
  *
  * @author Andriy Vityuk
  */
 public class PropertiesLocalizationLoader implements LocalizationLoader {
-    private static final CharMatcher COMMENT_MATCHER = CharMatcher.anyOf("#!");
-    private static final CharMatcher LINE_SEPARATOR_MATCHER = CharMatcher.anyOf("\n\r");
-    private static final CharMatcher NOT_LINE_SEPARATOR_MATCHER = LINE_SEPARATOR_MATCHER.negate();
-    private static final CharMatcher WHITESPACE_MATCHER = CharMatcher.BREAKING_WHITESPACE.and(NOT_LINE_SEPARATOR_MATCHER);
-    private static final CharMatcher KEY_VALUE_SEPARATOR_MATCHER = CharMatcher.anyOf("=:");
-    private static final CharMatcher WHITESPACE_OR_SEPARATOR_MATCHER =  KEY_VALUE_SEPARATOR_MATCHER.or(CharMatcher.BREAKING_WHITESPACE);
+    private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
 
-    private static final Pattern MAP_KEY_PATTERN = Pattern.compile("([^\\[\\]]+)\\[([^\\[\\]]+)\\]");
+    // Character classes, bit flags
+    private static final int LINE_SEPARATOR = 1;
+    private static final int WHITESPACE = 2;
+    private static final int KEY_VALUE_SEPARATOR = 4;
+    private static final int COMMENT = 8;
+    private static final int KEY_TERMINATOR = LINE_SEPARATOR | WHITESPACE | KEY_VALUE_SEPARATOR;
+
+    // Classes of ASCII characters, other characters may be only whitespace
+    private static final byte[] CHAR_CLASSES = createCharClasses();
+
+    private final Charset charset;
+
+    public PropertiesLocalizationLoader() {
+        this(DEFAULT_CHARSET);
+    }
+
+    /**
+     * @param charset charset of resources, must be not {@code null}
+     */
+    public PropertiesLocalizationLoader(Charset charset) {
+        this.charset = checkNotNull(charset);
+    }
 
     @Override
     public PropertyResolver load(InputStream inputStream) throws IOException {
-        MatchingReader reader = new MatchingReader(new BufferedReader(new InputStreamReader(inputStream)));
-        return load(reader);
+        PropertiesScanner scanner = new PropertiesScanner(new InputStreamReader(inputStream, charset));
+        return load(scanner);
     }
 
-    private PropertyResolver load(MatchingReader reader) throws IOException {
+    private PropertyResolver load(PropertiesScanner scanner) throws IOException {
         final Map<String, Map<String, String>> mapProperties = new HashMap<String, Map<String, String>>();
 
-        while (!reader.isEndOfStream()) {
-            int code = reader.peek();
-            if (COMMENT_MATCHER.matches((char) code)) {
-                reader.skipCharacters(NOT_LINE_SEPARATOR_MATCHER);
+        while (!scanner.isEndOfStream()) {
+            if (scanner.peekMatches(COMMENT)) {
+                scanner.skipUntil(LINE_SEPARATOR);
                 continue;
             }
 
-            reader.skipCharacters(WHITESPACE_MATCHER);
-            if (!reader.isEndOfLine()) {
-                String key = reader.readLineUntil(WHITESPACE_OR_SEPARATOR_MATCHER);
+            scanner.skip(WHITESPACE);
+            if (!scanner.isEndOfLine()) {
+                String key = scanner.readUntil(KEY_TERMINATOR);
 
-                reader.skipCharacters(WHITESPACE_MATCHER);
+                scanner.skip(WHITESPACE);
 
-                code = reader.peek();
-                if (code != -1 && KEY_VALUE_SEPARATOR_MATCHER.matches((char) code)) {
-                    reader.read();
-                    reader.skipCharacters(WHITESPACE_MATCHER);
+                if (scanner.peekMatches(KEY_VALUE_SEPARATOR)) {
+                    scanner.read();
+                    scanner.skip(WHITESPACE);
                 }
 
-                String value = reader.readLineUntil(LINE_SEPARATOR_MATCHER);
+                String value = scanner.readUntil(LINE_SEPARATOR);
 
-                Matcher matcher = MAP_KEY_PATTERN.matcher(key);
                 String propertyKey;
                 String mapKey;
-                if (matcher.matches()) {
+                int mapKeyIndex = indexOfMapKey(key);
+                if (mapKeyIndex != -1) {
                     /*
                      This is map property of format: propertyKey[mapKey]=value
                     */
-                    propertyKey = matcher.group(1);
-                    mapKey = matcher.group(2);
+                    propertyKey = key.substring(0, mapKeyIndex - 1);
+                    mapKey = key.substring(mapKeyIndex, key.length() - 1);
                 } else {
                     propertyKey = key;
                     mapKey = "";
@@ -103,7 +116,7 @@ public class PropertiesLocalizationLoader implements LocalizationLoader {
                 }
                 propertyMap.put(mapKey, value);
             }
-            reader.skipCharacters(LINE_SEPARATOR_MATCHER);
+            scanner.skip(LINE_SEPARATOR);
         }
 
         return createPropertyResolver(mapProperties);
@@ -113,119 +126,184 @@ public class PropertiesLocalizationLoader implements LocalizationLoader {
         return new ResourcePropertyResolver(mapProperties);
     }
 
-    private static class MatchingReader extends Reader {
-        private static final char QUOTATION_CHAR = '\\';
-        private static final char[] HEX_CHARS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9',
-                'A', 'B', 'C', 'D', 'E', 'F'};
+    /**
+     * Find map key in key of format {@code propertyKey[mapKey]}, where both parts are not empty and do not contain
+     * brackets.
+     *
+     * @return index of the first character of map key or {@code -1} if key is not of map property
+     */
+    private static int indexOfMapKey(String key) {
+        int length = key.length();
+        if (length < 4 || key.charAt(length - 1) != ']') {
+            return -1;
+        }
+        int openIndex = key.indexOf('[');
+        if (openIndex < 1 || openIndex > length - 3) {
+            return -1;
+        }
+        for (int i = 0; i < length - 1; i++) {
+            if (i != openIndex) {
+                char c = key.charAt(i);
+                if (c == '[' || c == ']') {
+                    return -1;
+                }
+            }
+        }
+        return openIndex + 1;
+    }
 
-        private final BufferedReader reader;
-        private int bufferedChar = -1;
+    private static boolean matches(char c, int charClass) {
+        if (c < CHAR_CLASSES.length) {
+            return (CHAR_CLASSES[c] & charClass) != 0;
+        }
+        return (charClass & WHITESPACE) != 0 && CharMatcher.BREAKING_WHITESPACE.matches(c);
+    }
 
-        public MatchingReader(BufferedReader reader) {
+    private static byte[] createCharClasses() {
+        byte[] charClasses = new byte[128];
+        for (char c = 0; c < charClasses.length; c++) {
+            if (c == '\n' || c == '\r') {
+                charClasses[c] = LINE_SEPARATOR;
+            } else if (CharMatcher.BREAKING_WHITESPACE.matches(c)) {
+                charClasses[c] = WHITESPACE;
+            }
+        }
+        charClasses['='] = KEY_VALUE_SEPARATOR;
+        charClasses[':'] = KEY_VALUE_SEPARATOR;
+        charClasses['#'] = COMMENT;
+        charClasses['!'] = COMMENT;
+        return charClasses;
+    }
+
+    /**
+     * Scanner of properties, which decodes input in blocks into character buffer.
+     */
+    private static final class PropertiesScanner {
+        private static final int BUFFER_SIZE = 8192;
+        private static final int TOKEN_SIZE = 128;
+        private static final char QUOTATION_CHAR = '\\';
+        private static final byte[] HEX_DIGITS = createHexDigits();
+
+        private final Reader reader;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private boolean endOfStream;
+        // Reusable buffer of key or value being read
+        private char[] token = new char[TOKEN_SIZE];
+        private int tokenLength;
+
+        public PropertiesScanner(Reader reader) {
             this.reader = reader;
         }
 
-        @Override
-        public int read(char[] cbuf, int off, int len) throws IOException {
-            boolean hasBufferedChar = bufferedChar != -1;
-            if (hasBufferedChar) {
-                cbuf[off] = (char) bufferedChar;
-                bufferedChar = -1;
-                off++;
-                len--;
-            }
-            int read = reader.read(cbuf, off, len);
-            if (hasBufferedChar) {
-                read++;
+        public int peek() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
             }
-            return read;
+            return buffer[position];
         }
 
-        public int peek() throws IOException {
-            if (bufferedChar == -1) {
-                bufferedChar = read();
+        public int read() throws IOException {
+            int code = peek();
+            if (code != -1) {
+                position++;
             }
-            return bufferedChar;
+            return code;
         }
 
         public boolean isEndOfStream() throws IOException {
             return peek() == -1;
         }
 
-        private boolean isEndOfLine() throws IOException {
+        public boolean isEndOfLine() throws IOException {
             int code = peek();
-            if (code == -1) {
-                return true;
-            }
-            return LINE_SEPARATOR_MATCHER.matches((char) code);
+            return code == -1 || matches((char) code, LINE_SEPARATOR);
         }
 
-        public void skipCharacters(CharMatcher charMatcher) throws IOException {
-            for (; ; ) {
-                int code = peek();
-                if (code == -1 || !charMatcher.matches((char) code)) {
-                    return;
-                }
-                read();
-            }
+        public boolean peekMatches(int charClass) throws IOException {
+            int code = peek();
+            return code != -1 && matches((char) code, charClass);
         }
 
-        public String readLineUntil(CharMatcher charMatcher) throws IOException {
-            final StringBuilder sb = new StringBuilder();
-            for (; ; ) {
-                int code = peek();
-                if (code == -1 || charMatcher.matches((char) code)) {
-                    break;
-                }
-
-                int quotedCode = readQuotedCharacter();
-                if (quotedCode != -1) {
-                    sb.append((char) quotedCode);
+        public void skip(int charClass) throws IOException {
+            while (position < limit || fill()) {
+                while (position < limit) {
+                    if (!matches(buffer[position], charClass)) {
+                        return;
+                    }
+                    position++;
                 }
             }
-            return sb.toString();
         }
 
-        private int readQuotedCharacter() throws IOException {
-            int code = read();
-            if (code == -1) {
-                return -1;
+        public void skipUntil(int charClass) throws IOException {
+            while (position < limit || fill()) {
+                while (position < limit) {
+                    if (matches(buffer[position], charClass)) {
+                        return;
+                    }
+                    position++;
+                }
             }
+        }
 
-            char ch = (char) code;
-            if (ch != QUOTATION_CHAR) {
-                return ch;
+        /**
+         * Read characters until one of given class, escape sequences and line continuations are resolved.
+         */
+        public String readUntil(int charClass) throws IOException {
+            tokenLength = 0;
+            while (position < limit || fill()) {
+                int start = position;
+                int end = start;
+                while (end < limit) {
+                    char c = buffer[end];
+                    if (c == QUOTATION_CHAR || matches(c, charClass)) {
+                        break;
+                    }
+                    end++;
+                }
+                append(buffer, start, end - start);
+                position = end;
+                if (end == limit) {
+                    continue;
+                }
+                if (buffer[end] != QUOTATION_CHAR) {
+                    break;
+                }
+                position++;
+                readQuotedCharacter();
             }
-
-            return readCharacter();
+            return new String(token, 0, tokenLength);
         }
 
-        private int readCharacter() throws IOException {
+        private void readQuotedCharacter() throws IOException {
             int code = read();
-            if (code == -1) {
-                return -1;
-            }
-
-            char ch = (char) code;
-            switch (ch) {
+            switch (code) {
+                case -1:
+                    return;
                 case 'u':
-                    return readEscapedUnicodeCharacter();
+                    append(readEscapedUnicodeCharacter());
+                    return;
                 case '\r':
                     if (peek() == '\n') {
                         // skip it
                         read();
                     }
                 case '\n':
-                    skipCharacters(WHITESPACE_MATCHER);
-                    return -1;
+                    skip(WHITESPACE);
+                    return;
                 case 't':
-                    return '\t';
+                    append('\t');
+                    return;
                 case 'n':
-                    return '\n';
+                    append('\n');
+                    return;
                 case 'r':
-                    return '\r';
+                    append('\r');
+                    return;
                 default:
-                    return ch;
+                    append((char) code);
             }
         }
 
@@ -233,102 +311,91 @@ public class PropertiesLocalizationLoader implements LocalizationLoader {
             int result = 0;
             for (int i = 0; i < 4; i++) {
                 int code = read();
-                if (code == -1) {
-                    throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
-                }
-                char ch = (char) code;
-                int digit = MiscUtils.indexOf(HEX_CHARS, Character.toUpperCase(ch));
+                int digit = code == -1 || code >= HEX_DIGITS.length ? -1 : HEX_DIGITS[code];
                 if (digit == -1) {
                     throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
                 }
-
                 result = result * 16 + digit;
             }
             return (char) result;
         }
 
-        @Override
-        public void close() throws IOException {
-            reader.close();
-        }
-    }
-
-    private static class ResourcePropertyResolver implements PropertyResolver {
-        private final Map<String, Map<String, String>> mapProperties;
-
-        public ResourcePropertyResolver(Map<String, Map<String, String>> mapProperties) {
-            this.mapProperties = mapProperties;
-        }
-
-        @Override
-        public String getString(String key) {
-            return get(key);
-        }
-
-        @Override
-        public Boolean getBoolean(String key) {
-            String value = get(key);
-            return value == null ? null : Boolean.valueOf(value);
-        }
-
-        @Override
-        public Integer getInteger(String key) {
-            String value = get(key);
-            return value == null ? null : Integer.valueOf(value);
+        private boolean fill() throws IOException {
+            if (endOfStream) {
+                return false;
+            }
+            int read;
+            do {
+                read = reader.read(buffer, 0, buffer.length);
+            } while (read == 0);
+            if (read == -1) {
+                endOfStream = true;
+                position = 0;
+                limit = 0;
+                return false;
+            }
+            position = 0;
+            limit = read;
+            return true;
         }
 
-        @Override
-        public Long getLong(String key) {
-            String value = get(key);
-            return value == null ? null : Long.valueOf(value);
+        private void append(char c) {
+            ensureTokenCapacity(1);
+            token[tokenLength++] = c;
         }
 
-        @Override
-        public Float getFloat(String key) {
-            String value = get(key);
-            return value == null ? null : Float.valueOf(value);
+        private void append(char[] chars, int offset, int length) {
+            ensureTokenCapacity(length);
+            System.arraycopy(chars, offset, token, tokenLength, length);
+            tokenLength += length;
         }
 
-        @Override
-        public Double getDouble(String key) {
-            String value = get(key);
-            return value == null ? null : Double.valueOf(value);
+        private void ensureTokenCapacity(int length) {
+            int capacity = tokenLength + length;
+            if (capacity > token.length) {
+                char[] newToken = new char[Math.max(capacity, token.length * 2)];
+                System.arraycopy(token, 0, newToken, 0, tokenLength);
+                token = newToken;
+            }
         }
 
-        @Override
-        public List<String> getStringList(String key) {
-            String value = get(key);
-            if (value == null) {
-                return null;
+        private static byte[] createHexDigits() {
+            byte[] digits = new byte[128];
+            Arrays.fill(digits, (byte) -1);
+            for (int i = 0; i < 10; i++) {
+                digits['0' + i] = (byte) i;
             }
-            String[] split = value.split(",");
-            List<String> list = new ArrayList<String>(split.length);
-            for (String item: split) {
-                String it = item.trim();
-                if (!it.isEmpty()) {
-                    list.add(it);
-                }
+            for (int i = 0; i < 6; i++) {
+                digits['a' + i] = (byte) (10 + i);
+                digits['A' + i] = (byte) (10 + i);
             }
-            return Collections.unmodifiableList(list);
+            return digits;
         }
+    }
 
-        @Override
-        public Map<String, String> getStringMap(String key) {
-            return mapProperties.get(key);
+    /**
+     * Resolver of loaded properties.
+     */
+    private static class ResourcePropertyResolver extends AbstractPropertyResolver {
+        private final Map<String, Property> properties;
+        private final Set<String> keys;
+
+        public ResourcePropertyResolver(Map<String, Map<String, String>> mapProperties) {
+            properties = new HashMap<String, Property>(mapProperties.size() * 4 / 3 + 1);
+            for (Map.Entry<String, Map<String, String>> entry : mapProperties.entrySet()) {
+                properties.put(entry.getKey(), new Property(entry.getValue()));
+            }
+            keys = Collections.unmodifiableSet(properties.keySet());
         }
 
         @Override
         public Set<String> getKeys() {
-            return mapProperties.keySet();
+            return keys;
         }
 
-        private String get(String key) {
-            checkNotNull(key);
-            Map<String, String> map = mapProperties.get(key);
-            if (map != null) {
-                return map.get("");
-            }
-            return null;
+        @Override
+        protected Property getProperty(String key) {
+            return properties.get(checkNotNull(key));
         }
     }
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.loader;
+
+/**
+ * Listener of changes of watched resources, see {@link WatchableResourceLoader}.
+ *
+ * @author Andriy Vityuk
+ */
+public interface ResourceChangeListener {
+    /**
+     * Called when resource was created, modified or deleted. Called from watching thread, so implementations should
+     * not block for long.
+     *
+     * @param location location of changed resource exactly as it was passed for watching
+     */
+    void onResourceChanged(String location);
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.loader;
+
+import java.io.IOException;
+
+/**
+ * {@link ResourceLoader} which is able to notify about changes of resources.
+ *
+ * @author Andriy Vityuk
+ */
+public interface WatchableResourceLoader extends ResourceLoader {
+    /**
+     * Start watching resource at specified {@code location}. Resource does not have to exist, listener is notified
+     * when it is created as well. Watching the same location with the same listener again has no effect.
+     *
+     * @param location resource location, must be not {@code null}
+     * @param listener listener to notify about changes, must be not {@code null}
+     * @return {@code true} if location is being watched, {@code false} if changes of location can not be watched
+     * @throws IOException when unable to start watching
+     */
+    boolean watch(String location, ResourceChangeListener listener) throws IOException;
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.provider.format.MessageTemplate;
+
+import java.util.Locale;
+
+/**
+ * {@link MessageLookup} used when bundles expire or are refreshed. Message cache expires on its own clock and may
+ * still hold messages of previous bundle, so message tables are filled from resources of their bundle only and a
+ * new bundle never serves messages of previous one. Key based lookups go through message cache.
+ *
+ * @author Andriy Vityuk
+ */
+class BundleMessageLookup extends TableMessageLookup {
+    BundleMessageLookup(KeyIndex keyIndex, MessageSource messageSource) {
+        super(keyIndex, messageSource);
+    }
+
+    @Override
+    final MessageTemplate compileMessageTemplate(Locale locale, LocaleBundle localeBundle, String key,
+                                                 String selector) {
+        return messageSource.compileMessageTemplate(locale, localeBundle, key, selector);
+    }
+}
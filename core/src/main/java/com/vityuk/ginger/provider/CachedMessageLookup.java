@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.provider.format.MessageTemplate;
+
+import java.util.Locale;
+
+/**
+ * {@link MessageLookup} used when size of message cache is limited. Compiled messages are kept only in message
+ * cache, message tables of bundles are not used, so they can not grow past the limit.
+ *
+ * @author Andriy Vityuk
+ */
+final class CachedMessageLookup extends MessageLookup {
+    // Messages are cached per bundle when bundles are reloaded on resource changes
+    private final boolean bundleScoped;
+
+    CachedMessageLookup(KeyIndex keyIndex, MessageSource messageSource, boolean bundleScoped) {
+        super(keyIndex, messageSource);
+        this.bundleScoped = bundleScoped;
+    }
+
+    @Override
+    MessageTemplate getSelectedMessageTemplate(Locale locale, String key, String selector) {
+        if (bundleScoped) {
+            return getBundleSelectedMessageTemplate(locale, key, selector);
+        }
+        return super.getSelectedMessageTemplate(locale, key, selector);
+    }
+
+    @Override
+    MessageTable.KeyMessages getKeyMessages(LocaleBundle localeBundle, int keyId) {
+        return null;
+    }
+
+    @Override
+    MessageTemplate getMessageTemplate(Locale locale, LocaleBundle localeBundle, int keyId,
+                                       MessageTable.KeyMessages keyMessages, String selector) {
+        LocaleBundle messageBundle = bundleScoped ? localeBundle : null;
+        return messageSource.getCachedMessageTemplate(locale, messageBundle, keyIndex.getKey(keyId), selector);
+    }
+}
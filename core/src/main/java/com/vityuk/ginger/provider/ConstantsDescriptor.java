@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.provider;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.vityuk.ginger.util.Preconditions.checkArgument;
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * Describes constants of a localizable interface: keys and value types of its constant methods.
+ * <p/>
+ * {@link IndexedLocalizationProvider} resolves values of all constants for a locale at once and passes them to
+ * {@link #createSnapshot(Object[])}. Created snapshot is kept together with resources of the locale, so it is
+ * rebuilt when resources are reloaded. Descriptors are compared by identity.
+ *
+ * @author Andriy Vityuk
+ */
+public abstract class ConstantsDescriptor {
+    private static final Set<Class<?>> SUPPORTED_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            String.class, Boolean.class, Integer.class, Long.class, Float.class, Double.class, List.class, Map.class));
+
+    private final String[] keys;
+    private final Class<?>[] types;
+
+    /**
+     * @param keys  keys of constants, must be not {@code null}
+     * @param types value types of constants, each one of {@link String}, {@link Boolean}, {@link Integer},
+     *              {@link Long}, {@link Float}, {@link Double}, {@link List} or {@link Map}
+     */
+    protected ConstantsDescriptor(String[] keys, Class<?>[] types) {
+        checkNotNull(keys);
+        checkNotNull(types);
+        checkArgument(keys.length == types.length, "Every constant must have key and type");
+        for (Class<?> type : types) {
+            checkArgument(SUPPORTED_TYPES.contains(type), "Unsupported constant type: %s", type);
+        }
+        this.keys = keys.clone();
+        this.types = types.clone();
+    }
+
+    public int getConstantCount() {
+        return keys.length;
+    }
+
+    public String getKey(int index) {
+        return keys[index];
+    }
+
+    public Class<?> getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Create immutable snapshot of constants.
+     *
+     * @param values resolved values of constants in order of keys, may contain {@code null} for missing constants
+     * @return not {@code null} snapshot
+     */
+    public abstract Object createSnapshot(Object[] values);
+}
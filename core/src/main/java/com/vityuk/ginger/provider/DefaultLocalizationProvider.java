@@ -20,65 +20,141 @@ import com.vityuk.ginger.LocaleResolver;
 import com.vityuk.ginger.PropertyResolver;
 import com.vityuk.ginger.cache.CacheBuilder;
 import com.vityuk.ginger.cache.CacheLoader;
+import com.vityuk.ginger.cache.CacheStats;
 import com.vityuk.ginger.cache.LoadingCache;
+import com.vityuk.ginger.cache.Weigher;
 import com.vityuk.ginger.loader.LocalizationLoader;
+import com.vityuk.ginger.loader.ResourceChangeListener;
 import com.vityuk.ginger.loader.ResourceLoader;
+import com.vityuk.ginger.loader.WatchableResourceLoader;
+import com.vityuk.ginger.provider.format.ArgumentLayout;
 import com.vityuk.ginger.provider.format.MessageFormatFactory;
+import com.vityuk.ginger.provider.format.MessageFormatTemplate;
+import com.vityuk.ginger.provider.format.MessageTemplate;
+import com.vityuk.ginger.provider.format.MessageTemplateFactory;
+import com.vityuk.ginger.provider.plural.NumberPluralFormSelectorResolver;
 import com.vityuk.ginger.provider.plural.PluralFormSelectorResolver;
 import com.vityuk.ginger.util.MiscUtils;
-import com.vityuk.ginger.cache.ThreadLocalLoadingCache;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
-
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.vityuk.ginger.provider.MessageLookup.EMPTY_SELECTOR;
+import static com.vityuk.ginger.provider.MessageLookup.NULL_MESSAGE_TEMPLATE;
+import static com.vityuk.ginger.provider.MessageLookup.isEmptySelector;
+import static com.vityuk.ginger.provider.MessageLookup.isExactCount;
+import static com.vityuk.ginger.provider.MessageLookup.isIntCount;
+import static com.vityuk.ginger.util.Preconditions.checkArgument;
 import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+import static com.vityuk.ginger.util.Preconditions.checkState;
 
 /**
  * @author Andriy Vityuk
  */
-public class DefaultLocalizationProvider implements LocalizationProvider {
+public class DefaultLocalizationProvider implements IndexedLocalizationProvider {
     public static final char LOCALE_SEPARATOR = '_';
     public static final char FILE_EXTENSION_SEPARATOR = '.';
+    public static final String RESOURCES_CACHE = "resources";
+    public static final String MESSAGES_CACHE = "messages";
+
+    private static final int MESSAGE_KEY_SIZE = 64;
+    private static final Weigher<MessageKey, MessageTemplate> MESSAGE_TEMPLATE_WEIGHER =
+            new Weigher<MessageKey, MessageTemplate>() {
+                @Override
+                public int weigh(MessageKey key, MessageTemplate value) {
+                    return MESSAGE_KEY_SIZE + 2 * (key.getKey().length() + key.getSelector().length()) +
+                            value.estimateSize();
+                }
+            };
 
-    private static final String EMPTY_SELECTOR = "";
-    private static final MessageFormat NULL_MESSAGE_FORMAT = new MessageFormat("");
+    private static final Logger logger = Logger.getLogger(DefaultLocalizationProvider.class.getName());
 
     private final LocaleResolver localeResolver;
     private final ResourceLoader resourceLoader;
     private final LocalizationLoader localizationLoader;
     private final List<String> locations;
     private final MessageFormatFactory messageFormatFactory;
+    private final MessageTemplateFactory messageTemplateFactory;
     private final PluralFormSelectorResolver pluralFormSelectorResolver;
-
-    private final LoadingCache<Locale, PropertyResolver> propertyResolverCache;
-    private final LoadingCache<MessageKey, MessageFormat> messageFormatCache;
+    // null if resolver supports only int counts
+    private final NumberPluralFormSelectorResolver numberPluralFormSelectorResolver;
+    private final Locale fallbackLocale;
+    private final boolean mergedLocaleHierarchy;
+
+    private final KeyIndex keyIndex = new KeyIndex();
+    private final LoadingCache<Locale, LocaleBundle> localeBundleCache;
+    private final LoadingCache<MessageKey, MessageTemplate> messageTemplateCache;
+    private final ResourceWatcher resourceWatcher;
+    private final MessageLookup messageLookup;
+    // Locale bound providers look bundle up on each call then, so they observe reloaded resources
+    private final boolean reloadableLocaleBundles;
+    private final ThreadLocal<MessageKey> lookupKeys = new ThreadLocal<MessageKey>() {
+        @Override
+        protected MessageKey initialValue() {
+            return new MessageKey();
+        }
+    };
+    // Pool of preload running in current thread, resources of locations are loaded in parallel only by it
+    private final ThreadLocal<ForkJoinPool> preloadPools = new ThreadLocal<ForkJoinPool>();
 
     private DefaultLocalizationProvider(Builder builder) {
         localeResolver = checkNotNull(builder.localeResolver);
         resourceLoader = checkNotNull(builder.resourceLoader);
         localizationLoader = checkNotNull(builder.localizationLoader);
         locations = checkNotNull(builder.locations);
-        messageFormatFactory = checkNotNull(builder.messageFormatFactory);
+        messageTemplateFactory = builder.messageTemplateFactory;
+        messageFormatFactory = messageTemplateFactory == null ? checkNotNull(builder.messageFormatFactory) :
+                builder.messageFormatFactory;
         pluralFormSelectorResolver = checkNotNull(builder.pluralFormSelectorResolver);
+        numberPluralFormSelectorResolver = pluralFormSelectorResolver instanceof NumberPluralFormSelectorResolver
+                ? (NumberPluralFormSelectorResolver) pluralFormSelectorResolver : null;
+        fallbackLocale = builder.fallbackLocale;
+        mergedLocaleHierarchy = builder.mergedLocaleHierarchy;
+        reloadableLocaleBundles = builder.resourceWatching || builder.maxCacheTimeInSec >= 0 ||
+                builder.refreshIntervalInSec > 0;
+        if (builder.resourceWatching) {
+            checkArgument(resourceLoader instanceof WatchableResourceLoader,
+                    "ResourceLoader must implement WatchableResourceLoader for resource watching");
+            resourceWatcher = new ResourceWatcher((WatchableResourceLoader) resourceLoader);
+        } else {
+            resourceWatcher = null;
+        }
+        messageLookup = createMessageLookup(builder);
 
-        propertyResolverCache = createPropertyResolverCache(builder, new CacheLoader<Locale, PropertyResolver>() {
+        localeBundleCache = createLocaleBundleCache(builder, new CacheLoader<Locale, LocaleBundle>() {
             @Override
-            public PropertyResolver load(Locale locale) throws Exception {
-                return createPropertyResolver(locale);
+            public LocaleBundle load(Locale locale) throws Exception {
+                return createLocaleBundle(locale, null);
             }
         });
 
-        messageFormatCache = createMessageFormatCache(builder, new CacheLoader<MessageKey, MessageFormat>() {
+        messageTemplateCache = createMessageTemplateCache(builder, new CacheLoader<MessageKey, MessageTemplate>() {
             @Override
-            public MessageFormat load(MessageKey key) throws Exception {
-                return createMessageFormat(key.getLocale(), key.getKey(), key.getSelector());
+            public MessageTemplate load(MessageKey key) throws Exception {
+                Locale locale = key.getLocale();
+                LocaleBundle localeBundle = key.getLocaleBundle();
+                PropertyResolver propertyResolver = localeBundle == null ? getPropertyResolver(locale) :
+                        localeBundle.getPropertyResolver();
+                return createMessageTemplate(locale, propertyResolver, key.getKey(), key.getSelector());
             }
         });
     }
@@ -125,7 +201,7 @@ public class DefaultLocalizationProvider implements LocalizationProvider {
 
     @Override
     public String getMessage(String key, Object... parameters) {
-        return formatMessage(getMessageFormat(key), parameters);
+        return formatMessage(getSelectedMessageTemplate(key, EMPTY_SELECTOR), parameters);
     }
 
     @Override
@@ -135,27 +211,153 @@ public class DefaultLocalizationProvider implements LocalizationProvider {
 
     @Override
     public String getSelectedMessage(String key, String selector, Object... parameters) {
-        return formatMessage(getSelectedMessageFormat(key, selector), parameters);
+        return formatMessage(getSelectedMessageTemplate(key, selector), parameters);
     }
 
     @Override
     public MessageFormat getSelectedMessageFormat(String key, String selector) {
-        checkNotNull(key);
-        checkNotNull(selector);
-        Locale locale = getCurrentLocale();
+        return toMessageFormat(getSelectedMessageTemplate(key, selector));
+    }
+
+    @Override
+    public String getPluralMessage(String key, Number count, Object... parameters) {
+        MessageTemplate messageTemplate = getPluralMessageTemplate(checkNotNull(key), count);
+        return formatMessage(messageTemplate, mergeParameters(count, parameters));
+    }
+
+    @Override
+    public MessageFormat getPluralMessageFormat(String key, Number count) {
+        return toMessageFormat(getPluralMessageTemplate(key, count));
+    }
 
-        MessageFormat messageFormat = getMessageFormat(locale, key, selector);
-        if (messageFormat == null && !isEmptySelector(selector)) {
-            // Fallback to message without selector
-            messageFormat = getMessageFormat(locale, key, EMPTY_SELECTOR);
+    @Override
+    public boolean appendMessage(Appendable appendable, String key, Object... parameters) throws IOException {
+        return appendMessage(appendable, getSelectedMessageTemplate(key, EMPTY_SELECTOR), parameters);
+    }
+
+    @Override
+    public boolean appendSelectedMessage(Appendable appendable, String key, String selector, Object... parameters)
+            throws IOException {
+        return appendMessage(appendable, getSelectedMessageTemplate(key, selector), parameters);
+    }
+
+    @Override
+    public boolean appendPluralMessage(Appendable appendable, String key, Number count, Object... parameters)
+            throws IOException {
+        MessageTemplate messageTemplate = getPluralMessageTemplate(checkNotNull(key), count);
+        return appendMessage(appendable, messageTemplate, mergeParameters(count, parameters));
+    }
+
+    @Override
+    public LocalizationProvider forLocale(Locale locale) {
+        checkNotNull(locale);
+        LocaleBundle localeBundle = getLocaleBundle(locale);
+        return new LocaleBoundProvider(locale, reloadableLocaleBundles ? null : localeBundle);
+    }
+
+    @Override
+    public void preload(Locale locale, boolean compileMessages, ForkJoinPool pool) {
+        checkNotNull(locale);
+        // Worker may run another preload while it waits for forked tasks, so previous pool is restored
+        ForkJoinPool previousPool = preloadPools.get();
+        preloadPools.set(pool != null && ForkJoinTask.getPool() == pool ? pool : null);
+        try {
+            LocaleBundle localeBundle = getLocaleBundle(locale);
+            if (compileMessages) {
+                compileMessages(locale, localeBundle);
+            }
+        } finally {
+            preloadPools.set(previousPool);
         }
-        return messageFormat;
     }
 
     @Override
-    public String getPluralMessage(String key, Number count, Object... parameters) {
-        MessageFormat messageFormat = getPluralMessageFormat(checkNotNull(key), count);
-        return formatMessage(messageFormat, mergeParameters(count, parameters));
+    public int getKeyId(String key) {
+        return keyIndex.getId(checkNotNull(key));
+    }
+
+    @Override
+    public String getMessage(int keyId, Object... parameters) {
+        return formatMessage(getSelectedMessageTemplate(keyId, EMPTY_SELECTOR), parameters);
+    }
+
+    @Override
+    public String getSelectedMessage(int keyId, String selector, Object... parameters) {
+        return formatMessage(getSelectedMessageTemplate(keyId, selector), parameters);
+    }
+
+    @Override
+    public String getPluralMessage(int keyId, Number count, Object... parameters) {
+        return formatMessage(getPluralMessageTemplate(keyId, count), mergeParameters(count, parameters));
+    }
+
+    @Override
+    public String getSelectedMessageFromArguments(int keyId, int selectorIndex, Object[] arguments) {
+        checkArgumentIndex(selectorIndex, arguments);
+        String selector = String.valueOf(arguments[selectorIndex]);
+        return formatMessage(getSelectedMessageTemplate(keyId, selector), ArgumentLayout.SKIPPED_SLOT,
+                selectorIndex, arguments);
+    }
+
+    @Override
+    public String getPluralMessageFromArguments(int keyId, int countIndex, Object[] arguments) {
+        checkArgumentIndex(countIndex, arguments);
+        Number count = (Number) arguments[countIndex];
+        return formatMessage(getPluralMessageTemplate(keyId, count), ArgumentLayout.FIRST_SLOT, countIndex,
+                arguments);
+    }
+
+    @Override
+    public Object getConstantsSnapshot(ConstantsDescriptor constantsDescriptor) {
+        checkNotNull(constantsDescriptor);
+        return getLocaleBundle(getCurrentLocale()).getConstantsSnapshot(constantsDescriptor);
+    }
+
+    @Override
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> cacheStats = new LinkedHashMap<String, CacheStats>();
+        cacheStats.put(RESOURCES_CACHE, localeBundleCache.stats());
+        cacheStats.put(MESSAGES_CACHE, messageTemplateCache.stats());
+        return Collections.unmodifiableMap(cacheStats);
+    }
+
+    private void compileMessages(Locale locale, LocaleBundle localeBundle) {
+        PropertyResolver propertyResolver = localeBundle.getPropertyResolver();
+        for (String key : propertyResolver.getKeys()) {
+            int keyId = keyIndex.getId(key);
+            compileMessage(locale, localeBundle, keyId, EMPTY_SELECTOR);
+            Map<String, String> propertyMap = propertyResolver.getStringMap(key);
+            if (propertyMap != null) {
+                for (String selector : propertyMap.keySet()) {
+                    if (!isEmptySelector(selector)) {
+                        compileMessage(locale, localeBundle, keyId, selector);
+                    }
+                }
+            }
+        }
+    }
+
+    private void compileMessage(Locale locale, LocaleBundle localeBundle, int keyId, String selector) {
+        try {
+            messageLookup.getSelectedMessageTemplate(locale, localeBundle, keyId, selector);
+        } catch (IllegalArgumentException e) {
+            // Resources do not distinguish messages from constants, so values which are not valid message
+            // patterns are skipped, they are reported when actually used as messages
+        }
+    }
+
+    private MessageLookup createMessageLookup(Builder builder) {
+        MessageSource messageSource = new ProviderMessageSource();
+        if (builder.maxMessageCacheSize >= 0 || builder.maxMessageCacheWeight >= 0) {
+            return new CachedMessageLookup(keyIndex, messageSource, resourceWatcher != null);
+        }
+        if (resourceWatcher != null) {
+            return new WatchedMessageLookup(keyIndex, messageSource);
+        }
+        if (reloadableLocaleBundles) {
+            return new BundleMessageLookup(keyIndex, messageSource);
+        }
+        return new SharedMessageLookup(keyIndex, messageSource);
     }
 
     private PropertyResolver getPropertyResolver() {
@@ -167,72 +369,220 @@ public class DefaultLocalizationProvider implements LocalizationProvider {
         return checkNotNull(localeResolver.getLocale(), "LocaleResolver must return not null Locale");
     }
 
-    private String getPluralFormSelector(Locale locale, Number count) {
-        return pluralFormSelectorResolver.resolve(locale.getLanguage(), count.intValue());
+    /**
+     * Plural form is selected by language of bundle resources, which differs from requested locale when bundle
+     * falls back to fallback locale, so messages get plural forms of language they are written in.
+     */
+    private String getPluralFormSelector(LocaleBundle localeBundle, Number count) {
+        String languageCode = localeBundle.getResourceLocale().getLanguage();
+        if (isIntCount(count) || numberPluralFormSelectorResolver == null) {
+            return pluralFormSelectorResolver.resolve(languageCode, count.intValue());
+        }
+        return numberPluralFormSelectorResolver.resolve(languageCode, count);
     }
 
     private PropertyResolver getPropertyResolver(Locale locale) {
+        return getLocaleBundle(locale).getPropertyResolver();
+    }
+
+    private LocaleBundle getLocaleBundle(Locale locale) {
+        if (resourceWatcher != null) {
+            return resourceWatcher.getLocaleBundle(locale);
+        }
+        return getCachedLocaleBundle(locale);
+    }
+
+    private LocaleBundle getCachedLocaleBundle(Locale locale) {
         try {
-            return propertyResolverCache.getUnchecked(locale);
-        } catch (RuntimeException e) {
+            return localeBundleCache.get(locale);
+        } catch (ExecutionException e) {
+            // Cached failure is rethrown as is, so missing locales do not create exceptions on every request
             throw MiscUtils.propagate(e.getCause());
         }
     }
 
-    private MessageFormat getMessageFormat(Locale locale, String key, String selector) {
+    private MessageTemplate getSelectedMessageTemplate(String key, String selector) {
+        checkNotNull(key);
+        checkNotNull(selector);
+        return messageLookup.getSelectedMessageTemplate(getCurrentLocale(), key, selector);
+    }
+
+    private MessageTemplate getPluralMessageTemplate(String key, Number count) {
+        checkNotNull(key);
+        Locale locale = getCurrentLocale();
+        LocaleBundle localeBundle = getLocaleBundle(locale);
+        String pluralFormSelector = isExactCount(count) ? null : getPluralFormSelector(localeBundle, count);
+        // Plural variants are kept in message table of locale bundle
+        int keyId = messageLookup.findKeyId(localeBundle, key);
+        return keyId < 0 ? null : messageLookup.getPluralMessageTemplate(locale, localeBundle, keyId, count,
+                pluralFormSelector);
+    }
+
+    private MessageTemplate getSelectedMessageTemplate(int keyId, String selector) {
+        checkNotNull(selector);
+        Locale locale = getCurrentLocale();
+        return messageLookup.getSelectedMessageTemplate(locale, getLocaleBundle(locale), keyId, selector);
+    }
+
+    private MessageTemplate getPluralMessageTemplate(int keyId, Number count) {
+        Locale locale = getCurrentLocale();
+        LocaleBundle localeBundle = getLocaleBundle(locale);
+        // Plural form is selected before messages are looked up, so exact count messages are looked up only for
+        // counts which may have them
+        String pluralFormSelector = isExactCount(count) ? null : getPluralFormSelector(localeBundle, count);
+        return messageLookup.getPluralMessageTemplate(locale, localeBundle, keyId, count, pluralFormSelector);
+    }
+
+    /**
+     * @param localeBundle bundle which resources message is compiled from or {@code null} for current bundle of
+     *                     locale
+     */
+    private MessageTemplate getMessageTemplate(Locale locale, LocaleBundle localeBundle, String key,
+                                               String selector) {
         try {
-            MessageKey messageKey = new MessageKey(locale, key, selector);
-            MessageFormat messageFormatOptional = messageFormatCache.getUnchecked(messageKey);
-            if (messageFormatOptional == NULL_MESSAGE_FORMAT) {
+            // Cached messages are looked up with reusable key, new key is created only for loading
+            MessageKey lookupKey = lookupKeys.get().reset(locale, localeBundle, key, selector);
+            MessageTemplate messageTemplateOptional = messageTemplateCache.getIfPresent(lookupKey);
+            lookupKey.clear();
+            if (messageTemplateOptional == null) {
+                PropertyResolver propertyResolver = localeBundle == null ? getPropertyResolver(locale) :
+                        localeBundle.getPropertyResolver();
+                if (!hasSelector(propertyResolver, key, selector)) {
+                    return null;
+                }
+                MessageKey messageKey = new MessageKey(locale, localeBundle, key, selector);
+                messageTemplateOptional = messageTemplateCache.getUnchecked(messageKey);
+            }
+            if (messageTemplateOptional == NULL_MESSAGE_TEMPLATE) {
                 return null;
             }
-            return messageFormatOptional;
+            return messageTemplateOptional;
         } catch (RuntimeException e) {
             throw MiscUtils.propagate(e.getCause());
         }
     }
 
-    private PropertyResolver createPropertyResolver(Locale locale) {
+    /**
+     * @param fallbackBundle bundle used when there are no resources for locale, if {@code null} bundle of fallback
+     *                       locale is loaded
+     */
+    private LocaleBundle createLocaleBundle(Locale locale, LocaleBundle fallbackBundle) {
+        try {
+            if (mergedLocaleHierarchy) {
+                return new LocaleBundle(createMergedPropertyResolver(locale), null, locale);
+            }
+            List<PropertyResolver> propertyResolvers = createPropertyResolvers(locale);
+            return new LocaleBundle(createMultiPropertyResolver(propertyResolvers), propertyResolvers, locale);
+        } catch (ResourceNotFoundException e) {
+            if (fallbackLocale == null || fallbackLocale.equals(locale)) {
+                throw e;
+            }
+            // Resources of fallback locale are cached for requested locale as well, so requests with unsupported
+            // locale do not search for resources again. Messages are compiled for requested locale though.
+            if (fallbackBundle == null) {
+                fallbackBundle = getLocaleBundle(fallbackLocale);
+            }
+            return new LocaleBundle(fallbackBundle.getPropertyResolver(), null, fallbackLocale);
+        }
+    }
+
+    private List<PropertyResolver> createPropertyResolvers(Locale locale) {
+        if (locations.size() > 1 && preloadPools.get() != null) {
+            return createPropertyResolversInParallel(locale);
+        }
         List<PropertyResolver> propertyResolvers = new ArrayList<PropertyResolver>(locations.size());
         for (String location : locations) {
             propertyResolvers.add(createPropertyResolver(location, locale));
         }
-        return createMultiPropertyResolver(propertyResolvers);
+        return propertyResolvers;
     }
 
-    public MessageFormat getPluralMessageFormat(String key, Number count) {
-        Locale locale = getCurrentLocale();
+    /**
+     * Load all locations in parallel, used when resources are preloaded from fork/join pool given to
+     * {@link #preload(Locale, boolean, ForkJoinPool)}.
+     */
+    private List<PropertyResolver> createPropertyResolversInParallel(final Locale locale) {
+        List<ForkJoinTask<PropertyResolver>> tasks = new ArrayList<ForkJoinTask<PropertyResolver>>(locations.size());
+        for (final String location : locations) {
+            tasks.add(ForkJoinTask.adapt(new Callable<PropertyResolver>() {
+                @Override
+                public PropertyResolver call() throws Exception {
+                    return createPropertyResolver(location, locale);
+                }
+            }));
+        }
+        ForkJoinTask.invokeAll(tasks);
 
-        MessageFormat messageFormat = null;
-        if (count.intValue() == 0 || count.intValue() == 1) {
-            // Special cases, allows to define specific message for 0 and 1 count
-            String selector = String.valueOf(count);
-            messageFormat = getMessageFormat(locale, key, selector);
+        List<PropertyResolver> propertyResolvers = new ArrayList<PropertyResolver>(locations.size());
+        for (ForkJoinTask<PropertyResolver> task : tasks) {
+            propertyResolvers.add(task.join());
         }
+        return propertyResolvers;
+    }
 
-        if (messageFormat == null) {
-            String selector = getPluralFormSelector(locale, count);
-            messageFormat = getMessageFormat(locale, key, selector);
+    private PropertyResolver createMergedPropertyResolver(Locale locale) {
+        List<Locale> candidateLocales = createCandidateLocales(locale);
+        List<List<PropertyResolver>> candidatePropertyResolvers = new ArrayList<List<PropertyResolver>>(
+                candidateLocales.size());
+        for (int i = 0; i < candidateLocales.size(); i++) {
+            candidatePropertyResolvers.add(new ArrayList<PropertyResolver>(locations.size()));
         }
 
-        if (messageFormat == null) {
-            // Fallback to message without selector
-            messageFormat = getMessageFormat(locale, key, EMPTY_SELECTOR);
+        for (String location : locations) {
+            if (!resourceLoader.isSupported(location)) {
+                throw new UnsupportedLocationException(location);
+            }
+            boolean found = false;
+            for (int i = 0; i < candidateLocales.size(); i++) {
+                String localizedLocation = createLocalizedLocation(location, candidateLocales.get(i));
+                InputStream inputStream = openStream(localizedLocation);
+                if (inputStream != null) {
+                    try {
+                        candidatePropertyResolvers.get(i).add(loadLocalization(location, inputStream));
+                    } finally {
+                        MiscUtils.closeQuietly(inputStream);
+                    }
+                    found = true;
+                }
+            }
+            if (!found) {
+                throw new ResourceNotFoundException(location, locale);
+            }
         }
 
-        return messageFormat;
+        // The most specific locale takes precedence, locations keep their order within the same locale
+        List<PropertyResolver> propertyResolvers = new ArrayList<PropertyResolver>();
+        for (List<PropertyResolver> resolvers : candidatePropertyResolvers) {
+            propertyResolvers.addAll(resolvers);
+        }
+        return new FlattenedPropertyResolver(propertyResolvers);
     }
 
-    private MessageFormat createMessageFormat(Locale locale, String key, String selector) {
-        final String format = getMessageFormatString(locale, key, selector);
+    private MessageTemplate createMessageTemplate(Locale locale, PropertyResolver propertyResolver, String key,
+                                                  String selector) {
+        final String format = getMessageFormatString(propertyResolver, key, selector);
         if (format == null) {
-            return NULL_MESSAGE_FORMAT;
+            return NULL_MESSAGE_TEMPLATE;
         }
-        return messageFormatFactory.create(locale, format);
+        if (messageTemplateFactory != null) {
+            return messageTemplateFactory.create(locale, format);
+        }
+        return new MessageFormatTemplate(messageFormatFactory.create(locale, format));
     }
 
-    private String getMessageFormatString(Locale locale, String key, String selector) {
-        PropertyResolver propertyResolver = getPropertyResolver(locale);
+    /**
+     * @return {@code false} if there is no message for selector in resources, such messages are not cached, so
+     *         selectors passed by callers never grow message tables or cache
+     */
+    private static boolean hasSelector(PropertyResolver propertyResolver, String key, String selector) {
+        if (isEmptySelector(selector)) {
+            return true;
+        }
+        Map<String, String> propertyMap = propertyResolver.getStringMap(key);
+        return propertyMap != null && propertyMap.containsKey(selector);
+    }
+
+    private static String getMessageFormatString(PropertyResolver propertyResolver, String key, String selector) {
         if (isEmptySelector(selector)) {
             return propertyResolver.getString(key);
         }
@@ -258,15 +608,8 @@ public class DefaultLocalizationProvider implements LocalizationProvider {
     }
 
     private InputStream findResourceForLocale(String location, Locale locale) {
-        int idx = location.lastIndexOf(FILE_EXTENSION_SEPARATOR);
-        if (idx == -1) {
-            throw new RuntimeException("Localization resource should have extension in location: '" + location + "'");
-        }
-        String prefix = location.substring(0, idx);
-        String suffix = location.substring(idx);
-
         for (Locale candidateLocale : createCandidateLocales(locale)) {
-            String localizedLocation = createLocalizedLocation(prefix, suffix, candidateLocale);
+            String localizedLocation = createLocalizedLocation(location, candidateLocale);
             InputStream inputStream = openStream(localizedLocation);
             if (inputStream != null) {
                 return inputStream;
@@ -292,29 +635,71 @@ public class DefaultLocalizationProvider implements LocalizationProvider {
         }
     }
 
-    private String formatMessage(MessageFormat messageFormat, Object[] obj) {
-        return messageFormat == null ? null : messageFormat.format(obj);
+    private static String formatMessage(MessageTemplate messageTemplate, Object[] obj) {
+        return messageTemplate == null ? null : messageTemplate.format(obj);
+    }
+
+    private static String formatMessage(MessageTemplate messageTemplate, ArgumentLayout layout, int slot,
+                                        Object[] arguments) {
+        return messageTemplate == null ? null : messageTemplate.format(layout, slot, arguments);
+    }
+
+    private static void checkArgumentIndex(int index, Object[] arguments) {
+        checkNotNull(arguments);
+        checkArgument(index >= 0 && index < arguments.length, "Invalid argument index: %s", index);
+    }
+
+    private static boolean appendMessage(Appendable appendable, MessageTemplate messageTemplate, Object[] obj)
+            throws IOException {
+        checkNotNull(appendable);
+        if (messageTemplate == null) {
+            return false;
+        }
+        messageTemplate.formatTo(appendable, obj);
+        return true;
+    }
+
+    private static MessageFormat toMessageFormat(MessageTemplate messageTemplate) {
+        return messageTemplate == null ? null : messageTemplate.toMessageFormat();
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
-    private static LoadingCache<MessageKey, MessageFormat> createMessageFormatCache(Builder builder,
-                                                                                              CacheLoader<MessageKey, MessageFormat> cacheLoader) {
-        if (builder.maxCacheTimeInSec == -1) {
-            return ThreadLocalLoadingCache.create(cacheLoader);
-        } else {
-            return ThreadLocalLoadingCache.create(cacheLoader, builder.maxCacheTimeInSec, TimeUnit.SECONDS);
+    private static LoadingCache<MessageKey, MessageTemplate> createMessageTemplateCache(Builder builder,
+                                                                                        CacheLoader<MessageKey, MessageTemplate> cacheLoader) {
+        CacheBuilder<MessageKey, MessageTemplate> cacheBuilder = new CacheBuilder<MessageKey, MessageTemplate>();
+        if (builder.maxCacheTimeInSec >= 0) {
+            cacheBuilder.expireAfterWrite(builder.maxCacheTimeInSec, TimeUnit.SECONDS);
+        }
+        if (builder.refreshIntervalInSec > 0) {
+            cacheBuilder.refreshAfterWrite(builder.refreshIntervalInSec, TimeUnit.SECONDS);
+        }
+        if (builder.failureCacheTimeInSec >= 0) {
+            cacheBuilder.cacheFailures(builder.failureCacheTimeInSec, TimeUnit.SECONDS);
+        }
+        if (builder.maxMessageCacheSize >= 0) {
+            cacheBuilder.maximumSize(builder.maxMessageCacheSize);
         }
+        if (builder.maxMessageCacheWeight >= 0) {
+            cacheBuilder.maximumWeight(builder.maxMessageCacheWeight).weigher(MESSAGE_TEMPLATE_WEIGHER);
+        }
+        return cacheBuilder.build(cacheLoader);
     }
 
-    private static LoadingCache<Locale, PropertyResolver> createPropertyResolverCache(Builder builder,
-                                                                                      CacheLoader<Locale, PropertyResolver> cacheLoader) {
+    private static LoadingCache<Locale, LocaleBundle> createLocaleBundleCache(Builder builder,
+                                                                              CacheLoader<Locale, LocaleBundle> cacheLoader) {
         CacheBuilder<Object, Object> cacheBuilder = new CacheBuilder<Object, Object>();
         if (builder.maxCacheTimeInSec >= 0) {
             cacheBuilder.expireAfterWrite(builder.maxCacheTimeInSec, TimeUnit.SECONDS);
         }
+        if (builder.refreshIntervalInSec > 0) {
+            cacheBuilder.refreshAfterWrite(builder.refreshIntervalInSec, TimeUnit.SECONDS);
+        }
+        if (builder.failureCacheTimeInSec >= 0) {
+            cacheBuilder.cacheFailures(builder.failureCacheTimeInSec, TimeUnit.SECONDS);
+        }
         return cacheBuilder.build(cacheLoader);
     }
 
@@ -332,6 +717,14 @@ public class DefaultLocalizationProvider implements LocalizationProvider {
         return locales;
     }
 
+    private static String createLocalizedLocation(String location, Locale locale) {
+        int idx = location.lastIndexOf(FILE_EXTENSION_SEPARATOR);
+        if (idx == -1) {
+            throw new RuntimeException("Localization resource should have extension in location: '" + location + "'");
+        }
+        return createLocalizedLocation(location.substring(0, idx), location.substring(idx), locale);
+    }
+
     private static String createLocalizedLocation(String locationPrefix, String locationSuffix, Locale locale) {
         StringBuilder builder = new StringBuilder(locationPrefix.length() + locationSuffix.length() + 6);
 
@@ -363,18 +756,22 @@ public class DefaultLocalizationProvider implements LocalizationProvider {
         return mergedParameters;
     }
 
-    private static boolean isEmptySelector(String selector) {
-        return selector.isEmpty();
-    }
-
     public static class Builder {
         private LocaleResolver localeResolver;
         private ResourceLoader resourceLoader;
         private LocalizationLoader localizationLoader;
         private List<String> locations;
         private MessageFormatFactory messageFormatFactory;
+        private MessageTemplateFactory messageTemplateFactory;
         private PluralFormSelectorResolver pluralFormSelectorResolver;
         private int maxCacheTimeInSec = -1;
+        private int refreshIntervalInSec = -1;
+        private int failureCacheTimeInSec = -1;
+        private Locale fallbackLocale;
+        private long maxMessageCacheSize = -1;
+        private long maxMessageCacheWeight = -1;
+        private boolean mergedLocaleHierarchy;
+        private boolean resourceWatching;
 
         public Builder withLocaleResolver(LocaleResolver localeResolver) {
             this.localeResolver = localeResolver;
@@ -401,6 +798,14 @@ public class DefaultLocalizationProvider implements LocalizationProvider {
             return this;
         }
 
+        /**
+         * Set factory of compiled message templates, which takes precedence over {@link MessageFormatFactory}.
+         */
+        public Builder withMessageTemplateFactory(MessageTemplateFactory messageTemplateFactory) {
+            this.messageTemplateFactory = messageTemplateFactory;
+            return this;
+        }
+
         public Builder withPluralFormSelectorResolver(PluralFormSelectorResolver pluralFormSelectorResolver) {
             this.pluralFormSelectorResolver = pluralFormSelectorResolver;
             return this;
@@ -411,51 +816,442 @@ public class DefaultLocalizationProvider implements LocalizationProvider {
             return this;
         }
 
+        public Builder withRefreshIntervalInSec(int refreshIntervalInSec) {
+            this.refreshIntervalInSec = refreshIntervalInSec;
+            return this;
+        }
+
+        public Builder withFailureCacheTimeInSec(int failureCacheTimeInSec) {
+            this.failureCacheTimeInSec = failureCacheTimeInSec;
+            return this;
+        }
+
+        public Builder withFallbackLocale(Locale fallbackLocale) {
+            this.fallbackLocale = fallbackLocale;
+            return this;
+        }
+
+        public Builder withMaxMessageCacheSize(long maxMessageCacheSize) {
+            this.maxMessageCacheSize = maxMessageCacheSize;
+            return this;
+        }
+
+        public Builder withMaxMessageCacheWeight(long maxMessageCacheWeight) {
+            this.maxMessageCacheWeight = maxMessageCacheWeight;
+            return this;
+        }
+
+        public Builder withMergedLocaleHierarchy(boolean mergedLocaleHierarchy) {
+            this.mergedLocaleHierarchy = mergedLocaleHierarchy;
+            return this;
+        }
+
+        public Builder withResourceWatching(boolean resourceWatching) {
+            this.resourceWatching = resourceWatching;
+            return this;
+        }
+
         public DefaultLocalizationProvider build() {
+            checkState(maxMessageCacheSize == -1 || maxMessageCacheWeight == -1,
+                    "Only one of 'maxMessageCacheSize' and 'maxMessageCacheWeight' may be set");
             return new DefaultLocalizationProvider(this);
         }
     }
 
-    private static final class MessageKey {
+    /**
+     * Keeps loaded locale bundles up to date with watched resources. Only locales which have own resources are
+     * watched, every resource which may be used by such locale is watched, including more specific ones which do
+     * not exist yet. Change of a resource reloads only locales which use it and, if locale resources are loaded per
+     * location, only the location it belongs to.
+     * <p/>
+     * Other locales are looked up in locale bundle cache as without watching, so unsupported locales neither grow
+     * snapshot nor register watches and missing resources are not searched again while failure is cached. Cached
+     * bundles of locales which use resources of fallback locale are replaced when fallback locale is reloaded.
+     * <p/>
+     * Bundles are published as immutable {@link ResourceSnapshot}, which is replaced by a single volatile write when
+     * a locale is loaded or resources are reloaded. Reloading happens on watching thread, readers never block and see
+     * either all or none of the bundles reloaded for a change. Messages are compiled into message table of their
+     * bundle or cached per bundle when message cache is limited, so messages and constants read from the same bundle
+     * always come from the same resources.
+     */
+    private final class ResourceWatcher implements ResourceChangeListener {
+        private final WatchableResourceLoader watchableResourceLoader;
+        private final ConcurrentMap<String, Set<Locale>> resourceLocales = new ConcurrentHashMap<String, Set<Locale>>();
+        private final Object lock = new Object();
+        private volatile ResourceSnapshot snapshot = ResourceSnapshot.EMPTY;
+        // Guarded by lock, incremented on every change, so bundles loaded concurrently with a change are not published
+        private long changeCount;
+
+        ResourceWatcher(WatchableResourceLoader watchableResourceLoader) {
+            this.watchableResourceLoader = watchableResourceLoader;
+        }
+
+        LocaleBundle getLocaleBundle(Locale locale) {
+            for (; ; ) {
+                LocaleBundle localeBundle = snapshot.get(locale);
+                if (localeBundle != null) {
+                    return localeBundle;
+                }
+                localeBundle = getCachedLocaleBundle(locale);
+                if (locale.equals(localeBundle.getResourceLocale())) {
+                    // Resources are loaded again once watched, so changes made before watching are not missed
+                    localeBundleCache.invalidate(locale);
+                    return loadWatchedLocaleBundle(locale);
+                }
+                if (getLocaleBundle(fallbackLocale).getPropertyResolver() == localeBundle.getPropertyResolver()) {
+                    return localeBundle;
+                }
+                // Fallback locale was reloaded since bundle was cached
+                localeBundleCache.invalidate(locale);
+            }
+        }
+
+        private LocaleBundle loadWatchedLocaleBundle(Locale locale) {
+            watchLocale(locale);
+            for (; ; ) {
+                long startChangeCount;
+                synchronized (lock) {
+                    startChangeCount = changeCount;
+                }
+                LocaleBundle localeBundle = createLocaleBundle(locale, null);
+                synchronized (lock) {
+                    if (startChangeCount == changeCount) {
+                        LocaleBundle existingBundle = snapshot.get(locale);
+                        if (existingBundle != null) {
+                            return existingBundle;
+                        }
+                        snapshot = snapshot.with(Collections.singletonMap(locale, localeBundle));
+                        return localeBundle;
+                    }
+                }
+                // Resources changed while loading, load them again
+            }
+        }
+
+        @Override
+        public void onResourceChanged(String localizedLocation) {
+            Set<Locale> locales = resourceLocales.get(localizedLocation);
+            if (locales == null) {
+                return;
+            }
+            synchronized (lock) {
+                changeCount++;
+            }
+
+            ResourceSnapshot currentSnapshot = snapshot;
+            Map<Locale, LocaleBundle> reloadedBundles = new HashMap<Locale, LocaleBundle>();
+            // Fallback locale is reloaded first, so locales which use its resources pick up reloaded ones
+            LocaleBundle fallbackBundle = null;
+            if (fallbackLocale != null && locales.contains(fallbackLocale)) {
+                LocaleBundle localeBundle = currentSnapshot.get(fallbackLocale);
+                if (localeBundle != null) {
+                    fallbackBundle = reloadLocaleBundle(fallbackLocale, localeBundle, localizedLocation, null);
+                }
+                if (fallbackBundle != null) {
+                    reloadedBundles.put(fallbackLocale, fallbackBundle);
+                }
+            }
+            for (Map.Entry<Locale, LocaleBundle> entry : currentSnapshot.getLocaleBundles().entrySet()) {
+                Locale locale = entry.getKey();
+                LocaleBundle localeBundle = entry.getValue();
+                if (locale.equals(fallbackLocale)) {
+                    continue;
+                }
+                LocaleBundle reloadedBundle = null;
+                if (locales.contains(locale)) {
+                    reloadedBundle = reloadLocaleBundle(locale, localeBundle, localizedLocation, fallbackBundle);
+                } else if (fallbackBundle != null && fallbackLocale.equals(localeBundle.getResourceLocale())) {
+                    reloadedBundle = new LocaleBundle(fallbackBundle.getPropertyResolver(), null, fallbackLocale);
+                }
+                if (reloadedBundle != null) {
+                    reloadedBundles.put(locale, reloadedBundle);
+                }
+            }
+
+            if (!reloadedBundles.isEmpty()) {
+                synchronized (lock) {
+                    snapshot = snapshot.with(reloadedBundles);
+                }
+            }
+        }
+
+        private LocaleBundle reloadLocaleBundle(Locale locale, LocaleBundle localeBundle, String localizedLocation,
+                                                LocaleBundle fallbackBundle) {
+            try {
+                return createReloadedLocaleBundle(locale, localeBundle, localizedLocation, fallbackBundle);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Unable to reload resources of locale " + locale + ", previously loaded " +
+                        "resources are used", e);
+                return null;
+            }
+        }
+
+        private LocaleBundle createReloadedLocaleBundle(Locale locale, LocaleBundle localeBundle,
+                                                        String localizedLocation, LocaleBundle fallbackBundle) {
+            List<PropertyResolver> propertyResolvers = localeBundle.getLocationPropertyResolvers();
+            if (propertyResolvers == null) {
+                return createLocaleBundle(locale, fallbackBundle);
+            }
+            List<Locale> candidateLocales = createCandidateLocales(locale);
+            propertyResolvers = new ArrayList<PropertyResolver>(propertyResolvers);
+            for (int i = 0; i < locations.size(); i++) {
+                String location = locations.get(i);
+                for (Locale candidateLocale : candidateLocales) {
+                    if (localizedLocation.equals(createLocalizedLocation(location, candidateLocale))) {
+                        propertyResolvers.set(i, createPropertyResolver(location, locale));
+                        break;
+                    }
+                }
+            }
+            return new LocaleBundle(createMultiPropertyResolver(propertyResolvers), propertyResolvers, locale);
+        }
+
+        private void watchLocale(Locale locale) {
+            List<Locale> candidateLocales = createCandidateLocales(locale);
+            for (String location : locations) {
+                if (!resourceLoader.isSupported(location)) {
+                    // Reported by loading
+                    continue;
+                }
+                for (Locale candidateLocale : candidateLocales) {
+                    watchResource(createLocalizedLocation(location, candidateLocale), locale);
+                }
+            }
+        }
+
+        private void watchResource(String localizedLocation, Locale locale) {
+            Set<Locale> locales = resourceLocales.get(localizedLocation);
+            if (locales == null) {
+                Set<Locale> newLocales = new CopyOnWriteArraySet<Locale>();
+                locales = resourceLocales.putIfAbsent(localizedLocation, newLocales);
+                if (locales == null) {
+                    locales = newLocales;
+                    try {
+                        watchableResourceLoader.watch(localizedLocation, this);
+                    } catch (IOException e) {
+                        logger.log(Level.WARNING, "Unable to watch changes of " + localizedLocation, e);
+                    }
+                }
+            }
+            locales.add(locale);
+        }
+    }
+
+    /**
+     * Provider bound to a single locale and resources loaded for it at creation time. It never consults
+     * {@link LocaleResolver} and resolves all messages, including ones requested by key, through message table
+     * of the bound {@link LocaleBundle}, so lookups do not go through locale keyed caches unless message cache is
+     * limited.
+     */
+    private final class LocaleBoundProvider implements IndexedLocalizationProvider {
         private final Locale locale;
-        private final String key;
-        private final String selector;
+        // null when bundle of locale can be reloaded, it is looked up on each call then
+        private final LocaleBundle localeBundle;
 
-        public MessageKey(Locale locale, String key, String selector) {
+        LocaleBoundProvider(Locale locale, LocaleBundle localeBundle) {
             this.locale = locale;
-            this.key = key;
-            this.selector = selector;
+            this.localeBundle = localeBundle;
+        }
+
+        private LocaleBundle getBoundLocaleBundle() {
+            return localeBundle != null ? localeBundle : getLocaleBundle(locale);
         }
 
         @Override
-        public int hashCode() {
-            return Arrays.hashCode(new Object[] {key, selector, locale});
+        public String getString(String key) {
+            return getBoundLocaleBundle().getPropertyResolver().getString(checkNotNull(key));
         }
 
         @Override
-        public boolean equals(Object o) {
-            if (this == o) {
-                return true;
-            }
-            if (o == null || getClass() != o.getClass()) {
-                return false;
-            }
+        public Boolean getBoolean(String key) {
+            return getBoundLocaleBundle().getPropertyResolver().getBoolean(checkNotNull(key));
+        }
+
+        @Override
+        public Integer getInteger(String key) {
+            return getBoundLocaleBundle().getPropertyResolver().getInteger(checkNotNull(key));
+        }
+
+        @Override
+        public Long getLong(String key) {
+            return getBoundLocaleBundle().getPropertyResolver().getLong(checkNotNull(key));
+        }
+
+        @Override
+        public Float getFloat(String key) {
+            return getBoundLocaleBundle().getPropertyResolver().getFloat(checkNotNull(key));
+        }
+
+        @Override
+        public Double getDouble(String key) {
+            return getBoundLocaleBundle().getPropertyResolver().getDouble(checkNotNull(key));
+        }
+
+        @Override
+        public List<String> getStringList(String key) {
+            return getBoundLocaleBundle().getPropertyResolver().getStringList(checkNotNull(key));
+        }
+
+        @Override
+        public Map<String, String> getStringMap(String key) {
+            return getBoundLocaleBundle().getPropertyResolver().getStringMap(checkNotNull(key));
+        }
+
+        @Override
+        public String getMessage(String key, Object... parameters) {
+            return formatMessage(getSelectedTemplate(key, EMPTY_SELECTOR), parameters);
+        }
+
+        @Override
+        public MessageFormat getMessageFormat(String key) {
+            return toMessageFormat(getSelectedTemplate(key, EMPTY_SELECTOR));
+        }
+
+        @Override
+        public String getSelectedMessage(String key, String selector, Object... parameters) {
+            return formatMessage(getSelectedTemplate(key, selector), parameters);
+        }
+
+        @Override
+        public MessageFormat getSelectedMessageFormat(String key, String selector) {
+            return toMessageFormat(getSelectedTemplate(key, selector));
+        }
+
+        @Override
+        public String getPluralMessage(String key, Number count, Object... parameters) {
+            return formatMessage(getPluralTemplate(key, count), mergeParameters(count, parameters));
+        }
+
+        @Override
+        public MessageFormat getPluralMessageFormat(String key, Number count) {
+            return toMessageFormat(getPluralTemplate(key, count));
+        }
+
+        @Override
+        public boolean appendMessage(Appendable appendable, String key, Object... parameters) throws IOException {
+            return DefaultLocalizationProvider.appendMessage(appendable, getSelectedTemplate(key, EMPTY_SELECTOR),
+                    parameters);
+        }
 
-            MessageKey that = (MessageKey) o;
-            return MiscUtils.equal(key, that.key) && MiscUtils.equal(selector, selector) &&
-                    MiscUtils.equal(locale, that.locale);
+        @Override
+        public boolean appendSelectedMessage(Appendable appendable, String key, String selector,
+                                             Object... parameters) throws IOException {
+            return DefaultLocalizationProvider.appendMessage(appendable, getSelectedTemplate(key, selector),
+                    parameters);
         }
 
-        public Locale getLocale() {
-            return locale;
+        @Override
+        public boolean appendPluralMessage(Appendable appendable, String key, Number count, Object... parameters)
+                throws IOException {
+            return DefaultLocalizationProvider.appendMessage(appendable, getPluralTemplate(key, count),
+                    mergeParameters(count, parameters));
         }
 
-        public String getKey() {
-            return key;
+        @Override
+        public Map<String, CacheStats> getCacheStats() {
+            return DefaultLocalizationProvider.this.getCacheStats();
+        }
+
+        @Override
+        public LocalizationProvider forLocale(Locale locale) {
+            return this.locale.equals(locale) ? this : DefaultLocalizationProvider.this.forLocale(locale);
+        }
+
+        @Override
+        public void preload(Locale locale, boolean compileMessages, ForkJoinPool pool) {
+            DefaultLocalizationProvider.this.preload(locale, compileMessages, pool);
+        }
+
+        @Override
+        public int getKeyId(String key) {
+            return DefaultLocalizationProvider.this.getKeyId(key);
         }
 
-        public String getSelector() {
-            return selector;
+        @Override
+        public String getMessage(int keyId, Object... parameters) {
+            return formatMessage(getSelectedTemplate(keyId, EMPTY_SELECTOR), parameters);
+        }
+
+        @Override
+        public String getSelectedMessage(int keyId, String selector, Object... parameters) {
+            return formatMessage(getSelectedTemplate(keyId, selector), parameters);
+        }
+
+        @Override
+        public String getPluralMessage(int keyId, Number count, Object... parameters) {
+            return formatMessage(getPluralTemplate(keyId, count), mergeParameters(count, parameters));
+        }
+
+        @Override
+        public String getSelectedMessageFromArguments(int keyId, int selectorIndex, Object[] arguments) {
+            checkArgumentIndex(selectorIndex, arguments);
+            String selector = String.valueOf(arguments[selectorIndex]);
+            return formatMessage(getSelectedTemplate(keyId, selector), ArgumentLayout.SKIPPED_SLOT, selectorIndex, arguments);
+        }
+
+        @Override
+        public String getPluralMessageFromArguments(int keyId, int countIndex, Object[] arguments) {
+            checkArgumentIndex(countIndex, arguments);
+            Number count = (Number) arguments[countIndex];
+            return formatMessage(getPluralTemplate(keyId, count), ArgumentLayout.FIRST_SLOT, countIndex, arguments);
+        }
+
+        @Override
+        public Object getConstantsSnapshot(ConstantsDescriptor constantsDescriptor) {
+            return getBoundLocaleBundle().getConstantsSnapshot(checkNotNull(constantsDescriptor));
+        }
+
+        private MessageTemplate getSelectedTemplate(String key, String selector) {
+            checkNotNull(selector);
+            LocaleBundle boundLocaleBundle = getBoundLocaleBundle();
+            int keyId = messageLookup.findKeyId(boundLocaleBundle, checkNotNull(key));
+            return keyId < 0 ? null : messageLookup.getSelectedMessageTemplate(locale, boundLocaleBundle, keyId,
+                    selector);
+        }
+
+        private MessageTemplate getSelectedTemplate(int keyId, String selector) {
+            return messageLookup.getSelectedMessageTemplate(locale, getBoundLocaleBundle(), keyId, selector);
+        }
+
+        private MessageTemplate getPluralTemplate(String key, Number count) {
+            checkNotNull(count);
+            LocaleBundle boundLocaleBundle = getBoundLocaleBundle();
+            int keyId = messageLookup.findKeyId(boundLocaleBundle, checkNotNull(key));
+            return keyId < 0 ? null : messageLookup.getPluralMessageTemplate(locale, boundLocaleBundle, keyId, count,
+                    null);
+        }
+
+        private MessageTemplate getPluralTemplate(int keyId, Number count) {
+            return messageLookup.getPluralMessageTemplate(locale, getBoundLocaleBundle(), keyId, count, null);
+        }
+    }
+
+    /**
+     * {@link MessageSource} backed by bundles and message cache of this provider.
+     */
+    private final class ProviderMessageSource implements MessageSource {
+        @Override
+        public LocaleBundle getLocaleBundle(Locale locale) {
+            return DefaultLocalizationProvider.this.getLocaleBundle(locale);
+        }
+
+        @Override
+        public String getPluralFormSelector(LocaleBundle localeBundle, Number count) {
+            return DefaultLocalizationProvider.this.getPluralFormSelector(localeBundle, count);
+        }
+
+        @Override
+        public MessageTemplate compileMessageTemplate(Locale locale, LocaleBundle localeBundle, String key,
+                                                      String selector) {
+            MessageTemplate messageTemplate = createMessageTemplate(locale, localeBundle.getPropertyResolver(), key,
+                    selector);
+            return messageTemplate == NULL_MESSAGE_TEMPLATE ? null : messageTemplate;
+        }
+
+        @Override
+        public MessageTemplate getCachedMessageTemplate(Locale locale, LocaleBundle localeBundle, String key,
+                                                        String selector) {
+            return getMessageTemplate(locale, localeBundle, key, selector);
         }
     }
 }
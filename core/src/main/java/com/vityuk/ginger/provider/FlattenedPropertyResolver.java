@@ -0,0 +1,215 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.PropertyResolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * This implementation merges multiple underlying property resolvers into a single immutable table when created.
+ * <p/>
+ * Resolvers are given in order of precedence, e.g. all locations of the most specific locale first and all locations
+ * of root locale last. Each key is mapped to the resolvers which define it, so every lookup is a single table probe
+ * and a missing key falls back to less specific resolver per key rather than per resource. Map properties are merged
+ * per map key in the same way.
+ *
+ * @author Andriy Vityuk
+ */
+class FlattenedPropertyResolver implements PropertyResolver {
+    private final Map<String, Property> properties;
+    private final Set<String> keys;
+
+    public FlattenedPropertyResolver(List<PropertyResolver> propertyResolvers) {
+        checkNotNull(propertyResolvers);
+        Map<String, List<PropertyResolver>> keyResolvers = new HashMap<String, List<PropertyResolver>>();
+        for (PropertyResolver propertyResolver : propertyResolvers) {
+            for (String key : propertyResolver.getKeys()) {
+                List<PropertyResolver> resolvers = keyResolvers.get(key);
+                if (resolvers == null) {
+                    resolvers = new ArrayList<PropertyResolver>(1);
+                    keyResolvers.put(key, resolvers);
+                }
+                resolvers.add(propertyResolver);
+            }
+        }
+
+        Map<String, Property> properties = new HashMap<String, Property>(keyResolvers.size() * 4 / 3 + 1);
+        for (Map.Entry<String, List<PropertyResolver>> entry : keyResolvers.entrySet()) {
+            String key = entry.getKey();
+            List<PropertyResolver> resolvers = entry.getValue();
+            properties.put(key, new Property(resolvers.toArray(new PropertyResolver[resolvers.size()]),
+                    mergeStringMaps(key, resolvers)));
+        }
+        this.properties = properties;
+        this.keys = Collections.unmodifiableSet(properties.keySet());
+    }
+
+    @Override
+    public String getString(String key) {
+        Property property = properties.get(checkNotNull(key));
+        if (property == null) {
+            return null;
+        }
+        for (PropertyResolver propertyResolver : property.propertyResolvers) {
+            String value = propertyResolver.getString(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Boolean getBoolean(String key) {
+        Property property = properties.get(checkNotNull(key));
+        if (property == null) {
+            return null;
+        }
+        for (PropertyResolver propertyResolver : property.propertyResolvers) {
+            Boolean value = propertyResolver.getBoolean(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Integer getInteger(String key) {
+        Property property = properties.get(checkNotNull(key));
+        if (property == null) {
+            return null;
+        }
+        for (PropertyResolver propertyResolver : property.propertyResolvers) {
+            Integer value = propertyResolver.getInteger(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Long getLong(String key) {
+        Property property = properties.get(checkNotNull(key));
+        if (property == null) {
+            return null;
+        }
+        for (PropertyResolver propertyResolver : property.propertyResolvers) {
+            Long value = propertyResolver.getLong(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Float getFloat(String key) {
+        Property property = properties.get(checkNotNull(key));
+        if (property == null) {
+            return null;
+        }
+        for (PropertyResolver propertyResolver : property.propertyResolvers) {
+            Float value = propertyResolver.getFloat(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Double getDouble(String key) {
+        Property property = properties.get(checkNotNull(key));
+        if (property == null) {
+            return null;
+        }
+        for (PropertyResolver propertyResolver : property.propertyResolvers) {
+            Double value = propertyResolver.getDouble(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<String> getStringList(String key) {
+        Property property = properties.get(checkNotNull(key));
+        if (property == null) {
+            return null;
+        }
+        for (PropertyResolver propertyResolver : property.propertyResolvers) {
+            List<String> value = propertyResolver.getStringList(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, String> getStringMap(String key) {
+        Property property = properties.get(checkNotNull(key));
+        return property == null ? null : property.stringMap;
+    }
+
+    @Override
+    public Set<String> getKeys() {
+        return keys;
+    }
+
+    private static Map<String, String> mergeStringMaps(String key, List<PropertyResolver> propertyResolvers) {
+        if (propertyResolvers.size() == 1) {
+            Map<String, String> stringMap = propertyResolvers.get(0).getStringMap(key);
+            return stringMap == null ? null : Collections.unmodifiableMap(stringMap);
+        }
+
+        Map<String, String> mergedMap = null;
+        // Less specific resolvers go first, so values of more specific ones override them
+        for (int i = propertyResolvers.size() - 1; i >= 0; i--) {
+            Map<String, String> stringMap = propertyResolvers.get(i).getStringMap(key);
+            if (stringMap != null) {
+                if (mergedMap == null) {
+                    mergedMap = new HashMap<String, String>(stringMap);
+                } else {
+                    mergedMap.putAll(stringMap);
+                }
+            }
+        }
+        return mergedMap == null ? null : Collections.unmodifiableMap(mergedMap);
+    }
+
+    private static final class Property {
+        private final PropertyResolver[] propertyResolvers;
+        private final Map<String, String> stringMap;
+
+        Property(PropertyResolver[] propertyResolvers, Map<String, String> stringMap) {
+            this.propertyResolvers = propertyResolvers;
+            this.stringMap = stringMap;
+        }
+    }
+}
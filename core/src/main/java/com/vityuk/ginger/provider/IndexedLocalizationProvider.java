@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+/**
+ * {@link LocalizationProvider} which allows to resolve message keys to integer ids once and use them for lookups
+ * afterwards, so that hot path does not hash and compare key strings.
+ * <p/>
+ * Ids are dense, stable for the lifetime of provider and shared by all locales.
+ *
+ * @author Andriy Vityuk
+ */
+public interface IndexedLocalizationProvider extends LocalizationProvider {
+    int getKeyId(String key);
+
+    String getMessage(int keyId, Object... parameters);
+
+    String getSelectedMessage(int keyId, String selector, Object... parameters);
+
+    String getPluralMessage(int keyId, Number count, Object... parameters);
+
+    /**
+     * Get selected message with selector and parameters taken from arguments of localizable method, so that
+     * arguments are not copied.
+     *
+     * @param selectorIndex index of selector argument, its string value is used as selector
+     * @param arguments     arguments of localizable method, all except selector are message parameters
+     */
+    String getSelectedMessageFromArguments(int keyId, int selectorIndex, Object[] arguments);
+
+    /**
+     * Get plural message with count and parameters taken from arguments of localizable method, so that arguments
+     * are not copied.
+     *
+     * @param countIndex index of {@link Number} count argument, count is the first message parameter
+     * @param arguments  arguments of localizable method, other arguments follow count in message parameters
+     */
+    String getPluralMessageFromArguments(int keyId, int countIndex, Object[] arguments);
+
+    /**
+     * Get snapshot of constants for current locale, snapshot is created once per loaded resources of locale.
+     *
+     * @param constantsDescriptor constants to get snapshot of, must be not {@code null}
+     * @return snapshot or {@code null} if some of constants can not be resolved, they have to be looked up one by
+     *         one then, so errors are reported by methods which use them
+     */
+    Object getConstantsSnapshot(ConstantsDescriptor constantsDescriptor);
+}
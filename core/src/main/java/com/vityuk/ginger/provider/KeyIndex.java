@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.vityuk.ginger.util.Preconditions.checkArgument;
+
+/**
+ * Assigns dense integer ids to keys. Ids are never reused or reassigned, so only keys of proxy methods and keys
+ * which exist in loaded resources are indexed, keys requested by callers are looked up with {@link #findId(String)}.
+ *
+ * @author Andriy Vityuk
+ */
+final class KeyIndex {
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+    private volatile String[] keys = new String[64];
+    // Guarded by this
+    private int size;
+
+    /**
+     * @return id of key or {@code -1} if key was not indexed yet
+     */
+    int findId(String key) {
+        Integer id = ids.get(key);
+        return id == null ? -1 : id;
+    }
+
+    int getId(String key) {
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(key);
+            if (id != null) {
+                return id;
+            }
+            String[] currentKeys = keys;
+            if (size == currentKeys.length) {
+                currentKeys = Arrays.copyOf(currentKeys, size * 2);
+            }
+            currentKeys[size] = key;
+            // Publish keys before id becomes visible
+            keys = currentKeys;
+            id = size++;
+            ids.put(key, id);
+            return id;
+        }
+    }
+
+    String getKey(int id) {
+        String[] currentKeys = keys;
+        checkArgument(id >= 0 && id < currentKeys.length && currentKeys[id] != null, "Unknown key id: %s", id);
+        return currentKeys[id];
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.PropertyResolver;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Loaded resources of a single locale together with messages compiled from them.
+ *
+ * @author Andriy Vityuk
+ */
+final class LocaleBundle {
+    private static final Object NO_CONSTANTS_SNAPSHOT = new Object();
+
+    private final PropertyResolver propertyResolver;
+    private final List<PropertyResolver> locationPropertyResolvers;
+    private final Locale resourceLocale;
+    private final MessageTable messageTable = new MessageTable();
+    private final ConcurrentMap<ConstantsDescriptor, Object> constantsSnapshots =
+            new ConcurrentHashMap<ConstantsDescriptor, Object>();
+
+    /**
+     * @param propertyResolver          resolver of all resources of locale
+     * @param locationPropertyResolvers resolvers of separate locations in the order of locations, {@code null} if
+     *                                  resources of locations can not be reloaded separately
+     * @param resourceLocale            locale which resources were loaded for, differs from bundle locale when
+     *                                  resources of fallback locale are used
+     */
+    LocaleBundle(PropertyResolver propertyResolver, List<PropertyResolver> locationPropertyResolvers,
+                 Locale resourceLocale) {
+        this.propertyResolver = propertyResolver;
+        this.locationPropertyResolvers = locationPropertyResolvers;
+        this.resourceLocale = resourceLocale;
+    }
+
+    PropertyResolver getPropertyResolver() {
+        return propertyResolver;
+    }
+
+    List<PropertyResolver> getLocationPropertyResolvers() {
+        return locationPropertyResolvers;
+    }
+
+    Locale getResourceLocale() {
+        return resourceLocale;
+    }
+
+    MessageTable getMessageTable() {
+        return messageTable;
+    }
+
+    /**
+     * @return snapshot of constants resolved from resources of this bundle or {@code null} if some of them can not
+     *         be resolved
+     */
+    Object getConstantsSnapshot(ConstantsDescriptor constantsDescriptor) {
+        Object snapshot = constantsSnapshots.get(constantsDescriptor);
+        if (snapshot == null) {
+            snapshot = createConstantsSnapshot(constantsDescriptor);
+            Object existingSnapshot = constantsSnapshots.putIfAbsent(constantsDescriptor, snapshot);
+            if (existingSnapshot != null) {
+                snapshot = existingSnapshot;
+            }
+        }
+        return snapshot == NO_CONSTANTS_SNAPSHOT ? null : snapshot;
+    }
+
+    private Object createConstantsSnapshot(ConstantsDescriptor constantsDescriptor) {
+        int constantCount = constantsDescriptor.getConstantCount();
+        Object[] values = new Object[constantCount];
+        try {
+            for (int i = 0; i < constantCount; i++) {
+                values[i] = getConstant(constantsDescriptor.getKey(i), constantsDescriptor.getType(i));
+            }
+            // Snapshot can not hold missing primitive constant
+            return constantsDescriptor.createSnapshot(values);
+        } catch (RuntimeException e) {
+            // Invalid and missing values are reported when constants are looked up one by one
+            return NO_CONSTANTS_SNAPSHOT;
+        }
+    }
+
+    private Object getConstant(String key, Class<?> type) {
+        if (type == String.class) {
+            return propertyResolver.getString(key);
+        }
+        if (type == Boolean.class) {
+            return propertyResolver.getBoolean(key);
+        }
+        if (type == Integer.class) {
+            return propertyResolver.getInteger(key);
+        }
+        if (type == Long.class) {
+            return propertyResolver.getLong(key);
+        }
+        if (type == Float.class) {
+            return propertyResolver.getFloat(key);
+        }
+        if (type == Double.class) {
+            return propertyResolver.getDouble(key);
+        }
+        if (type == List.class) {
+            return propertyResolver.getStringList(key);
+        }
+        if (type == Map.class) {
+            return propertyResolver.getStringMap(key);
+        }
+        throw new IllegalStateException("Unsupported constant type: " + type.getName());
+    }
+}
@@ -16,9 +16,14 @@
 
 package com.vityuk.ginger.provider;
 
+import com.vityuk.ginger.cache.CacheStats;
+
+import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author Andriy Vityuk
@@ -51,4 +56,32 @@ public interface LocalizationProvider {
     String getPluralMessage(String key, Number count, Object... parameters);
 
     MessageFormat getPluralMessageFormat(String key, Number count);
+
+    boolean appendMessage(Appendable appendable, String key, Object... parameters) throws IOException;
+
+    boolean appendSelectedMessage(Appendable appendable, String key, String selector, Object... parameters)
+            throws IOException;
+
+    boolean appendPluralMessage(Appendable appendable, String key, Number count, Object... parameters)
+            throws IOException;
+
+    Map<String, CacheStats> getCacheStats();
+
+    /**
+     * Get provider bound to given locale, which does not resolve current locale on each call.
+     *
+     * @param locale locale of returned provider, must be not {@code null}
+     * @return provider bound to {@code locale}
+     */
+    LocalizationProvider forLocale(Locale locale);
+
+    /**
+     * Load resources for given locale ahead of time.
+     *
+     * @param locale          locale to load resources for, must be not {@code null}
+     * @param compileMessages {@code true} to compile all messages of loaded resources as well
+     * @param pool            fork/join pool which this method is called from and which resources of separate
+     *                        locations may be loaded in parallel by, {@code null} to load them in calling thread
+     */
+    void preload(Locale locale, boolean compileMessages, ForkJoinPool pool);
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.util.MiscUtils;
+
+import java.util.Locale;
+
+/**
+ * Key of compiled message. Keys stored in cache are never modified, mutable instances are only used for lookups.
+ * Bundle is set only for messages of watched resources and is compared by identity.
+ *
+ * @author Andriy Vityuk
+ */
+final class MessageKey {
+    private Locale locale;
+    private LocaleBundle localeBundle;
+    private String key;
+    private String selector;
+    private int hash;
+
+    MessageKey() {
+    }
+
+    MessageKey(Locale locale, LocaleBundle localeBundle, String key, String selector) {
+        reset(locale, localeBundle, key, selector);
+    }
+
+    MessageKey reset(Locale locale, LocaleBundle localeBundle, String key, String selector) {
+        this.locale = locale;
+        this.localeBundle = localeBundle;
+        this.key = key;
+        this.selector = selector;
+        this.hash = 31 * (31 * key.hashCode() + selector.hashCode()) + locale.hashCode();
+        return this;
+    }
+
+    void clear() {
+        locale = null;
+        localeBundle = null;
+        key = null;
+        selector = null;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        MessageKey that = (MessageKey) o;
+        return hash == that.hash && localeBundle == that.localeBundle && MiscUtils.equal(key, that.key) &&
+                MiscUtils.equal(selector, that.selector) && MiscUtils.equal(locale, that.locale);
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public LocaleBundle getLocaleBundle() {
+        return localeBundle;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getSelector() {
+        return selector;
+    }
+}
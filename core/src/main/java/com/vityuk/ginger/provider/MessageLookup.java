@@ -0,0 +1,218 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.PropertyResolver;
+import com.vityuk.ginger.provider.format.MessageFormatTemplate;
+import com.vityuk.ginger.provider.format.MessageTemplate;
+import com.vityuk.ginger.provider.plural.PluralCategory;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * Looks up compiled messages of locale bundles. Implementations differ in where compiled messages are kept and
+ * which resources they are compiled from, one is chosen by {@link DefaultLocalizationProvider} for its caching
+ * and reloading options:
+ * <ul>
+ * <li>{@link SharedMessageLookup} - bundles are never reloaded</li>
+ * <li>{@link BundleMessageLookup} - bundles expire or are refreshed</li>
+ * <li>{@link WatchedMessageLookup} - bundles are reloaded on resource changes</li>
+ * <li>{@link CachedMessageLookup} - size of message cache is limited</li>
+ * </ul>
+ *
+ * @author Andriy Vityuk
+ */
+abstract class MessageLookup {
+    static final String EMPTY_SELECTOR = "";
+    static final MessageTemplate NULL_MESSAGE_TEMPLATE = new MessageFormatTemplate(new MessageFormat(""));
+
+    private static final String ZERO_SELECTOR = "0";
+    private static final String ONE_SELECTOR = "1";
+
+    final KeyIndex keyIndex;
+    final MessageSource messageSource;
+
+    MessageLookup(KeyIndex keyIndex, MessageSource messageSource) {
+        this.keyIndex = checkNotNull(keyIndex);
+        this.messageSource = checkNotNull(messageSource);
+    }
+
+    /**
+     * Look up message requested by key in current bundle of locale, message without selector is used when there is
+     * no message for selector.
+     */
+    MessageTemplate getSelectedMessageTemplate(Locale locale, String key, String selector) {
+        MessageTemplate messageTemplate = messageSource.getCachedMessageTemplate(locale, null, key, selector);
+        if (messageTemplate == null && !isEmptySelector(selector)) {
+            // Fallback to message without selector
+            messageTemplate = messageSource.getCachedMessageTemplate(locale, null, key, EMPTY_SELECTOR);
+        }
+        return messageTemplate;
+    }
+
+    /**
+     * Look up message of key in given bundle, message without selector is used when there is no message for
+     * selector.
+     */
+    final MessageTemplate getSelectedMessageTemplate(Locale locale, LocaleBundle localeBundle, int keyId,
+                                                     String selector) {
+        checkNotNull(selector);
+        MessageTable.KeyMessages keyMessages = getKeyMessages(localeBundle, keyId);
+
+        MessageTemplate messageTemplate = getMessageTemplate(locale, localeBundle, keyId, keyMessages, selector);
+        if (messageTemplate == null && !isEmptySelector(selector)) {
+            // Fallback to message without selector
+            messageTemplate = getMessageTemplate(locale, localeBundle, keyId, keyMessages, EMPTY_SELECTOR);
+        }
+        return messageTemplate;
+    }
+
+    /**
+     * Look up message requested by key through bundle, so it is compiled from resources of the bundle.
+     */
+    final MessageTemplate getBundleSelectedMessageTemplate(Locale locale, String key, String selector) {
+        LocaleBundle localeBundle = messageSource.getLocaleBundle(locale);
+        int keyId = findKeyId(localeBundle, key);
+        return keyId < 0 ? null : getSelectedMessageTemplate(locale, localeBundle, keyId, selector);
+    }
+
+    /**
+     * @param pluralFormSelector plural form selector of count if it is already known, otherwise {@code null}
+     */
+    final MessageTemplate getPluralMessageTemplate(Locale locale, LocaleBundle localeBundle, int keyId, Number count,
+                                                   String pluralFormSelector) {
+        MessageTable.KeyMessages keyMessages = getKeyMessages(localeBundle, keyId);
+        if (keyMessages == null || !isIntCount(count)) {
+            return resolvePluralMessageTemplate(locale, localeBundle, keyId, keyMessages, count, pluralFormSelector);
+        }
+
+        int value = count.intValue();
+        int slot;
+        if (value == 0) {
+            slot = PluralVariants.EXACT_ZERO_SLOT;
+        } else if (value == 1) {
+            slot = PluralVariants.EXACT_ONE_SLOT;
+        } else {
+            if (pluralFormSelector == null) {
+                pluralFormSelector = messageSource.getPluralFormSelector(localeBundle, count);
+            }
+            PluralCategory category = PluralCategory.forSelector(pluralFormSelector);
+            if (category == null) {
+                // Custom selector, not worth a slot
+                return resolvePluralMessageTemplate(locale, localeBundle, keyId, keyMessages, count,
+                        pluralFormSelector);
+            }
+            slot = PluralVariants.getCategorySlot(category);
+        }
+
+        PluralVariants pluralVariants = keyMessages.getPluralVariants();
+        MessageTemplate messageTemplateOptional = pluralVariants.get(slot);
+        if (messageTemplateOptional == null) {
+            MessageTemplate messageTemplate = resolvePluralMessageTemplate(locale, localeBundle, keyId, keyMessages,
+                    count, pluralFormSelector);
+            messageTemplateOptional = messageTemplate == null ? NULL_MESSAGE_TEMPLATE : messageTemplate;
+            pluralVariants.set(slot, messageTemplateOptional);
+        }
+        return messageTemplateOptional == NULL_MESSAGE_TEMPLATE ? null : messageTemplateOptional;
+    }
+
+    /**
+     * @return id of key or {@code -1} if there are no resources with such key, so keys requested by callers are
+     *         indexed only when they exist
+     */
+    final int findKeyId(LocaleBundle localeBundle, String key) {
+        int keyId = keyIndex.findId(key);
+        if (keyId < 0) {
+            PropertyResolver propertyResolver = localeBundle.getPropertyResolver();
+            if (propertyResolver.getStringMap(key) != null || propertyResolver.getString(key) != null) {
+                keyId = keyIndex.getId(key);
+            }
+        }
+        return keyId;
+    }
+
+    /**
+     * @return compiled messages of key kept by bundle or {@code null} if compiled messages are not kept by bundles
+     */
+    abstract MessageTable.KeyMessages getKeyMessages(LocaleBundle localeBundle, int keyId);
+
+    /**
+     * @param keyMessages compiled messages of key returned by {@link #getKeyMessages(LocaleBundle, int)}
+     * @return compiled message or {@code null} if there is no message for selector in resources
+     */
+    abstract MessageTemplate getMessageTemplate(Locale locale, LocaleBundle localeBundle, int keyId,
+                                                MessageTable.KeyMessages keyMessages, String selector);
+
+    private MessageTemplate resolvePluralMessageTemplate(Locale locale, LocaleBundle localeBundle, int keyId,
+                                                         MessageTable.KeyMessages keyMessages, Number count,
+                                                         String pluralFormSelector) {
+        MessageTemplate messageTemplate = null;
+        if (isExactCount(count)) {
+            // Special cases, allows to define specific message for 0 and 1 count
+            String selector = getExactCountSelector(count);
+            messageTemplate = getMessageTemplate(locale, localeBundle, keyId, keyMessages, selector);
+        }
+
+        if (messageTemplate == null) {
+            String selector = pluralFormSelector == null ? messageSource.getPluralFormSelector(localeBundle, count) :
+                    pluralFormSelector;
+            messageTemplate = getMessageTemplate(locale, localeBundle, keyId, keyMessages, selector);
+        }
+
+        if (messageTemplate == null) {
+            // Fallback to message without selector
+            messageTemplate = getMessageTemplate(locale, localeBundle, keyId, keyMessages, EMPTY_SELECTOR);
+        }
+
+        return messageTemplate;
+    }
+
+    private static String getExactCountSelector(Number count) {
+        if (count instanceof Integer || count instanceof Long || count instanceof Short || count instanceof Byte) {
+            long value = count.longValue();
+            if (value == 0) {
+                return ZERO_SELECTOR;
+            }
+            if (value == 1) {
+                return ONE_SELECTOR;
+            }
+        }
+        return String.valueOf(count);
+    }
+
+    static boolean isExactCount(Number count) {
+        int value = count.intValue();
+        return value == 0 || value == 1;
+    }
+
+    static boolean isIntCount(Number count) {
+        if (count instanceof Integer || count instanceof Short || count instanceof Byte) {
+            return true;
+        }
+        if (count instanceof Long) {
+            long value = count.longValue();
+            return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+        }
+        return false;
+    }
+
+    static boolean isEmptySelector(String selector) {
+        return selector.isEmpty();
+    }
+}
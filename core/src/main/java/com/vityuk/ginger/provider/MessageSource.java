@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.provider.format.MessageTemplate;
+
+import java.util.Locale;
+
+/**
+ * Resources and shared message cache of {@link DefaultLocalizationProvider} which {@link MessageLookup} compiles
+ * messages from.
+ *
+ * @author Andriy Vityuk
+ */
+interface MessageSource {
+    /**
+     * @return current bundle of locale
+     */
+    LocaleBundle getLocaleBundle(Locale locale);
+
+    /**
+     * @return plural form selector of count for language of bundle resources
+     */
+    String getPluralFormSelector(LocaleBundle localeBundle, Number count);
+
+    /**
+     * Compile message from resources of bundle, result is not cached.
+     *
+     * @return compiled message or {@code null} if there is no message for selector in resources
+     */
+    MessageTemplate compileMessageTemplate(Locale locale, LocaleBundle localeBundle, String key, String selector);
+
+    /**
+     * Get message from message cache, it expires on its own and is independent of bundle lifetime.
+     *
+     * @param localeBundle bundle which message is compiled from and cached for, {@code null} for current bundle of
+     *                     locale, message is shared by all bundles of locale then
+     * @return compiled message or {@code null} if there is no message for selector in resources
+     */
+    MessageTemplate getCachedMessageTemplate(Locale locale, LocaleBundle localeBundle, String key, String selector);
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.provider.format.MessageTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Compiled messages of a single locale indexed by key id, see {@link KeyIndex}.
+ * <p/>
+ * Table belongs to loaded locale resources and is discarded together with them, so it never outlives the
+ * resources its messages were compiled from. Tables are not used when size of message cache is limited.
+ *
+ * @author Andriy Vityuk
+ */
+final class MessageTable {
+    private volatile AtomicReferenceArray<KeyMessages> entries = new AtomicReferenceArray<KeyMessages>(64);
+
+    KeyMessages get(int keyId) {
+        AtomicReferenceArray<KeyMessages> currentEntries = entries;
+        if (keyId < currentEntries.length()) {
+            KeyMessages keyMessages = currentEntries.get(keyId);
+            if (keyMessages != null) {
+                return keyMessages;
+            }
+        }
+        return create(keyId);
+    }
+
+    private synchronized KeyMessages create(int keyId) {
+        AtomicReferenceArray<KeyMessages> currentEntries = entries;
+        if (keyId >= currentEntries.length()) {
+            AtomicReferenceArray<KeyMessages> newEntries = new AtomicReferenceArray<KeyMessages>(
+                    Math.max(keyId + 1, currentEntries.length() * 2));
+            for (int i = 0; i < currentEntries.length(); i++) {
+                newEntries.set(i, currentEntries.get(i));
+            }
+            entries = newEntries;
+            currentEntries = newEntries;
+        }
+        KeyMessages keyMessages = currentEntries.get(keyId);
+        if (keyMessages == null) {
+            keyMessages = new KeyMessages();
+            currentEntries.set(keyId, keyMessages);
+        }
+        return keyMessages;
+    }
+
+    /**
+     * Compiled messages of a single key. Message without selector is kept in a field, selected messages in a map.
+     * Missing messages are stored as a sentinel, {@code null} means message was not resolved yet. Only selectors
+     * which exist in resources are stored, so the map never outgrows resources of the key.
+     */
+    static final class KeyMessages {
+        private volatile MessageTemplate template;
+        private volatile ConcurrentMap<String, MessageTemplate> selectedTemplates;
+        private volatile PluralVariants pluralVariants;
+
+        MessageTemplate get(String selector) {
+            if (selector.isEmpty()) {
+                return template;
+            }
+            ConcurrentMap<String, MessageTemplate> currentSelectedTemplates = selectedTemplates;
+            return currentSelectedTemplates == null ? null : currentSelectedTemplates.get(selector);
+        }
+
+        void put(String selector, MessageTemplate messageTemplate) {
+            if (selector.isEmpty()) {
+                template = messageTemplate;
+            } else {
+                getSelectedTemplates().put(selector, messageTemplate);
+            }
+        }
+
+        PluralVariants getPluralVariants() {
+            PluralVariants currentPluralVariants = pluralVariants;
+            if (currentPluralVariants == null) {
+                synchronized (this) {
+                    currentPluralVariants = pluralVariants;
+                    if (currentPluralVariants == null) {
+                        currentPluralVariants = new PluralVariants();
+                        pluralVariants = currentPluralVariants;
+                    }
+                }
+            }
+            return currentPluralVariants;
+        }
+
+        private ConcurrentMap<String, MessageTemplate> getSelectedTemplates() {
+            ConcurrentMap<String, MessageTemplate> currentSelectedTemplates = selectedTemplates;
+            if (currentSelectedTemplates == null) {
+                synchronized (this) {
+                    currentSelectedTemplates = selectedTemplates;
+                    if (currentSelectedTemplates == null) {
+                        currentSelectedTemplates = new ConcurrentHashMap<String, MessageTemplate>(8, 0.75f, 1);
+                        selectedTemplates = currentSelectedTemplates;
+                    }
+                }
+            }
+            return currentSelectedTemplates;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.provider.format.MessageTemplate;
+import com.vityuk.ginger.provider.plural.PluralCategory;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Plural variants of a single message key and locale. Each slot holds the template finally chosen for an exact count
+ * of {@code 0} or {@code 1} or for a plural category, with fallbacks to less specific messages already applied, so
+ * plural message lookup is a single array read once slot is resolved. Missing messages are stored as a sentinel,
+ * {@code null} means slot was not resolved yet.
+ *
+ * @author Andriy Vityuk
+ */
+final class PluralVariants {
+    static final int EXACT_ZERO_SLOT = 0;
+    static final int EXACT_ONE_SLOT = 1;
+    private static final int CATEGORY_SLOT_OFFSET = 2;
+    private static final int SLOTS = CATEGORY_SLOT_OFFSET + PluralCategory.values().length;
+
+    private final AtomicReferenceArray<MessageTemplate> templates = new AtomicReferenceArray<MessageTemplate>(SLOTS);
+
+    static int getCategorySlot(PluralCategory category) {
+        return CATEGORY_SLOT_OFFSET + category.ordinal();
+    }
+
+    MessageTemplate get(int slot) {
+        return templates.get(slot);
+    }
+
+    void set(int slot, MessageTemplate messageTemplate) {
+        templates.set(slot, messageTemplate);
+    }
+}
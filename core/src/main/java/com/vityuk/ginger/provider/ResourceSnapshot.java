@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.provider;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable set of loaded locale bundles. Loading of a locale or reloading of resources never modifies existing
+ * snapshot, but creates a new one which shares unchanged bundles with the previous one. Snapshot which is no longer
+ * published stays reachable only from calls which started before it was replaced, so it is released by garbage
+ * collector once they finish.
+ *
+ * @author Andriy Vityuk
+ */
+final class ResourceSnapshot {
+    static final ResourceSnapshot EMPTY = new ResourceSnapshot(Collections.<Locale, LocaleBundle>emptyMap());
+
+    private final Map<Locale, LocaleBundle> localeBundles;
+
+    private ResourceSnapshot(Map<Locale, LocaleBundle> localeBundles) {
+        this.localeBundles = localeBundles;
+    }
+
+    LocaleBundle get(Locale locale) {
+        return localeBundles.get(locale);
+    }
+
+    Map<Locale, LocaleBundle> getLocaleBundles() {
+        return localeBundles;
+    }
+
+    /**
+     * Create snapshot with given bundles added or replaced.
+     */
+    ResourceSnapshot with(Map<Locale, LocaleBundle> changedBundles) {
+        Map<Locale, LocaleBundle> newLocaleBundles = new HashMap<Locale, LocaleBundle>(localeBundles);
+        newLocaleBundles.putAll(changedBundles);
+        return new ResourceSnapshot(Collections.unmodifiableMap(newLocaleBundles));
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.provider.format.MessageTemplate;
+
+import java.util.Locale;
+
+/**
+ * {@link MessageLookup} used when bundles are never reloaded. Bundle of locale is never replaced, so message
+ * tables are filled from message cache and compiled messages are shared with key based lookups.
+ *
+ * @author Andriy Vityuk
+ */
+final class SharedMessageLookup extends TableMessageLookup {
+    SharedMessageLookup(KeyIndex keyIndex, MessageSource messageSource) {
+        super(keyIndex, messageSource);
+    }
+
+    @Override
+    MessageTemplate compileMessageTemplate(Locale locale, LocaleBundle localeBundle, String key, String selector) {
+        return messageSource.getCachedMessageTemplate(locale, null, key, selector);
+    }
+}
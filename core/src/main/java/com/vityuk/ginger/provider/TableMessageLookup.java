@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.provider.format.MessageTemplate;
+
+import java.util.Locale;
+
+/**
+ * {@link MessageLookup} which keeps compiled messages in message table of each bundle, see {@link MessageTable}.
+ * Messages looked up by key id never go through message cache once compiled.
+ *
+ * @author Andriy Vityuk
+ */
+abstract class TableMessageLookup extends MessageLookup {
+    TableMessageLookup(KeyIndex keyIndex, MessageSource messageSource) {
+        super(keyIndex, messageSource);
+    }
+
+    @Override
+    final MessageTable.KeyMessages getKeyMessages(LocaleBundle localeBundle, int keyId) {
+        return localeBundle.getMessageTable().get(keyId);
+    }
+
+    @Override
+    final MessageTemplate getMessageTemplate(Locale locale, LocaleBundle localeBundle, int keyId,
+                                             MessageTable.KeyMessages keyMessages, String selector) {
+        MessageTemplate messageTemplateOptional = keyMessages.get(selector);
+        if (messageTemplateOptional == null) {
+            MessageTemplate messageTemplate = compileMessageTemplate(locale, localeBundle, keyIndex.getKey(keyId),
+                    selector);
+            if (messageTemplate == null && !isEmptySelector(selector)) {
+                // Selector is missing in resources, not stored, so selectors passed by callers do not grow table
+                return null;
+            }
+            messageTemplateOptional = messageTemplate == null ? NULL_MESSAGE_TEMPLATE : messageTemplate;
+            keyMessages.put(selector, messageTemplateOptional);
+        }
+        return messageTemplateOptional == NULL_MESSAGE_TEMPLATE ? null : messageTemplateOptional;
+    }
+
+    /**
+     * Compile message stored in message table of bundle.
+     *
+     * @return compiled message or {@code null} if there is no message for selector in resources
+     */
+    abstract MessageTemplate compileMessageTemplate(Locale locale, LocaleBundle localeBundle, String key,
+                                                    String selector);
+}
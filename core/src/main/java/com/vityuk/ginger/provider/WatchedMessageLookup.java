@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.provider.format.MessageTemplate;
+
+import java.util.Locale;
+
+/**
+ * {@link MessageLookup} used when bundles are reloaded on resource changes. All messages, including ones requested
+ * by key, are compiled per bundle, so reloaded bundle never serves messages of previous one.
+ *
+ * @author Andriy Vityuk
+ */
+final class WatchedMessageLookup extends BundleMessageLookup {
+    WatchedMessageLookup(KeyIndex keyIndex, MessageSource messageSource) {
+        super(keyIndex, messageSource);
+    }
+
+    @Override
+    MessageTemplate getSelectedMessageTemplate(Locale locale, String key, String selector) {
+        return getBundleSelectedMessageTemplate(locale, key, selector);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.provider.format;
+
+/**
+ * Layout of message parameters within arguments of localizable method, where argument at one slot is selector or
+ * plural count. Templates map parameter indexes to argument indexes, so arguments are formatted without being
+ * copied into a separate parameters array.
+ *
+ * @author Andriy Vityuk
+ */
+public enum ArgumentLayout {
+    /**
+     * Argument at slot is not a message parameter, like selector.
+     */
+    SKIPPED_SLOT {
+        @Override
+        public int getArgumentIndex(int parameterIndex, int slot) {
+            return parameterIndex < slot ? parameterIndex : parameterIndex + 1;
+        }
+
+        @Override
+        public int getParameterCount(int argumentCount) {
+            return argumentCount - 1;
+        }
+    },
+    /**
+     * Argument at slot is the first message parameter, like plural count, other arguments follow it in order.
+     */
+    FIRST_SLOT {
+        @Override
+        public int getArgumentIndex(int parameterIndex, int slot) {
+            if (parameterIndex == 0) {
+                return slot;
+            }
+            return parameterIndex <= slot ? parameterIndex - 1 : parameterIndex;
+        }
+
+        @Override
+        public int getParameterCount(int argumentCount) {
+            return argumentCount;
+        }
+    };
+
+    public abstract int getArgumentIndex(int parameterIndex, int slot);
+
+    public abstract int getParameterCount(int argumentCount);
+
+    /**
+     * Copy arguments into parameters array, for formats which accept only the array.
+     */
+    public Object[] toParameters(Object[] arguments, int slot) {
+        Object[] parameters = new Object[getParameterCount(arguments.length)];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = arguments[getArgumentIndex(i, slot)];
+        }
+        return parameters;
+    }
+}
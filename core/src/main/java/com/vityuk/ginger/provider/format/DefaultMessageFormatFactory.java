@@ -43,7 +43,7 @@ public class DefaultMessageFormatFactory implements MessageFormatFactory {
         return new ExtendedMessageFormat(format, locale, formatFactoryRegistry);
     }
 
-    private static Map<String, FormatFactory> createFactoryRegistry() {
+    static Map<String, FormatFactory> createFactoryRegistry() {
         Map<String, FormatFactory> formatFactoryRegistry = new HashMap<String, FormatFactory>();
 
         if (isJodaTimeAvailable()) {
@@ -135,6 +135,12 @@ class JdkAndJodaDateFormat extends Format {
         return toAppendTo;
     }
 
+    @Override
+    public Object clone() {
+        // Joda formatter is immutable, but JDK one is not, so it must not be shared between copies
+        return new JdkAndJodaDateFormat((DateFormat) jdkFormatter.clone(), jodaFormatter);
+    }
+
     @Override
     public Object parseObject(String source, ParsePosition pos) {
         throw new UnsupportedOperationException();
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.provider.format;
+
+import java.io.IOException;
+import java.text.FieldPosition;
+import java.text.MessageFormat;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * {@link MessageTemplate} backed by parsed {@link MessageFormat}.
+ * <p/>
+ * {@code MessageFormat} is not thread-safe, so parsed instance is kept as a prototype which is never used for
+ * formatting. Formatting borrows a copy from a small fixed set of slots with lock-free exchange and returns it
+ * back afterwards. Copies are created from the prototype only when a slot is empty, so the pattern is parsed
+ * exactly once and the number of copies is bounded by the number of slots rather than by the number of threads.
+ *
+ * @author Andriy Vityuk
+ */
+public final class MessageFormatTemplate implements MessageTemplate {
+    static final int SLOTS = slots(Runtime.getRuntime().availableProcessors());
+
+    // Rough shallow sizes used by size estimation
+    private static final int TEMPLATE_SIZE = 32 + 16 + 4 * SLOTS;
+    private static final int MESSAGE_FORMAT_SIZE = 128;
+    private static final int FORMAT_ELEMENT_SIZE = 512;
+    // Prototype and typically a single idle copy
+    private static final int EXPECTED_COPIES = 2;
+
+    private final MessageFormat prototype;
+    private final AtomicReferenceArray<MessageFormat> idleFormats = new AtomicReferenceArray<MessageFormat>(SLOTS);
+
+    public MessageFormatTemplate(MessageFormat messageFormat) {
+        this.prototype = checkNotNull(messageFormat);
+    }
+
+    @Override
+    public String format(Object... parameters) {
+        int slot = (int) Thread.currentThread().getId() & (SLOTS - 1);
+        MessageFormat messageFormat = idleFormats.getAndSet(slot, null);
+        if (messageFormat == null) {
+            messageFormat = toMessageFormat();
+        }
+        try {
+            return messageFormat.format(parameters);
+        } finally {
+            idleFormats.lazySet(slot, messageFormat);
+        }
+    }
+
+    @Override
+    public String format(ArgumentLayout layout, int slot, Object[] arguments) {
+        // MessageFormat accepts only parameters array
+        return format(layout.toParameters(arguments, slot));
+    }
+
+    @Override
+    public void formatTo(Appendable appendable, Object... parameters) throws IOException {
+        checkNotNull(appendable);
+        int slot = (int) Thread.currentThread().getId() & (SLOTS - 1);
+        MessageFormat messageFormat = idleFormats.getAndSet(slot, null);
+        if (messageFormat == null) {
+            messageFormat = toMessageFormat();
+        }
+        try {
+            if (appendable instanceof StringBuffer) {
+                messageFormat.format(parameters, (StringBuffer) appendable, new FieldPosition(0));
+            } else {
+                appendable.append(messageFormat.format(parameters, new StringBuffer(), new FieldPosition(0)));
+            }
+        } finally {
+            idleFormats.lazySet(slot, messageFormat);
+        }
+    }
+
+    @Override
+    public MessageFormat toMessageFormat() {
+        return (MessageFormat) prototype.clone();
+    }
+
+    @Override
+    public int estimateSize() {
+        int messageFormatSize = MESSAGE_FORMAT_SIZE + 2 * prototype.toPattern().length() +
+                FORMAT_ELEMENT_SIZE * prototype.getFormats().length;
+        return TEMPLATE_SIZE + EXPECTED_COPIES * messageFormatSize;
+    }
+
+    @Override
+    public String toString() {
+        return prototype.toPattern();
+    }
+
+    private static int slots(int processors) {
+        int slots = 1;
+        while (slots < processors && slots < 8) {
+            slots <<= 1;
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.provider.format;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+
+/**
+ * Compiled message template.
+ * <p/>
+ * Implementations are immutable and thread-safe, so single instance parsed once can be shared by all threads.
+ *
+ * @author Andriy Vityuk
+ */
+public interface MessageTemplate {
+    /**
+     * Format message with given parameters.
+     *
+     * @param parameters {@link MessageFormat} parameters
+     * @return formatted message
+     */
+    String format(Object... parameters);
+
+    /**
+     * Format message with given parameters directly into given {@link Appendable}.
+     *
+     * @param appendable destination of formatted message
+     * @param parameters {@link MessageFormat} parameters
+     * @throws IOException if {@code appendable} fails
+     */
+    void formatTo(Appendable appendable, Object... parameters) throws IOException;
+
+    /**
+     * Format message with parameters taken directly from arguments of localizable method.
+     *
+     * @param layout    layout of parameters within arguments
+     * @param slot      index of selector or plural count argument
+     * @param arguments arguments of localizable method
+     * @return formatted message
+     */
+    String format(ArgumentLayout layout, int slot, Object[] arguments);
+
+    /**
+     * Create {@link MessageFormat} equivalent to this template. Returned instance is owned by the caller and
+     * is not shared with other threads.
+     *
+     * @return new {@code MessageFormat} instance
+     */
+    MessageFormat toMessageFormat();
+
+    /**
+     * Estimate heap size retained by this template, used for weighing of size-bounded caches.
+     *
+     * @return estimated size in bytes
+     */
+    int estimateSize();
+}
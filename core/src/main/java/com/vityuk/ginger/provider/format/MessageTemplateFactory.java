@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.provider.format;
+
+import java.util.Locale;
+
+/**
+ * Factory of compiled {@link MessageTemplate}s.
+ *
+ * @author Andriy Vityuk
+ */
+public interface MessageTemplateFactory {
+    /**
+     * Compile message template.
+     *
+     * @param locale locale used for formatting
+     * @param format message pattern in {@link java.text.MessageFormat} syntax
+     * @return compiled template
+     * @throws IllegalArgumentException if pattern is invalid
+     */
+    MessageTemplate create(Locale locale, String format);
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.provider.format;
+
+import org.apache.commons.lang3.text.ExtendedMessageFormat;
+import org.apache.commons.lang3.text.FormatFactory;
+
+import java.io.IOException;
+import java.text.ChoiceFormat;
+import java.text.DateFormat;
+import java.text.FieldPosition;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * {@link MessageTemplate} compiled by {@link NativeMessageTemplateFactory}.
+ * <p/>
+ * Pattern is parsed once into literal text with unquoted characters and a list of arguments with their offsets in
+ * the text, indexes and sub-formats. Formatting appends directly into a {@link StringBuilder} sized by the pattern
+ * or into a caller supplied {@link Appendable}, results are the same as of {@link MessageFormat#format(Object)}.
+ * <p/>
+ * JDK sub-formats are not thread-safe, so they are kept as prototypes. Formatting borrows a set of copies from a
+ * small fixed set of slots the same way as {@link MessageFormatTemplate} does. Copies are created lazily, including
+ * default number and date formats which {@code MessageFormat} creates on every call.
+ *
+ * @author Andriy Vityuk
+ */
+public final class NativeMessageTemplate implements MessageTemplate {
+    private static final int SLOTS = MessageFormatTemplate.SLOTS;
+
+    // Expected length of formatted argument, used for pre-sizing of result
+    private static final int ARGUMENT_SIZE = 16;
+
+    // Rough shallow sizes used by size estimation
+    private static final int TEMPLATE_SIZE = 64 + 16 + 4 * SLOTS;
+    private static final int ARGUMENT_OVERHEAD = 12;
+    private static final int FORMAT_SIZE = 512;
+    // Prototype and typically a single idle copy
+    private static final int EXPECTED_COPIES = 2;
+
+    private final Locale locale;
+    private final String pattern;
+    private final Map<String, FormatFactory> formatFactoryRegistry;
+    private final String text;
+    private final int[] offsets;
+    private final int[] argumentIndexes;
+    private final Format[] formats;
+    private final AtomicReferenceArray<Formatters> idleFormatters = new AtomicReferenceArray<Formatters>(SLOTS);
+
+    NativeMessageTemplate(Locale locale, String pattern, Map<String, FormatFactory> formatFactoryRegistry,
+                          String text, int[] offsets, int[] argumentIndexes, Format[] formats) {
+        this.locale = locale;
+        this.pattern = pattern;
+        this.formatFactoryRegistry = formatFactoryRegistry;
+        this.text = text;
+        this.offsets = offsets;
+        this.argumentIndexes = argumentIndexes;
+        this.formats = formats;
+    }
+
+    @Override
+    public String format(Object... parameters) {
+        return formatToString(null, -1, parameters);
+    }
+
+    @Override
+    public void formatTo(Appendable appendable, Object... parameters) throws IOException {
+        checkNotNull(appendable);
+        formatTo(appendable, null, -1, parameters);
+    }
+
+    @Override
+    public String format(ArgumentLayout layout, int slot, Object[] arguments) {
+        return formatToString(checkNotNull(layout), slot, checkNotNull(arguments));
+    }
+
+    /**
+     * @param layout layout of parameters within arguments or {@code null} if arguments are parameters themselves
+     */
+    private String formatToString(ArgumentLayout layout, int slot, Object[] arguments) {
+        if (argumentIndexes.length == 0) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length() + ARGUMENT_SIZE * argumentIndexes.length);
+        try {
+            formatTo(result, layout, slot, arguments);
+        } catch (IOException e) {
+            // StringBuilder never throws IOException
+            throw new IllegalStateException(e);
+        }
+        return result.toString();
+    }
+
+    private void formatTo(Appendable appendable, ArgumentLayout layout, int slot, Object[] arguments)
+            throws IOException {
+        if (argumentIndexes.length == 0) {
+            appendable.append(text);
+            return;
+        }
+
+        int formattersSlot = (int) Thread.currentThread().getId() & (SLOTS - 1);
+        Formatters formatters = idleFormatters.getAndSet(formattersSlot, null);
+        if (formatters == null) {
+            formatters = new Formatters();
+        }
+        try {
+            format(layout, slot, arguments, formatters, appendable);
+        } finally {
+            idleFormatters.lazySet(formattersSlot, formatters);
+        }
+    }
+
+    private void format(ArgumentLayout layout, int slot, Object[] arguments, Formatters formatters,
+                        Appendable result) throws IOException {
+        int parameterCount = arguments == null ? 0
+                : layout == null ? arguments.length : layout.getParameterCount(arguments.length);
+        int lastOffset = 0;
+        for (int i = 0; i < argumentIndexes.length; i++) {
+            result.append(text, lastOffset, offsets[i]);
+            lastOffset = offsets[i];
+
+            int argumentIndex = argumentIndexes[i];
+            if (argumentIndex >= parameterCount) {
+                result.append('{').append(Integer.toString(argumentIndex)).append('}');
+                continue;
+            }
+
+            // Indexes of template arguments are indexes of message parameters
+            Object parameter = arguments[layout == null ? argumentIndex
+                    : layout.getArgumentIndex(argumentIndex, slot)];
+            if (parameter == null) {
+                result.append("null");
+            } else if (formats[i] != null) {
+                Format format = formatters.getFormat(i);
+                StringBuffer formatted = formatters.format(format, parameter);
+                if (format instanceof ChoiceFormat && formatted.indexOf("{") >= 0) {
+                    // Choice result is a pattern itself, MessageFormat formats it with all parameters
+                    Object[] parameters = layout == null ? arguments : layout.toParameters(arguments, slot);
+                    result.append(new MessageFormat(formatted.toString(), locale).format(parameters));
+                } else {
+                    result.append(formatted);
+                }
+            } else if (parameter instanceof Number) {
+                result.append(formatters.format(formatters.getNumberFormat(), parameter));
+            } else if (parameter instanceof Date) {
+                result.append(formatters.format(formatters.getDateFormat(), parameter));
+            } else if (parameter instanceof String) {
+                result.append((String) parameter);
+            } else {
+                String string = parameter.toString();
+                result.append(string == null ? "null" : string);
+            }
+        }
+        result.append(text, lastOffset, text.length());
+    }
+
+    @Override
+    public MessageFormat toMessageFormat() {
+        return new ExtendedMessageFormat(pattern, locale, formatFactoryRegistry);
+    }
+
+    @Override
+    public int estimateSize() {
+        int formatsSize = 0;
+        for (Format format : formats) {
+            if (format != null) {
+                formatsSize += FORMAT_SIZE;
+            }
+        }
+        return TEMPLATE_SIZE + 2 * (pattern.length() + text.length()) +
+                ARGUMENT_OVERHEAD * argumentIndexes.length + EXPECTED_COPIES * formatsSize;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    /**
+     * Copies of sub-formats and reusable formatting buffers, used by a single thread at a time.
+     */
+    private final class Formatters {
+        private final Format[] formatCopies = new Format[formats.length];
+        private final StringBuffer buffer = new StringBuffer();
+        private final FieldPosition fieldPosition = new FieldPosition(0);
+        private NumberFormat numberFormat;
+        private DateFormat dateFormat;
+
+        Format getFormat(int index) {
+            Format format = formatCopies[index];
+            if (format == null) {
+                format = (Format) formats[index].clone();
+                formatCopies[index] = format;
+            }
+            return format;
+        }
+
+        NumberFormat getNumberFormat() {
+            if (numberFormat == null) {
+                numberFormat = NumberFormat.getInstance(locale);
+            }
+            return numberFormat;
+        }
+
+        DateFormat getDateFormat() {
+            if (dateFormat == null) {
+                dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+            }
+            return dateFormat;
+        }
+
+        StringBuffer format(Format format, Object parameter) {
+            buffer.setLength(0);
+            fieldPosition.setBeginIndex(0);
+            fieldPosition.setEndIndex(0);
+            return format.format(parameter, buffer, fieldPosition);
+        }
+    }
+}
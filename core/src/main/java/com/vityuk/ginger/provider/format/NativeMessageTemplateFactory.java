@@ -0,0 +1,247 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.provider.format;
+
+import org.apache.commons.lang3.text.FormatFactory;
+
+import java.text.ChoiceFormat;
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.Format;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * {@link MessageTemplateFactory} which compiles patterns into {@link NativeMessageTemplate}s.
+ * <p/>
+ * Pattern syntax and formatting results are the same as of {@link DefaultMessageFormatFactory}: standard
+ * {@link java.text.MessageFormat} syntax with {@code time}, {@code date} and {@code datetime} formats extended to
+ * support Joda-Time, when it is available.
+ *
+ * @author Andriy Vityuk
+ */
+public class NativeMessageTemplateFactory implements MessageTemplateFactory {
+    private static final int SEGMENT_TEXT = 0;
+    private static final int SEGMENT_INDEX = 1;
+    private static final int SEGMENT_TYPE = 2;
+    private static final int SEGMENT_STYLE = 3;
+
+    private static final String[] TYPE_KEYWORDS = {"", "number", "date", "time", "choice"};
+    private static final String[] NUMBER_STYLE_KEYWORDS = {"", "currency", "percent", "integer"};
+    private static final String[] DATE_TIME_STYLE_KEYWORDS = {"", "short", "medium", "long", "full"};
+    private static final int[] DATE_TIME_STYLES = {DateFormat.DEFAULT, DateFormat.SHORT, DateFormat.MEDIUM,
+            DateFormat.LONG, DateFormat.FULL};
+
+    private final Map<String, FormatFactory> formatFactoryRegistry;
+
+    public NativeMessageTemplateFactory() {
+        formatFactoryRegistry = DefaultMessageFormatFactory.createFactoryRegistry();
+    }
+
+    @Override
+    public MessageTemplate create(Locale locale, String format) {
+        checkNotNull(locale);
+        checkNotNull(format);
+
+        StringBuilder[] segments = new StringBuilder[]{new StringBuilder(format.length()), new StringBuilder(),
+                new StringBuilder(), new StringBuilder()};
+        List<Argument> arguments = new ArrayList<Argument>();
+        int segment = SEGMENT_TEXT;
+        int braceDepth = 0;
+        boolean inQuote = false;
+        for (int i = 0; i < format.length(); i++) {
+            char ch = format.charAt(i);
+            if (segment == SEGMENT_TEXT) {
+                if (ch == '\'') {
+                    if (i + 1 < format.length() && format.charAt(i + 1) == '\'') {
+                        segments[SEGMENT_TEXT].append(ch);
+                        i++;
+                    } else {
+                        inQuote = !inQuote;
+                    }
+                } else if (ch == '{' && !inQuote) {
+                    segment = SEGMENT_INDEX;
+                    segments[SEGMENT_INDEX].setLength(0);
+                    segments[SEGMENT_TYPE].setLength(0);
+                    segments[SEGMENT_STYLE].setLength(0);
+                } else {
+                    segments[SEGMENT_TEXT].append(ch);
+                }
+            } else if (inQuote) {
+                // Quotes inside of format element belong to sub-format pattern, so they are kept
+                segments[segment].append(ch);
+                if (ch == '\'') {
+                    inQuote = false;
+                }
+            } else {
+                switch (ch) {
+                    case ',':
+                        if (segment < SEGMENT_STYLE) {
+                            segment++;
+                        } else {
+                            segments[segment].append(ch);
+                        }
+                        break;
+                    case '{':
+                        braceDepth++;
+                        segments[segment].append(ch);
+                        break;
+                    case '}':
+                        if (braceDepth == 0) {
+                            arguments.add(createArgument(locale, segments, segment));
+                            segment = SEGMENT_TEXT;
+                        } else {
+                            braceDepth--;
+                            segments[segment].append(ch);
+                        }
+                        break;
+                    case ' ':
+                        if (segment != SEGMENT_TYPE || segments[SEGMENT_TYPE].length() > 0) {
+                            segments[segment].append(ch);
+                        }
+                        break;
+                    case '\'':
+                        inQuote = true;
+                        segments[segment].append(ch);
+                        break;
+                    default:
+                        segments[segment].append(ch);
+                        break;
+                }
+            }
+        }
+        if (segment != SEGMENT_TEXT) {
+            throw new IllegalArgumentException("Unmatched braces in the pattern: " + format);
+        }
+
+        int size = arguments.size();
+        int[] offsets = new int[size];
+        int[] argumentIndexes = new int[size];
+        Format[] formats = new Format[size];
+        for (int i = 0; i < size; i++) {
+            Argument argument = arguments.get(i);
+            offsets[i] = argument.offset;
+            argumentIndexes[i] = argument.index;
+            formats[i] = argument.format;
+        }
+        return new NativeMessageTemplate(locale, format, formatFactoryRegistry, segments[SEGMENT_TEXT].toString(),
+                offsets, argumentIndexes, formats);
+    }
+
+    private Argument createArgument(Locale locale, StringBuilder[] segments, int lastSegment) {
+        String indexString = segments[SEGMENT_INDEX].toString().trim();
+        int index;
+        try {
+            index = Integer.parseInt(indexString);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid format argument index: " + indexString, e);
+        }
+        if (index < 0) {
+            throw new IllegalArgumentException("Negative format argument index: " + index);
+        }
+
+        Format format = null;
+        if (lastSegment >= SEGMENT_TYPE) {
+            String type = segments[SEGMENT_TYPE].toString();
+            String style = lastSegment == SEGMENT_STYLE ? segments[SEGMENT_STYLE].toString() : null;
+            format = createFormat(locale, type, style);
+        }
+        return new Argument(segments[SEGMENT_TEXT].length(), index, format);
+    }
+
+    private Format createFormat(Locale locale, String type, String style) {
+        // Registered formats are looked up the same way as ExtendedMessageFormat does
+        String name = style == null ? type : type.trim();
+        FormatFactory formatFactory = formatFactoryRegistry.get(name);
+        if (formatFactory != null) {
+            return formatFactory.getFormat(name, style == null ? null : style.trim(), locale);
+        }
+
+        String formatStyle = style == null ? "" : style;
+        switch (findKeyword(type, TYPE_KEYWORDS)) {
+            case 0:
+                return null;
+            case 1:
+                return createNumberFormat(locale, formatStyle);
+            case 2:
+                int dateStyle = findKeyword(formatStyle, DATE_TIME_STYLE_KEYWORDS);
+                return dateStyle < 0 ? new SimpleDateFormat(formatStyle, locale) :
+                        DateFormat.getDateInstance(DATE_TIME_STYLES[dateStyle], locale);
+            case 3:
+                int timeStyle = findKeyword(formatStyle, DATE_TIME_STYLE_KEYWORDS);
+                return timeStyle < 0 ? new SimpleDateFormat(formatStyle, locale) :
+                        DateFormat.getTimeInstance(DATE_TIME_STYLES[timeStyle], locale);
+            case 4:
+                try {
+                    return new ChoiceFormat(formatStyle);
+                } catch (Exception e) {
+                    throw new IllegalArgumentException("Choice pattern incorrect: " + formatStyle, e);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown format type: " + type);
+        }
+    }
+
+    private static Format createNumberFormat(Locale locale, String style) {
+        switch (findKeyword(style, NUMBER_STYLE_KEYWORDS)) {
+            case 0:
+                return NumberFormat.getInstance(locale);
+            case 1:
+                return NumberFormat.getCurrencyInstance(locale);
+            case 2:
+                return NumberFormat.getPercentInstance(locale);
+            case 3:
+                return NumberFormat.getIntegerInstance(locale);
+            default:
+                return new DecimalFormat(style, DecimalFormatSymbols.getInstance(locale));
+        }
+    }
+
+    private static int findKeyword(String value, String[] keywords) {
+        for (int i = 0; i < keywords.length; i++) {
+            if (value.equals(keywords[i])) {
+                return i;
+            }
+        }
+        String normalizedValue = value.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < keywords.length; i++) {
+            if (normalizedValue.equals(keywords[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Argument {
+        private final int offset;
+        private final int index;
+        private final Format format;
+
+        Argument(int offset, int index, Format format) {
+            this.offset = offset;
+            this.index = index;
+            this.format = format;
+        }
+    }
+}
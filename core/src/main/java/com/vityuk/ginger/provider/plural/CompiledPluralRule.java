@@ -0,0 +1,179 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.provider.plural;
+
+import java.math.BigDecimal;
+
+/**
+ * Table driven CLDR plural rule.
+ * <p/>
+ * Conditions of every category are kept as arrays of encoded relations, each relation is a header with operand,
+ * negation flag and range count, followed by modulus ({@code 0} if absent) and pairs of inclusive range bounds.
+ * Categories of small non-negative integers are precomputed.
+ *
+ * @author Andriy Vityuk
+ */
+public final class CompiledPluralRule implements PluralRule {
+    static final int OPERAND_N = 0;
+    static final int OPERAND_I = 1;
+    static final int OPERAND_V = 2;
+    static final int OPERAND_W = 3;
+    static final int OPERAND_F = 4;
+    static final int OPERAND_T = 5;
+    static final int OPERAND_E = 6;
+
+    static final int OPERAND_MASK = 0xF;
+    static final int NEGATED_FLAG = 0x10;
+    static final int RANGE_COUNT_SHIFT = 8;
+
+    static final int SMALL_INT_TABLE_SIZE = 256;
+
+    private static final PluralCategory[] CATEGORIES = PluralCategory.values();
+    private static final int CONDITIONAL_CATEGORY_COUNT = PluralCategory.OTHER.ordinal();
+
+    static final CompiledPluralRule OTHER = new CompiledPluralRule(new long[CONDITIONAL_CATEGORY_COUNT][0][]);
+
+    /**
+     * Conditions indexed by {@link PluralCategory} ordinal, each condition is a list of alternatives, every
+     * alternative is a conjunction of encoded relations.
+     */
+    private final long[][][] conditions;
+    private final byte[] smallIntCategories = new byte[SMALL_INT_TABLE_SIZE];
+
+    CompiledPluralRule(long[][][] conditions) {
+        if (conditions.length != CONDITIONAL_CATEGORY_COUNT) {
+            throw new IllegalArgumentException("Conditions are required for every category except other");
+        }
+        this.conditions = conditions;
+        for (int i = 0; i < SMALL_INT_TABLE_SIZE; i++) {
+            smallIntCategories[i] = (byte) evaluate(PluralOperands.of(i)).ordinal();
+        }
+    }
+
+    @Override
+    public String select(int count) {
+        return getCategory(count).getSelector();
+    }
+
+    public String select(long count) {
+        return getCategory(count).getSelector();
+    }
+
+    public String select(Number count) {
+        return getCategory(count).getSelector();
+    }
+
+    public PluralCategory getCategory(long count) {
+        if (count >= 0 && count < SMALL_INT_TABLE_SIZE) {
+            return CATEGORIES[smallIntCategories[(int) count]];
+        }
+        return evaluate(PluralOperands.of(count));
+    }
+
+    /**
+     * Resolve category of a number, see {@link PluralOperands#of(Number)} for how visible fraction digits are defined.
+     *
+     * @param count number, must be not {@code null}
+     * @return category, {@link PluralCategory#OTHER} for infinite and NaN values
+     */
+    public PluralCategory getCategory(Number count) {
+        if (count instanceof Integer || count instanceof Long || count instanceof Short || count instanceof Byte) {
+            return getCategory(count.longValue());
+        }
+        if (!(count instanceof BigDecimal) && isNotFinite(count.doubleValue())) {
+            return PluralCategory.OTHER;
+        }
+        return getCategory(PluralOperands.of(count));
+    }
+
+    public PluralCategory getCategory(PluralOperands operands) {
+        if (operands.getFractionDigitCount() == 0) {
+            long value = operands.getIntegerValue();
+            if (value < SMALL_INT_TABLE_SIZE) {
+                return CATEGORIES[smallIntCategories[(int) value]];
+            }
+        }
+        return evaluate(operands);
+    }
+
+    private PluralCategory evaluate(PluralOperands operands) {
+        for (int category = 0; category < CONDITIONAL_CATEGORY_COUNT; category++) {
+            for (long[] relations : conditions[category]) {
+                if (matches(relations, operands)) {
+                    return CATEGORIES[category];
+                }
+            }
+        }
+        return PluralCategory.OTHER;
+    }
+
+    private static boolean matches(long[] relations, PluralOperands operands) {
+        int index = 0;
+        while (index < relations.length) {
+            int header = (int) relations[index];
+            long modulus = relations[index + 1];
+            int rangeStart = index + 2;
+            index = rangeStart + 2 * (header >>> RANGE_COUNT_SHIFT);
+
+            int operand = header & OPERAND_MASK;
+            boolean inRanges = false;
+            // Non integer n never equals to range values
+            if (operand != OPERAND_N || operands.isInteger()) {
+                long value = getOperandValue(operand, operands);
+                if (modulus != 0) {
+                    value %= modulus;
+                }
+                for (int i = rangeStart; i < index; i += 2) {
+                    if (value >= relations[i] && value <= relations[i + 1]) {
+                        inRanges = true;
+                        break;
+                    }
+                }
+            }
+            boolean negated = (header & NEGATED_FLAG) != 0;
+            if (inRanges == negated) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long getOperandValue(int operand, PluralOperands operands) {
+        switch (operand) {
+            case OPERAND_N:
+            case OPERAND_I:
+                return operands.getIntegerValue();
+            case OPERAND_V:
+                return operands.getFractionDigitCount();
+            case OPERAND_W:
+                return operands.getSignificantFractionDigitCount();
+            case OPERAND_F:
+                return operands.getFractionDigits();
+            case OPERAND_T:
+                return operands.getSignificantFractionDigits();
+            case OPERAND_E:
+                return 0;
+            default:
+                throw new IllegalStateException("Unknown operand: " + operand);
+        }
+    }
+
+    private static boolean isNotFinite(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value);
+    }
+}
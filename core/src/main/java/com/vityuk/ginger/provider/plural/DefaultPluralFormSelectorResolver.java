@@ -16,38 +16,20 @@
 
 package com.vityuk.ginger.provider.plural;
 
-
-import com.vityuk.ginger.cache.CacheBuilder;
-import com.vityuk.ginger.cache.CacheLoader;
-import com.vityuk.ginger.cache.LoadingCache;
-
 /**
- * Default {@link PluralFormSelectorResolver} implementation which looks up {@link PluralRule}
- * using {@code languageCode} and using it resolves selector for specified {@code count}.
+ * Default {@link PluralFormSelectorResolver} implementation which looks up CLDR plural rule using
+ * {@code languageCode} in {@link PluralRules} and using it resolves selector for specified {@code count}.
  *
  * @author Andriy Vityuk
  */
-public class DefaultPluralFormSelectorResolver implements PluralFormSelectorResolver {
-    private final PluralRuleProvider pluralRuleProvider = new PluralRuleProvider();
-
-    private final LoadingCache<String, PluralRule> pluralRuleCache;
-
-    public DefaultPluralFormSelectorResolver() {
-        this.pluralRuleCache = new CacheBuilder<String, PluralRule>()
-                .build(new CacheLoader<String, PluralRule>() {
-                    @Override
-                    public PluralRule load(String languageCode) throws Exception {
-                        return pluralRuleProvider.getPluralRule(languageCode);
-                    }
-                });
-    }
-
+public class DefaultPluralFormSelectorResolver implements NumberPluralFormSelectorResolver {
     @Override
     public String resolve(String languageCode, int count) {
-        return resolvePluralRule(languageCode).select(count);
+        return PluralRules.forLanguage(languageCode).select(count);
     }
 
-    private PluralRule resolvePluralRule(String languageCode) {
-        return pluralRuleCache.getUnchecked(languageCode);
+    @Override
+    public String resolve(String languageCode, Number count) {
+        return PluralRules.forLanguage(languageCode).select(count);
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.provider.plural;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CLDR plural categories, selectors of plural messages are their lower case names.
+ *
+ * @author Andriy Vityuk
+ */
+public enum PluralCategory {
+    ZERO("zero"),
+    ONE("one"),
+    TWO("two"),
+    FEW("few"),
+    MANY("many"),
+    OTHER("other");
+
+    private static final Map<String, PluralCategory> CATEGORIES = new HashMap<String, PluralCategory>();
+
+    static {
+        for (PluralCategory category : values()) {
+            CATEGORIES.put(category.selector, category);
+        }
+    }
+
+    private final String selector;
+
+    PluralCategory(String selector) {
+        this.selector = selector;
+    }
+
+    public String getSelector() {
+        return selector;
+    }
+
+    /**
+     * Find category by its selector.
+     *
+     * @param selector plural form selector, must be not {@code null}
+     * @return category or {@code null} if selector is not a CLDR plural category
+     */
+    public static PluralCategory forSelector(String selector) {
+        return CATEGORIES.get(selector);
+    }
+}
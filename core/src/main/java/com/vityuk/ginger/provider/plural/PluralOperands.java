@@ -0,0 +1,202 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.provider.plural;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.vityuk.ginger.util.Preconditions.checkArgument;
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * CLDR plural operands of a number: {@code n} absolute value, {@code i} integer digits, {@code v} number of visible
+ * fraction digits, {@code f} visible fraction digits, {@code t} visible fraction digits without trailing zeros,
+ * {@code w} number of visible fraction digits without trailing zeros and {@code e} compact decimal exponent, which
+ * is always {@code 0} for plain numbers.
+ * <p/>
+ * Integer and fraction digits which do not fit into {@code long} are reduced to {@code 10^18 + (x mod 10^18)}, this
+ * keeps every modulus used by CLDR rules and never equals to values used in rule ranges.
+ *
+ * @author Andriy Vityuk
+ */
+public final class PluralOperands {
+    private static final long LARGE_VALUE = 1000000000000000000L;
+    private static final BigInteger LARGE_VALUE_BIG = BigInteger.valueOf(LARGE_VALUE);
+    private static final int SMALL_OPERANDS_SIZE = 256;
+    private static final PluralOperands[] SMALL_OPERANDS = new PluralOperands[SMALL_OPERANDS_SIZE];
+
+    static {
+        for (int i = 0; i < SMALL_OPERANDS_SIZE; i++) {
+            SMALL_OPERANDS[i] = new PluralOperands(i, 0, 0, 0, 0);
+        }
+    }
+
+    private final long integerValue;
+    private final int fractionDigitCount;
+    private final long fractionDigits;
+    private final int significantFractionDigitCount;
+    private final long significantFractionDigits;
+
+    private PluralOperands(long integerValue, int fractionDigitCount, long fractionDigits,
+                           int significantFractionDigitCount, long significantFractionDigits) {
+        this.integerValue = integerValue;
+        this.fractionDigitCount = fractionDigitCount;
+        this.fractionDigits = fractionDigits;
+        this.significantFractionDigitCount = significantFractionDigitCount;
+        this.significantFractionDigits = significantFractionDigits;
+    }
+
+    public static PluralOperands of(long value) {
+        if (value >= 0 && value < SMALL_OPERANDS_SIZE) {
+            return SMALL_OPERANDS[(int) value];
+        }
+        if (value == Long.MIN_VALUE) {
+            return of(BigInteger.valueOf(value));
+        }
+        return new PluralOperands(Math.abs(value), 0, 0, 0, 0);
+    }
+
+    /**
+     * Create operands of a decimal number, visible fraction digits are defined by its scale, so {@code 1.50} has
+     * {@code v = 2}.
+     *
+     * @param value decimal number, must be not {@code null}
+     * @return operands
+     */
+    public static PluralOperands of(BigDecimal value) {
+        checkNotNull(value);
+        BigDecimal absValue = value.abs();
+        if (absValue.scale() <= 0) {
+            return of(absValue.toBigInteger());
+        }
+        BigInteger integerPart = absValue.toBigInteger();
+        int fractionDigitCount = absValue.scale();
+        BigInteger fraction = absValue.unscaledValue().subtract(
+                integerPart.multiply(BigInteger.TEN.pow(fractionDigitCount)));
+        int significantFractionDigitCount = fractionDigitCount;
+        BigInteger significantFraction = fraction;
+        while (significantFractionDigitCount > 0) {
+            BigInteger[] quotientAndRemainder = significantFraction.divideAndRemainder(BigInteger.TEN);
+            if (quotientAndRemainder[1].signum() != 0) {
+                break;
+            }
+            significantFraction = quotientAndRemainder[0];
+            significantFractionDigitCount--;
+        }
+        return new PluralOperands(reduce(integerPart), fractionDigitCount, reduce(fraction),
+                significantFractionDigitCount, reduce(significantFraction));
+    }
+
+    /**
+     * Create operands of a number. Integral types give integer operands, {@link BigDecimal} keeps its scale, floating
+     * point values use their shortest decimal representation without trailing zeros, so {@code 1.0d} is integer.
+     *
+     * @param value number, must be not {@code null} and finite
+     * @return operands
+     */
+    public static PluralOperands of(Number value) {
+        checkNotNull(value);
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof AtomicInteger || value instanceof AtomicLong) {
+            return of(value.longValue());
+        }
+        if (value instanceof BigInteger) {
+            return of((BigInteger) value);
+        }
+        if (value instanceof BigDecimal) {
+            return of((BigDecimal) value);
+        }
+        String decimalString;
+        if (value instanceof Float) {
+            float floatValue = value.floatValue();
+            checkArgument(!Float.isNaN(floatValue) && !Float.isInfinite(floatValue), "Number must be finite");
+            decimalString = Float.toString(floatValue);
+        } else {
+            double doubleValue = value.doubleValue();
+            checkArgument(!Double.isNaN(doubleValue) && !Double.isInfinite(doubleValue), "Number must be finite");
+            decimalString = Double.toString(doubleValue);
+        }
+        BigDecimal decimal = new BigDecimal(decimalString).stripTrailingZeros();
+        return of(decimal.scale() < 0 ? decimal.setScale(0) : decimal);
+    }
+
+    private static PluralOperands of(BigInteger value) {
+        return of(reduce(value.abs()));
+    }
+
+    private static long reduce(BigInteger value) {
+        if (value.bitLength() < Long.SIZE - 1) {
+            long longValue = value.longValue();
+            if (longValue < LARGE_VALUE) {
+                return longValue;
+            }
+        }
+        return LARGE_VALUE + value.mod(LARGE_VALUE_BIG).longValue();
+    }
+
+    /**
+     * @return {@code true} if number has no non-zero fraction digits, only then operand {@code n} may be equal to
+     *         integer values
+     */
+    public boolean isInteger() {
+        return fractionDigits == 0;
+    }
+
+    /**
+     * @return operand {@code i}
+     */
+    public long getIntegerValue() {
+        return integerValue;
+    }
+
+    /**
+     * @return operand {@code v}
+     */
+    public int getFractionDigitCount() {
+        return fractionDigitCount;
+    }
+
+    /**
+     * @return operand {@code f}
+     */
+    public long getFractionDigits() {
+        return fractionDigits;
+    }
+
+    /**
+     * @return operand {@code w}
+     */
+    public int getSignificantFractionDigitCount() {
+        return significantFractionDigitCount;
+    }
+
+    /**
+     * @return operand {@code t}
+     */
+    public long getSignificantFractionDigits() {
+        return significantFractionDigits;
+    }
+
+    @Override
+    public String toString() {
+        return "PluralOperands{i=" + integerValue + ", v=" + fractionDigitCount + ", f=" + fractionDigits
+                + ", t=" + significantFractionDigits + '}';
+    }
+}
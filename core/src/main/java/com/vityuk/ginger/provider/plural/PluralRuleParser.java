@@ -0,0 +1,164 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.provider.plural;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.vityuk.ginger.util.Preconditions.checkArgument;
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * Compiles CLDR plural rules like {@code "one: i = 1 and v = 0; few: n % 100 = 3..10,13"} into
+ * {@link CompiledPluralRule}. Category {@code other} is implicit.
+ *
+ * @author Andriy Vityuk
+ */
+final class PluralRuleParser {
+    private static final Pattern CATEGORY_SEPARATOR = Pattern.compile(";");
+    private static final Pattern OR_SEPARATOR = Pattern.compile("\\s+or\\s+");
+    private static final Pattern AND_SEPARATOR = Pattern.compile("\\s+and\\s+");
+    private static final Pattern RANGE_LIST_SEPARATOR = Pattern.compile(",");
+    private static final String RANGE_SEPARATOR = "..";
+    private static final String NOT_EQUALS = "!=";
+    private static final char EQUALS = '=';
+    private static final char MODULUS = '%';
+
+    private PluralRuleParser() {
+    }
+
+    public static CompiledPluralRule parse(String rules) {
+        checkNotNull(rules);
+        long[][][] conditions = new long[PluralCategory.OTHER.ordinal()][][];
+        for (String categoryRule : CATEGORY_SEPARATOR.split(rules)) {
+            if (categoryRule.trim().isEmpty()) {
+                continue;
+            }
+            int separatorIndex = categoryRule.indexOf(':');
+            checkArgument(separatorIndex > 0, "Plural category is missing in rule: %s", categoryRule);
+            String selector = categoryRule.substring(0, separatorIndex).trim();
+            PluralCategory category = PluralCategory.forSelector(selector);
+            checkArgument(category != null && category != PluralCategory.OTHER,
+                    "Unsupported plural category: %s", selector);
+            checkArgument(conditions[category.ordinal()] == null, "Duplicate plural category: %s", selector);
+            conditions[category.ordinal()] = parseCondition(categoryRule.substring(separatorIndex + 1).trim());
+        }
+        for (int i = 0; i < conditions.length; i++) {
+            if (conditions[i] == null) {
+                conditions[i] = new long[0][];
+            }
+        }
+        return new CompiledPluralRule(conditions);
+    }
+
+    private static long[][] parseCondition(String condition) {
+        String[] alternatives = OR_SEPARATOR.split(condition);
+        long[][] result = new long[alternatives.length][];
+        for (int i = 0; i < alternatives.length; i++) {
+            result[i] = parseConjunction(alternatives[i]);
+        }
+        return result;
+    }
+
+    private static long[] parseConjunction(String conjunction) {
+        List<Long> encoded = new ArrayList<Long>();
+        for (String relation : AND_SEPARATOR.split(conjunction)) {
+            parseRelation(relation.trim(), encoded);
+        }
+        long[] result = new long[encoded.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = encoded.get(i);
+        }
+        return result;
+    }
+
+    private static void parseRelation(String relation, List<Long> encoded) {
+        int header;
+        int operatorIndex = relation.indexOf(NOT_EQUALS);
+        int valuesIndex;
+        if (operatorIndex >= 0) {
+            header = CompiledPluralRule.NEGATED_FLAG;
+            valuesIndex = operatorIndex + NOT_EQUALS.length();
+        } else {
+            operatorIndex = relation.indexOf(EQUALS);
+            checkArgument(operatorIndex > 0, "Invalid plural relation: %s", relation);
+            header = 0;
+            valuesIndex = operatorIndex + 1;
+        }
+
+        String expression = relation.substring(0, operatorIndex).trim();
+        long modulus = 0;
+        int modulusIndex = expression.indexOf(MODULUS);
+        if (modulusIndex >= 0) {
+            modulus = parseValue(expression.substring(modulusIndex + 1));
+            checkArgument(modulus > 0, "Invalid plural relation modulus: %s", relation);
+            expression = expression.substring(0, modulusIndex).trim();
+        }
+        header |= parseOperand(expression);
+
+        String[] ranges = RANGE_LIST_SEPARATOR.split(relation.substring(valuesIndex));
+        header |= ranges.length << CompiledPluralRule.RANGE_COUNT_SHIFT;
+        encoded.add((long) header);
+        encoded.add(modulus);
+        for (String range : ranges) {
+            int separatorIndex = range.indexOf(RANGE_SEPARATOR);
+            if (separatorIndex >= 0) {
+                long lowerBound = parseValue(range.substring(0, separatorIndex));
+                long upperBound = parseValue(range.substring(separatorIndex + RANGE_SEPARATOR.length()));
+                checkArgument(lowerBound <= upperBound, "Invalid plural relation range: %s", relation);
+                encoded.add(lowerBound);
+                encoded.add(upperBound);
+            } else {
+                long value = parseValue(range);
+                encoded.add(value);
+                encoded.add(value);
+            }
+        }
+    }
+
+    private static int parseOperand(String operand) {
+        checkArgument(operand.length() == 1, "Invalid plural operand: %s", operand);
+        switch (operand.charAt(0)) {
+            case 'n':
+                return CompiledPluralRule.OPERAND_N;
+            case 'i':
+                return CompiledPluralRule.OPERAND_I;
+            case 'v':
+                return CompiledPluralRule.OPERAND_V;
+            case 'w':
+                return CompiledPluralRule.OPERAND_W;
+            case 'f':
+                return CompiledPluralRule.OPERAND_F;
+            case 't':
+                return CompiledPluralRule.OPERAND_T;
+            case 'e':
+                return CompiledPluralRule.OPERAND_E;
+            default:
+                throw new IllegalArgumentException("Unsupported plural operand: " + operand);
+        }
+    }
+
+    private static long parseValue(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid plural rule value: " + value, e);
+        }
+    }
+}
@@ -23,7 +23,9 @@ import static com.vityuk.ginger.util.Preconditions.checkNotNull;
 
 /**
  * @author Andriy Vityuk
+ * @deprecated rules are resolved by {@link PluralRules}, this reflective lookup is kept only for compatibility
  */
+@Deprecated
 class PluralRuleProvider {
     private static final PluralRule DEFAULT_PLURAL_RULE = new DefaultPluralRule();
 
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.provider.plural;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * Registry of CLDR plural rules by language code. Rules are compiled once, languages sharing the same rules share
+ * one {@link CompiledPluralRule} instance.
+ *
+ * @author Andriy Vityuk
+ */
+public final class PluralRules {
+    private static final Pattern LANGUAGE_SEPARATOR = Pattern.compile(" ");
+
+    private static final Map<String, CompiledPluralRule> RULES = createRules();
+
+    private PluralRules() {
+    }
+
+    /**
+     * Find plural rule of a language.
+     *
+     * @param languageCode ISO 639 language code, must be not {@code null}
+     * @return plural rule, for unknown languages rule which always selects {@link PluralCategory#OTHER}
+     */
+    public static CompiledPluralRule forLanguage(String languageCode) {
+        checkNotNull(languageCode);
+        CompiledPluralRule pluralRule = RULES.get(languageCode);
+        return pluralRule == null ? CompiledPluralRule.OTHER : pluralRule;
+    }
+
+    private static Map<String, CompiledPluralRule> createRules() {
+        Map<String, CompiledPluralRule> rules = new HashMap<String, CompiledPluralRule>();
+        for (String[] languagesRule : PluralRuleData.RULES) {
+            CompiledPluralRule pluralRule = PluralRuleParser.parse(languagesRule[1]);
+            for (String languageCode : LANGUAGE_SEPARATOR.split(languagesRule[0])) {
+                rules.put(languageCode, pluralRule);
+            }
+        }
+        return rules;
+    }
+}
@@ -20,7 +20,9 @@ import com.vityuk.ginger.provider.plural.PluralRule;
 
 /**
  * @author Andriy Vityuk
+ * @deprecated replaced by table driven {@link com.vityuk.ginger.provider.plural.CompiledPluralRule}
  */
+@Deprecated
 public abstract class AbstractPluralRule implements PluralRule {
     protected abstract String[] qualifiers();
 
@@ -21,6 +21,7 @@ package com.vityuk.ginger.provider.plural.impl;
  *
  * @author Andriy Vityuk
  */
+@SuppressWarnings("deprecation")
 public class PluralRule_1_0n extends AbstractPluralRule {
     private static final String[] QUALIFIERS = new String[]{"other", "one"};
 
@@ -19,6 +19,7 @@ package com.vityuk.ginger.provider.plural.impl;
 /**
  * @author Andriy Vityuk
  */
+@SuppressWarnings("deprecation")
 public class PluralRule_1_x1_19_n extends AbstractPluralRule {
     private static final String[] QUALIFIERS = new String[]{"other", "one", "few"};
 
@@ -21,6 +21,7 @@ package com.vityuk.ginger.provider.plural.impl;
  *
  * @author Andriy Vityuk
  */
+@SuppressWarnings("deprecation")
 public final class PluralRule_tzm extends AbstractPluralRule {
     private static final String[] QUALIFIERS = new String[]{"other", "one"};
 
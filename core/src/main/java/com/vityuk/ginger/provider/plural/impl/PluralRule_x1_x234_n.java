@@ -22,6 +22,7 @@ package com.vityuk.ginger.provider.plural.impl;
  *
  * @author Andriy Vityuk
  */
+@SuppressWarnings("deprecation")
 public class PluralRule_x1_x234_n extends AbstractPluralRule {
     private static final String[] QUALIFIERS = new String[]{"one", "few", "many"};
 
@@ -21,6 +21,7 @@ import com.vityuk.ginger.InvalidReturnTypeException;
 import com.vityuk.ginger.Localizable;
 import com.vityuk.ginger.PluralCount;
 import com.vityuk.ginger.Select;
+import com.vityuk.ginger.provider.IndexedLocalizationProvider;
 import com.vityuk.ginger.provider.LocalizationProvider;
 import com.vityuk.ginger.util.GingerUtils;
 import com.vityuk.ginger.util.MiscUtils;
@@ -40,6 +41,14 @@ import java.util.Map;
 
 public class CglibProxyBuilder implements ProxyBuilder {
 
+    public CglibProxyBuilder() {
+        // Fails if cglib can not define classes on the running JVM
+        Enhancer enhancer = new Enhancer();
+        enhancer.setInterfaces(new Class<?>[]{ProbeLocalizable.class});
+        enhancer.setCallbackType(NoOp.class);
+        enhancer.setUseFactory(false);
+        enhancer.createClass();
+    }
 
     @Override
     public <T> T createProxy(Class<T> localizable, LocalizationProvider localizationProvider) {
@@ -77,7 +86,9 @@ public class CglibProxyBuilder implements ProxyBuilder {
         String key = GingerUtils.createKeyFromMethod(method);
         Class<?> type = method.getReturnType();
         if (GingerUtils.isConstantMethod(method)) {
-            return getConstantCallback(localizationProvider, method, type, key);
+            AbstractConstantLookupCallback callback = getConstantCallback(localizationProvider, method,
+                    GingerUtils.getConstantType(method), key);
+            return type.isPrimitive() ? new PrimitiveConstantLookupCallback(callback) : callback;
         } else {
             return getMessageCallback(localizationProvider, method, type, key);
         }
@@ -98,6 +109,9 @@ public class CglibProxyBuilder implements ProxyBuilder {
             return createPluralMessageLookupCallback(localizationProvider, method, key, pluralCountParameterIndex);
         }
 
+        if (localizationProvider instanceof IndexedLocalizationProvider) {
+            return new IndexedMessageLookupCallback((IndexedLocalizationProvider) localizationProvider, key);
+        }
         return new MessageLookupCallback(localizationProvider, key);
     }
 
@@ -107,6 +121,10 @@ public class CglibProxyBuilder implements ProxyBuilder {
             // TODO: consider more informative exception
             throw new InvalidParameterTypeException(parameterType, method);
         }
+        if (localizationProvider instanceof IndexedLocalizationProvider) {
+            return new IndexedSelectorMessageLookupCallback((IndexedLocalizationProvider) localizationProvider, key,
+                    parameterIndex);
+        }
         return new SelectorMessageLookupCallback(localizationProvider, key, parameterIndex);
     }
 
@@ -116,10 +134,14 @@ public class CglibProxyBuilder implements ProxyBuilder {
             // TODO: consider more informative exception
             throw new InvalidParameterTypeException(parameterType, method);
         }
+        if (localizationProvider instanceof IndexedLocalizationProvider) {
+            return new IndexedPluralMessageLookupCallback((IndexedLocalizationProvider) localizationProvider, key,
+                    parameterIndex);
+        }
         return new PluralMessageLookupCallback(localizationProvider, key, parameterIndex);
     }
 
-    private Callback getConstantCallback(LocalizationProvider localizationProvider, Method method, Class<?> type, String key) {
+    private AbstractConstantLookupCallback getConstantCallback(LocalizationProvider localizationProvider, Method method, Class<?> type, String key) {
         if (type == String.class) {
             return new StringConstantLookupCallback(localizationProvider, key);
         }
@@ -147,7 +169,7 @@ public class CglibProxyBuilder implements ProxyBuilder {
             return new StringMapConstantLookupCallback(localizationProvider, key);
         }
 
-        throw new InvalidReturnTypeException(type, method);
+        throw new InvalidReturnTypeException(method.getReturnType(), method);
     }
 
     private static abstract class AbstractLookupCallback implements Callback {
@@ -255,6 +277,22 @@ public class CglibProxyBuilder implements ProxyBuilder {
         }
     }
 
+    /**
+     * Cglib returns zero for {@code null} value of primitive constant, missing value is reported instead.
+     */
+    private static class PrimitiveConstantLookupCallback implements FixedValue {
+        private final AbstractConstantLookupCallback callback;
+
+        public PrimitiveConstantLookupCallback(AbstractConstantLookupCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public Object loadObject() throws Exception {
+            return GingerUtils.checkPrimitiveConstant(callback.loadObject(), callback.key);
+        }
+    }
+
     private static class MessageLookupCallback extends AbstractLookupCallback implements InvocationHandler {
         public MessageLookupCallback(LocalizationProvider localizationProvider, String key) {
             super(localizationProvider, key);
@@ -316,4 +354,58 @@ public class CglibProxyBuilder implements ProxyBuilder {
             return ArrayUtils.remove(objects, pluralCountParameterIndex);
         }
     }
+
+    private static abstract class AbstractIndexedLookupCallback implements Callback {
+        protected final IndexedLocalizationProvider localizationProvider;
+        protected final int keyId;
+
+        public AbstractIndexedLookupCallback(IndexedLocalizationProvider localizationProvider, String key) {
+            this.localizationProvider = localizationProvider;
+            this.keyId = localizationProvider.getKeyId(key);
+        }
+    }
+
+    private static class IndexedMessageLookupCallback extends AbstractIndexedLookupCallback
+            implements InvocationHandler {
+        public IndexedMessageLookupCallback(IndexedLocalizationProvider localizationProvider, String key) {
+            super(localizationProvider, key);
+        }
+
+        @Override
+        public Object invoke(Object o, Method method, Object[] objects) throws Throwable {
+            return localizationProvider.getMessage(keyId, objects);
+        }
+    }
+
+    private static class IndexedSelectorMessageLookupCallback extends AbstractIndexedLookupCallback
+            implements InvocationHandler {
+        private final int selectorParameterIndex;
+
+        public IndexedSelectorMessageLookupCallback(IndexedLocalizationProvider localizationProvider, String key,
+                                                    int selectorParameterIndex) {
+            super(localizationProvider, key);
+            this.selectorParameterIndex = selectorParameterIndex;
+        }
+
+        @Override
+        public Object invoke(Object o, Method method, Object[] objects) throws Throwable {
+            return localizationProvider.getSelectedMessageFromArguments(keyId, selectorParameterIndex, objects);
+        }
+    }
+
+    private static class IndexedPluralMessageLookupCallback extends AbstractIndexedLookupCallback
+            implements InvocationHandler {
+        private final int pluralCountParameterIndex;
+
+        public IndexedPluralMessageLookupCallback(IndexedLocalizationProvider localizationProvider, String key,
+                                                  int pluralCountParameterIndex) {
+            super(localizationProvider, key);
+            this.pluralCountParameterIndex = pluralCountParameterIndex;
+        }
+
+        @Override
+        public Object invoke(Object o, Method method, Object[] objects) throws Throwable {
+            return localizationProvider.getPluralMessageFromArguments(keyId, pluralCountParameterIndex, objects);
+        }
+    }
 }
@@ -0,0 +1,623 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.proxy;
+
+import com.vityuk.ginger.InvalidParameterTypeException;
+import com.vityuk.ginger.InvalidReturnTypeException;
+import com.vityuk.ginger.LocalizationException;
+import com.vityuk.ginger.PluralCount;
+import com.vityuk.ginger.Select;
+import com.vityuk.ginger.provider.ConstantsDescriptor;
+import com.vityuk.ginger.provider.IndexedLocalizationProvider;
+import com.vityuk.ginger.provider.LocalizationProvider;
+import com.vityuk.ginger.util.GingerUtils;
+import com.vityuk.ginger.util.MiscUtils;
+import net.sf.cglib.asm.ClassWriter;
+import net.sf.cglib.asm.Label;
+import net.sf.cglib.asm.MethodVisitor;
+import net.sf.cglib.asm.Opcodes;
+import net.sf.cglib.asm.Type;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link ProxyBuilder} which generates a class per localizable interface with a concrete implementation of every
+ * method.
+ * <p/>
+ * Keys and selector/plural count parameter positions are compiled into the bytecode and every method calls
+ * {@link LocalizationProvider} directly, so there is no reflection, callback dispatch or argument array copying on
+ * the call path. With {@link IndexedLocalizationProvider} message key ids are resolved once per instance into final
+ * fields, since they belong to the provider, and constant methods read fields of per-locale constants snapshot,
+ * which is an instance of additionally generated plain class holding values of all constants. Snapshot is requested
+ * from provider on every call, so current locale is still resolved each time. Primitive constants are kept in
+ * primitive fields, so reading them does not touch wrappers.
+ * <p/>
+ * Classes are defined by {@code MethodHandles.Lookup} of localizable where it is available (Java 9+), otherwise by
+ * {@link ClassLoader} of localizable. Constructor defines probe class, so builder which can not define classes on the
+ * running JVM fails to be created and {@link ProxyBuilderFactory} falls back to other one.
+ *
+ * @author Andriy Vityuk
+ */
+public class GeneratedProxyBuilder implements ProxyBuilder {
+    private static final String PROXY_CLASS_SUFFIX = "$$GingerProxy";
+    private static final String INDEXED_PROXY_CLASS_SUFFIX = "$$GingerIndexedProxy";
+    private static final String CONSTANTS_CLASS_SUFFIX = "$$GingerConstants";
+    private static final String PROVIDER_FIELD = "provider";
+    private static final String KEY_ID_FIELD_PREFIX = "keyId";
+    private static final String CONSTANTS_DESCRIPTOR_FIELD = "constantsDescriptor";
+    private static final String CONSTANT_FIELD_PREFIX = "constant";
+    private static final String FROM_ARGUMENTS_SUFFIX = "FromArguments";
+
+    private static final String OBJECT_INTERNAL_NAME = Type.getInternalName(Object.class);
+    private static final String STRING_DESCRIPTOR = Type.getDescriptor(String.class);
+    private static final String NUMBER_DESCRIPTOR = Type.getDescriptor(Number.class);
+    private static final String OBJECT_ARRAY_DESCRIPTOR = Type.getDescriptor(Object[].class);
+    private static final String CONSTANTS_DESCRIPTOR_DESCRIPTOR = Type.getDescriptor(ConstantsDescriptor.class);
+
+    private static final Map<Class<?>, String> CONSTANT_GETTERS = createConstantGetters();
+    private static final Map<Class<?>, Class<?>> PRIMITIVE_WRAPPERS = createPrimitiveWrappers();
+
+    private static final ClassValue<ProxyClass> PROXY_CLASSES = new ProxyClassValue(false);
+    private static final ClassValue<ProxyClass> INDEXED_PROXY_CLASSES = new ProxyClassValue(true);
+
+    private static final Method PRIVATE_LOOKUP_IN_METHOD = findMethod(MethodHandles.class, "privateLookupIn",
+            Class.class, MethodHandles.Lookup.class);
+    private static final Method LOOKUP_DEFINE_CLASS_METHOD = findMethod(MethodHandles.Lookup.class, "defineClass",
+            byte[].class);
+
+    public GeneratedProxyBuilder() {
+        PROXY_CLASSES.get(ProbeLocalizable.class);
+    }
+
+    @Override
+    public <T> T createProxy(Class<T> localizable, LocalizationProvider localizationProvider) {
+        boolean indexed = localizationProvider instanceof IndexedLocalizationProvider;
+        ProxyClass proxyClass = (indexed ? INDEXED_PROXY_CLASSES : PROXY_CLASSES).get(localizable);
+        return localizable.cast(proxyClass.newInstance(localizationProvider));
+    }
+
+    private static ProxyClass createProxyClass(Class<?> localizable, boolean indexed) {
+        List<MethodBinding> methodBindings = createMethodBindings(localizable);
+        List<String> messageKeys = new ArrayList<String>();
+        List<MethodBinding> constantBindings = new ArrayList<MethodBinding>();
+        if (indexed) {
+            for (MethodBinding methodBinding : methodBindings) {
+                if (methodBinding.kind == MethodKind.CONSTANT) {
+                    methodBinding.constantIndex = constantBindings.size();
+                    constantBindings.add(methodBinding);
+                } else {
+                    methodBinding.keyIdIndex = messageKeys.size();
+                    messageKeys.add(methodBinding.key);
+                }
+            }
+        }
+
+        ConstantsDescriptor constantsDescriptor = null;
+        String constantsInternalName = null;
+        if (!constantBindings.isEmpty()) {
+            String constantsClassName = localizable.getName() + CONSTANTS_CLASS_SUFFIX;
+            constantsInternalName = constantsClassName.replace('.', '/');
+            Class<?> constantsClass = defineClass(localizable, constantsClassName,
+                    generateConstantsClass(constantsInternalName, constantBindings));
+            constantsDescriptor = createConstantsDescriptor(constantsClass, constantBindings);
+        }
+
+        String className = localizable.getName() + (indexed ? INDEXED_PROXY_CLASS_SUFFIX : PROXY_CLASS_SUFFIX);
+        Class<?> proxyClass = defineClass(localizable, className, generateProxyClass(localizable,
+                className.replace('.', '/'), indexed, methodBindings, messageKeys.size(), constantsInternalName));
+        try {
+            Constructor<?> constructor = indexed
+                    ? proxyClass.getConstructor(LocalizationProvider.class, int[].class, ConstantsDescriptor.class)
+                    : proxyClass.getConstructor(LocalizationProvider.class);
+            return new ProxyClass(constructor, indexed ? messageKeys.toArray(new String[messageKeys.size()]) : null,
+                    constantsDescriptor);
+        } catch (NoSuchMethodException e) {
+            throw new LocalizationException(e);
+        }
+    }
+
+    private static ConstantsDescriptor createConstantsDescriptor(Class<?> constantsClass,
+                                                                 List<MethodBinding> constantBindings) {
+        String[] keys = new String[constantBindings.size()];
+        Class<?>[] types = new Class<?>[constantBindings.size()];
+        for (int i = 0; i < keys.length; i++) {
+            MethodBinding constantBinding = constantBindings.get(i);
+            keys[i] = constantBinding.key;
+            types[i] = GingerUtils.getConstantType(constantBinding.method);
+        }
+        try {
+            return new GeneratedConstantsDescriptor(keys, types, constantsClass.getConstructor(Object[].class));
+        } catch (NoSuchMethodException e) {
+            throw new LocalizationException(e);
+        }
+    }
+
+    /**
+     * @param classBytes generates class bytecode, it is called only if class is not defined yet
+     */
+    private static Class<?> defineClass(Class<?> localizable, String className, ClassBytes classBytes) {
+        ClassLoader classLoader = localizable.getClassLoader();
+        // Classes are defined in the class loader of localizable, so they also access package private interfaces
+        synchronized (GeneratedProxyBuilder.class) {
+            try {
+                return Class.forName(className, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                // Not defined yet
+            }
+            try {
+                byte[] bytes = classBytes.generate();
+                if (PRIVATE_LOOKUP_IN_METHOD != null && LOOKUP_DEFINE_CLASS_METHOD != null) {
+                    // Lookup defines class in the package and class loader of localizable
+                    Object lookup = PRIVATE_LOOKUP_IN_METHOD.invoke(null, localizable, MethodHandles.lookup());
+                    return (Class<?>) LOOKUP_DEFINE_CLASS_METHOD.invoke(lookup, new Object[]{bytes});
+                }
+                Method defineClassMethod = ClassLoader.class.getDeclaredMethod("defineClass", String.class,
+                        byte[].class, int.class, int.class, ProtectionDomain.class);
+                defineClassMethod.setAccessible(true);
+                return (Class<?>) defineClassMethod.invoke(classLoader, className, bytes, 0, bytes.length,
+                        localizable.getProtectionDomain());
+            } catch (Exception e) {
+                throw new LocalizationException("Unable to define proxy class: " + className, e);
+            }
+        }
+    }
+
+    /**
+     * @return public method or {@code null} if it is not available in the running JVM
+     */
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static List<MethodBinding> createMethodBindings(Class<?> localizable) {
+        List<MethodBinding> methodBindings = new ArrayList<MethodBinding>();
+        Set<String> signatures = new HashSet<String>();
+        for (Method method : localizable.getMethods()) {
+            // The same method may be inherited from several interfaces
+            if (signatures.add(method.getName() + Type.getMethodDescriptor(method))) {
+                methodBindings.add(createMethodBinding(method));
+            }
+        }
+        return methodBindings;
+    }
+
+    private static MethodBinding createMethodBinding(Method method) {
+        String key = GingerUtils.createKeyFromMethod(method);
+        Class<?> type = method.getReturnType();
+        if (GingerUtils.isConstantMethod(method)) {
+            String getter = CONSTANT_GETTERS.get(GingerUtils.getConstantType(method));
+            if (getter == null) {
+                throw new InvalidReturnTypeException(type, method);
+            }
+            return new MethodBinding(method, key, MethodKind.CONSTANT, getter, -1);
+        }
+
+        if (type != String.class) {
+            throw new InvalidReturnTypeException(type, method);
+        }
+
+        int selectorParameterIndex = GingerUtils.indexOfParameterAnnotation(method, Select.class);
+        if (selectorParameterIndex != -1) {
+            Class<?> parameterType = method.getParameterTypes()[selectorParameterIndex];
+            if (parameterType.isPrimitive() || MiscUtils.isWrapperType(parameterType)) {
+                throw new InvalidParameterTypeException(parameterType, method);
+            }
+            return new MethodBinding(method, key, MethodKind.SELECTED_MESSAGE, "getSelectedMessage",
+                    selectorParameterIndex);
+        }
+
+        int pluralCountParameterIndex = GingerUtils.indexOfParameterAnnotation(method, PluralCount.class);
+        if (pluralCountParameterIndex != -1) {
+            Class<?> parameterType = method.getParameterTypes()[pluralCountParameterIndex];
+            if (!GingerUtils.isIntNumericType(parameterType)) {
+                throw new InvalidParameterTypeException(parameterType, method);
+            }
+            return new MethodBinding(method, key, MethodKind.PLURAL_MESSAGE, "getPluralMessage",
+                    pluralCountParameterIndex);
+        }
+
+        return new MethodBinding(method, key, MethodKind.MESSAGE, "getMessage", -1);
+    }
+
+    private static ClassBytes generateProxyClass(final Class<?> localizable, final String internalName,
+                                                 final boolean indexed, final List<MethodBinding> methodBindings,
+                                                 final int keyIdCount, final String constantsInternalName) {
+        return new ClassBytes() {
+            @Override
+            public byte[] generate() {
+                Class<?> providerType = indexed ? IndexedLocalizationProvider.class : LocalizationProvider.class;
+
+                ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+                classWriter.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+                        internalName, null, OBJECT_INTERNAL_NAME, new String[]{Type.getInternalName(localizable)});
+                classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, PROVIDER_FIELD,
+                        Type.getDescriptor(providerType), null, null).visitEnd();
+                for (int i = 0; i < keyIdCount; i++) {
+                    classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, KEY_ID_FIELD_PREFIX + i,
+                            Type.INT_TYPE.getDescriptor(), null, null).visitEnd();
+                }
+                if (indexed) {
+                    classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, CONSTANTS_DESCRIPTOR_FIELD,
+                            CONSTANTS_DESCRIPTOR_DESCRIPTOR, null, null).visitEnd();
+                }
+
+                generateConstructor(classWriter, internalName, providerType, indexed, keyIdCount);
+                for (MethodBinding methodBinding : methodBindings) {
+                    generateMethod(classWriter, internalName, providerType, methodBinding, constantsInternalName);
+                }
+
+                classWriter.visitEnd();
+                return classWriter.toByteArray();
+            }
+        };
+    }
+
+    /**
+     * Constants class is a plain holder with public final field for every constant, assigned from array of values.
+     */
+    private static ClassBytes generateConstantsClass(final String internalName,
+                                                     final List<MethodBinding> constantBindings) {
+        return new ClassBytes() {
+            @Override
+            public byte[] generate() {
+                ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+                classWriter.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+                        internalName, null, OBJECT_INTERNAL_NAME, null);
+
+                MethodVisitor constructor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>",
+                        "(" + OBJECT_ARRAY_DESCRIPTOR + ")V", null, null);
+                constructor.visitCode();
+                constructor.visitVarInsn(Opcodes.ALOAD, 0);
+                constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT_INTERNAL_NAME, "<init>", "()V");
+
+                for (MethodBinding methodBinding : constantBindings) {
+                    Method method = methodBinding.method;
+                    String fieldName = CONSTANT_FIELD_PREFIX + methodBinding.constantIndex;
+                    String fieldDescriptor = Type.getDescriptor(method.getReturnType());
+                    classWriter.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, fieldName, fieldDescriptor,
+                            null, null).visitEnd();
+
+                    constructor.visitVarInsn(Opcodes.ALOAD, 0);
+                    constructor.visitVarInsn(Opcodes.ALOAD, 1);
+                    pushInt(constructor, methodBinding.constantIndex);
+                    constructor.visitInsn(Opcodes.AALOAD);
+                    // Primitive constants are unboxed once, missing value fails creation of snapshot
+                    constructor.visitTypeInsn(Opcodes.CHECKCAST,
+                            Type.getInternalName(GingerUtils.getConstantType(method)));
+                    unboxConstant(constructor, method);
+                    constructor.visitFieldInsn(Opcodes.PUTFIELD, internalName, fieldName, fieldDescriptor);
+                }
+
+                constructor.visitInsn(Opcodes.RETURN);
+                constructor.visitMaxs(0, 0);
+                constructor.visitEnd();
+
+                classWriter.visitEnd();
+                return classWriter.toByteArray();
+            }
+        };
+    }
+
+    private static void generateConstructor(ClassWriter classWriter, String internalName, Class<?> providerType,
+                                            boolean indexed, int keyIdCount) {
+        String descriptor = indexed
+                ? "(" + Type.getDescriptor(LocalizationProvider.class) + Type.getDescriptor(int[].class)
+                + CONSTANTS_DESCRIPTOR_DESCRIPTOR + ")V"
+                : "(" + Type.getDescriptor(LocalizationProvider.class) + ")V";
+        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", descriptor, null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT_INTERNAL_NAME, "<init>", "()V");
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(providerType));
+        mv.visitFieldInsn(Opcodes.PUTFIELD, internalName, PROVIDER_FIELD, Type.getDescriptor(providerType));
+        for (int i = 0; i < keyIdCount; i++) {
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitVarInsn(Opcodes.ALOAD, 2);
+            pushInt(mv, i);
+            mv.visitInsn(Opcodes.IALOAD);
+            mv.visitFieldInsn(Opcodes.PUTFIELD, internalName, KEY_ID_FIELD_PREFIX + i, Type.INT_TYPE.getDescriptor());
+        }
+        if (indexed) {
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitVarInsn(Opcodes.ALOAD, 3);
+            mv.visitFieldInsn(Opcodes.PUTFIELD, internalName, CONSTANTS_DESCRIPTOR_FIELD,
+                    CONSTANTS_DESCRIPTOR_DESCRIPTOR);
+        }
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void generateMethod(ClassWriter classWriter, String internalName, Class<?> providerType,
+                                       MethodBinding methodBinding, String constantsInternalName) {
+        Method method = methodBinding.method;
+        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC, method.getName(),
+                Type.getMethodDescriptor(method), null, null);
+        mv.visitCode();
+        if (methodBinding.constantIndex != -1) {
+            // Read the field of snapshot for current locale, fall back to lookup by key if there is no snapshot
+            Label lookupLabel = new Label();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, internalName, PROVIDER_FIELD, Type.getDescriptor(providerType));
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, internalName, CONSTANTS_DESCRIPTOR_FIELD,
+                    CONSTANTS_DESCRIPTOR_DESCRIPTOR);
+            mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(providerType), "getConstantsSnapshot",
+                    "(" + CONSTANTS_DESCRIPTOR_DESCRIPTOR + ")" + Type.getDescriptor(Object.class));
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitJumpInsn(Opcodes.IFNULL, lookupLabel);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, constantsInternalName);
+            mv.visitFieldInsn(Opcodes.GETFIELD, constantsInternalName,
+                    CONSTANT_FIELD_PREFIX + methodBinding.constantIndex, Type.getDescriptor(method.getReturnType()));
+            mv.visitInsn(Type.getReturnType(method).getOpcode(Opcodes.IRETURN));
+            mv.visitLabel(lookupLabel);
+            mv.visitInsn(Opcodes.POP);
+        }
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, internalName, PROVIDER_FIELD, Type.getDescriptor(providerType));
+
+        String providerMethod = methodBinding.providerMethod;
+        StringBuilder descriptor = new StringBuilder("(");
+        if (methodBinding.keyIdIndex == -1) {
+            mv.visitLdcInsn(methodBinding.key);
+            descriptor.append(STRING_DESCRIPTOR);
+        } else {
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, internalName, KEY_ID_FIELD_PREFIX + methodBinding.keyIdIndex,
+                    Type.INT_TYPE.getDescriptor());
+            descriptor.append(Type.INT_TYPE.getDescriptor());
+        }
+
+        if (methodBinding.kind == MethodKind.CONSTANT) {
+            descriptor.append(')').append(Type.getDescriptor(GingerUtils.getConstantType(method)));
+        } else if (methodBinding.keyIdIndex != -1 && methodBinding.argumentIndex != -1) {
+            // Provider takes selector or count from arguments itself, so all of them are put into single array
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            int[] parameterSlots = getParameterSlots(parameterTypes);
+            pushInt(mv, methodBinding.argumentIndex);
+            pushInt(mv, parameterTypes.length);
+            mv.visitTypeInsn(Opcodes.ANEWARRAY, OBJECT_INTERNAL_NAME);
+            for (int i = 0; i < parameterTypes.length; i++) {
+                mv.visitInsn(Opcodes.DUP);
+                pushInt(mv, i);
+                loadParameter(mv, parameterTypes[i], parameterSlots[i]);
+                mv.visitInsn(Opcodes.AASTORE);
+            }
+            descriptor.append(Type.INT_TYPE.getDescriptor()).append(OBJECT_ARRAY_DESCRIPTOR).append(')')
+                    .append(STRING_DESCRIPTOR);
+            providerMethod = providerMethod + FROM_ARGUMENTS_SUFFIX;
+        } else {
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            int[] parameterSlots = getParameterSlots(parameterTypes);
+            int argumentIndex = methodBinding.argumentIndex;
+            if (methodBinding.kind == MethodKind.SELECTED_MESSAGE) {
+                loadParameter(mv, parameterTypes[argumentIndex], parameterSlots[argumentIndex]);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(String.class), "valueOf",
+                        "(" + Type.getDescriptor(Object.class) + ")" + STRING_DESCRIPTOR);
+                descriptor.append(STRING_DESCRIPTOR);
+            } else if (methodBinding.kind == MethodKind.PLURAL_MESSAGE) {
+                loadParameter(mv, parameterTypes[argumentIndex], parameterSlots[argumentIndex]);
+                descriptor.append(NUMBER_DESCRIPTOR);
+            }
+
+            // Remaining parameters are put directly into message parameters array
+            pushInt(mv, argumentIndex == -1 ? parameterTypes.length : parameterTypes.length - 1);
+            mv.visitTypeInsn(Opcodes.ANEWARRAY, OBJECT_INTERNAL_NAME);
+            int arrayIndex = 0;
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i != argumentIndex) {
+                    mv.visitInsn(Opcodes.DUP);
+                    pushInt(mv, arrayIndex++);
+                    loadParameter(mv, parameterTypes[i], parameterSlots[i]);
+                    mv.visitInsn(Opcodes.AASTORE);
+                }
+            }
+            descriptor.append(OBJECT_ARRAY_DESCRIPTOR).append(')').append(STRING_DESCRIPTOR);
+        }
+
+        mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(providerType), providerMethod,
+                descriptor.toString());
+        if (method.getReturnType().isPrimitive()) {
+            mv.visitLdcInsn(methodBinding.key);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(GingerUtils.class),
+                    "checkPrimitiveConstant", "(" + Type.getDescriptor(Object.class) + STRING_DESCRIPTOR + ")"
+                    + Type.getDescriptor(Object.class));
+            mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(GingerUtils.getConstantType(method)));
+            unboxConstant(mv, method);
+        }
+        mv.visitInsn(Type.getReturnType(method).getOpcode(Opcodes.IRETURN));
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static int[] getParameterSlots(Class<?>[] parameterTypes) {
+        int[] slots = new int[parameterTypes.length];
+        int slot = 1;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            slots[i] = slot;
+            slot += Type.getType(parameterTypes[i]).getSize();
+        }
+        return slots;
+    }
+
+    private static void loadParameter(MethodVisitor mv, Class<?> type, int slot) {
+        Type parameterType = Type.getType(type);
+        mv.visitVarInsn(parameterType.getOpcode(Opcodes.ILOAD), slot);
+        if (type.isPrimitive()) {
+            Class<?> wrapperType = PRIMITIVE_WRAPPERS.get(type);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(wrapperType), "valueOf",
+                    "(" + parameterType.getDescriptor() + ")" + Type.getDescriptor(wrapperType));
+        }
+    }
+
+    /**
+     * Unbox wrapper on top of stack if constant method returns primitive.
+     */
+    private static void unboxConstant(MethodVisitor mv, Method method) {
+        Class<?> type = method.getReturnType();
+        if (type.isPrimitive()) {
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(GingerUtils.getConstantType(method)),
+                    type.getName() + "Value", "()" + Type.getDescriptor(type));
+        }
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    private static Map<Class<?>, String> createConstantGetters() {
+        Map<Class<?>, String> getters = new HashMap<Class<?>, String>();
+        getters.put(String.class, "getString");
+        getters.put(Boolean.class, "getBoolean");
+        getters.put(Integer.class, "getInteger");
+        getters.put(Long.class, "getLong");
+        getters.put(Float.class, "getFloat");
+        getters.put(Double.class, "getDouble");
+        // TODO: generics support
+        getters.put(List.class, "getStringList");
+        getters.put(Map.class, "getStringMap");
+        return getters;
+    }
+
+    private static Map<Class<?>, Class<?>> createPrimitiveWrappers() {
+        Map<Class<?>, Class<?>> wrappers = new HashMap<Class<?>, Class<?>>();
+        wrappers.put(boolean.class, Boolean.class);
+        wrappers.put(char.class, Character.class);
+        wrappers.put(byte.class, Byte.class);
+        wrappers.put(short.class, Short.class);
+        wrappers.put(int.class, Integer.class);
+        wrappers.put(long.class, Long.class);
+        wrappers.put(float.class, Float.class);
+        wrappers.put(double.class, Double.class);
+        return wrappers;
+    }
+
+    private static enum MethodKind {
+        CONSTANT, MESSAGE, SELECTED_MESSAGE, PLURAL_MESSAGE
+    }
+
+    private static class MethodBinding {
+        private final Method method;
+        private final String key;
+        private final MethodKind kind;
+        private final String providerMethod;
+        // Index of selector or plural count parameter, -1 if absent
+        private final int argumentIndex;
+        // Index of key id field, -1 if key is passed as is
+        private int keyIdIndex = -1;
+        // Index of constant in snapshot, -1 if it is not a constant or there are no snapshots
+        private int constantIndex = -1;
+
+        public MethodBinding(Method method, String key, MethodKind kind, String providerMethod, int argumentIndex) {
+            this.method = method;
+            this.key = key;
+            this.kind = kind;
+            this.providerMethod = providerMethod;
+            this.argumentIndex = argumentIndex;
+        }
+    }
+
+    private static class ProxyClass {
+        private final Constructor<?> constructor;
+        // Message keys in order of key id fields, null if proxy is not indexed
+        private final String[] messageKeys;
+        // null if proxy is not indexed or there are no constants
+        private final ConstantsDescriptor constantsDescriptor;
+
+        public ProxyClass(Constructor<?> constructor, String[] messageKeys, ConstantsDescriptor constantsDescriptor) {
+            this.constructor = constructor;
+            this.messageKeys = messageKeys;
+            this.constantsDescriptor = constantsDescriptor;
+        }
+
+        public Object newInstance(LocalizationProvider localizationProvider) {
+            try {
+                if (messageKeys == null) {
+                    return constructor.newInstance(localizationProvider);
+                }
+                IndexedLocalizationProvider indexedLocalizationProvider =
+                        (IndexedLocalizationProvider) localizationProvider;
+                int[] keyIds = new int[messageKeys.length];
+                for (int i = 0; i < keyIds.length; i++) {
+                    keyIds[i] = indexedLocalizationProvider.getKeyId(messageKeys[i]);
+                }
+                return constructor.newInstance(localizationProvider, keyIds, constantsDescriptor);
+            } catch (Exception e) {
+                throw new LocalizationException(e);
+            }
+        }
+    }
+
+    private static class GeneratedConstantsDescriptor extends ConstantsDescriptor {
+        private final Constructor<?> constructor;
+
+        public GeneratedConstantsDescriptor(String[] keys, Class<?>[] types, Constructor<?> constructor) {
+            super(keys, types);
+            this.constructor = constructor;
+        }
+
+        @Override
+        public Object createSnapshot(Object[] values) {
+            try {
+                return constructor.newInstance(new Object[]{values});
+            } catch (Exception e) {
+                throw new LocalizationException(e);
+            }
+        }
+    }
+
+    private static interface ClassBytes {
+        byte[] generate();
+    }
+
+    private static class ProxyClassValue extends ClassValue<ProxyClass> {
+        private final boolean indexed;
+
+        public ProxyClassValue(boolean indexed) {
+            this.indexed = indexed;
+        }
+
+        @Override
+        protected ProxyClass computeValue(Class<?> localizable) {
+            return createProxyClass(localizable, indexed);
+        }
+    }
+}
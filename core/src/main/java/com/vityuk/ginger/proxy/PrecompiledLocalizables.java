@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.proxy;
+
+import com.vityuk.ginger.LocalizationException;
+import com.vityuk.ginger.provider.LocalizationProvider;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Locates implementations of localizable interfaces generated at compile time by ginger annotation processor.
+ * Implementation of {@code com.example.Messages} is {@code com.example.Messages$$GingerImpl} with public constructor
+ * accepting {@link LocalizationProvider}.
+ *
+ * @author Andriy Vityuk
+ */
+public final class PrecompiledLocalizables {
+    public static final String IMPLEMENTATION_CLASS_SUFFIX = "$$GingerImpl";
+
+    private static final Implementation NO_IMPLEMENTATION = new Implementation(null);
+
+    private static final ClassValue<Implementation> IMPLEMENTATIONS = new ClassValue<Implementation>() {
+        @Override
+        protected Implementation computeValue(Class<?> localizable) {
+            return findImplementation(localizable);
+        }
+    };
+
+    private PrecompiledLocalizables() {
+    }
+
+    /**
+     * Create instance of precompiled implementation.
+     *
+     * @param localizable          localizable interface, must be not {@code null}
+     * @param localizationProvider provider passed to implementation, must be not {@code null}
+     * @return new instance or {@code null} if there is no precompiled implementation
+     */
+    public static <T> T createInstance(Class<T> localizable, LocalizationProvider localizationProvider) {
+        Constructor<?> constructor = IMPLEMENTATIONS.get(localizable).constructor;
+        if (constructor == null) {
+            return null;
+        }
+        try {
+            return localizable.cast(constructor.newInstance(localizationProvider));
+        } catch (InstantiationException e) {
+            throw new LocalizationException(e);
+        } catch (IllegalAccessException e) {
+            throw new LocalizationException(e);
+        } catch (InvocationTargetException e) {
+            throw new LocalizationException(e.getCause());
+        }
+    }
+
+    public static String getImplementationClassName(Class<?> localizable) {
+        return localizable.getName() + IMPLEMENTATION_CLASS_SUFFIX;
+    }
+
+    private static Implementation findImplementation(Class<?> localizable) {
+        Class<?> implementationClass;
+        try {
+            implementationClass = Class.forName(getImplementationClassName(localizable), false,
+                    localizable.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return NO_IMPLEMENTATION;
+        }
+        if (!localizable.isAssignableFrom(implementationClass)) {
+            return NO_IMPLEMENTATION;
+        }
+        try {
+            return new Implementation(implementationClass.getConstructor(LocalizationProvider.class));
+        } catch (NoSuchMethodException e) {
+            return NO_IMPLEMENTATION;
+        }
+    }
+
+    private static class Implementation {
+        // null when there is no precompiled implementation
+        private final Constructor<?> constructor;
+
+        public Implementation(Constructor<?> constructor) {
+            this.constructor = constructor;
+        }
+    }
+}
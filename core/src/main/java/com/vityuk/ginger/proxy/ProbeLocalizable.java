@@ -0,0 +1,29 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.proxy;
+
+import com.vityuk.ginger.Localizable;
+
+/**
+ * Localizable which proxy class is defined when {@link ProxyBuilder} is created, so builder which can not define
+ * classes on the running JVM is rejected by {@link ProxyBuilderFactory} up front.
+ *
+ * @author Andriy Vityuk
+ */
+interface ProbeLocalizable extends Localizable {
+    String probe();
+}
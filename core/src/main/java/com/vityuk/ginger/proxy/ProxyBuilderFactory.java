@@ -22,6 +22,7 @@ import com.vityuk.ginger.provider.LocalizationProvider;
 public class ProxyBuilderFactory {
 
     private static final String PROXY_BUILDERS [] = {
+            "com.vityuk.ginger.proxy.GeneratedProxyBuilder",
             "com.vityuk.ginger.proxy.CglibProxyBuilder",
             "com.vityuk.ginger.proxy.ReflectProxyBuilder"
     };
@@ -29,6 +30,11 @@ public class ProxyBuilderFactory {
     private static ProxyBuilder proxyBuilder;
 
     public static <T> T createProxy(Class<T> object, LocalizationProvider localizationProvider) {
+        // Implementations generated at compile time are preferred, they need no runtime class generation
+        T instance = PrecompiledLocalizables.createInstance(object, localizationProvider);
+        if (instance != null) {
+            return instance;
+        }
         return getProxyBuilder().createProxy(object, localizationProvider);
     }
 
@@ -21,6 +21,7 @@ import com.vityuk.ginger.InvalidReturnTypeException;
 import com.vityuk.ginger.Localizable;
 import com.vityuk.ginger.PluralCount;
 import com.vityuk.ginger.Select;
+import com.vityuk.ginger.provider.IndexedLocalizationProvider;
 import com.vityuk.ginger.provider.LocalizationProvider;
 import com.vityuk.ginger.util.GingerUtils;
 import com.vityuk.ginger.util.MiscUtils;
@@ -29,39 +30,154 @@ import org.apache.commons.lang3.ArrayUtils;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+/**
+ * {@link ProxyBuilder} based on {@link Proxy}, used when classes can not be generated at runtime.
+ * <p/>
+ * Every method is bound once per localizable interface: message key, kind of method, selector or plural count
+ * parameter index and return type are resolved up front, so invocation is a single map lookup by {@link Method}
+ * followed by a call of {@link LocalizationProvider}. With {@link IndexedLocalizationProvider} message key ids are
+ * resolved once per proxy.
+ *
+ * @author Andriy Vityuk
+ */
 public class ReflectProxyBuilder implements ProxyBuilder {
+    private static final Set<Class<?>> CONSTANT_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(String.class,
+            Boolean.class, Integer.class, Long.class, Float.class, Double.class, List.class, Map.class));
+
+    private static final ClassValue<MethodBindings> METHOD_BINDINGS = new ClassValue<MethodBindings>() {
+        @Override
+        protected MethodBindings computeValue(Class<?> localizable) {
+            return createMethodBindings(localizable);
+        }
+    };
 
     @Override
     public <T> T createProxy(Class<T> object, LocalizationProvider localizationProvider) {
+        MethodBindings methodBindings = METHOD_BINDINGS.get(object);
         Localizable localizable = (Localizable) Proxy.newProxyInstance(object.getClassLoader(),
                 new Class[]{object},
-                new MyInvocationHandler(localizationProvider));
+                new MyInvocationHandler(localizationProvider, methodBindings.bindings,
+                        resolveKeyIds(methodBindings.messageKeys, localizationProvider)));
         return object.cast(localizable);
     }
 
+    private static int[] resolveKeyIds(List<String> messageKeys, LocalizationProvider localizationProvider) {
+        if (!(localizationProvider instanceof IndexedLocalizationProvider)) {
+            return null;
+        }
+        IndexedLocalizationProvider indexedLocalizationProvider = (IndexedLocalizationProvider) localizationProvider;
+        int[] keyIds = new int[messageKeys.size()];
+        for (int i = 0; i < keyIds.length; i++) {
+            keyIds[i] = indexedLocalizationProvider.getKeyId(messageKeys.get(i));
+        }
+        return keyIds;
+    }
+
+    private static MethodBindings createMethodBindings(Class<?> localizable) {
+        Method[] methods = localizable.getMethods();
+        Map<Method, MethodBinding> bindings = new HashMap<Method, MethodBinding>(methods.length * 2);
+        List<String> messageKeys = new ArrayList<String>(methods.length);
+        for (Method method : methods) {
+            MethodBinding methodBinding = createMethodBinding(method, messageKeys.size());
+            if (methodBinding.keyIdIndex != -1) {
+                messageKeys.add(methodBinding.key);
+            }
+            bindings.put(method, methodBinding);
+        }
+        return new MethodBindings(bindings, messageKeys);
+    }
+
+    /**
+     * @param keyIdIndex index of message key id, {@code -1} if method is not bound to key id
+     */
+    private static MethodBinding createMethodBinding(Method method, int keyIdIndex) {
+        String key = GingerUtils.createKeyFromMethod(method);
+        Class<?> type = method.getReturnType();
+        if (GingerUtils.isConstantMethod(method)) {
+            Class<?> constantType = GingerUtils.getConstantType(method);
+            if (!CONSTANT_TYPES.contains(constantType)) {
+                throw new InvalidReturnTypeException(type, method);
+            }
+            return new MethodBinding(key, MethodKind.CONSTANT, constantType, type.isPrimitive(), -1, -1);
+        }
+
+        if (type != String.class) {
+            throw new InvalidReturnTypeException(type, method);
+        }
+
+        int selectorParameterIndex = GingerUtils.indexOfParameterAnnotation(method, Select.class);
+        if (selectorParameterIndex != -1) {
+            Class<?> parameterType = method.getParameterTypes()[selectorParameterIndex];
+            if (parameterType.isPrimitive() || MiscUtils.isWrapperType(parameterType)) {
+                // TODO: consider more informative exception
+                throw new InvalidParameterTypeException(parameterType, method);
+            }
+            return new MethodBinding(key, MethodKind.SELECTED_MESSAGE, type, false, selectorParameterIndex,
+                    keyIdIndex);
+        }
+
+        int pluralCountParameterIndex = GingerUtils.indexOfParameterAnnotation(method, PluralCount.class);
+        if (pluralCountParameterIndex != -1) {
+            Class<?> parameterType = method.getParameterTypes()[pluralCountParameterIndex];
+            if (!GingerUtils.isIntNumericType(parameterType)) {
+                // TODO: consider more informative exception
+                throw new InvalidParameterTypeException(parameterType, method);
+            }
+            return new MethodBinding(key, MethodKind.PLURAL_MESSAGE, type, false, pluralCountParameterIndex,
+                    keyIdIndex);
+        }
+
+        return new MethodBinding(key, MethodKind.MESSAGE, type, false, -1, keyIdIndex);
+    }
+
     private class MyInvocationHandler implements InvocationHandler {
 
         private final LocalizationProvider localizationProvider;
+        private final Map<Method, MethodBinding> methodBindings;
+        // Ids of message keys in order of key id indexes, null if provider does not support them
+        private final int[] keyIds;
 
-        public MyInvocationHandler(LocalizationProvider localizationProvider) {
+        public MyInvocationHandler(LocalizationProvider localizationProvider,
+                                   Map<Method, MethodBinding> methodBindings, int[] keyIds) {
             this.localizationProvider = localizationProvider;
+            this.methodBindings = methodBindings;
+            this.keyIds = keyIds;
         }
 
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            String key = GingerUtils.createKeyFromMethod(method);
-            Class<?> type = method.getReturnType();
-            if (GingerUtils.isConstantMethod(method)) {
-                return getConstant(localizationProvider, method, type, key);
-            } else {
-                return getMessage(localizationProvider, method, type, key, args);
+            MethodBinding methodBinding = methodBindings.get(method);
+            if (methodBinding == null) {
+                // Methods of Object are not bound up front
+                methodBinding = createMethodBinding(method, -1);
+            }
+            String key = methodBinding.key;
+            int keyId = keyIds == null || methodBinding.keyIdIndex == -1 ? -1 : keyIds[methodBinding.keyIdIndex];
+            switch (methodBinding.kind) {
+                case CONSTANT:
+                    Object value = getConstant(methodBinding.type, key);
+                    return methodBinding.primitive ? GingerUtils.checkPrimitiveConstant(value, key) : value;
+                case SELECTED_MESSAGE:
+                    return getSelectedMessage(key, keyId, methodBinding.argumentIndex, args);
+                case PLURAL_MESSAGE:
+                    return getPluralMessage(key, keyId, methodBinding.argumentIndex, args);
+                default:
+                    if (keyId != -1) {
+                        return ((IndexedLocalizationProvider) localizationProvider).getMessage(keyId, args);
+                    }
+                    return localizationProvider.getMessage(key, args);
             }
         }
 
-        private Object getConstant(LocalizationProvider localizationProvider, Method method, Class<?> type, String key) {
+        private Object getConstant(Class<?> type, String key) {
             if (type == String.class) {
                 return localizationProvider.getString(key);
             }
@@ -84,53 +200,65 @@ public class ReflectProxyBuilder implements ProxyBuilder {
                 // TODO: generics support
                 return localizationProvider.getStringList(key);
             }
-            if (type == Map.class) {
-                // TODO: generics support
-                return localizationProvider.getStringMap(key);
-            }
-
-            throw new InvalidReturnTypeException(type, method);
-        }
-
-
-        private Object getMessage(LocalizationProvider localizationProvider, Method method, Class<?> type, String key, Object[] args) {
-            if (type != String.class) {
-                throw new InvalidReturnTypeException(type, method);
-            }
-
-            int selectorParameterIndex = GingerUtils.indexOfParameterAnnotation(method, Select.class);
-            if (selectorParameterIndex != -1) {
-                return createSelectorMessageLookupCallback(localizationProvider, method, key, selectorParameterIndex, args);
-            }
-
-            int pluralCountParameterIndex = GingerUtils.indexOfParameterAnnotation(method, PluralCount.class);
-            if (pluralCountParameterIndex != -1) {
-                return createPluralMessageLookupCallback(localizationProvider, method, key, pluralCountParameterIndex, args);
-            }
-
-            return localizationProvider.getMessage(key, args);
+            // TODO: generics support
+            return localizationProvider.getStringMap(key);
         }
 
-        private Object createSelectorMessageLookupCallback(LocalizationProvider localizationProvider, Method method, String key, int parameterIndex, Object[] args) {
-            Class<?> parameterType = method.getParameterTypes()[parameterIndex];
-            if (parameterType.isPrimitive() || MiscUtils.isWrapperType(parameterType)) {
-                // TODO: consider more informative exception
-                throw new InvalidParameterTypeException(parameterType, method);
+        private Object getSelectedMessage(String key, int keyId, int parameterIndex, Object[] args) {
+            if (keyId != -1) {
+                return ((IndexedLocalizationProvider) localizationProvider).getSelectedMessageFromArguments(keyId,
+                        parameterIndex, args);
             }
             String selector = String.valueOf(args[parameterIndex]);
             Object[] parameters = ArrayUtils.remove(args, parameterIndex);
             return localizationProvider.getSelectedMessage(key, selector, parameters);
         }
 
-        private Object createPluralMessageLookupCallback(LocalizationProvider localizationProvider, Method method, String key, int parameterIndex, Object[] args) {
-            Class<?> parameterType = method.getParameterTypes()[parameterIndex];
-            if (!GingerUtils.isIntNumericType(parameterType)) {
-                // TODO: consider more informative exception
-                throw new InvalidParameterTypeException(parameterType, method);
+        private Object getPluralMessage(String key, int keyId, int parameterIndex, Object[] args) {
+            if (keyId != -1) {
+                return ((IndexedLocalizationProvider) localizationProvider).getPluralMessageFromArguments(keyId,
+                        parameterIndex, args);
             }
             Number pluralCount = (Number) args[parameterIndex];
             Object[] parameters = ArrayUtils.remove(args, parameterIndex);
             return localizationProvider.getPluralMessage(key, pluralCount, parameters);
         }
     }
+
+    private static enum MethodKind {
+        CONSTANT, MESSAGE, SELECTED_MESSAGE, PLURAL_MESSAGE
+    }
+
+    private static class MethodBinding {
+        private final String key;
+        private final MethodKind kind;
+        // Constant type for constants, return type otherwise
+        private final Class<?> type;
+        private final boolean primitive;
+        // Index of selector or plural count parameter, -1 if absent
+        private final int argumentIndex;
+        // Index of message key id, -1 for constants
+        private final int keyIdIndex;
+
+        public MethodBinding(String key, MethodKind kind, Class<?> type, boolean primitive, int argumentIndex,
+                             int keyIdIndex) {
+            this.key = key;
+            this.kind = kind;
+            this.type = type;
+            this.primitive = primitive;
+            this.argumentIndex = argumentIndex;
+            this.keyIdIndex = keyIdIndex;
+        }
+    }
+
+    private static class MethodBindings {
+        private final Map<Method, MethodBinding> bindings;
+        // Message keys in order of key id indexes
+        private final List<String> messageKeys;
+
+        public MethodBindings(Map<Method, MethodBinding> bindings, List<String> messageKeys) {
+            this.bindings = bindings;
+            this.messageKeys = messageKeys;
+        }
+    }
 }
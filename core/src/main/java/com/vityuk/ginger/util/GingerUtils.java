@@ -17,14 +17,19 @@
 package com.vityuk.ginger.util;
 
 import com.vityuk.ginger.Localizable;
+import com.vityuk.ginger.LocalizationException;
 import org.apache.commons.lang3.StringUtils;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
 
 public class GingerUtils {
     public static final char PROPERTY_KEY_DELIMETER = '.';
 
+    private static final Map<Class<?>, Class<?>> PRIMITIVE_CONSTANT_TYPES = createPrimitiveConstantTypes();
+
     public static String createKeyFromMethod(Method method) {
         Localizable.Key annotation = method.getAnnotation(Localizable.Key.class);
         if (annotation != null) {
@@ -32,7 +37,13 @@ public class GingerUtils {
         }
 
         // Fallback previous behaviour
-        String methodName = method.getName();
+        return createKeyFromMethodName(method.getName());
+    }
+
+    /**
+     * Create key from camel case method name, for example {@code userName} gives {@code user.name}.
+     */
+    public static String createKeyFromMethodName(String methodName) {
         String[] words = StringUtils.splitByCharacterTypeCamelCase(methodName);
         StringBuilder keyBuilder = new StringBuilder(methodName.length() + words.length - 1);
 
@@ -53,6 +64,28 @@ public class GingerUtils {
         return method.getParameterTypes().length == 0;
     }
 
+    /**
+     * Get type of constant value returned by constant method, primitive {@code boolean}, {@code int}, {@code long},
+     * {@code float} and {@code double} constants are looked up as their wrappers.
+     */
+    public static Class<?> getConstantType(Method method) {
+        Class<?> returnType = method.getReturnType();
+        Class<?> wrapperType = PRIMITIVE_CONSTANT_TYPES.get(returnType);
+        return wrapperType == null ? returnType : wrapperType;
+    }
+
+    /**
+     * Check that value of primitive constant is present, since it can not be returned as {@code null}.
+     *
+     * @return not {@code null} value
+     */
+    public static Object checkPrimitiveConstant(Object value, String key) {
+        if (value == null) {
+            throw new LocalizationException("Missing value of primitive constant: " + key);
+        }
+        return value;
+    }
+
     public static int indexOfParameterAnnotation(Method method, Class<? extends Annotation> annotationType) {
         Annotation[][] parametersAnnotations = method.getParameterAnnotations();
         for (int i = 0, n = parametersAnnotations.length; i < n; i++) {
@@ -72,4 +105,14 @@ public class GingerUtils {
                 type == int.class || type == Integer.class ||
                 type == long.class || type == Long.class;
     }
+
+    private static Map<Class<?>, Class<?>> createPrimitiveConstantTypes() {
+        Map<Class<?>, Class<?>> types = new HashMap<Class<?>, Class<?>>();
+        types.put(boolean.class, Boolean.class);
+        types.put(int.class, Integer.class);
+        types.put(long.class, Long.class);
+        types.put(float.class, Float.class);
+        types.put(double.class, Double.class);
+        return types;
+    }
 }
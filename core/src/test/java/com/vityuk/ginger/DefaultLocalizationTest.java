@@ -22,16 +22,31 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
@@ -303,16 +318,42 @@ public class DefaultLocalizationTest {
     @Test
     public void testConstantWithInvalidReturnTypePrimitive() {
         thrown.expect(InvalidReturnTypeException.class);
-        String expectedMessage = "Invalid return type: boolean for method: testBoolean in " +
-                TestConstantsWithPrimitiveBoolean.class.getName();
+        String expectedMessage = "Invalid return type: char for method: testChar in " +
+                TestConstantsWithPrimitiveChar.class.getName();
         thrown.expectMessage(expectedMessage);
 
-        TestConstantsWithPrimitiveBoolean localizable = localization.getLocalizable(TestConstantsWithPrimitiveBoolean.class);
-        localizable.testBoolean();
+        TestConstantsWithPrimitiveChar localizable = localization.getLocalizable(TestConstantsWithPrimitiveChar.class);
+        localizable.testChar();
 
         verifyZeroInteractions(localizationProvider);
     }
 
+    @Test
+    public void testPrimitiveConstants() {
+        when(localizationProvider.getBoolean("test.boolean")).thenReturn(Boolean.TRUE);
+        when(localizationProvider.getInteger("test.int")).thenReturn(Integer.MAX_VALUE);
+        when(localizationProvider.getLong("test.long")).thenReturn(Long.MIN_VALUE);
+        when(localizationProvider.getFloat("test.float")).thenReturn(1.5f);
+        when(localizationProvider.getDouble("test.double")).thenReturn(Double.MIN_VALUE);
+        TestPrimitiveConstants constants = localization.getLocalizable(TestPrimitiveConstants.class);
+
+        assertThat(constants.testBoolean()).isTrue();
+        assertThat(constants.testInt()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(constants.testLong()).isEqualTo(Long.MIN_VALUE);
+        assertThat(constants.testFloat()).isEqualTo(1.5f);
+        assertThat(constants.testDouble()).isEqualTo(Double.MIN_VALUE);
+    }
+
+    @Test
+    public void testPrimitiveConstantWithNullValue() {
+        thrown.expect(LocalizationException.class);
+        thrown.expectMessage("Missing value of primitive constant: test.int");
+        when(localizationProvider.getInteger("test.int")).thenReturn(null);
+        TestPrimitiveConstants constants = localization.getLocalizable(TestPrimitiveConstants.class);
+
+        constants.testInt();
+    }
+
     @Test
     public void testSingleStringArgumentMessage() {
         String arg = "test arg";
@@ -544,6 +585,98 @@ public class DefaultLocalizationTest {
         }
     }
 
+    @Test
+    public void testForLocale() {
+        String testValue = "test value";
+        LocalizationProvider localeBoundProvider = mock(LocalizationProvider.class);
+        when(localizationProvider.forLocale(Locale.ITALY)).thenReturn(localeBoundProvider);
+        when(localeBoundProvider.getString("test.string")).thenReturn(testValue);
+
+        Localization<Localizable> localeBoundLocalization = localization.forLocale(Locale.ITALY);
+        TestConstants constants = localeBoundLocalization.getLocalizable(TestConstants.class);
+
+        assertThat(constants.testString()).isEqualTo(testValue);
+        assertThat(constants).isNotSameAs(localization.getLocalizable(TestConstants.class));
+        verify(localizationProvider).forLocale(Locale.ITALY);
+        verifyNoMoreInteractions(localizationProvider);
+    }
+
+    @Test
+    public void testForLocaleReturnsSameLocalization() {
+        LocalizationProvider localeBoundProvider = mock(LocalizationProvider.class);
+        when(localizationProvider.forLocale(Locale.ITALY)).thenReturn(localeBoundProvider);
+
+        Localization<Localizable> localeBoundLocalization = localization.forLocale(Locale.ITALY);
+
+        assertThat(localization.forLocale(Locale.ITALY)).isSameAs(localeBoundLocalization);
+        assertThat(localeBoundLocalization.forLocale(Locale.ITALY)).isSameAs(localeBoundLocalization);
+        verify(localizationProvider).forLocale(Locale.ITALY);
+        verifyNoMoreInteractions(localizationProvider);
+    }
+
+    @Test
+    public void testForLocaleKeepsLocalizationType() {
+        when(localizationProvider.forLocale(Locale.ITALY)).thenReturn(mock(LocalizationProvider.class));
+
+        Localization<Localizable> localeBoundLocalization = localization.forLocale(Locale.ITALY);
+
+        assertThat(localeBoundLocalization).isInstanceOf(DefaultLocalization.class);
+    }
+
+    @Test
+    public void testForLocaleIsBounded() {
+        int localeCount = 2 * AbstractDefaultLocalization.MAX_LOCALE_BOUND_LOCALIZATIONS;
+        when(localizationProvider.forLocale(any(Locale.class))).thenReturn(mock(LocalizationProvider.class));
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < localeCount; i++) {
+                localization.forLocale(new Locale("x" + i));
+            }
+        }
+
+        // Localizations of all locales can not be kept, some of them are created again
+        verify(localizationProvider, atLeast(localeCount + 1)).forLocale(any(Locale.class));
+    }
+
+    @Test
+    public void testWarmUp() {
+        Localization<Localizable> warmedUpLocalization = new DefaultLocalization(localizationProvider,
+                Arrays.asList(Locale.ITALY, Locale.US), Collections.<Class<? extends Localizable>>singletonList(
+                TestConstants.class), true);
+
+        final List<Boolean> calledFromPool = Collections.synchronizedList(new ArrayList<Boolean>());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                calledFromPool.add(ForkJoinTask.getPool() == invocation.getArguments()[2]);
+                return null;
+            }
+        }).when(localizationProvider).preload(any(Locale.class), anyBoolean(), any(ForkJoinPool.class));
+
+        long elapsedTime = warmedUpLocalization.warmUp();
+
+        assertThat(elapsedTime).isGreaterThanOrEqualTo(0);
+        ArgumentCaptor<ForkJoinPool> poolCaptor = ArgumentCaptor.forClass(ForkJoinPool.class);
+        verify(localizationProvider).preload(eq(Locale.ITALY), eq(true), poolCaptor.capture());
+        verify(localizationProvider).preload(eq(Locale.US), eq(true), poolCaptor.capture());
+        verifyNoMoreInteractions(localizationProvider);
+        assertThat(calledFromPool).containsOnly(true);
+        assertThat(poolCaptor.getAllValues().get(0)).isSameAs(poolCaptor.getAllValues().get(1));
+        assertThat(poolCaptor.getValue().isShutdown()).isTrue();
+    }
+
+    @Test
+    public void testWarmUpWithoutPreloadedLocales() {
+        localization.warmUp();
+
+        verifyZeroInteractions(localizationProvider);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testForLocaleWithNull() {
+        localization.forLocale(null);
+    }
+
     @Test(expected = NullPointerException.class)
     public void testGetLocalizableWithNull() {
         localization.getLocalizable(null);
@@ -592,8 +725,20 @@ public class DefaultLocalizationTest {
         Character testChar();
     }
 
-    interface TestConstantsWithPrimitiveBoolean extends Localizable {
+    interface TestConstantsWithPrimitiveChar extends Localizable {
+        char testChar();
+    }
+
+    interface TestPrimitiveConstants extends Localizable {
         boolean testBoolean();
+
+        int testInt();
+
+        long testLong();
+
+        float testFloat();
+
+        double testDouble();
     }
 
     interface TestMessages extends Localizable {
@@ -0,0 +1,597 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.cache;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LocalCacheTest {
+    private static final long EXPIRATION_TIME = 100L;
+
+    @Mock
+    private CacheLoader<String, Integer> cacheLoader;
+
+    @Test(expected = NullPointerException.class)
+    public void testGetWithNullKey() throws Exception {
+        createCache().get(null);
+    }
+
+    @Test
+    public void testCanLoadValueWithLoader() throws Exception {
+        LoadingCache<String, Integer> cache = createCache();
+        when(cacheLoader.load("105")).thenReturn(105);
+
+        Integer result = cache.get("105");
+
+        assertThat(result).isNotNull().isEqualTo(105);
+        verify(cacheLoader).load("105");
+        verifyNoMoreInteractions(cacheLoader);
+    }
+
+    @Test
+    public void testCanCacheLoadedValue() throws Exception {
+        LoadingCache<String, Integer> cache = createCache();
+        when(cacheLoader.load("105")).thenReturn(105);
+
+        cache.get("105");
+        Integer result = cache.get("105");
+
+        assertThat(result).isNotNull().isEqualTo(105);
+        verify(cacheLoader).load("105");
+        verifyNoMoreInteractions(cacheLoader);
+    }
+
+    @Test
+    public void testGetIfPresentDoesNotLoad() throws Exception {
+        LoadingCache<String, Integer> cache = createCache();
+        when(cacheLoader.load("105")).thenReturn(105);
+
+        Integer absent = cache.getIfPresent("105");
+        cache.get("105");
+        Integer present = cache.getIfPresent("105");
+
+        assertThat(absent).isNull();
+        assertThat(present).isEqualTo(105);
+        verify(cacheLoader).load("105");
+        verifyNoMoreInteractions(cacheLoader);
+    }
+
+    @Test
+    public void testCanExpireCachedValue() throws Exception {
+        LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>()
+                .expireAfterWrite(EXPIRATION_TIME, TimeUnit.MILLISECONDS)
+                .build(cacheLoader);
+        when(cacheLoader.load("105")).thenReturn(105);
+
+        cache.get("105");
+        Thread.sleep(EXPIRATION_TIME + 1);
+        Integer result = cache.get("105");
+
+        assertThat(result).isNotNull().isEqualTo(105);
+        verify(cacheLoader, times(2)).load("105");
+        verifyNoMoreInteractions(cacheLoader);
+    }
+
+    @Test
+    public void testDoesNotCacheFailedLoad() throws Exception {
+        LoadingCache<String, Integer> cache = createCache();
+        IllegalStateException exception = new IllegalStateException();
+        when(cacheLoader.load("105")).thenThrow(exception).thenReturn(105);
+
+        try {
+            cache.get("105");
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isSameAs(exception);
+        }
+        Integer result = cache.get("105");
+
+        assertThat(result).isNotNull().isEqualTo(105);
+        verify(cacheLoader, times(2)).load("105");
+    }
+
+    @Test
+    public void testCachesFailedLoad() throws Exception {
+        LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>()
+                .cacheFailures(EXPIRATION_TIME, TimeUnit.MILLISECONDS)
+                .build(cacheLoader);
+        IllegalStateException exception = new IllegalStateException();
+        when(cacheLoader.load("105")).thenThrow(exception).thenReturn(105);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.get("105");
+                fail("ExecutionException expected");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isSameAs(exception);
+            }
+        }
+        Thread.sleep(EXPIRATION_TIME + 1);
+        Integer result = cache.get("105");
+
+        assertThat(result).isNotNull().isEqualTo(105);
+        verify(cacheLoader, times(2)).load("105");
+    }
+
+    @Test
+    public void testCachedFailureIsRethrownAsIs() throws Exception {
+        LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>()
+                .cacheFailures(EXPIRATION_TIME, TimeUnit.MILLISECONDS)
+                .build(cacheLoader);
+        when(cacheLoader.load("105")).thenThrow(new IllegalStateException());
+
+        ExecutionException firstException = null;
+        for (int i = 0; i < 3; i++) {
+            try {
+                cache.get("105");
+                fail("ExecutionException expected");
+            } catch (ExecutionException e) {
+                if (firstException == null) {
+                    firstException = e;
+                }
+                assertThat(e).isSameAs(firstException);
+            }
+        }
+        verify(cacheLoader).load("105");
+    }
+
+    @Test
+    public void testExpiredFailuresAreRemoved() throws Exception {
+        LocalCache.LocalLoadingCache<String, Integer> cache = (LocalCache.LocalLoadingCache<String, Integer>)
+                new CacheBuilder<String, Integer>()
+                        .cacheFailures(EXPIRATION_TIME, TimeUnit.MILLISECONDS)
+                        .<String, Integer>build(cacheLoader);
+        when(cacheLoader.load(anyString())).thenThrow(new IllegalStateException());
+
+        getIgnoringFailure(cache, "1");
+        getIgnoringFailure(cache, "2");
+        Thread.sleep(EXPIRATION_TIME + 1);
+        getIgnoringFailure(cache, "3");
+
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCachedFailuresAreBounded() throws Exception {
+        LocalCache.LocalLoadingCache<String, Integer> cache = (LocalCache.LocalLoadingCache<String, Integer>)
+                new CacheBuilder<String, Integer>()
+                        .cacheFailures(1, TimeUnit.HOURS)
+                        .<String, Integer>build(cacheLoader);
+        when(cacheLoader.load(anyString())).thenThrow(new IllegalStateException());
+
+        for (int i = 0; i < LocalCache.MAX_CACHED_FAILURES + 10; i++) {
+            getIgnoringFailure(cache, String.valueOf(i));
+        }
+        getIgnoringFailure(cache, "0");
+
+        assertThat(cache.size()).isEqualTo(LocalCache.MAX_CACHED_FAILURES);
+        verify(cacheLoader, times(2)).load("0");
+    }
+
+    @Test
+    public void testGetUncheckedWithNullValue() throws Exception {
+        LoadingCache<String, Integer> cache = createCache();
+        when(cacheLoader.load("105")).thenReturn(null);
+
+        try {
+            cache.getUnchecked("105");
+            fail("UncheckedExecutionException expected");
+        } catch (UncheckedExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(NullPointerException.class);
+        }
+    }
+
+    @Test
+    public void testRecursiveLoadFails() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicReference<LoadingCache<String, Integer>> holder =
+                new AtomicReference<LoadingCache<String, Integer>>();
+        holder.set(new CacheBuilder<String, Integer>().build(new CacheLoader<String, Integer>() {
+            @Override
+            public Integer load(String key) throws Exception {
+                loads.incrementAndGet();
+                return holder.get().get(key);
+            }
+        }));
+
+        try {
+            holder.get().get("105");
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertThat(loads.get()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testConcurrentMissesShareSingleLoad() throws Exception {
+        final int threads = 8;
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLoad = new CountDownLatch(1);
+        final LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>()
+                .build(new CacheLoader<String, Integer>() {
+                    @Override
+                    public Integer load(String key) throws Exception {
+                        loads.incrementAndGet();
+                        loadStarted.countDown();
+                        releaseLoad.await();
+                        return Integer.valueOf(key);
+                    }
+                });
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executorService.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        return cache.get("105");
+                    }
+                }));
+            }
+            assertThat(loadStarted.await(1, TimeUnit.SECONDS)).isTrue();
+            releaseLoad.countDown();
+
+            for (Future<Integer> future : futures) {
+                assertThat(future.get(1, TimeUnit.SECONDS)).isEqualTo(105);
+            }
+            assertThat(loads.get()).isEqualTo(1);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInFlightLoadDoesNotBlockOtherKeys() throws Exception {
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLoad = new CountDownLatch(1);
+        final LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>()
+                .build(new CacheLoader<String, Integer>() {
+                    @Override
+                    public Integer load(String key) throws Exception {
+                        if ("slow".equals(key)) {
+                            loadStarted.countDown();
+                            releaseLoad.await();
+                            return 0;
+                        }
+                        return Integer.valueOf(key);
+                    }
+                });
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> slow = executorService.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return cache.get("slow");
+                }
+            });
+            assertThat(loadStarted.await(1, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(cache.get("105")).isEqualTo(105);
+
+            releaseLoad.countDown();
+            assertThat(slow.get(1, TimeUnit.SECONDS)).isEqualTo(0);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvalidateDiscardsValue() throws Exception {
+        LoadingCache<String, Integer> cache = createCache();
+        when(cacheLoader.load("105")).thenReturn(105, 106);
+
+        cache.get("105");
+        cache.invalidate("105");
+        Integer absent = cache.getIfPresent("105");
+        Integer result = cache.get("105");
+
+        assertThat(absent).isNull();
+        assertThat(result).isEqualTo(106);
+        verify(cacheLoader, times(2)).load("105");
+        verifyNoMoreInteractions(cacheLoader);
+    }
+
+    @Test
+    public void testInvalidateAllKeepsSizeBound() throws Exception {
+        CountingLoader loader = new CountingLoader();
+        LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>().maximumSize(10).build(loader);
+
+        for (int i = 0; i < 10; i++) {
+            cache.get(String.valueOf(i));
+        }
+        cache.invalidateAll();
+        for (int i = 10; i < 20; i++) {
+            cache.get(String.valueOf(i));
+        }
+        loader.loads.set(0);
+        for (int i = 10; i < 20; i++) {
+            cache.get(String.valueOf(i));
+        }
+
+        assertThat(cache.getIfPresent("0")).isNull();
+        assertThat(loader.loads.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void testMaximumSizeEvictsEntries() throws Exception {
+        CountingLoader loader = new CountingLoader();
+        LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>().maximumSize(10).build(loader);
+
+        for (int i = 0; i < 100; i++) {
+            cache.get(String.valueOf(i));
+        }
+        loader.loads.set(0);
+        for (int i = 0; i < 100; i++) {
+            cache.get(String.valueOf(i));
+        }
+
+        assertThat(loader.loads.get()).isGreaterThanOrEqualTo(90);
+    }
+
+    @Test
+    public void testMaximumSizeKeepsFrequentlyUsedEntries() throws Exception {
+        CountingLoader loader = new CountingLoader();
+        LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>().maximumSize(10).build(loader);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.get("hot" + (i % 5));
+            cache.get("cold" + i);
+        }
+        loader.loads.set(0);
+        for (int i = 0; i < 5; i++) {
+            cache.get("hot" + i);
+        }
+
+        assertThat(loader.loads.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void testMaximumWeightEvictsEntries() throws Exception {
+        CountingLoader loader = new CountingLoader();
+        LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>()
+                .maximumWeight(100)
+                .weigher(new Weigher<String, Integer>() {
+                    @Override
+                    public int weigh(String key, Integer value) {
+                        return value;
+                    }
+                })
+                .build(loader);
+
+        cache.get("60");
+        cache.get("50");
+        loader.loads.set(0);
+        cache.get("60");
+        cache.get("50");
+
+        assertThat(loader.loads.get()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void testMaximumWeightKeepsLightEntries() throws Exception {
+        CountingLoader loader = new CountingLoader();
+        LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>()
+                .maximumWeight(100)
+                .weigher(new Weigher<String, Integer>() {
+                    @Override
+                    public int weigh(String key, Integer value) {
+                        return value;
+                    }
+                })
+                .build(loader);
+
+        for (int i = 1; i <= 10; i++) {
+            cache.get(String.valueOf(i));
+        }
+        loader.loads.set(0);
+        for (int i = 1; i <= 10; i++) {
+            cache.get(String.valueOf(i));
+        }
+
+        assertThat(loader.loads.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void testNegativeWeightDoesNotLeaveLoadingEntry() throws Exception {
+        LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>()
+                .maximumWeight(100)
+                .weigher(new Weigher<String, Integer>() {
+                    @Override
+                    public int weigh(String key, Integer value) {
+                        return value;
+                    }
+                })
+                .build(cacheLoader);
+        when(cacheLoader.load("105")).thenReturn(-1).thenReturn(105);
+
+        try {
+            cache.get("105");
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Integer result = cache.get("105");
+
+        assertThat(result).isEqualTo(105);
+        assertThat(cache.stats().getLoadFailureCount()).isEqualTo(1);
+        verify(cacheLoader, times(2)).load("105");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMaximumWeightWithoutWeigher() throws Exception {
+        new CacheBuilder<String, Integer>().maximumWeight(100).build(cacheLoader);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMaximumSizeWithMaximumWeight() throws Exception {
+        new CacheBuilder<String, Integer>().maximumWeight(100).maximumSize(100);
+    }
+
+    @Test
+    public void testRefreshServesOldValueUntilReloaded() throws Exception {
+        QueueExecutor executor = new QueueExecutor();
+        LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>()
+                .refreshAfterWrite(EXPIRATION_TIME, TimeUnit.MILLISECONDS)
+                .refreshExecutor(executor)
+                .build(cacheLoader);
+        when(cacheLoader.load("105")).thenReturn(105);
+        when(cacheLoader.reload("105", 105)).thenReturn(106);
+
+        cache.get("105");
+        Thread.sleep(EXPIRATION_TIME + EXPIRATION_TIME / LocalCache.REFRESH_JITTER_DIVISOR + 1);
+        Integer staleResult = cache.get("105");
+        Integer stillStaleResult = cache.get("105");
+        executor.runAll();
+        Integer result = cache.get("105");
+
+        assertThat(staleResult).isEqualTo(105);
+        assertThat(stillStaleResult).isEqualTo(105);
+        assertThat(result).isEqualTo(106);
+        assertThat(executor.executed).isEqualTo(1);
+        verify(cacheLoader).load("105");
+        verify(cacheLoader).reload("105", 105);
+        verifyNoMoreInteractions(cacheLoader);
+    }
+
+    @Test
+    public void testFailedRefreshKeepsOldValue() throws Exception {
+        QueueExecutor executor = new QueueExecutor();
+        LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>()
+                .refreshAfterWrite(EXPIRATION_TIME, TimeUnit.MILLISECONDS)
+                .refreshExecutor(executor)
+                .build(cacheLoader);
+        when(cacheLoader.load("105")).thenReturn(105);
+        when(cacheLoader.reload("105", 105)).thenThrow(new IllegalStateException()).thenReturn(106);
+
+        cache.get("105");
+        Thread.sleep(EXPIRATION_TIME + EXPIRATION_TIME / LocalCache.REFRESH_JITTER_DIVISOR + 1);
+        cache.get("105");
+        executor.runAll();
+        Integer failedResult = cache.get("105");
+        executor.runAll();
+        Integer result = cache.get("105");
+
+        assertThat(failedResult).isEqualTo(105);
+        assertThat(result).isEqualTo(106);
+        verify(cacheLoader, times(2)).reload("105", 105);
+    }
+
+    @Test
+    public void testStatsRecordsHitsMissesAndLoads() throws Exception {
+        LoadingCache<String, Integer> cache = createCache();
+        when(cacheLoader.load("105")).thenReturn(105);
+        when(cacheLoader.load("106")).thenThrow(new IllegalStateException());
+
+        cache.get("105");
+        cache.get("105");
+        cache.get("105");
+        try {
+            cache.get("106");
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            // expected
+        }
+        CacheStats stats = cache.stats();
+
+        assertThat(stats.getHitCount()).isEqualTo(2);
+        assertThat(stats.getMissCount()).isEqualTo(2);
+        assertThat(stats.getRequestCount()).isEqualTo(4);
+        assertThat(stats.getLoadSuccessCount()).isEqualTo(1);
+        assertThat(stats.getLoadFailureCount()).isEqualTo(1);
+        assertThat(stats.getTotalLoadTime()).isGreaterThan(0);
+        assertThat(stats.getEvictionCount()).isEqualTo(0);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void testStatsRecordsEvictions() throws Exception {
+        LoadingCache<String, Integer> cache = new CacheBuilder<String, Integer>().maximumSize(10)
+                .build(new CountingLoader());
+
+        for (int i = 0; i < 20; i++) {
+            cache.get(String.valueOf(i));
+        }
+
+        assertThat(cache.stats().getEvictionCount()).isEqualTo(10);
+    }
+
+    private static void getIgnoringFailure(LoadingCache<String, Integer> cache, String key) {
+        try {
+            cache.get(key);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            // expected
+        }
+    }
+
+    private LoadingCache<String, Integer> createCache() {
+        return new CacheBuilder<String, Integer>().build(cacheLoader);
+    }
+
+    private static class CountingLoader extends CacheLoader<String, Integer> {
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public Integer load(String key) throws Exception {
+            loads.incrementAndGet();
+            return key.startsWith("hot") || key.startsWith("cold") ? key.length() : Integer.valueOf(key);
+        }
+    }
+
+    private static class QueueExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<Runnable>();
+        private int executed;
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                executed++;
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.loader;
+
+import com.vityuk.ginger.PropertyResolver;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.data.MapEntry.entry;
+
+public class BundleLocalizationLoaderTest {
+    private final LocalizationLoader loader = new BundleLocalizationLoader();
+
+    @Test
+    public void testLoadWithoutProperties() throws Exception {
+        PropertyResolver propertyResolver = compileAndLoad("");
+
+        assertThat(propertyResolver.getKeys()).isEmpty();
+        assertThat(propertyResolver.getString("")).isNull();
+        assertThat(propertyResolver.getStringMap("")).isNull();
+    }
+
+    @Test
+    public void testLoadProperties() throws Exception {
+        String content = "" +
+                "prop=test-value\n" +
+                "empty=\n" +
+                "other=test-value\n" +
+                "colors[red]=#FF0000\n" +
+                "colors[white]=#FFFFFF\n" +
+                "plural=Items\n" +
+                "plural[one]=Item";
+
+        PropertyResolver propertyResolver = compileAndLoad(content);
+
+        assertThat(propertyResolver.getKeys()).containsOnly("prop", "empty", "other", "colors", "plural");
+        assertThat(propertyResolver.getString("prop")).isEqualTo("test-value");
+        assertThat(propertyResolver.getString("empty")).isEmpty();
+        assertThat(propertyResolver.getString("other")).isEqualTo("test-value");
+        assertThat(propertyResolver.getString("colors")).isNull();
+        assertThat(propertyResolver.getStringMap("colors")).hasSize(2)
+                .contains(entry("red", "#FF0000"), entry("white", "#FFFFFF"));
+        assertThat(propertyResolver.getString("plural")).isEqualTo("Items");
+        assertThat(propertyResolver.getStringMap("plural")).hasSize(2)
+                .contains(entry("", "Items"), entry("one", "Item"));
+        assertThat(propertyResolver.getString("missing")).isNull();
+    }
+
+    @Test
+    public void testLoadTypedProperties() throws Exception {
+        String content = "" +
+                "flag=true\n" +
+                "int=12345\n" +
+                "double=2.25\n" +
+                "list=a, b";
+
+        PropertyResolver propertyResolver = compileAndLoad(content);
+
+        assertThat(propertyResolver.getBoolean("flag")).isTrue();
+        assertThat(propertyResolver.getInteger("int")).isEqualTo(12345).isSameAs(propertyResolver.getInteger("int"));
+        assertThat(propertyResolver.getDouble("double")).isEqualTo(2.25);
+        assertThat(propertyResolver.getStringList("list")).containsExactly("a", "b");
+        assertThat(propertyResolver.getInteger("missing")).isNull();
+    }
+
+    @Test
+    public void testLoadPropertiesWithSameKeyHash() throws Exception {
+        // "Aa" and "BB" have the same hash code
+        String content = "" +
+                "Aa=first\n" +
+                "BB=second\n" +
+                "AaAa=third";
+
+        PropertyResolver propertyResolver = compileAndLoad(content);
+
+        assertThat(propertyResolver.getString("Aa")).isEqualTo("first");
+        assertThat(propertyResolver.getString("BB")).isEqualTo("second");
+        assertThat(propertyResolver.getString("AaAa")).isEqualTo("third");
+        assertThat(propertyResolver.getString("AaBB")).isNull();
+        assertThat(propertyResolver.getString("A")).isNull();
+    }
+
+    @Test
+    public void testLoadNotAsciiProperties() throws Exception {
+        String key = "\u043a\u043b\u044e\u0447";
+        String value = "\u0437\u043d\u0430\u0447\u0435\u043d\u043d\u044f \u00e9 \u20ac \ud83d\ude00 \ud800";
+        String content = key + "=" + value.replace("\ud800", "\\ud800") + "\n" + key + "[\u00e9]=\u0000";
+
+        PropertyResolver propertyResolver = compileAndLoad(content);
+
+        assertThat(propertyResolver.getString(key)).isEqualTo(value);
+        assertThat(propertyResolver.getStringMap(key)).contains(entry("\u00e9", "\u0000"));
+        assertThat(propertyResolver.getKeys()).containsOnly(key);
+    }
+
+    @Test
+    public void testLoadFromByteBuffer() throws Exception {
+        byte[] bundle = compile("prop=test-value");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bundle.length + 2);
+        buffer.put((byte) 1).put(bundle).put((byte) 2).flip();
+        buffer.position(1);
+
+        PropertyResolver propertyResolver = loader.load(new ByteBufferInputStream(buffer));
+
+        assertThat(propertyResolver.getString("prop")).isEqualTo("test-value");
+    }
+
+    @Test
+    public void testCompileIsDeterministic() throws Exception {
+        byte[] bundle = compile("a=1\nb=2\nc[x]=3\nc[y]=1");
+        byte[] otherBundle = compile("c[y]=1\nb=2\nc[x]=3\na=1");
+
+        assertThat(Arrays.equals(bundle, otherBundle)).isTrue();
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadInvalidBundle() throws Exception {
+        loader.load(new ByteArrayInputStream("prop=test-value, not a bundle".getBytes("UTF-8")));
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadTruncatedBundle() throws Exception {
+        byte[] bundle = compile("prop=test-value");
+
+        loader.load(new ByteArrayInputStream(Arrays.copyOf(bundle, bundle.length - 1)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadBundleWithUnsupportedVersion() throws Exception {
+        byte[] bundle = compile("prop=test-value");
+        ByteBuffer.wrap(bundle).putInt(4, BundleLocalizationLoader.VERSION + 1);
+
+        loader.load(new ByteArrayInputStream(bundle));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testGetStringWithNullKey() throws Exception {
+        compileAndLoad("prop=test-value").getString(null);
+    }
+
+    private PropertyResolver compileAndLoad(String content) throws IOException {
+        return loader.load(new ByteArrayInputStream(compile(content)));
+    }
+
+    private static byte[] compile(String content) throws IOException {
+        PropertyResolver propertyResolver = new PropertiesLocalizationLoader()
+                .load(new ByteArrayInputStream(content.getBytes("UTF-8")));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new BundleWriter().write(propertyResolver, outputStream);
+        return outputStream.toByteArray();
+    }
+}
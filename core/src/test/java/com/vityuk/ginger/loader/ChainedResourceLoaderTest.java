@@ -189,6 +189,32 @@ public class ChainedResourceLoaderTest {
         inOrder.verifyNoMoreInteractions();
     }
 
+    @Test
+    public void testWatchWithWatchableSupported() throws Exception {
+        String location = "schema:/test/resource";
+        WatchableResourceLoader watchableResourceLoader = mock(WatchableResourceLoader.class);
+        ResourceChangeListener listener = mock(ResourceChangeListener.class);
+        resourceLoader = new ChainedResourceLoader(Arrays.<ResourceLoader>asList(resourceLoader1,
+                watchableResourceLoader));
+        when(watchableResourceLoader.isSupported(location)).thenReturn(true);
+        when(watchableResourceLoader.watch(location, listener)).thenReturn(true);
+
+        boolean result = resourceLoader.watch(location, listener);
+
+        assertThat(result).isTrue();
+        verify(watchableResourceLoader).watch(location, listener);
+    }
+
+    @Test
+    public void testWatchWithNotWatchableSupported() throws Exception {
+        String location = "schema1:/test/resource";
+        when(resourceLoader1.isSupported(location)).thenReturn(true);
+
+        boolean result = resourceLoader.watch(location, mock(ResourceChangeListener.class));
+
+        assertThat(result).isFalse();
+    }
+
     private InOrder resourcesInOrder() {
         return inOrder(resourceLoader1, resourceLoader2, resourceLoader3);
     }
@@ -24,10 +24,16 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 
 public class FileSystemResourceLoaderTest {
+    private static final int WATCH_TIMEOUT_SEC = 30;
+
     private ResourceLoader loader = new FileSystemResourceLoader();
 
 
@@ -127,5 +133,131 @@ public class FileSystemResourceLoaderTest {
         loader.openStream(null);
     }
 
+    @Test
+    public void testWatchWithChangedFile() throws Exception {
+        File directory = Files.createTempDirectory(FileSystemResourceLoaderTest.class.getSimpleName()).toFile();
+        FileSystemResourceLoader watchableLoader = new FileSystemResourceLoader();
+        try {
+            File file = new File(directory, "test.data");
+            FileUtils.write(file, "test data");
+            String location = "file:" + file.getAbsolutePath();
+            RecordingListener listener = new RecordingListener();
+
+            boolean watched = watchableLoader.watch(location, listener);
+            FileUtils.write(file, "changed test data");
+
+            assertThat(watched).isTrue();
+            assertThat(listener.locations.poll(WATCH_TIMEOUT_SEC, TimeUnit.SECONDS)).isEqualTo(location);
+        } finally {
+            watchableLoader.close();
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testWatchWithChangedFileOfSameSizeAndModificationTime() throws Exception {
+        File directory = Files.createTempDirectory(FileSystemResourceLoaderTest.class.getSimpleName()).toFile();
+        FileSystemResourceLoader watchableLoader = new FileSystemResourceLoader();
+        try {
+            File file = new File(directory, "test.data");
+            FileUtils.write(file, "test data");
+            long lastModified = file.lastModified();
+            String location = "file:" + file.getAbsolutePath();
+            RecordingListener listener = new RecordingListener();
+
+            watchableLoader.watch(location, listener);
+            // Write within modification time granularity of file system
+            FileUtils.write(file, "best data");
+            file.setLastModified(lastModified);
+
+            assertThat(listener.locations.poll(WATCH_TIMEOUT_SEC, TimeUnit.SECONDS)).isEqualTo(location);
+        } finally {
+            watchableLoader.close();
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testWatchWithCreatedFile() throws Exception {
+        File directory = Files.createTempDirectory(FileSystemResourceLoaderTest.class.getSimpleName()).toFile();
+        FileSystemResourceLoader watchableLoader = new FileSystemResourceLoader();
+        try {
+            File file = new File(directory, "test.data");
+            String location = "file:" + file.getAbsolutePath();
+            RecordingListener listener = new RecordingListener();
+
+            watchableLoader.watch(location, listener);
+            FileUtils.write(file, "test data");
+
+            assertThat(listener.locations.poll(WATCH_TIMEOUT_SEC, TimeUnit.SECONDS)).isEqualTo(location);
+        } finally {
+            watchableLoader.close();
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testWatchWithTouchedFile() throws Exception {
+        File directory = Files.createTempDirectory(FileSystemResourceLoaderTest.class.getSimpleName()).toFile();
+        FileSystemResourceLoader watchableLoader = new FileSystemResourceLoader();
+        try {
+            File file = new File(directory, "test.data");
+            File otherFile = new File(directory, "other.data");
+            FileUtils.write(file, "test data");
+            String location = "file:" + file.getAbsolutePath();
+            String otherLocation = "file:" + otherFile.getAbsolutePath();
+            RecordingListener listener = new RecordingListener();
+
+            watchableLoader.watch(location, listener);
+            watchableLoader.watch(otherLocation, listener);
+            // Same content is written again, then other file is created. Touched file may still be reported if it
+            // is checked while being rewritten, so only notification of other file is awaited.
+            file.setLastModified(file.lastModified() + 10000);
+            FileUtils.write(file, "test data");
+            FileUtils.write(otherFile, "other data");
+
+            assertThat(listener.await(otherLocation)).isTrue();
+        } finally {
+            watchableLoader.close();
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testWatchWithNonExistentDirectory() throws IOException {
+        FileSystemResourceLoader watchableLoader = new FileSystemResourceLoader();
+        try {
+            boolean watched = watchableLoader.watch("file:/test43243958438/test.data", new RecordingListener());
+
+            assertThat(watched).isFalse();
+        } finally {
+            watchableLoader.close();
+        }
+    }
+
+    private static class RecordingListener implements ResourceChangeListener {
+        private final BlockingQueue<String> locations = new LinkedBlockingQueue<String>();
+
+        @Override
+        public void onResourceChanged(String location) {
+            locations.add(location);
+        }
+
+        /**
+         * @return {@code true} if listener was notified about location within timeout, other locations are skipped
+         */
+        boolean await(String location) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WATCH_TIMEOUT_SEC);
+            long remaining = deadline - System.nanoTime();
+            while (remaining > 0) {
+                if (location.equals(locations.poll(remaining, TimeUnit.NANOSECONDS))) {
+                    return true;
+                }
+                remaining = deadline - System.nanoTime();
+            }
+            return false;
+        }
+    }
+
 
 }
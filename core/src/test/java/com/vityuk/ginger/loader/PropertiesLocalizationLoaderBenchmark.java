@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.loader;
+
+import com.vityuk.ginger.PropertyResolver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Measures throughput of {@link PropertiesLocalizationLoader} on generated catalogue, which is a mix of messages,
+ * plural and selector variants, comments, escapes and continuation lines. Not run as a part of the build.
+ * <p/>
+ * Usage: {@code PropertiesLocalizationLoaderBenchmark [catalogue size in MB] [iterations]}
+ *
+ * @author Andriy Vityuk
+ */
+public class PropertiesLocalizationLoaderBenchmark {
+    private static final int DEFAULT_SIZE_MB = 40;
+    private static final int DEFAULT_ITERATIONS = 10;
+    private static final int WARMUP_ITERATIONS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int sizeMb = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE_MB;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+
+        byte[] catalogue = createCatalogue(sizeMb * 1024 * 1024);
+        LocalizationLoader loader = new PropertiesLocalizationLoader();
+
+        int keys = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            keys = load(loader, catalogue).getKeys().size();
+        }
+
+        long bestTime = Long.MAX_VALUE;
+        long totalTime = 0;
+        for (int i = 0; i < iterations; i++) {
+            long startTime = System.nanoTime();
+            load(loader, catalogue);
+            long time = System.nanoTime() - startTime;
+            bestTime = Math.min(bestTime, time);
+            totalTime += time;
+        }
+
+        double megabytes = catalogue.length / (1024.0 * 1024.0);
+        double averageMs = totalTime / 1e6 / iterations;
+        System.out.printf("Catalogue: %.1f MB, %d keys%n", megabytes, keys);
+        System.out.printf("Average: %.1f ms (%.1f MB/s), best: %.1f ms (%.1f MB/s)%n", averageMs,
+                megabytes / averageMs * 1000, bestTime / 1e6, megabytes / (bestTime / 1e9));
+    }
+
+    private static PropertyResolver load(LocalizationLoader loader, byte[] catalogue) throws IOException {
+        return loader.load(new ByteArrayInputStream(catalogue));
+    }
+
+    private static byte[] createCatalogue(int size) {
+        StringBuilder catalogue = new StringBuilder(size + 1024);
+        for (int i = 0; catalogue.length() < size; i++) {
+            switch (i % 8) {
+                case 0:
+                    catalogue.append("# Messages of section ").append(i).append('\n');
+                    break;
+                case 1:
+                    catalogue.append("section").append(i).append(".user.greeting = Hello, {0}! You have logged in ")
+                            .append("from {1} at {2,time,short}.\n");
+                    break;
+                case 2:
+                    catalogue.append("section").append(i).append(".files[one]=One file in {1}\n");
+                    catalogue.append("section").append(i).append(".files[other]={0} files in {1}\n");
+                    break;
+                case 3:
+                    catalogue.append("section").append(i).append(".title[male]:Herr {0}\r\n");
+                    catalogue.append("section").append(i).append(".title[female]:Frau {0}\r\n");
+                    break;
+                case 4:
+                    catalogue.append("section").append(i).append(".description=Very long description, which is ")
+                            .append("split \\\n    into several lines \\\n    with continuation\n");
+                    break;
+                case 5:
+                    catalogue.append("section").append(i).append(".escaped = Tab\\tnew line\\nquote\\\\ and ")
+                            .append("\\u00e9t\\u00e9\n");
+                    break;
+                case 6:
+                    catalogue.append("section").append(i).append(".unicode = Größe über файл ")
+                            .append("文件\n");
+                    break;
+                default:
+                    catalogue.append("section").append(i).append(".count = ").append(i).append("\n\n");
+            }
+        }
+        return catalogue.toString().getBytes(Charset.forName("UTF-8"));
+    }
+}
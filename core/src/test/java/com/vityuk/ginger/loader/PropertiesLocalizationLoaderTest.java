@@ -22,6 +22,7 @@ import org.junit.Test;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.fest.assertions.data.MapEntry.entry;
@@ -151,8 +152,128 @@ public class PropertiesLocalizationLoaderTest {
                         entry("white", "#FFFFFF"), entry("black", "#000000"));
     }
 
+    @Test
+    public void testLoadTypedProperties() throws Exception {
+        String content = "" +
+                "flag=true\n" +
+                "int=12345\n" +
+                "long=1234567890123\n" +
+                "float=1.5\n" +
+                "double=2.25\n" +
+                "list=a, b";
+
+        PropertyResolver propertyResolver = load(content);
+
+        assertThat(propertyResolver.getBoolean("flag")).isTrue();
+        assertThat(propertyResolver.getInteger("int")).isEqualTo(12345);
+        assertThat(propertyResolver.getLong("long")).isEqualTo(1234567890123L);
+        assertThat(propertyResolver.getFloat("float")).isEqualTo(1.5f);
+        assertThat(propertyResolver.getDouble("double")).isEqualTo(2.25);
+        assertThat(propertyResolver.getStringList("list")).containsExactly("a", "b");
+        assertThat(propertyResolver.getBoolean("missing")).isNull();
+        assertThat(propertyResolver.getInteger("missing")).isNull();
+    }
+
+    @Test
+    public void testTypedPropertiesAreParsedOnce() throws Exception {
+        String content = "" +
+                "int=12345\n" +
+                "list=a, b";
+
+        PropertyResolver propertyResolver = load(content);
+
+        assertThat(propertyResolver.getInteger("int")).isSameAs(propertyResolver.getInteger("int"));
+        assertThat(propertyResolver.getStringList("list")).isSameAs(propertyResolver.getStringList("list"));
+        assertThat(propertyResolver.getLong("int")).isEqualTo(12345L);
+        assertThat(propertyResolver.getInteger("int")).isEqualTo(12345);
+        assertThat(propertyResolver.getString("int")).isEqualTo("12345");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testLoadTypedPropertyWithInvalidValue() throws Exception {
+        PropertyResolver propertyResolver = load("int=abc");
+
+        propertyResolver.getInteger("int");
+    }
+
+    @Test
+    public void testLoadEscapedCharacters() throws Exception {
+        String content = "" +
+                "key\\ with\\=separators\\:=tab\\tnew\\nline\\rquote\\\\\\f\n" +
+                "unicode=\\u0041\\u00e9\\u20AC";
+
+        PropertyResolver propertyResolver = load(content);
+
+        assertThat(propertyResolver.getString("key with=separators:")).isEqualTo("tab\tnew\nline\rquote\\f");
+        assertThat(propertyResolver.getString("unicode")).isEqualTo("A\u00e9\u20ac");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadMalformedUnicodeEscape() throws Exception {
+        load("key=\\u00g0");
+    }
+
+    @Test
+    public void testLoadNotMapProperties() throws Exception {
+        String content = "" +
+                "[a]=1\n" +
+                "b[]=2\n" +
+                "c[d]e=3\n" +
+                "f[[g]=4\n" +
+                "h[i]]=5";
+
+        PropertyResolver propertyResolver = load(content);
+
+        assertThat(propertyResolver.getString("[a]")).isEqualTo("1");
+        assertThat(propertyResolver.getString("b[]")).isEqualTo("2");
+        assertThat(propertyResolver.getString("c[d]e")).isEqualTo("3");
+        assertThat(propertyResolver.getString("f[[g]")).isEqualTo("4");
+        assertThat(propertyResolver.getString("h[i]]")).isEqualTo("5");
+    }
+
+    @Test
+    public void testLoadUtf8ByDefault() throws Exception {
+        String content = "\u043a\u043b\u044e\u0447=\u0437\u043d\u0430\u0447\u0435\u043d\u043d\u044f \u20ac";
+
+        PropertyResolver propertyResolver = loader.load(new ByteArrayInputStream(content.getBytes("UTF-8")));
+
+        assertThat(propertyResolver.getString("\u043a\u043b\u044e\u0447"))
+                .isEqualTo("\u0437\u043d\u0430\u0447\u0435\u043d\u043d\u044f \u20ac");
+    }
+
+    @Test
+    public void testLoadWithCharset() throws Exception {
+        Charset charset = Charset.forName("ISO-8859-1");
+        byte[] content = "caf\u00e9=cr\u00e8me".getBytes(charset);
+
+        PropertyResolver propertyResolver = new PropertiesLocalizationLoader(charset)
+                .load(new ByteArrayInputStream(content));
+
+        assertThat(propertyResolver.getString("caf\u00e9")).isEqualTo("cr\u00e8me");
+    }
+
+    @Test
+    public void testLoadLongProperties() throws Exception {
+        StringBuilder value = new StringBuilder();
+        StringBuilder mapKey = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            value.append("word").append(i).append(' ');
+            mapKey.append("key").append(i);
+        }
+        String content = "" +
+                "first=" + value + "\\\n" +
+                "    \\u0041\\t\n" +
+                "second[" + mapKey + "]=" + value;
+
+        PropertyResolver propertyResolver = load(content);
+
+        assertThat(propertyResolver.getString("first")).isEqualTo(value + "A\t");
+        assertThat(propertyResolver.getStringMap("second")).hasSize(1)
+                .contains(entry(mapKey.toString(), value.toString()));
+    }
+
     private PropertyResolver load(String content) throws IOException {
-        InputStream inputStream = new ByteArrayInputStream(content.getBytes());
+        InputStream inputStream = new ByteArrayInputStream(content.getBytes("UTF-8"));
         return loader.load(inputStream);
     }
 
@@ -18,30 +18,49 @@ package com.vityuk.ginger.provider;
 
 import com.vityuk.ginger.LocaleResolver;
 import com.vityuk.ginger.PropertyResolver;
+import com.vityuk.ginger.cache.CacheStats;
 import com.vityuk.ginger.loader.LocalizationLoader;
+import com.vityuk.ginger.loader.ResourceChangeListener;
 import com.vityuk.ginger.loader.ResourceLoader;
+import com.vityuk.ginger.loader.WatchableResourceLoader;
 import com.vityuk.ginger.provider.format.MessageFormatFactory;
+import com.vityuk.ginger.provider.format.NativeMessageTemplateFactory;
+import com.vityuk.ginger.provider.plural.NumberPluralFormSelectorResolver;
 import com.vityuk.ginger.provider.plural.PluralFormSelectorResolver;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.io.InputStream;
+import java.math.BigDecimal;
 import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Map;
 
 import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -49,6 +68,7 @@ public class DefaultLocalizationProviderTest {
     private static String LOCATION = "test:/TestResources.data";
     private static String LOCATION_ITALIAN = "test:/TestResources_it.data";
     private static String LOCATION_ITALY = "test:/TestResources_it_IT.data";
+    private static String LOCATION_ENGLISH = "test:/TestResources_en.data";
 
     @Rule
     public ExpectedException thrown = ExpectedException.none();
@@ -72,7 +92,15 @@ public class DefaultLocalizationProviderTest {
     private PropertyResolver propertyResolver;
 
     @Mock
-    private PluralFormSelectorResolver pluralFormSelectorResolver;
+    private NumberPluralFormSelectorResolver pluralFormSelectorResolver;
+
+    @Test(expected = IllegalStateException.class)
+    public void testBuildWithMaxMessageCacheSizeAndWeight() throws Exception {
+        createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .withMaxMessageCacheSize(100)
+                .withMaxMessageCacheWeight(1000)
+                .build();
+    }
 
     @Test(expected = NullPointerException.class)
     public void testWithNullLocale() throws Exception {
@@ -134,6 +162,73 @@ public class DefaultLocalizationProviderTest {
         }
     }
 
+    @Test
+    public void testWithNotFoundResourceCachesFailure() throws Exception {
+        LocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .withFailureCacheTimeInSec(60)
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION_ITALIAN)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION)).thenReturn(null);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                localizationProvider.getString("str.key");
+                fail("ResourceNotFoundException expected");
+            } catch (ResourceNotFoundException e) {
+                // expected
+            }
+        }
+
+        InOrder inOrder = inOrder();
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
+        inOrder.verify(resourceLoader).openStream(LOCATION);
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testWithNotFoundResourceUsesFallbackLocale() throws Exception {
+        String key = "str.key";
+        String value = "test value";
+
+        LocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .withFallbackLocale(Locale.ENGLISH)
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION_ITALIAN)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION_ENGLISH)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getString(key)).thenReturn(value);
+
+        String result = localizationProvider.getString(key);
+        String cachedResult = localizationProvider.getString(key);
+
+        assertThat(result).isEqualTo(value);
+        assertThat(cachedResult).isEqualTo(value);
+        InOrder inOrder = inOrder();
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
+        inOrder.verify(resourceLoader).openStream(LOCATION);
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ENGLISH);
+        inOrder.verify(localizationLoader).load(inputStream);
+        inOrder.verify(propertyResolver).getString(key);
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(propertyResolver).getString(key);
+        inOrder.verifyNoMoreInteractions();
+    }
+
 
     @Test
     public void testWithNotPresentKey() throws Exception {
@@ -403,6 +498,654 @@ public class DefaultLocalizationProviderTest {
         inOrder.verifyNoMoreInteractions();
     }
 
+    @Test
+    public void testGetMessageWithMessageTemplateFactory() throws Exception {
+        String key = "message.key";
+        String value = "Hello, {0}! You have {1,number,integer} messages";
+
+        LocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .withMessageTemplateFactory(new NativeMessageTemplateFactory())
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getString(key)).thenReturn(value);
+
+        String result = localizationProvider.getMessage(key, "Bob", 1234);
+        MessageFormat messageFormat = localizationProvider.getMessageFormat(key);
+
+        assertThat(result).isEqualTo("Hello, Bob! You have 1.234 messages");
+        assertThat(messageFormat.format(new Object[]{"Alice", 5})).isEqualTo("Hello, Alice! You have 5 messages");
+        InOrder inOrder = inOrder();
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
+        inOrder.verify(localizationLoader).load(inputStream);
+        inOrder.verify(propertyResolver).getString(key);
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testAppendMessage() throws Exception {
+        String key = "message.key";
+        String value = "Hello, {0}!";
+
+        MessageFormat messageFormat = new MessageFormat(value, Locale.ITALY);
+
+        LocalizationProvider localizationProvider = createDefault();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION_ITALIAN)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getString(key)).thenReturn(value);
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(messageFormat);
+
+        StringBuilder result = new StringBuilder("> ");
+        boolean found = localizationProvider.appendMessage(result, key, "World");
+
+        assertThat(found).isTrue();
+        assertThat(result.toString()).isEqualTo("> Hello, World!");
+        InOrder inOrder = inOrder();
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
+        inOrder.verify(localizationLoader).load(inputStream);
+        inOrder.verify(propertyResolver).getString(key);
+        inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testAppendMessageWithNotFoundMessage() throws Exception {
+        String key = "message.key";
+
+        LocalizationProvider localizationProvider = createDefault();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+
+        StringBuilder result = new StringBuilder();
+        boolean found = localizationProvider.appendMessage(result, key);
+
+        assertThat(found).isFalse();
+        assertThat(result.length()).isEqualTo(0);
+    }
+
+    @Test
+    public void testForLocale() throws Exception {
+        String key = "message.key";
+        String value = "Hello, {0}!";
+        String constantKey = "constant.key";
+        String constantValue = "Constant";
+
+        MessageFormat messageFormat = new MessageFormat(value, Locale.ITALY);
+
+        LocalizationProvider localizationProvider = createDefault();
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getString(key)).thenReturn(value);
+        when(propertyResolver.getString(constantKey)).thenReturn(constantValue);
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(messageFormat);
+
+        LocalizationProvider localeBoundProvider = localizationProvider.forLocale(Locale.ITALY);
+        String result = localeBoundProvider.getMessage(key, "Bob");
+        String cachedResult = localeBoundProvider.getMessage(key, "Alice");
+        String constant = localeBoundProvider.getString(constantKey);
+
+        assertThat(result).isEqualTo("Hello, Bob!");
+        assertThat(cachedResult).isEqualTo("Hello, Alice!");
+        assertThat(constant).isEqualTo(constantValue);
+        assertThat(localeBoundProvider.forLocale(Locale.ITALY)).isSameAs(localeBoundProvider);
+        InOrder inOrder = inOrder();
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
+        inOrder.verify(localizationLoader).load(inputStream);
+        inOrder.verify(propertyResolver).getString(key);
+        inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
+        inOrder.verify(propertyResolver).getString(constantKey);
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testForLocaleWithNotFoundResource() throws Exception {
+        LocalizationProvider localizationProvider = createDefault();
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+
+        thrown.expect(ResourceNotFoundException.class);
+        localizationProvider.forLocale(Locale.ITALY);
+    }
+
+    @Test
+    public void testPreloadWithCompiledMessages() throws Exception {
+        String key = "message.key";
+        String value = "Hello, {0}!";
+        String invalidKey = "invalid.key";
+        String invalidValue = "Invalid {";
+
+        MessageFormat messageFormat = new MessageFormat(value, Locale.ITALY);
+
+        LocalizationProvider localizationProvider = createDefault();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getKeys()).thenReturn(new LinkedHashSet<String>(Arrays.asList(key, invalidKey)));
+        when(propertyResolver.getString(key)).thenReturn(value);
+        when(propertyResolver.getString(invalidKey)).thenReturn(invalidValue);
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(messageFormat);
+        when(messageFormatFactory.create(Locale.ITALY, invalidValue)).thenThrow(new IllegalArgumentException());
+
+        localizationProvider.preload(Locale.ITALY, true, null);
+        String result = localizationProvider.getMessage(key, "Bob");
+
+        assertThat(result).isEqualTo("Hello, Bob!");
+        InOrder inOrder = inOrder();
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
+        inOrder.verify(localizationLoader).load(inputStream);
+        inOrder.verify(inputStream).close();
+        inOrder.verify(propertyResolver).getKeys();
+        inOrder.verify(propertyResolver).getString(key);
+        inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
+        inOrder.verify(propertyResolver).getStringMap(key);
+        inOrder.verify(propertyResolver).getString(invalidKey);
+        inOrder.verify(messageFormatFactory).create(Locale.ITALY, invalidValue);
+        inOrder.verify(propertyResolver).getStringMap(invalidKey);
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testPreloadWithNotFoundResource() throws Exception {
+        LocalizationProvider localizationProvider = createDefault();
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+
+        thrown.expect(ResourceNotFoundException.class);
+        localizationProvider.preload(Locale.ITALY, false, null);
+    }
+
+    @Test
+    public void testGetStringWithResourceWatching() throws Exception {
+        String otherLocation = "test:/OtherResources.data";
+        String otherLocationItalian = "test:/OtherResources_it.data";
+        InputStream otherInputStream = mock(InputStream.class);
+        InputStream reloadedInputStream = mock(InputStream.class);
+        PropertyResolver otherPropertyResolver = mock(PropertyResolver.class);
+        PropertyResolver reloadedPropertyResolver = mock(PropertyResolver.class);
+        WatchableResourceLoader watchableResourceLoader = mock(WatchableResourceLoader.class);
+
+        LocalizationProvider localizationProvider = createBaseBuilder()
+                .withResourceLoader(watchableResourceLoader)
+                .withLocations(Arrays.asList(LOCATION, otherLocation))
+                .withResourceWatching(true)
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(watchableResourceLoader.isSupported(anyString())).thenReturn(true);
+        when(watchableResourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream, inputStream,
+                reloadedInputStream);
+        when(watchableResourceLoader.openStream(otherLocationItalian)).thenReturn(otherInputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(localizationLoader.load(otherInputStream)).thenReturn(otherPropertyResolver);
+        when(localizationLoader.load(reloadedInputStream)).thenReturn(reloadedPropertyResolver);
+        when(propertyResolver.getString("key")).thenReturn("Value");
+        when(reloadedPropertyResolver.getString("key")).thenReturn("Reloaded value");
+        when(otherPropertyResolver.getString("other.key")).thenReturn("Other value");
+
+        String value = localizationProvider.getString("key");
+        ArgumentCaptor<ResourceChangeListener> listenerCaptor = ArgumentCaptor.forClass(ResourceChangeListener.class);
+        verify(watchableResourceLoader).watch(eq(LOCATION_ITALY), listenerCaptor.capture());
+        listenerCaptor.getValue().onResourceChanged(LOCATION_ITALY);
+        String reloadedValue = localizationProvider.getString("key");
+        String otherValue = localizationProvider.getString("other.key");
+
+        assertThat(value).isEqualTo("Value");
+        assertThat(reloadedValue).isEqualTo("Reloaded value");
+        assertThat(otherValue).isEqualTo("Other value");
+        verify(watchableResourceLoader).watch(eq(LOCATION_ITALIAN), any(ResourceChangeListener.class));
+        verify(watchableResourceLoader).watch(eq(LOCATION), any(ResourceChangeListener.class));
+        verify(watchableResourceLoader).watch(eq(otherLocationItalian), any(ResourceChangeListener.class));
+        // Resources of locale are loaded again once they are watched
+        verify(watchableResourceLoader, times(3)).openStream(LOCATION_ITALY);
+        verify(watchableResourceLoader, times(2)).openStream(otherLocationItalian);
+    }
+
+    @Test
+    public void testGetMessageWithResourceWatching() throws Exception {
+        String key = "message.key";
+        String value = "Hello, {0}!";
+        String reloadedValue = "Goodbye, {0}!";
+        InputStream reloadedInputStream = mock(InputStream.class);
+        PropertyResolver reloadedPropertyResolver = mock(PropertyResolver.class);
+        WatchableResourceLoader watchableResourceLoader = mock(WatchableResourceLoader.class);
+
+        LocalizationProvider localizationProvider = createBaseBuilder()
+                .withResourceLoader(watchableResourceLoader)
+                .withLocations(Arrays.asList(LOCATION))
+                .withResourceWatching(true)
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(watchableResourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(watchableResourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream, inputStream,
+                reloadedInputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(localizationLoader.load(reloadedInputStream)).thenReturn(reloadedPropertyResolver);
+        when(propertyResolver.getString(key)).thenReturn(value);
+        when(reloadedPropertyResolver.getString(key)).thenReturn(reloadedValue);
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(new MessageFormat(value, Locale.ITALY));
+        when(messageFormatFactory.create(Locale.ITALY, reloadedValue)).thenReturn(
+                new MessageFormat(reloadedValue, Locale.ITALY));
+
+        String result = localizationProvider.getMessage(key, "Bob");
+        LocalizationProvider localeBoundProvider = localizationProvider.forLocale(Locale.ITALY);
+        ArgumentCaptor<ResourceChangeListener> listenerCaptor = ArgumentCaptor.forClass(ResourceChangeListener.class);
+        verify(watchableResourceLoader).watch(eq(LOCATION_ITALY), listenerCaptor.capture());
+        listenerCaptor.getValue().onResourceChanged(LOCATION_ITALY);
+        String reloadedResult = localizationProvider.getMessage(key, "Bob");
+        String localeBoundResult = localeBoundProvider.getMessage(key, "Bob");
+
+        assertThat(result).isEqualTo("Hello, Bob!");
+        assertThat(reloadedResult).isEqualTo("Goodbye, Bob!");
+        // Views look reloadable resources up on each call
+        assertThat(localeBoundResult).isEqualTo("Goodbye, Bob!");
+        verify(messageFormatFactory, times(1)).create(Locale.ITALY, value);
+        verify(messageFormatFactory, times(1)).create(Locale.ITALY, reloadedValue);
+    }
+
+    @Test
+    public void testGetStringWithResourceWatchingAndUnusedResourceChange() throws Exception {
+        WatchableResourceLoader watchableResourceLoader = mock(WatchableResourceLoader.class);
+
+        LocalizationProvider localizationProvider = createBaseBuilder()
+                .withResourceLoader(watchableResourceLoader)
+                .withLocations(Arrays.asList(LOCATION))
+                .withResourceWatching(true)
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(watchableResourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(watchableResourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+
+        localizationProvider.getString("key");
+        ArgumentCaptor<ResourceChangeListener> listenerCaptor = ArgumentCaptor.forClass(ResourceChangeListener.class);
+        verify(watchableResourceLoader).watch(eq(LOCATION_ITALY), listenerCaptor.capture());
+        listenerCaptor.getValue().onResourceChanged(LOCATION_ENGLISH);
+        localizationProvider.getString("key");
+
+        verify(watchableResourceLoader, times(2)).openStream(LOCATION_ITALY);
+        verify(watchableResourceLoader, never()).openStream(LOCATION_ENGLISH);
+    }
+
+    @Test
+    public void testGetStringWithResourceWatchingAndFallbackLocale() throws Exception {
+        WatchableResourceLoader watchableResourceLoader = mock(WatchableResourceLoader.class);
+        InputStream reloadedInputStream = mock(InputStream.class);
+        PropertyResolver reloadedPropertyResolver = mock(PropertyResolver.class);
+
+        LocalizationProvider localizationProvider = createBaseBuilder()
+                .withResourceLoader(watchableResourceLoader)
+                .withLocations(Arrays.asList(LOCATION))
+                .withFallbackLocale(Locale.ENGLISH)
+                .withResourceWatching(true)
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(watchableResourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(watchableResourceLoader.openStream(LOCATION_ENGLISH)).thenReturn(inputStream, inputStream,
+                reloadedInputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(localizationLoader.load(reloadedInputStream)).thenReturn(reloadedPropertyResolver);
+        when(propertyResolver.getString("key")).thenReturn("Value");
+        when(reloadedPropertyResolver.getString("key")).thenReturn("Reloaded value");
+
+        String value = localizationProvider.getString("key");
+        String cachedValue = localizationProvider.getString("key");
+        ArgumentCaptor<ResourceChangeListener> listenerCaptor = ArgumentCaptor.forClass(ResourceChangeListener.class);
+        verify(watchableResourceLoader).watch(eq(LOCATION_ENGLISH), listenerCaptor.capture());
+        listenerCaptor.getValue().onResourceChanged(LOCATION_ENGLISH);
+        String reloadedValue = localizationProvider.getString("key");
+
+        assertThat(value).isEqualTo("Value");
+        assertThat(cachedValue).isEqualTo("Value");
+        assertThat(reloadedValue).isEqualTo("Reloaded value");
+        // Unsupported locale is neither watched nor searched for resources on every request
+        verify(watchableResourceLoader, never()).watch(eq(LOCATION_ITALY), any(ResourceChangeListener.class));
+        verify(watchableResourceLoader, never()).watch(eq(LOCATION_ITALIAN), any(ResourceChangeListener.class));
+        verify(watchableResourceLoader, times(2)).openStream(LOCATION_ITALY);
+        verify(watchableResourceLoader, times(2)).openStream(LOCATION_ITALIAN);
+    }
+
+    @Test
+    public void testGetStringWithResourceWatchingAndMissingResources() throws Exception {
+        WatchableResourceLoader watchableResourceLoader = mock(WatchableResourceLoader.class);
+
+        LocalizationProvider localizationProvider = createBaseBuilder()
+                .withResourceLoader(watchableResourceLoader)
+                .withLocations(Arrays.asList(LOCATION))
+                .withFailureCacheTimeInSec(60)
+                .withResourceWatching(true)
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(watchableResourceLoader.isSupported(LOCATION)).thenReturn(true);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                localizationProvider.getString("key");
+                fail("ResourceNotFoundException expected");
+            } catch (ResourceNotFoundException e) {
+                // Expected
+            }
+        }
+
+        verify(watchableResourceLoader, never()).watch(anyString(), any(ResourceChangeListener.class));
+        verify(watchableResourceLoader, times(1)).openStream(LOCATION_ITALY);
+    }
+
+    @Test
+    public void testCreateWithResourceWatchingAndNotWatchableResourceLoader() throws Exception {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("ResourceLoader must implement WatchableResourceLoader for resource watching");
+
+        createBaseBuilder().withLocations(Arrays.asList(LOCATION)).withResourceWatching(true).build();
+    }
+
+    @Test
+    public void testGetStringWithMergedLocaleHierarchy() throws Exception {
+        InputStream italianInputStream = mock(InputStream.class);
+        PropertyResolver italianPropertyResolver = mock(PropertyResolver.class);
+
+        LocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .withMergedLocaleHierarchy(true)
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream);
+        when(resourceLoader.openStream(LOCATION_ITALIAN)).thenReturn(italianInputStream);
+        when(resourceLoader.openStream(LOCATION)).thenReturn(null);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(localizationLoader.load(italianInputStream)).thenReturn(italianPropertyResolver);
+        when(propertyResolver.getKeys()).thenReturn(Collections.singleton("country.key"));
+        when(italianPropertyResolver.getKeys()).thenReturn(new HashSet<String>(Arrays.asList("country.key",
+                "language.key")));
+        when(propertyResolver.getString("country.key")).thenReturn("Country");
+        when(italianPropertyResolver.getString("language.key")).thenReturn("Language");
+
+        String countryValue = localizationProvider.getString("country.key");
+        String languageValue = localizationProvider.getString("language.key");
+        String missingValue = localizationProvider.getString("missing.key");
+
+        assertThat(countryValue).isEqualTo("Country");
+        assertThat(languageValue).isEqualTo("Language");
+        assertThat(missingValue).isNull();
+        InOrder inOrder = inOrder();
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
+        inOrder.verify(localizationLoader).load(inputStream);
+        inOrder.verify(inputStream).close();
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
+        inOrder.verify(localizationLoader).load(italianInputStream);
+        inOrder.verify(resourceLoader).openStream(LOCATION);
+    }
+
+    @Test
+    public void testGetStringWithMergedLocaleHierarchyAndNotFoundResource() throws Exception {
+        LocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .withMergedLocaleHierarchy(true)
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+
+        thrown.expect(ResourceNotFoundException.class);
+        localizationProvider.getString("key");
+    }
+
+    @Test
+    public void testGetMessageByKeyId() throws Exception {
+        String key = "message.key";
+        String value = "Hello, {0}!";
+
+        MessageFormat messageFormat = new MessageFormat(value, Locale.ITALY);
+
+        IndexedLocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION_ITALIAN)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getString(key)).thenReturn(value);
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(messageFormat);
+
+        int keyId = localizationProvider.getKeyId(key);
+        String result = localizationProvider.getMessage(keyId, "Bob");
+        String cachedResult = localizationProvider.getMessage(keyId, "Alice");
+
+        assertThat(localizationProvider.getKeyId(key)).isEqualTo(keyId);
+        assertThat(localizationProvider.getKeyId("other.key")).isNotEqualTo(keyId);
+        assertThat(result).isEqualTo("Hello, Bob!");
+        assertThat(cachedResult).isEqualTo("Hello, Alice!");
+        InOrder inOrder = inOrder();
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
+        inOrder.verify(localizationLoader).load(inputStream);
+        inOrder.verify(propertyResolver).getString(key);
+        inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testGetMessageByKeyIdWithMaxCacheTime() throws Exception {
+        String key = "message.key";
+        String value = "Hello, {0}!";
+
+        IndexedLocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .withMaxCacheTimeInSec(60).build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getString(key)).thenReturn(value);
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(new MessageFormat(value, Locale.ITALY));
+
+        String result = localizationProvider.getMessage(key, "Bob");
+        int keyId = localizationProvider.getKeyId(key);
+        String keyIdResult = localizationProvider.getMessage(keyId, "Alice");
+        String cachedKeyIdResult = localizationProvider.getMessage(keyId, "Eve");
+
+        assertThat(result).isEqualTo("Hello, Bob!");
+        assertThat(keyIdResult).isEqualTo("Hello, Alice!");
+        assertThat(cachedKeyIdResult).isEqualTo("Hello, Eve!");
+        // Message table of bundle is compiled from its resources, message cache expires independently of bundle
+        // and may hold messages of previous one
+        CacheStats cacheStats = localizationProvider.getCacheStats().get(DefaultLocalizationProvider.MESSAGES_CACHE);
+        assertThat(cacheStats.getLoadSuccessCount()).isEqualTo(1);
+        verify(messageFormatFactory, times(2)).create(Locale.ITALY, value);
+    }
+
+    @Test
+    public void testGetMessageByKeyIdWithMaxMessageCacheSize() throws Exception {
+        String key = "message.key";
+        String otherKey = "other.key";
+        String value = "Hello, {0}!";
+        String otherValue = "Bye, {0}!";
+
+        IndexedLocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .withMaxMessageCacheSize(1).build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getString(key)).thenReturn(value);
+        when(propertyResolver.getString(otherKey)).thenReturn(otherValue);
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(new MessageFormat(value, Locale.ITALY));
+        when(messageFormatFactory.create(Locale.ITALY, otherValue))
+                .thenReturn(new MessageFormat(otherValue, Locale.ITALY));
+
+        int keyId = localizationProvider.getKeyId(key);
+        int otherKeyId = localizationProvider.getKeyId(otherKey);
+        String result = localizationProvider.getMessage(keyId, "Bob");
+        String otherResult = localizationProvider.getMessage(otherKeyId, "Bob");
+        String reloadedResult = localizationProvider.getMessage(keyId, "Alice");
+
+        assertThat(result).isEqualTo("Hello, Bob!");
+        assertThat(otherResult).isEqualTo("Bye, Bob!");
+        assertThat(reloadedResult).isEqualTo("Hello, Alice!");
+        // Messages looked up by key id are limited by message cache too
+        verify(messageFormatFactory, times(2)).create(Locale.ITALY, value);
+        verify(messageFormatFactory, times(1)).create(Locale.ITALY, otherValue);
+    }
+
+    @Test
+    public void testGetPluralMessageWithMissingKey() throws Exception {
+        String key = "message.key";
+
+        LocalizationProvider localizationProvider = createDefault();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(pluralFormSelectorResolver.resolve("it", 15)).thenReturn("many");
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getStringMap(key)).thenReturn(null);
+
+        String result = localizationProvider.getPluralMessage(key, 15);
+
+        assertThat(result).isNull();
+        InOrder inOrder = inOrder();
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
+        inOrder.verify(localizationLoader).load(inputStream);
+        inOrder.verify(inputStream).close();
+        inOrder.verify(pluralFormSelectorResolver).resolve("it", 15);
+        inOrder.verify(propertyResolver).getStringMap(key);
+        inOrder.verify(propertyResolver).getString(key);
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testGetPluralMessageFromArguments() throws Exception {
+        String key = "message.key";
+        String value = "{1} has {0} files in {2}";
+        String oneValue = "{1} has one file in {2}";
+
+        IndexedLocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(pluralFormSelectorResolver.resolve("it", 5)).thenReturn("other");
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION_ITALIAN)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        Map<String, String> tmp = new HashMap<String, String>();
+        tmp.put("1", oneValue);
+        tmp.put("other", value);
+        when(propertyResolver.getStringMap(key)).thenReturn(tmp);
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(new MessageFormat(value, Locale.ITALY));
+        when(messageFormatFactory.create(Locale.ITALY, oneValue))
+                .thenReturn(new MessageFormat(oneValue, Locale.ITALY));
+
+        int keyId = localizationProvider.getKeyId(key);
+        String result = localizationProvider.getPluralMessageFromArguments(keyId, 1,
+                new Object[]{"Bob", 5, "/home"});
+        String oneResult = localizationProvider.getPluralMessageFromArguments(keyId, 2,
+                new Object[]{"Alice", "/tmp", 1});
+
+        assertThat(result).isEqualTo("Bob has 5 files in /home");
+        assertThat(oneResult).isEqualTo("Alice has one file in /tmp");
+    }
+
+    @Test
+    public void testGetSelectedMessageFromArguments() throws Exception {
+        String key = "message.key";
+        String value = "{0} is in {1}";
+
+        IndexedLocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION_ITALIAN)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getStringMap(key)).thenReturn(Collections.singletonMap("female", value));
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(new MessageFormat(value, Locale.ITALY));
+
+        String result = localizationProvider.getSelectedMessageFromArguments(localizationProvider.getKeyId(key), 1,
+                new Object[]{"Alice", "female", "Rome"});
+
+        assertThat(result).isEqualTo("Alice is in Rome");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPluralMessageFromArgumentsWithInvalidIndex() throws Exception {
+        IndexedLocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .build();
+
+        localizationProvider.getPluralMessageFromArguments(localizationProvider.getKeyId("message.key"), 2,
+                new Object[]{1, "Bob"});
+    }
+
+    @Test
+    public void testGetConstantsSnapshot() throws Exception {
+        ConstantsDescriptor constantsDescriptor = new TestConstantsDescriptor(new String[]{"str.key", "long.key"},
+                new Class<?>[]{String.class, Long.class});
+
+        IndexedLocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION_ITALIAN)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getString("str.key")).thenReturn("test value");
+        when(propertyResolver.getLong("long.key")).thenReturn(7L);
+
+        Object result = localizationProvider.getConstantsSnapshot(constantsDescriptor);
+        Object cachedResult = localizationProvider.getConstantsSnapshot(constantsDescriptor);
+
+        assertThat((Object[]) result).containsOnly("test value", 7L);
+        assertThat(cachedResult == result).isTrue();
+        InOrder inOrder = inOrder();
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
+        inOrder.verify(localizationLoader).load(inputStream);
+        inOrder.verify(propertyResolver).getString("str.key");
+        inOrder.verify(propertyResolver).getLong("long.key");
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testGetConstantsSnapshotWithInvalidValue() throws Exception {
+        ConstantsDescriptor constantsDescriptor = new TestConstantsDescriptor(new String[]{"long.key"},
+                new Class<?>[]{Long.class});
+
+        IndexedLocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION_ITALIAN)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getLong("long.key")).thenThrow(new NumberFormatException());
+
+        Object result = localizationProvider.getConstantsSnapshot(constantsDescriptor);
+        Object cachedResult = localizationProvider.getConstantsSnapshot(constantsDescriptor);
+
+        assertThat(result).isNull();
+        assertThat(cachedResult).isNull();
+        verify(propertyResolver).getLong("long.key");
+    }
+
     @Test
     public void testGetMessageWithMultipleParameters() throws Exception {
         String key = "message.key";
@@ -487,11 +1230,63 @@ public class DefaultLocalizationProviderTest {
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
         inOrder.verify(localizationLoader).load(inputStream);
-        inOrder.verify(propertyResolver).getStringMap(key);
+        inOrder.verify(propertyResolver, times(2)).getStringMap(key);
         inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
         inOrder.verifyNoMoreInteractions();
     }
 
+    @Test
+    public void testGetSelectedMessageWithMissingSelectors() throws Exception {
+        String key = "message.key";
+        String value = "Hello!";
+
+        IndexedLocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getStringMap(key)).thenReturn(Collections.singletonMap("female", "Hello, madam!"));
+        when(propertyResolver.getString(key)).thenReturn(value);
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(new MessageFormat(value, Locale.ITALY));
+
+        int keyId = localizationProvider.getKeyId(key);
+        for (int i = 0; i < 10; i++) {
+            assertThat(localizationProvider.getSelectedMessage(key, "selector" + i)).isEqualTo(value);
+            assertThat(localizationProvider.getSelectedMessage(keyId, "selector" + i)).isEqualTo(value);
+        }
+
+        // Only message without selector is compiled and cached, missing selectors are never stored
+        CacheStats cacheStats = localizationProvider.getCacheStats().get(DefaultLocalizationProvider.MESSAGES_CACHE);
+        assertThat(cacheStats.getLoadSuccessCount()).isEqualTo(1);
+        verify(messageFormatFactory, times(1)).create(Locale.ITALY, value);
+    }
+
+    @Test
+    public void testGetSelectedMessageWithSelectorsOfEqualHashCode() throws Exception {
+        String key = "message.key";
+        // "Aa" and "BB" have equal hash codes
+        Map<String, String> messages = new HashMap<String, String>();
+        messages.put("Aa", "first");
+        messages.put("BB", "second");
+
+        LocalizationProvider localizationProvider = createDefault();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION_ITALIAN)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getStringMap(key)).thenReturn(messages);
+        when(messageFormatFactory.create(Locale.ITALY, "first")).thenReturn(new MessageFormat("first"));
+        when(messageFormatFactory.create(Locale.ITALY, "second")).thenReturn(new MessageFormat("second"));
+
+        String first = localizationProvider.getSelectedMessage(key, "Aa");
+        String second = localizationProvider.getSelectedMessage(key, "BB");
+
+        assertThat(first).isEqualTo("first");
+        assertThat(second).isEqualTo("second");
+    }
+
     @Test
     public void testGetSelectedMessageWithMultipleParameters() throws Exception {
         String key = "message.key";
@@ -523,7 +1318,7 @@ public class DefaultLocalizationProviderTest {
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
         inOrder.verify(localizationLoader).load(inputStream);
-        inOrder.verify(propertyResolver).getStringMap(key);
+        inOrder.verify(propertyResolver, times(2)).getStringMap(key);
         inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
         inOrder.verifyNoMoreInteractions();
     }
@@ -591,7 +1386,7 @@ public class DefaultLocalizationProviderTest {
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
         inOrder.verify(localizationLoader).load(inputStream);
-        inOrder.verify(propertyResolver).getStringMap(key);
+        inOrder.verify(propertyResolver, times(3)).getStringMap(key);
         inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
         inOrder.verifyNoMoreInteractions();
     }
@@ -627,7 +1422,7 @@ public class DefaultLocalizationProviderTest {
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
         inOrder.verify(localizationLoader).load(inputStream);
-        inOrder.verify(propertyResolver).getStringMap(key);
+        inOrder.verify(propertyResolver, times(3)).getStringMap(key);
         inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
         inOrder.verifyNoMoreInteractions();
     }
@@ -663,9 +1458,9 @@ public class DefaultLocalizationProviderTest {
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
         inOrder.verify(localizationLoader).load(inputStream);
-        inOrder.verify(propertyResolver).getStringMap(key);
+        inOrder.verify(propertyResolver, times(2)).getStringMap(key);
         inOrder.verify(pluralFormSelectorResolver).resolve("it", 1);
-        inOrder.verify(propertyResolver).getStringMap(key);
+        inOrder.verify(propertyResolver, times(2)).getStringMap(key);
         inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
         inOrder.verifyNoMoreInteractions();
     }
@@ -700,7 +1495,7 @@ public class DefaultLocalizationProviderTest {
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
         inOrder.verify(localizationLoader).load(inputStream);
-        inOrder.verify(propertyResolver).getStringMap(key);
+        inOrder.verify(propertyResolver, times(2)).getStringMap(key);
         inOrder.verify(pluralFormSelectorResolver).resolve("it", 1);
         inOrder.verify(propertyResolver).getStringMap(key);
         inOrder.verify(propertyResolver).getString(key);
@@ -774,7 +1569,7 @@ public class DefaultLocalizationProviderTest {
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
         inOrder.verify(localizationLoader).load(inputStream);
-        inOrder.verify(propertyResolver).getStringMap(key);
+        inOrder.verify(propertyResolver, times(3)).getStringMap(key);
         inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
         inOrder.verifyNoMoreInteractions();
     }
@@ -807,16 +1602,150 @@ public class DefaultLocalizationProviderTest {
         assertThat(result).isNotNull().isEqualTo("19.780 users found! Today is 5-feb-2013. Current time is 20.47");
         InOrder inOrder = inOrder();
         inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
+        inOrder.verify(localizationLoader).load(inputStream);
         inOrder.verify(pluralFormSelectorResolver).resolve("it", 19780);
+        inOrder.verify(propertyResolver, times(3)).getStringMap(key);
+        inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testGetPluralMessageWithFallbackLocale() throws Exception {
+        String key = "message.key";
+        String value = "{0} users found!";
+
+        IndexedLocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .withFallbackLocale(Locale.ENGLISH)
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(pluralFormSelectorResolver.resolve("en", 15)).thenReturn("other");
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ENGLISH)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getStringMap(key)).thenReturn(Collections.singletonMap("other", value));
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(new MessageFormat(value, Locale.ITALY));
+
+        String result = localizationProvider.getPluralMessage(key, 15);
+        String keyIdResult = localizationProvider.getPluralMessage(localizationProvider.getKeyId(key), 15);
+
+        // Plural form is selected by language of fallback resources, not requested locale
+        assertThat(result).isEqualTo("15 users found!");
+        assertThat(keyIdResult).isEqualTo("15 users found!");
+        verify(pluralFormSelectorResolver, times(2)).resolve("en", 15);
+        verify(pluralFormSelectorResolver, never()).resolve(eq("it"), anyInt());
+    }
+
+    @Test
+    public void testGetPluralMessageWithDecimalCountAndIntPluralFormSelectorResolver() throws Exception {
+        String key = "message.key";
+        String value = "{0} liters";
+        BigDecimal count = new BigDecimal("2.5");
+        PluralFormSelectorResolver intPluralFormSelectorResolver = mock(PluralFormSelectorResolver.class);
+
+        LocalizationProvider localizationProvider = createBaseBuilder().withLocations(Arrays.asList(LOCATION))
+                .withPluralFormSelectorResolver(intPluralFormSelectorResolver)
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(intPluralFormSelectorResolver.resolve("it", 2)).thenReturn("other");
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION_ITALIAN)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getStringMap(key)).thenReturn(Collections.singletonMap("other", value));
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(new MessageFormat(value, Locale.ITALY));
+
+        String result = localizationProvider.getPluralMessage(key, count);
+
+        assertThat(result).isEqualTo("2,5 liters");
+        verify(intPluralFormSelectorResolver).resolve("it", 2);
+        verifyNoMoreInteractions(intPluralFormSelectorResolver);
+    }
+
+    @Test
+    public void testGetPluralMessageWithDecimalCount() throws Exception {
+        String key = "message.key";
+        String value = "{0} liters";
+        BigDecimal count = new BigDecimal("2.5");
+
+        MessageFormat messageFormat = new MessageFormat(value, Locale.ITALY);
+
+        LocalizationProvider localizationProvider = createDefault();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(pluralFormSelectorResolver.resolve("it", (Number) count)).thenReturn("other");
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(null);
+        when(resourceLoader.openStream(LOCATION_ITALIAN)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getStringMap(key)).thenReturn(Collections.singletonMap("other", value));
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(messageFormat);
+
+        String result = localizationProvider.getPluralMessage(key, count);
+
+        assertThat(result).isNotNull().isEqualTo("2,5 liters");
+        InOrder inOrder = inOrder();
+        inOrder.verify(localeResolver).getLocale();
         inOrder.verify(resourceLoader).isSupported(LOCATION);
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
         inOrder.verify(localizationLoader).load(inputStream);
-        inOrder.verify(propertyResolver).getStringMap(key);
+        inOrder.verify(pluralFormSelectorResolver).resolve("it", (Number) count);
+        inOrder.verify(propertyResolver, times(3)).getStringMap(key);
         inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
         inOrder.verifyNoMoreInteractions();
     }
 
+    @Test
+    public void testGetPluralMessageWithCachedPluralVariants() throws Exception {
+        String key = "message.key";
+        String value = "{0} users found!";
+        String zeroValue = "No users found!";
+
+        LocalizationProvider localizationProvider = createDefault();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(pluralFormSelectorResolver.resolve("it", 15)).thenReturn("many");
+        when(pluralFormSelectorResolver.resolve("it", 25)).thenReturn("many");
+        when(pluralFormSelectorResolver.resolve("it", 0)).thenReturn("other");
+        when(resourceLoader.isSupported(LOCATION)).thenReturn(true);
+        when(resourceLoader.openStream(LOCATION_ITALY)).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        Map<String, String> tmp = new HashMap<String, String>();
+        tmp.put("many", value);
+        tmp.put("other", zeroValue);
+        when(propertyResolver.getStringMap(key)).thenReturn(Collections.unmodifiableMap(tmp));
+        when(messageFormatFactory.create(Locale.ITALY, value)).thenReturn(new MessageFormat(value, Locale.ITALY));
+        when(messageFormatFactory.create(Locale.ITALY, zeroValue)).thenReturn(
+                new MessageFormat(zeroValue, Locale.ITALY));
+
+        String result = localizationProvider.getPluralMessage(key, 15);
+        String cachedResult = localizationProvider.getPluralMessage(key, 25L);
+        String zeroResult = localizationProvider.getPluralMessage(key, 0);
+        String cachedZeroResult = localizationProvider.getPluralMessage(key, 0);
+
+        assertThat(result).isEqualTo("15 users found!");
+        assertThat(cachedResult).isEqualTo("25 users found!");
+        assertThat(zeroResult).isEqualTo(zeroValue);
+        assertThat(cachedZeroResult).isEqualTo(zeroValue);
+        InOrder inOrder = inOrder();
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(resourceLoader).isSupported(LOCATION);
+        inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
+        inOrder.verify(localizationLoader).load(inputStream);
+        inOrder.verify(inputStream).close();
+        inOrder.verify(pluralFormSelectorResolver).resolve("it", 15);
+        inOrder.verify(propertyResolver, times(3)).getStringMap(key);
+        inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(pluralFormSelectorResolver).resolve("it", 25);
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verify(pluralFormSelectorResolver).resolve("it", 0);
+        inOrder.verify(messageFormatFactory).create(Locale.ITALY, zeroValue);
+        inOrder.verify(localeResolver).getLocale();
+        inOrder.verifyNoMoreInteractions();
+    }
+
     @Test
     public void testGetPluralMessageWithCountAndParametersAndNullMap() throws Exception {
         String key = "message.key";
@@ -842,11 +1771,11 @@ public class DefaultLocalizationProviderTest {
         assertThat(result).isNotNull().isEqualTo("15 found! Today is 5-feb-2013. Current time is 20.47");
         InOrder inOrder = inOrder();
         inOrder.verify(localeResolver).getLocale();
-        inOrder.verify(pluralFormSelectorResolver).resolve("it", 15);
         inOrder.verify(resourceLoader).isSupported(LOCATION);
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALY);
         inOrder.verify(resourceLoader).openStream(LOCATION_ITALIAN);
         inOrder.verify(localizationLoader).load(inputStream);
+        inOrder.verify(pluralFormSelectorResolver).resolve("it", 15);
         inOrder.verify(propertyResolver).getStringMap(key);
         inOrder.verify(propertyResolver).getString(key);
         inOrder.verify(messageFormatFactory).create(Locale.ITALY, value);
@@ -870,4 +1799,15 @@ public class DefaultLocalizationProviderTest {
                 .withMessageFormatFactory(messageFormatFactory)
                 .withPluralFormSelectorResolver(pluralFormSelectorResolver);
     }
+
+    private static class TestConstantsDescriptor extends ConstantsDescriptor {
+        public TestConstantsDescriptor(String[] keys, Class<?>[] types) {
+            super(keys, types);
+        }
+
+        @Override
+        public Object createSnapshot(Object[] values) {
+            return values.clone();
+        }
+    }
 }
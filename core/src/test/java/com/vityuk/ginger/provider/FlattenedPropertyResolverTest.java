@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.PropertyResolver;
+import com.vityuk.ginger.loader.PropertiesLocalizationLoader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.entry;
+
+/**
+ * @author Andriy Vityuk
+ */
+public class FlattenedPropertyResolverTest {
+    private final PropertiesLocalizationLoader localizationLoader = new PropertiesLocalizationLoader();
+
+    @Test(expected = NullPointerException.class)
+    public void testCreateWithNull() throws Exception {
+        new FlattenedPropertyResolver(null);
+    }
+
+    @Test
+    public void testWithNoResolvers() throws Exception {
+        PropertyResolver propertyResolver = new FlattenedPropertyResolver(Collections.<PropertyResolver>emptyList());
+
+        assertThat(propertyResolver.getString("key")).isNull();
+        assertThat(propertyResolver.getStringMap("key")).isNull();
+        assertThat(propertyResolver.getKeys()).isEmpty();
+    }
+
+    @Test
+    public void testKeyLevelFallback() throws Exception {
+        PropertyResolver propertyResolver = new FlattenedPropertyResolver(Arrays.asList(
+                load("greeting=Howdy\ncount=5"),
+                load("greeting=Hello\nfarewell=Goodbye\nflag=true"),
+                load("farewell=Bye\nroot.only=Root")));
+
+        assertThat(propertyResolver.getString("greeting")).isEqualTo("Howdy");
+        assertThat(propertyResolver.getString("farewell")).isEqualTo("Goodbye");
+        assertThat(propertyResolver.getString("root.only")).isEqualTo("Root");
+        assertThat(propertyResolver.getInteger("count")).isEqualTo(5);
+        assertThat(propertyResolver.getBoolean("flag")).isTrue();
+        assertThat(propertyResolver.getString("missing")).isNull();
+        assertThat(propertyResolver.getKeys()).containsOnly("greeting", "count", "farewell", "flag", "root.only");
+    }
+
+    @Test
+    public void testStringMapsAreMergedPerMapKey() throws Exception {
+        PropertyResolver propertyResolver = new FlattenedPropertyResolver(Arrays.asList(
+                load("apples[one]={0} apple for you"),
+                load("apples={0} apples\napples[one]={0} apple\napples[other]={0} apples")));
+
+        Map<String, String> apples = propertyResolver.getStringMap("apples");
+
+        assertThat(apples).hasSize(3).contains(entry("", "{0} apples"), entry("one", "{0} apple for you"),
+                entry("other", "{0} apples"));
+        assertThat(propertyResolver.getString("apples")).isEqualTo("{0} apples");
+    }
+
+    private PropertyResolver load(String properties) throws Exception {
+        return localizationLoader.load(new ByteArrayInputStream(properties.getBytes("UTF-8")));
+    }
+}
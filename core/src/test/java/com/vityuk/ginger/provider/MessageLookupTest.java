@@ -0,0 +1,203 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vityuk.ginger.provider;
+
+import com.vityuk.ginger.PropertyResolver;
+import com.vityuk.ginger.provider.format.MessageTemplate;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Locale;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Andriy Vityuk
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MessageLookupTest {
+    private static final String KEY = "message.key";
+
+    @Mock
+    private MessageSource messageSource;
+
+    @Mock
+    private PropertyResolver propertyResolver;
+
+    @Mock
+    private MessageTemplate messageTemplate;
+
+    @Mock
+    private MessageTemplate otherMessageTemplate;
+
+    private final KeyIndex keyIndex = new KeyIndex();
+
+    @Test
+    public void testSharedLookupFillsTableFromMessageCache() throws Exception {
+        MessageLookup messageLookup = new SharedMessageLookup(keyIndex, messageSource);
+        LocaleBundle localeBundle = createLocaleBundle();
+        int keyId = keyIndex.getId(KEY);
+        when(messageSource.getCachedMessageTemplate(Locale.ITALY, null, KEY, "")).thenReturn(messageTemplate);
+
+        MessageTemplate result = messageLookup.getSelectedMessageTemplate(Locale.ITALY, localeBundle, keyId, "");
+        MessageTemplate cachedResult = messageLookup.getSelectedMessageTemplate(Locale.ITALY, localeBundle, keyId, "");
+
+        assertThat(result).isSameAs(messageTemplate);
+        assertThat(cachedResult).isSameAs(messageTemplate);
+        verify(messageSource).getCachedMessageTemplate(Locale.ITALY, null, KEY, "");
+        verifyNoMoreInteractions(messageSource);
+    }
+
+    @Test
+    public void testSharedLookupLooksUpKeysInMessageCache() throws Exception {
+        MessageLookup messageLookup = new SharedMessageLookup(keyIndex, messageSource);
+        when(messageSource.getCachedMessageTemplate(Locale.ITALY, null, KEY, "")).thenReturn(messageTemplate);
+
+        MessageTemplate result = messageLookup.getSelectedMessageTemplate(Locale.ITALY, KEY, "female");
+
+        // Missing selector falls back to message without selector
+        assertThat(result).isSameAs(messageTemplate);
+        verify(messageSource).getCachedMessageTemplate(Locale.ITALY, null, KEY, "female");
+        verify(messageSource).getCachedMessageTemplate(Locale.ITALY, null, KEY, "");
+        verifyNoMoreInteractions(messageSource);
+    }
+
+    @Test
+    public void testBundleLookupCompilesMessagesOfEachBundle() throws Exception {
+        MessageLookup messageLookup = new BundleMessageLookup(keyIndex, messageSource);
+        LocaleBundle localeBundle = createLocaleBundle();
+        LocaleBundle reloadedBundle = createLocaleBundle();
+        int keyId = keyIndex.getId(KEY);
+        when(messageSource.compileMessageTemplate(Locale.ITALY, localeBundle, KEY, "")).thenReturn(messageTemplate);
+        when(messageSource.compileMessageTemplate(Locale.ITALY, reloadedBundle, KEY, ""))
+                .thenReturn(otherMessageTemplate);
+
+        MessageTemplate result = messageLookup.getSelectedMessageTemplate(Locale.ITALY, localeBundle, keyId, "");
+        MessageTemplate cachedResult = messageLookup.getSelectedMessageTemplate(Locale.ITALY, localeBundle, keyId, "");
+        MessageTemplate reloadedResult = messageLookup.getSelectedMessageTemplate(Locale.ITALY, reloadedBundle, keyId,
+                "");
+
+        assertThat(result).isSameAs(messageTemplate);
+        assertThat(cachedResult).isSameAs(messageTemplate);
+        assertThat(reloadedResult).isSameAs(otherMessageTemplate);
+        verify(messageSource).compileMessageTemplate(Locale.ITALY, localeBundle, KEY, "");
+        verify(messageSource).compileMessageTemplate(Locale.ITALY, reloadedBundle, KEY, "");
+        verifyNoMoreInteractions(messageSource);
+    }
+
+    @Test
+    public void testBundleLookupDoesNotStoreMissingSelectors() throws Exception {
+        MessageLookup messageLookup = new BundleMessageLookup(keyIndex, messageSource);
+        LocaleBundle localeBundle = createLocaleBundle();
+        int keyId = keyIndex.getId(KEY);
+        when(messageSource.compileMessageTemplate(Locale.ITALY, localeBundle, KEY, "")).thenReturn(messageTemplate);
+
+        for (int i = 0; i < 3; i++) {
+            MessageTemplate result = messageLookup.getSelectedMessageTemplate(Locale.ITALY, localeBundle, keyId,
+                    "female");
+
+            assertThat(result).isSameAs(messageTemplate);
+        }
+        assertThat(localeBundle.getMessageTable().get(keyId).get("female")).isNull();
+        verify(messageSource, times(3)).compileMessageTemplate(Locale.ITALY, localeBundle, KEY, "female");
+        verify(messageSource).compileMessageTemplate(Locale.ITALY, localeBundle, KEY, "");
+        verifyNoMoreInteractions(messageSource);
+    }
+
+    @Test
+    public void testWatchedLookupLooksUpKeysInBundle() throws Exception {
+        MessageLookup messageLookup = new WatchedMessageLookup(keyIndex, messageSource);
+        LocaleBundle localeBundle = createLocaleBundle();
+        when(messageSource.getLocaleBundle(Locale.ITALY)).thenReturn(localeBundle);
+        when(propertyResolver.getString(KEY)).thenReturn("Hello!");
+        when(propertyResolver.getStringMap("other.key")).thenReturn(null);
+        when(messageSource.compileMessageTemplate(Locale.ITALY, localeBundle, KEY, "")).thenReturn(messageTemplate);
+
+        MessageTemplate result = messageLookup.getSelectedMessageTemplate(Locale.ITALY, KEY, "");
+        MessageTemplate missingResult = messageLookup.getSelectedMessageTemplate(Locale.ITALY, "other.key", "");
+
+        assertThat(result).isSameAs(messageTemplate);
+        assertThat(missingResult).isNull();
+        assertThat(keyIndex.findId("other.key")).isEqualTo(-1);
+        verify(messageSource, never()).getCachedMessageTemplate(any(Locale.class), any(LocaleBundle.class),
+                anyString(), anyString());
+    }
+
+    @Test
+    public void testCachedLookupKeepsMessagesOnlyInMessageCache() throws Exception {
+        MessageLookup messageLookup = new CachedMessageLookup(keyIndex, messageSource, false);
+        LocaleBundle localeBundle = createLocaleBundle();
+        int keyId = keyIndex.getId(KEY);
+        when(messageSource.getCachedMessageTemplate(Locale.ITALY, null, KEY, "")).thenReturn(messageTemplate);
+
+        MessageTemplate result = messageLookup.getSelectedMessageTemplate(Locale.ITALY, localeBundle, keyId, "");
+        MessageTemplate cachedResult = messageLookup.getSelectedMessageTemplate(Locale.ITALY, localeBundle, keyId, "");
+
+        assertThat(result).isSameAs(messageTemplate);
+        assertThat(cachedResult).isSameAs(messageTemplate);
+        assertThat(localeBundle.getMessageTable().get(keyId).get("")).isNull();
+        verify(messageSource, times(2)).getCachedMessageTemplate(Locale.ITALY, null, KEY, "");
+        verifyNoMoreInteractions(messageSource);
+    }
+
+    @Test
+    public void testCachedLookupWithBundleScopedMessages() throws Exception {
+        MessageLookup messageLookup = new CachedMessageLookup(keyIndex, messageSource, true);
+        LocaleBundle localeBundle = createLocaleBundle();
+        when(messageSource.getLocaleBundle(Locale.ITALY)).thenReturn(localeBundle);
+        when(propertyResolver.getString(KEY)).thenReturn("Hello!");
+        when(messageSource.getCachedMessageTemplate(Locale.ITALY, localeBundle, KEY, "")).thenReturn(messageTemplate);
+
+        MessageTemplate result = messageLookup.getSelectedMessageTemplate(Locale.ITALY, KEY, "");
+
+        assertThat(result).isSameAs(messageTemplate);
+        verify(messageSource).getLocaleBundle(Locale.ITALY);
+        verify(messageSource).getCachedMessageTemplate(Locale.ITALY, localeBundle, KEY, "");
+        verifyNoMoreInteractions(messageSource);
+    }
+
+    @Test
+    public void testPluralVariantsAreKeptInTable() throws Exception {
+        MessageLookup messageLookup = new BundleMessageLookup(keyIndex, messageSource);
+        LocaleBundle localeBundle = createLocaleBundle();
+        int keyId = keyIndex.getId(KEY);
+        when(messageSource.getPluralFormSelector(localeBundle, 5)).thenReturn("other");
+        when(messageSource.getPluralFormSelector(localeBundle, 7)).thenReturn("other");
+        when(messageSource.compileMessageTemplate(Locale.ITALY, localeBundle, KEY, "other"))
+                .thenReturn(messageTemplate);
+
+        MessageTemplate result = messageLookup.getPluralMessageTemplate(Locale.ITALY, localeBundle, keyId, 5, null);
+        MessageTemplate cachedResult = messageLookup.getPluralMessageTemplate(Locale.ITALY, localeBundle, keyId, 7,
+                null);
+
+        assertThat(result).isSameAs(messageTemplate);
+        assertThat(cachedResult).isSameAs(messageTemplate);
+        verify(messageSource).compileMessageTemplate(Locale.ITALY, localeBundle, KEY, "other");
+    }
+
+    private LocaleBundle createLocaleBundle() {
+        return new LocaleBundle(propertyResolver, null, Locale.ITALY);
+    }
+}
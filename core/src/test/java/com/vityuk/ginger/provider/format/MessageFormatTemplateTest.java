@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.provider.format;
+
+import org.junit.Test;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * @author Andriy Vityuk
+ */
+public class MessageFormatTemplateTest {
+    private MessageFormatFactory messageFormatFactory = new DefaultMessageFormatFactory();
+
+    @Test(expected = NullPointerException.class)
+    public void testCreateWithNullMessageFormat() throws Exception {
+        new MessageFormatTemplate(null);
+    }
+
+    @Test
+    public void testFormat() throws Exception {
+        MessageTemplate messageTemplate = createTemplate("My name is {0}, I am {1,number,integer} years old");
+
+        String result = messageTemplate.format("Tamerlan", 35);
+
+        assertThat(result).isEqualTo("My name is Tamerlan, I am 35 years old");
+    }
+
+    @Test
+    public void testFormatWithArgumentLayout() throws Exception {
+        MessageTemplate messageTemplate = createTemplate("{0,number,integer} files of {1} in {2}");
+
+        String pluralResult = messageTemplate.format(ArgumentLayout.FIRST_SLOT, 1, new Object[]{"Bob", 3, "/home"});
+        String selectedResult = messageTemplate.format(ArgumentLayout.SKIPPED_SLOT, 2,
+                new Object[]{5, "Bob", "male", "/home"});
+
+        assertThat(pluralResult).isEqualTo("3 files of Bob in /home");
+        assertThat(selectedResult).isEqualTo("5 files of Bob in /home");
+    }
+
+    @Test
+    public void testFormatTo() throws Exception {
+        MessageTemplate messageTemplate = createTemplate("My name is {0}, I am {1,number,integer} years old");
+        StringBuilder result = new StringBuilder("> ");
+
+        messageTemplate.formatTo(result, "Tamerlan", 35);
+
+        assertThat(result.toString()).isEqualTo("> My name is Tamerlan, I am 35 years old");
+    }
+
+    @Test
+    public void testToMessageFormatReturnsNewInstance() throws Exception {
+        MessageTemplate messageTemplate = createTemplate("Hello {0}");
+
+        MessageFormat first = messageTemplate.toMessageFormat();
+        first.applyPattern("Modified {0}");
+        MessageFormat second = messageTemplate.toMessageFormat();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.format(new Object[]{"World"})).isEqualTo("Hello World");
+        assertThat(messageTemplate.format("World")).isEqualTo("Hello World");
+    }
+
+    @Test
+    public void testConcurrentFormat() throws Exception {
+        final MessageTemplate messageTemplate = createTemplate("{0} + {1,number,#.##} = {2,choice,0#none|1#one|1<many}");
+        int threads = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(threads);
+            for (int i = 0; i < threads; i++) {
+                final int thread = i;
+                futures.add(executorService.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int j = 0; j < 10000; j++) {
+                            int count = (thread + j) % 3;
+                            String expected = "t" + thread + " + " + j + " = " + (count == 0 ? "none" :
+                                    count == 1 ? "one" : "many");
+                            if (!expected.equals(messageTemplate.format("t" + thread, j, count))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get(10, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private MessageTemplate createTemplate(String format) {
+        return new MessageFormatTemplate(messageFormatFactory.create(Locale.US, format));
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.provider.format;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.joda.time.LocalTime;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * @author Andriy Vityuk
+ */
+public class NativeMessageTemplateFactoryTest {
+    private static final String[] PATTERNS = {
+            "",
+            "Plain text",
+            "My name is {0}",
+            "{0}{1}{0}",
+            "It''s {0}",
+            "'{0}' is quoted, {0} is not",
+            "Quoted '' inside 'quoted '' text' and {0}",
+            "Missing {5} argument",
+            "Spaces { 0 } around index",
+            "{0,number}",
+            "{0, number, integer}",
+            "{0,number,percent}",
+            "{0,number,currency}",
+            "{0,number,#,##0.00}",
+            "{0,number,'#'#}",
+            "{0,date}",
+            "{0,date,short}",
+            "{0,date,long}",
+            "{0,date,yyyy-MM-dd 'at' HH:mm}",
+            "{0,time}",
+            "{0,time,medium}",
+            "{0,datetime}",
+            "{0,datetime,short}",
+            "{0,datetime,dd.MM.yyyy}",
+            "{0,choice,0#no files|1#one file|1<{0,number,integer} files}",
+            "There {0,choice,0#are no files|1#is one file|1<are {0,number,integer} files} for {1}",
+            "{1} and {0,number,integer}, then {2}"
+    };
+
+    private MessageFormatFactory messageFormatFactory = new DefaultMessageFormatFactory();
+    private MessageTemplateFactory messageTemplateFactory = new NativeMessageTemplateFactory();
+
+    @Test(expected = NullPointerException.class)
+    public void testCreateWithNullLocale() throws Exception {
+        messageTemplateFactory.create(null, "Test");
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testCreateWithNullFormat() throws Exception {
+        messageTemplateFactory.create(Locale.ITALY, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateWithUnmatchedBraces() throws Exception {
+        messageTemplateFactory.create(Locale.US, "Hello {0");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateWithInvalidArgumentIndex() throws Exception {
+        messageTemplateFactory.create(Locale.US, "Hello {name}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateWithUnknownFormatType() throws Exception {
+        messageTemplateFactory.create(Locale.US, "Hello {0,unknown}");
+    }
+
+    @Test
+    public void testFormat() throws Exception {
+        MessageTemplate messageTemplate = messageTemplateFactory.create(Locale.US,
+                "My name is {0}, I am {1,number,integer} years old");
+
+        String result = messageTemplate.format("Tamerlan", 35);
+
+        assertThat(result).isEqualTo("My name is Tamerlan, I am 35 years old");
+    }
+
+    @Test
+    public void testFormatTo() throws Exception {
+        MessageTemplate messageTemplate = messageTemplateFactory.create(Locale.US,
+                "My name is {0}, I am {1,number,integer} years old");
+        StringWriter writer = new StringWriter();
+
+        messageTemplate.formatTo(writer, "Tamerlan", 35);
+
+        assertThat(writer.toString()).isEqualTo("My name is Tamerlan, I am 35 years old");
+    }
+
+    @Test
+    public void testFormatWithNullParameters() throws Exception {
+        MessageTemplate messageTemplate = messageTemplateFactory.create(Locale.US, "Hello {0}");
+
+        String result = messageTemplate.format((Object[]) null);
+
+        assertThat(result).isEqualTo("Hello {0}");
+    }
+
+    @Test
+    public void testFormatIsSameAsMessageFormat() throws Exception {
+        List<Object[]> parameters = Arrays.asList(
+                new Object[0],
+                new Object[]{null},
+                new Object[]{"Tamerlan", 3, Arrays.asList("Sunday", "Saturday")},
+                new Object[]{0, "Bob", 15.3753},
+                new Object[]{1, 2L, new BigDecimal("1234.5678")},
+                new Object[]{12345, createDate(), 0.25},
+                new Object[]{createDate(), "x", createDate()});
+        for (Locale locale : Arrays.asList(Locale.US, Locale.FRENCH, Locale.GERMANY)) {
+            for (String pattern : PATTERNS) {
+                for (Object[] parameter : parameters) {
+                    assertSameFormat(locale, pattern, parameter);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFormatWithArgumentLayout() throws Exception {
+        MessageTemplate messageTemplate = messageTemplateFactory.create(Locale.US, "{0} files of {1} in {2}, {3}");
+        Object[] arguments = {"Bob", "/home", 3};
+
+        for (int slot = 0; slot < arguments.length; slot++) {
+            for (ArgumentLayout layout : ArgumentLayout.values()) {
+                String result = messageTemplate.format(layout, slot, arguments);
+
+                assertThat(result).isEqualTo(messageTemplate.format(layout.toParameters(arguments, slot)));
+            }
+        }
+        assertThat(messageTemplate.format(ArgumentLayout.FIRST_SLOT, 2, arguments))
+                .isEqualTo("3 files of Bob in /home, {3}");
+        assertThat(messageTemplate.format(ArgumentLayout.SKIPPED_SLOT, 1, new Object[]{7, "male", "Bob", "/home"}))
+                .isEqualTo("7 files of Bob in /home, {3}");
+    }
+
+    @Test
+    public void testFormatWithArgumentLayoutAndChoice() throws Exception {
+        MessageTemplate messageTemplate = messageTemplateFactory.create(Locale.US,
+                "{0,choice,0#no files|1#one file of {1}|1<{0} files of {1}}");
+
+        String result = messageTemplate.format(ArgumentLayout.FIRST_SLOT, 1, new Object[]{"Bob", 2});
+
+        assertThat(result).isEqualTo("2 files of Bob");
+    }
+
+    @Test
+    public void testFormatWithJodaTimeIsSameAsMessageFormat() throws Exception {
+        DateTime dateTime = new DateTime(2013, 2, 5, 20, 47, 23, DateTimeZone.UTC);
+        List<Object[]> parameters = Arrays.asList(
+                new Object[]{dateTime},
+                new Object[]{new LocalDate(2013, 2, 5)},
+                new Object[]{new LocalTime(20, 47, 23)});
+        String[] patterns = {"{0,date}", "{0,date,short}", "{0,date,medium}", "{0,time}", "{0,time,short}",
+                "{0,datetime,medium}", "{0,datetime,yyyy-MM-dd}"};
+        for (String pattern : patterns) {
+            for (Object[] parameter : parameters) {
+                assertSameFormat(Locale.US, pattern, parameter);
+            }
+        }
+    }
+
+    @Test
+    public void testToMessageFormat() throws Exception {
+        MessageTemplate messageTemplate = messageTemplateFactory.create(Locale.US, "Hello {0}, {1,number,integer}");
+
+        MessageFormat messageFormat = messageTemplate.toMessageFormat();
+
+        assertThat(messageFormat.format(new Object[]{"Bob", 5})).isEqualTo("Hello Bob, 5");
+        assertThat(messageTemplate.toMessageFormat()).isNotSameAs(messageFormat);
+    }
+
+    @Test
+    public void testFormatFromMultipleThreads() throws Exception {
+        final MessageTemplate messageTemplate = messageTemplateFactory.create(Locale.US,
+                "{0,number,#,##0.00} on {1,date,yyyy-MM-dd}");
+        final Date date = createDate();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int j = 0; j < 1000; j++) {
+                            if (!"1,234.50 on 2013-02-05".equals(messageTemplate.format(1234.5, date))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertSameFormat(Locale locale, String pattern, Object[] parameters) {
+        String expected;
+        try {
+            expected = messageFormatFactory.create(locale, pattern).format(parameters);
+        } catch (IllegalArgumentException e) {
+            expected = e.getClass().getName();
+        }
+        String actual;
+        try {
+            actual = messageTemplateFactory.create(locale, pattern).format(parameters);
+        } catch (IllegalArgumentException e) {
+            actual = e.getClass().getName();
+        }
+        assertThat(actual).as(pattern + " with " + Arrays.toString(parameters) + " in " + locale)
+                .isEqualTo(expected);
+    }
+
+    private static Date createDate() {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(2013, Calendar.FEBRUARY, 5, 20, 47, 23);
+        return calendar.getTime();
+    }
+}
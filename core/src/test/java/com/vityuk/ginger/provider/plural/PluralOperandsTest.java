@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.provider.plural;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * @author Andriy Vityuk
+ */
+public class PluralOperandsTest {
+    @Test
+    public void testOfLong() throws Exception {
+        assertOperands(PluralOperands.of(0L), 0, 0, 0, 0, 0);
+        assertOperands(PluralOperands.of(21L), 21, 0, 0, 0, 0);
+        assertOperands(PluralOperands.of(-5L), 5, 0, 0, 0, 0);
+        assertOperands(PluralOperands.of(5000000000L), 5000000000L, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void testOfBigDecimal() throws Exception {
+        assertOperands(PluralOperands.of(new BigDecimal("1.0")), 1, 1, 0, 0, 0);
+        assertOperands(PluralOperands.of(new BigDecimal("1.50")), 1, 2, 50, 1, 5);
+        assertOperands(PluralOperands.of(new BigDecimal("-3.05")), 3, 2, 5, 2, 5);
+        assertOperands(PluralOperands.of(new BigDecimal("1.2E3")), 1200, 0, 0, 0, 0);
+        assertThat(PluralOperands.of(new BigDecimal("1.0")).isInteger()).isTrue();
+        assertThat(PluralOperands.of(new BigDecimal("1.5")).isInteger()).isFalse();
+    }
+
+    @Test
+    public void testOfNumber() throws Exception {
+        assertOperands(PluralOperands.of((Number) 7), 7, 0, 0, 0, 0);
+        assertOperands(PluralOperands.of((Number) 1.0d), 1, 0, 0, 0, 0);
+        assertOperands(PluralOperands.of((Number) 2.5d), 2, 1, 5, 1, 5);
+        assertOperands(PluralOperands.of((Number) 0.25f), 0, 2, 25, 2, 25);
+        assertOperands(PluralOperands.of((Number) 1e20d), 1000000000000000000L, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void testOfLargeNumber() throws Exception {
+        PluralOperands operands = PluralOperands.of(new BigInteger("123000000000000000001234567"));
+
+        assertThat(operands.getIntegerValue()).isEqualTo(1000000000001234567L);
+        assertThat(operands.getIntegerValue() % 1000000).isEqualTo(234567L);
+        assertThat(PluralOperands.of(Long.MIN_VALUE).getIntegerValue()).isGreaterThanOrEqualTo(1000000000000000000L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfNaN() throws Exception {
+        PluralOperands.of((Number) Double.NaN);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testOfNull() throws Exception {
+        PluralOperands.of((Number) null);
+    }
+
+    private static void assertOperands(PluralOperands operands, long i, int v, long f, int w, long t) {
+        assertThat(operands.getIntegerValue()).isEqualTo(i);
+        assertThat(operands.getFractionDigitCount()).isEqualTo(v);
+        assertThat(operands.getFractionDigits()).isEqualTo(f);
+        assertThat(operands.getSignificantFractionDigitCount()).isEqualTo(w);
+        assertThat(operands.getSignificantFractionDigits()).isEqualTo(t);
+    }
+}
@@ -29,6 +29,7 @@ import static org.fest.assertions.api.Assertions.assertThat;
 /**
  * @author Andriy Vityuk
  */
+@SuppressWarnings("deprecation")
 public class PluralRuleProviderTest {
     private final PluralRuleProvider pluralRuleProvider = new PluralRuleProvider();
 
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.provider.plural;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * @author Andriy Vityuk
+ */
+public class PluralRulesTest {
+    @Test
+    public void testForLanguageWithUnknownLanguageCode() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("blablabla");
+
+        assertThat(pluralRule.select(1)).isEqualTo("other");
+        assertThat(pluralRule.select(new BigDecimal("1.5"))).isEqualTo("other");
+        assertThat(PluralRules.forLanguage("")).isSameAs(pluralRule);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testForLanguageWithNullLanguageCode() throws Exception {
+        PluralRules.forLanguage(null);
+    }
+
+    @Test
+    public void testForLanguageSharesRules() throws Exception {
+        assertThat(PluralRules.forLanguage("uk")).isSameAs(PluralRules.forLanguage("ru"));
+        assertThat(PluralRules.forLanguage("iw")).isSameAs(PluralRules.forLanguage("he"));
+    }
+
+    @Test
+    public void testEnglish() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("en");
+
+        assertThat(pluralRule.select(0)).isEqualTo("other");
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(2)).isEqualTo("other");
+        assertThat(pluralRule.select(-1)).isEqualTo("one");
+        assertThat(pluralRule.select(new BigDecimal("1.0"))).isEqualTo("other");
+        assertThat(pluralRule.select(1.0d)).isEqualTo("one");
+        assertThat(pluralRule.select(Double.POSITIVE_INFINITY)).isEqualTo("other");
+    }
+
+    @Test
+    public void testRussian() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("ru");
+
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(11)).isEqualTo("many");
+        assertThat(pluralRule.select(21)).isEqualTo("one");
+        assertThat(pluralRule.select(22)).isEqualTo("few");
+        assertThat(pluralRule.select(112)).isEqualTo("many");
+        assertThat(pluralRule.select(1001)).isEqualTo("one");
+        assertThat(pluralRule.select(10000000001L)).isEqualTo("one");
+        assertThat(pluralRule.select(10000000003L)).isEqualTo("few");
+        assertThat(pluralRule.select(10000000011L)).isEqualTo("many");
+        assertThat(pluralRule.select(1.5d)).isEqualTo("other");
+    }
+
+    @Test
+    public void testArabic() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("ar");
+
+        assertThat(pluralRule.select(0)).isEqualTo("zero");
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(2)).isEqualTo("two");
+        assertThat(pluralRule.select(103)).isEqualTo("few");
+        assertThat(pluralRule.select(111)).isEqualTo("many");
+        assertThat(pluralRule.select(100)).isEqualTo("other");
+        assertThat(pluralRule.select(3000000003L)).isEqualTo("few");
+        assertThat(pluralRule.select(new BigDecimal("3.0"))).isEqualTo("few");
+        assertThat(pluralRule.select(new BigDecimal("3.5"))).isEqualTo("other");
+    }
+
+    @Test
+    public void testFrench() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("fr");
+
+        assertThat(pluralRule.select(0)).isEqualTo("one");
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(2)).isEqualTo("other");
+        assertThat(pluralRule.select(1.5d)).isEqualTo("one");
+        assertThat(pluralRule.select(1000000)).isEqualTo("many");
+        assertThat(pluralRule.select(new BigDecimal("1000000.0"))).isEqualTo("other");
+    }
+
+    @Test
+    public void testSerboCroatian() throws Exception {
+        for (String languageCode : new String[]{"bs", "hr", "sh", "sr"}) {
+            CompiledPluralRule pluralRule = PluralRules.forLanguage(languageCode);
+
+            assertThat(pluralRule.select(0)).as(languageCode).isEqualTo("other");
+            assertThat(pluralRule.select(1)).as(languageCode).isEqualTo("one");
+            assertThat(pluralRule.select(3)).as(languageCode).isEqualTo("few");
+            assertThat(pluralRule.select(5)).as(languageCode).isEqualTo("other");
+            assertThat(pluralRule.select(11)).as(languageCode).isEqualTo("other");
+            assertThat(pluralRule.select(21)).as(languageCode).isEqualTo("one");
+            assertThat(pluralRule.select(24)).as(languageCode).isEqualTo("few");
+            assertThat(pluralRule.select(112)).as(languageCode).isEqualTo("other");
+        }
+    }
+
+    @Test
+    public void testFilipino() throws Exception {
+        for (String languageCode : new String[]{"fil", "tl"}) {
+            CompiledPluralRule pluralRule = PluralRules.forLanguage(languageCode);
+
+            assertThat(pluralRule.select(1)).as(languageCode).isEqualTo("one");
+            assertThat(pluralRule.select(2)).as(languageCode).isEqualTo("one");
+            assertThat(pluralRule.select(3)).as(languageCode).isEqualTo("one");
+            assertThat(pluralRule.select(4)).as(languageCode).isEqualTo("other");
+            assertThat(pluralRule.select(6)).as(languageCode).isEqualTo("other");
+            assertThat(pluralRule.select(9)).as(languageCode).isEqualTo("other");
+            assertThat(pluralRule.select(10)).as(languageCode).isEqualTo("one");
+        }
+    }
+
+    @Test
+    public void testManx() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("gv");
+
+        assertThat(pluralRule.select(0)).isEqualTo("few");
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(2)).isEqualTo("two");
+        assertThat(pluralRule.select(3)).isEqualTo("other");
+        assertThat(pluralRule.select(11)).isEqualTo("one");
+        assertThat(pluralRule.select(12)).isEqualTo("two");
+        assertThat(pluralRule.select(20)).isEqualTo("few");
+        assertThat(pluralRule.select(40)).isEqualTo("few");
+    }
+
+    @Test
+    public void testCornish() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("kw");
+
+        assertThat(pluralRule.select(0)).isEqualTo("zero");
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(2)).isEqualTo("two");
+        assertThat(pluralRule.select(3)).isEqualTo("few");
+        assertThat(pluralRule.select(4)).isEqualTo("other");
+        assertThat(pluralRule.select(21)).isEqualTo("many");
+        assertThat(pluralRule.select(22)).isEqualTo("two");
+        assertThat(pluralRule.select(23)).isEqualTo("few");
+    }
+
+    @Test
+    public void testIcelandic() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("is");
+
+        assertThat(pluralRule.select(0)).isEqualTo("other");
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(11)).isEqualTo("other");
+        assertThat(pluralRule.select(21)).isEqualTo("one");
+        assertThat(pluralRule.select(31)).isEqualTo("one");
+        assertThat(pluralRule.select(111)).isEqualTo("other");
+    }
+
+    @Test
+    public void testRomanian() throws Exception {
+        for (String languageCode : new String[]{"mo", "ro"}) {
+            CompiledPluralRule pluralRule = PluralRules.forLanguage(languageCode);
+
+            assertThat(pluralRule.select(0)).as(languageCode).isEqualTo("few");
+            assertThat(pluralRule.select(1)).as(languageCode).isEqualTo("one");
+            assertThat(pluralRule.select(19)).as(languageCode).isEqualTo("few");
+            assertThat(pluralRule.select(20)).as(languageCode).isEqualTo("other");
+            assertThat(pluralRule.select(101)).as(languageCode).isEqualTo("other");
+            assertThat(pluralRule.select(102)).as(languageCode).isEqualTo("few");
+        }
+    }
+
+    @Test
+    public void testHebrew() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("he");
+
+        assertThat(pluralRule.select(0)).isEqualTo("other");
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(2)).isEqualTo("two");
+        assertThat(pluralRule.select(10)).isEqualTo("other");
+        assertThat(pluralRule.select(20)).isEqualTo("many");
+        assertThat(pluralRule.select(21)).isEqualTo("other");
+    }
+
+    @Test
+    public void testMacedonian() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("mk");
+
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(11)).isEqualTo("other");
+        assertThat(pluralRule.select(21)).isEqualTo("one");
+        assertThat(pluralRule.select(111)).isEqualTo("other");
+        assertThat(pluralRule.select(211)).isEqualTo("other");
+        assertThat(pluralRule.select(new BigDecimal("0.1"))).isEqualTo("one");
+    }
+
+    @Test
+    public void testZeroIsOne() throws Exception {
+        for (String languageCode : new String[]{"bn", "gu", "pa", "pt", "zu"}) {
+            CompiledPluralRule pluralRule = PluralRules.forLanguage(languageCode);
+
+            assertThat(pluralRule.select(0)).as(languageCode).isEqualTo("one");
+            assertThat(pluralRule.select(1)).as(languageCode).isEqualTo("one");
+            assertThat(pluralRule.select(2)).as(languageCode).isEqualTo("other");
+        }
+    }
+
+    @Test
+    public void testPolish() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("pl");
+
+        assertThat(pluralRule.select(0)).isEqualTo("many");
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(2)).isEqualTo("few");
+        assertThat(pluralRule.select(5)).isEqualTo("many");
+        assertThat(pluralRule.select(12)).isEqualTo("many");
+        assertThat(pluralRule.select(22)).isEqualTo("few");
+        assertThat(pluralRule.select(new BigDecimal("1.5"))).isEqualTo("other");
+    }
+
+    @Test
+    public void testWelsh() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("cy");
+
+        assertThat(pluralRule.select(0)).isEqualTo("zero");
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(2)).isEqualTo("two");
+        assertThat(pluralRule.select(3)).isEqualTo("few");
+        assertThat(pluralRule.select(6)).isEqualTo("many");
+        assertThat(pluralRule.select(7)).isEqualTo("other");
+    }
+
+    @Test
+    public void testLithuanian() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("lt");
+
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(2)).isEqualTo("few");
+        assertThat(pluralRule.select(10)).isEqualTo("other");
+        assertThat(pluralRule.select(11)).isEqualTo("other");
+        assertThat(pluralRule.select(21)).isEqualTo("one");
+        assertThat(pluralRule.select(new BigDecimal("0.5"))).isEqualTo("many");
+    }
+
+    @Test
+    public void testSlovenian() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("sl");
+
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(2)).isEqualTo("two");
+        assertThat(pluralRule.select(3)).isEqualTo("few");
+        assertThat(pluralRule.select(5)).isEqualTo("other");
+        assertThat(pluralRule.select(101)).isEqualTo("one");
+        assertThat(pluralRule.select(102)).isEqualTo("two");
+    }
+
+    @Test
+    public void testMaltese() throws Exception {
+        CompiledPluralRule pluralRule = PluralRules.forLanguage("mt");
+
+        assertThat(pluralRule.select(0)).isEqualTo("few");
+        assertThat(pluralRule.select(1)).isEqualTo("one");
+        assertThat(pluralRule.select(10)).isEqualTo("few");
+        assertThat(pluralRule.select(11)).isEqualTo("many");
+        assertThat(pluralRule.select(20)).isEqualTo("other");
+    }
+
+    @Test
+    public void testDecimalFractionDigits() throws Exception {
+        CompiledPluralRule latvian = PluralRules.forLanguage("lv");
+        CompiledPluralRule serbian = PluralRules.forLanguage("sr");
+
+        assertThat(latvian.select(new BigDecimal("0.1"))).isEqualTo("one");
+        assertThat(latvian.select(new BigDecimal("0.11"))).isEqualTo("zero");
+        assertThat(latvian.select(new BigDecimal("0.21"))).isEqualTo("one");
+        assertThat(serbian.select(new BigDecimal("0.1"))).isEqualTo("one");
+        assertThat(serbian.select(new BigDecimal("0.3"))).isEqualTo("few");
+        assertThat(serbian.select(new BigDecimal("0.5"))).isEqualTo("other");
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        CompiledPluralRule pluralRule = PluralRuleParser.parse("one: n = 1,11 or t != 0 and i = 0; few: i % 10 = 3..4");
+
+        assertThat(pluralRule.getCategory(1)).isEqualTo(PluralCategory.ONE);
+        assertThat(pluralRule.getCategory(11)).isEqualTo(PluralCategory.ONE);
+        assertThat(pluralRule.getCategory(new BigDecimal("0.5"))).isEqualTo(PluralCategory.ONE);
+        assertThat(pluralRule.getCategory(new BigDecimal("0.0"))).isEqualTo(PluralCategory.OTHER);
+        assertThat(pluralRule.getCategory(1234)).isEqualTo(PluralCategory.FEW);
+        assertThat(pluralRule.getCategory(5)).isEqualTo(PluralCategory.OTHER);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWithUnknownCategory() throws Exception {
+        PluralRuleParser.parse("several: n = 1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWithUnknownOperand() throws Exception {
+        PluralRuleParser.parse("one: x = 1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWithInvalidRange() throws Exception {
+        PluralRuleParser.parse("one: n = 5..1");
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.proxy;
+
+import com.vityuk.ginger.InvalidParameterTypeException;
+import com.vityuk.ginger.InvalidReturnTypeException;
+import com.vityuk.ginger.LocaleResolver;
+import com.vityuk.ginger.Localizable;
+import com.vityuk.ginger.LocalizationException;
+import com.vityuk.ginger.PluralCount;
+import com.vityuk.ginger.PropertyResolver;
+import com.vityuk.ginger.Select;
+import com.vityuk.ginger.loader.LocalizationLoader;
+import com.vityuk.ginger.loader.ResourceLoader;
+import com.vityuk.ginger.provider.ConstantsDescriptor;
+import com.vityuk.ginger.provider.DefaultLocalizationProvider;
+import com.vityuk.ginger.provider.IndexedLocalizationProvider;
+import com.vityuk.ginger.provider.LocalizationProvider;
+import com.vityuk.ginger.provider.format.MessageFormatFactory;
+import com.vityuk.ginger.provider.plural.PluralFormSelectorResolver;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Andriy Vityuk
+ */
+public class GeneratedProxyBuilderTest {
+    private final GeneratedProxyBuilder proxyBuilder = new GeneratedProxyBuilder();
+
+    @Test
+    public void testCreateProxy() throws Exception {
+        LocalizationProvider localizationProvider = mock(LocalizationProvider.class);
+
+        TestLocalizable localizable = proxyBuilder.createProxy(TestLocalizable.class, localizationProvider);
+
+        assertThat(Proxy.isProxyClass(localizable.getClass())).isFalse();
+        assertThat(localizable.getClass().getName()).isEqualTo(TestLocalizable.class.getName() + "$$GingerProxy");
+        Object otherLocalizable = proxyBuilder.createProxy(TestLocalizable.class, localizationProvider);
+        assertThat(otherLocalizable.getClass() == localizable.getClass()).isTrue();
+    }
+
+    @Test
+    public void testConstants() throws Exception {
+        LocalizationProvider localizationProvider = mock(LocalizationProvider.class);
+        when(localizationProvider.getString("test.string")).thenReturn("value");
+        when(localizationProvider.getLong("test.long")).thenReturn(5L);
+        when(localizationProvider.getStringList("custom.key")).thenReturn(Collections.singletonList("a"));
+
+        TestLocalizable localizable = proxyBuilder.createProxy(TestLocalizable.class, localizationProvider);
+
+        assertThat(localizable.testString()).isEqualTo("value");
+        assertThat(localizable.testLong()).isEqualTo(5L);
+        assertThat(localizable.testList()).containsExactly("a");
+    }
+
+    @Test
+    public void testMessages() throws Exception {
+        LocalizationProvider localizationProvider = mock(LocalizationProvider.class);
+        when(localizationProvider.getMessage("message", "a", true, 2L, 3.5)).thenReturn("message");
+        when(localizationProvider.getSelectedMessage("selected.message", "male", "a", 7)).thenReturn("selected");
+        when(localizationProvider.getPluralMessage("plural.message", 1L, 'c', "b")).thenReturn("plural");
+
+        TestLocalizable localizable = proxyBuilder.createProxy(TestLocalizable.class, localizationProvider);
+
+        assertThat(localizable.message("a", true, 2L, 3.5)).isEqualTo("message");
+        assertThat(localizable.selectedMessage("a", "male", 7)).isEqualTo("selected");
+        assertThat(localizable.pluralMessage('c', 1L, "b")).isEqualTo("plural");
+    }
+
+    @Test
+    public void testMessagesWithIndexedLocalizationProvider() throws Exception {
+        IndexedLocalizationProvider localizationProvider = mock(IndexedLocalizationProvider.class);
+        when(localizationProvider.getKeyId("message")).thenReturn(10);
+        when(localizationProvider.getKeyId("selected.message")).thenReturn(11);
+        when(localizationProvider.getKeyId("plural.message")).thenReturn(12);
+        when(localizationProvider.getMessage(10, "a", false, 1L, 0.5)).thenReturn("message");
+        when(localizationProvider.getSelectedMessageFromArguments(11, 1, new Object[]{"b", "female", 8}))
+                .thenReturn("selected");
+        when(localizationProvider.getPluralMessageFromArguments(12, 1, new Object[]{'x', 3L, "c"}))
+                .thenReturn("plural");
+
+        TestLocalizable localizable = proxyBuilder.createProxy(TestLocalizable.class, localizationProvider);
+
+        assertThat(localizable.getClass().getName())
+                .isEqualTo(TestLocalizable.class.getName() + "$$GingerIndexedProxy");
+        assertThat(localizable.message("a", false, 1L, 0.5)).isEqualTo("message");
+        assertThat(localizable.selectedMessage("b", "female", 8)).isEqualTo("selected");
+        assertThat(localizable.pluralMessage('x', 3L, "c")).isEqualTo("plural");
+        assertThat(localizable.message("a", false, 1L, 0.5)).isEqualTo("message");
+        verify(localizationProvider).getKeyId("message");
+        verify(localizationProvider).getKeyId("selected.message");
+        verify(localizationProvider).getKeyId("plural.message");
+        verify(localizationProvider, times(2)).getMessage(10, "a", false, 1L, 0.5);
+        verify(localizationProvider).getSelectedMessageFromArguments(11, 1, new Object[]{"b", "female", 8});
+        verify(localizationProvider).getPluralMessageFromArguments(12, 1, new Object[]{'x', 3L, "c"});
+        verifyNoMoreInteractions(localizationProvider);
+    }
+
+    @Test
+    public void testConstantsWithIndexedLocalizationProvider() throws Exception {
+        IndexedLocalizationProvider localizationProvider = mock(IndexedLocalizationProvider.class);
+        when(localizationProvider.getConstantsSnapshot(any(ConstantsDescriptor.class))).thenAnswer(
+                new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) throws Throwable {
+                        ConstantsDescriptor descriptor = (ConstantsDescriptor) invocation.getArguments()[0];
+                        Map<String, Object> constants = new HashMap<String, Object>();
+                        constants.put("test.string", "value");
+                        constants.put("test.long", 5L);
+                        constants.put("custom.key", Collections.singletonList("a"));
+                        assertThat(descriptor.getConstantCount()).isEqualTo(constants.size());
+                        Object[] values = new Object[descriptor.getConstantCount()];
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = constants.get(descriptor.getKey(i));
+                            assertThat(descriptor.getType(i).isInstance(values[i])).isTrue();
+                        }
+                        return descriptor.createSnapshot(values);
+                    }
+                });
+
+        TestLocalizable localizable = proxyBuilder.createProxy(TestLocalizable.class, localizationProvider);
+
+        assertThat(localizable.testString()).isEqualTo("value");
+        assertThat(localizable.testLong()).isEqualTo(5L);
+        assertThat(localizable.testList()).containsExactly("a");
+        verify(localizationProvider, times(3)).getConstantsSnapshot(any(ConstantsDescriptor.class));
+        verify(localizationProvider, never()).getString(anyString());
+        verify(localizationProvider, never()).getLong(anyString());
+        verify(localizationProvider, never()).getStringList(anyString());
+    }
+
+    @Test
+    public void testConstantsSnapshotIsPlainHolder() throws Exception {
+        IndexedLocalizationProvider localizationProvider = mock(IndexedLocalizationProvider.class);
+        final List<Object> snapshots = new ArrayList<Object>();
+        when(localizationProvider.getConstantsSnapshot(any(ConstantsDescriptor.class))).thenAnswer(
+                new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) throws Throwable {
+                        ConstantsDescriptor descriptor = (ConstantsDescriptor) invocation.getArguments()[0];
+                        Map<String, Object> constants = new HashMap<String, Object>();
+                        constants.put("test.boolean", true);
+                        constants.put("test.int", 7);
+                        constants.put("test.double", 2.5);
+                        Object[] values = new Object[descriptor.getConstantCount()];
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = constants.get(descriptor.getKey(i));
+                        }
+                        Object snapshot = descriptor.createSnapshot(values);
+                        snapshots.add(snapshot);
+                        return snapshot;
+                    }
+                });
+
+        TestPrimitiveConstants localizable = proxyBuilder.createProxy(TestPrimitiveConstants.class,
+                localizationProvider);
+
+        assertThat(localizable.testInt()).isEqualTo(7);
+        Class<?> snapshotClass = snapshots.get(0).getClass();
+        assertThat(snapshotClass.getName()).isEqualTo(TestPrimitiveConstants.class.getName() + "$$GingerConstants");
+        assertThat(snapshotClass.getInterfaces()).isEmpty();
+        assertThat(snapshotClass.getDeclaredMethods()).isEmpty();
+        assertThat(snapshotClass.getFields()).hasSize(3);
+    }
+
+    @Test
+    public void testConstantsWithIndexedLocalizationProviderWithoutSnapshot() throws Exception {
+        IndexedLocalizationProvider localizationProvider = mock(IndexedLocalizationProvider.class);
+        when(localizationProvider.getString("test.string")).thenReturn("value");
+        when(localizationProvider.getLong("test.long")).thenReturn(5L);
+
+        TestLocalizable localizable = proxyBuilder.createProxy(TestLocalizable.class, localizationProvider);
+
+        assertThat(localizable.testString()).isEqualTo("value");
+        assertThat(localizable.testLong()).isEqualTo(5L);
+        verify(localizationProvider, times(2)).getConstantsSnapshot(any(ConstantsDescriptor.class));
+    }
+
+    @Test
+    public void testPrimitiveConstants() throws Exception {
+        LocalizationProvider localizationProvider = mock(LocalizationProvider.class);
+        when(localizationProvider.getBoolean("test.boolean")).thenReturn(true);
+        when(localizationProvider.getInteger("test.int")).thenReturn(42);
+        when(localizationProvider.getDouble("test.double")).thenReturn(2.5);
+
+        TestPrimitiveConstants localizable = proxyBuilder.createProxy(TestPrimitiveConstants.class,
+                localizationProvider);
+
+        assertThat(localizable.testBoolean()).isTrue();
+        assertThat(localizable.testInt()).isEqualTo(42);
+        assertThat(localizable.testDouble()).isEqualTo(2.5);
+    }
+
+    @Test
+    public void testPrimitiveConstantsWithIndexedLocalizationProvider() throws Exception {
+        IndexedLocalizationProvider localizationProvider = mock(IndexedLocalizationProvider.class);
+        when(localizationProvider.getConstantsSnapshot(any(ConstantsDescriptor.class))).thenAnswer(
+                new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) throws Throwable {
+                        ConstantsDescriptor descriptor = (ConstantsDescriptor) invocation.getArguments()[0];
+                        Map<String, Object> constants = new HashMap<String, Object>();
+                        constants.put("test.boolean", true);
+                        constants.put("test.int", 42);
+                        constants.put("test.double", 2.5);
+                        Object[] values = new Object[descriptor.getConstantCount()];
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = constants.get(descriptor.getKey(i));
+                            assertThat(descriptor.getType(i).isInstance(values[i])).isTrue();
+                        }
+                        return descriptor.createSnapshot(values);
+                    }
+                });
+
+        TestPrimitiveConstants localizable = proxyBuilder.createProxy(TestPrimitiveConstants.class,
+                localizationProvider);
+
+        assertThat(localizable.testBoolean()).isTrue();
+        assertThat(localizable.testInt()).isEqualTo(42);
+        assertThat(localizable.testDouble()).isEqualTo(2.5);
+        verify(localizationProvider, never()).getInteger(anyString());
+    }
+
+    @Test
+    public void testConstantsWithMissingPrimitiveConstant() throws Exception {
+        LocaleResolver localeResolver = mock(LocaleResolver.class);
+        ResourceLoader resourceLoader = mock(ResourceLoader.class);
+        LocalizationLoader localizationLoader = mock(LocalizationLoader.class);
+        PropertyResolver propertyResolver = mock(PropertyResolver.class);
+        InputStream inputStream = mock(InputStream.class);
+        LocalizationProvider localizationProvider = DefaultLocalizationProvider.builder()
+                .withLocaleResolver(localeResolver)
+                .withResourceLoader(resourceLoader)
+                .withLocalizationLoader(localizationLoader)
+                .withMessageFormatFactory(mock(MessageFormatFactory.class))
+                .withPluralFormSelectorResolver(mock(PluralFormSelectorResolver.class))
+                .withLocations(Arrays.asList("test:/Messages.data"))
+                .build();
+        when(localeResolver.getLocale()).thenReturn(Locale.ITALY);
+        when(resourceLoader.isSupported("test:/Messages.data")).thenReturn(true);
+        when(resourceLoader.openStream("test:/Messages_it_IT.data")).thenReturn(inputStream);
+        when(localizationLoader.load(inputStream)).thenReturn(propertyResolver);
+        when(propertyResolver.getString("name")).thenReturn("Hello");
+        when(propertyResolver.getInteger("retries")).thenReturn(null);
+
+        TestConstantsWithPrimitive localizable = proxyBuilder.createProxy(TestConstantsWithPrimitive.class,
+                localizationProvider);
+
+        assertThat(localizable.name()).isEqualTo("Hello");
+        assertThat(localizable.name()).isEqualTo("Hello");
+        try {
+            localizable.retries();
+            fail("Missing primitive constant must fail");
+        } catch (LocalizationException e) {
+            // Expected
+        }
+        // Snapshot which can not be created is not retried on every call
+        verify(propertyResolver, times(3)).getString("name");
+        verify(propertyResolver, times(2)).getInteger("retries");
+    }
+
+    @Test(expected = InvalidReturnTypeException.class)
+    public void testCreateProxyWithInvalidReturnType() throws Exception {
+        proxyBuilder.createProxy(TestLocalizableWithInvalidReturnType.class, mock(LocalizationProvider.class));
+    }
+
+    @Test(expected = InvalidParameterTypeException.class)
+    public void testCreateProxyWithInvalidPluralCountType() throws Exception {
+        proxyBuilder.createProxy(TestLocalizableWithInvalidPluralCount.class, mock(LocalizationProvider.class));
+    }
+
+    interface TestLocalizable extends Localizable {
+        String testString();
+
+        Long testLong();
+
+        @Key("custom.key")
+        List<String> testList();
+
+        String message(String arg0, boolean arg1, long arg2, double arg3);
+
+        String selectedMessage(String arg0, @Select String selector, int arg2);
+
+        String pluralMessage(char arg0, @PluralCount long count, String arg2);
+    }
+
+    interface TestPrimitiveConstants extends Localizable {
+        boolean testBoolean();
+
+        int testInt();
+
+        double testDouble();
+    }
+
+    interface TestConstantsWithPrimitive extends Localizable {
+        String name();
+
+        int retries();
+    }
+
+    interface TestLocalizableWithInvalidReturnType extends Localizable {
+        Character testChar();
+    }
+
+    interface TestLocalizableWithInvalidPluralCount extends Localizable {
+        String message(@PluralCount double count);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.proxy;
+
+import com.vityuk.ginger.InvalidParameterTypeException;
+import com.vityuk.ginger.InvalidReturnTypeException;
+import com.vityuk.ginger.provider.IndexedLocalizationProvider;
+import com.vityuk.ginger.provider.LocalizationProvider;
+import com.vityuk.ginger.proxy.GeneratedProxyBuilderTest.TestLocalizable;
+import com.vityuk.ginger.proxy.GeneratedProxyBuilderTest.TestLocalizableWithInvalidPluralCount;
+import com.vityuk.ginger.proxy.GeneratedProxyBuilderTest.TestLocalizableWithInvalidReturnType;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Andriy Vityuk
+ */
+public class ReflectProxyBuilderTest {
+    private final ReflectProxyBuilder proxyBuilder = new ReflectProxyBuilder();
+
+    @Test
+    public void testConstants() throws Exception {
+        LocalizationProvider localizationProvider = mock(LocalizationProvider.class);
+        when(localizationProvider.getString("test.string")).thenReturn("value");
+        when(localizationProvider.getLong("test.long")).thenReturn(5L);
+        when(localizationProvider.getStringList("custom.key")).thenReturn(Collections.singletonList("a"));
+
+        TestLocalizable localizable = proxyBuilder.createProxy(TestLocalizable.class, localizationProvider);
+
+        assertThat(localizable.testString()).isEqualTo("value");
+        assertThat(localizable.testLong()).isEqualTo(5L);
+        assertThat(localizable.testList()).containsExactly("a");
+    }
+
+    @Test
+    public void testMessages() throws Exception {
+        LocalizationProvider localizationProvider = mock(LocalizationProvider.class);
+        when(localizationProvider.getMessage("message", "a", true, 2L, 3.5)).thenReturn("message");
+        when(localizationProvider.getSelectedMessage("selected.message", "male", "a", 7)).thenReturn("selected");
+        when(localizationProvider.getPluralMessage("plural.message", 1L, 'c', "b")).thenReturn("plural");
+
+        TestLocalizable localizable = proxyBuilder.createProxy(TestLocalizable.class, localizationProvider);
+
+        assertThat(localizable.message("a", true, 2L, 3.5)).isEqualTo("message");
+        assertThat(localizable.selectedMessage("a", "male", 7)).isEqualTo("selected");
+        assertThat(localizable.pluralMessage('c', 1L, "b")).isEqualTo("plural");
+    }
+
+    @Test
+    public void testMessagesWithIndexedLocalizationProvider() throws Exception {
+        IndexedLocalizationProvider localizationProvider = mock(IndexedLocalizationProvider.class);
+        when(localizationProvider.getKeyId("message")).thenReturn(10);
+        when(localizationProvider.getKeyId("selected.message")).thenReturn(11);
+        when(localizationProvider.getKeyId("plural.message")).thenReturn(12);
+        when(localizationProvider.getMessage(10, "a", false, 1L, 0.5)).thenReturn("message");
+        when(localizationProvider.getSelectedMessageFromArguments(11, 1, new Object[]{"b", "female", 8}))
+                .thenReturn("selected");
+        when(localizationProvider.getPluralMessageFromArguments(12, 1, new Object[]{'x', 3L, "c"}))
+                .thenReturn("plural");
+
+        TestLocalizable localizable = proxyBuilder.createProxy(TestLocalizable.class, localizationProvider);
+
+        assertThat(localizable.message("a", false, 1L, 0.5)).isEqualTo("message");
+        assertThat(localizable.selectedMessage("b", "female", 8)).isEqualTo("selected");
+        assertThat(localizable.pluralMessage('x', 3L, "c")).isEqualTo("plural");
+        assertThat(localizable.message("a", false, 1L, 0.5)).isEqualTo("message");
+        verify(localizationProvider).getKeyId("message");
+        verify(localizationProvider).getKeyId("selected.message");
+        verify(localizationProvider).getKeyId("plural.message");
+        verify(localizationProvider, times(2)).getMessage(10, "a", false, 1L, 0.5);
+        verify(localizationProvider).getSelectedMessageFromArguments(11, 1, new Object[]{"b", "female", 8});
+        verify(localizationProvider).getPluralMessageFromArguments(12, 1, new Object[]{'x', 3L, "c"});
+        verifyNoMoreInteractions(localizationProvider);
+    }
+
+    @Test(expected = InvalidReturnTypeException.class)
+    public void testCreateProxyWithInvalidReturnType() throws Exception {
+        proxyBuilder.createProxy(TestLocalizableWithInvalidReturnType.class, mock(LocalizationProvider.class));
+    }
+
+    @Test(expected = InvalidParameterTypeException.class)
+    public void testCreateProxyWithInvalidPluralCountType() throws Exception {
+        proxyBuilder.createProxy(TestLocalizableWithInvalidPluralCount.class, mock(LocalizationProvider.class));
+    }
+}
@@ -126,6 +126,28 @@ public class ThreadLocalLoadingCacheTest {
         verifyNoMoreInteractions(cacheLoader);
     }
 
+    @Test
+    public void testInvalidateDiscardsValuesOfAllThreads() throws Exception {
+        final LoadingCache<String, Integer> cache = createCache();
+        String key = "105";
+        when(cacheLoader.load(key)).thenReturn(105);
+
+        cache.get(key);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                cache.invalidate("106");
+            }
+        });
+        thread.start();
+        thread.join();
+        Integer result = cache.get(key);
+
+        assertThat(result).isEqualTo(105);
+        verify(cacheLoader, times(2)).load(key);
+        verifyNoMoreInteractions(cacheLoader);
+    }
+
     private ThreadLocalLoadingCache<String, Integer> createCache() {
         return ThreadLocalLoadingCache.create(cacheLoader);
     }
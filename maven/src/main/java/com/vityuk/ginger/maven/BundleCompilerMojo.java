@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.maven;
+
+import com.vityuk.ginger.PropertyResolver;
+import com.vityuk.ginger.loader.BundleWriter;
+import com.vityuk.ginger.loader.PropertiesLocalizationLoader;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.codehaus.plexus.util.DirectoryScanner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Compiles properties resources into binary bundles, which are loaded with
+ * {@link com.vityuk.ginger.loader.BundleLocalizationLoader}. Bundle is written next to compiled resources with
+ * {@code .gbundle} extension instead of {@code .properties}, e.g. {@code messages_uk.properties} is compiled into
+ * {@code messages_uk.gbundle}. Bundles are replaced atomically, so files mapped by running applications are not
+ * changed under them.
+ *
+ * @author Andriy Vityuk
+ */
+@Mojo(name = "compile-bundles", defaultPhase = LifecyclePhase.PROCESS_RESOURCES, threadSafe = true)
+public class BundleCompilerMojo extends AbstractMojo {
+    private static final String PROPERTIES_EXTENSION = ".properties";
+    private static final String BUNDLE_EXTENSION = ".gbundle";
+
+    /**
+     * The directory of properties resources
+     */
+    @Parameter(property = "ginger.bundles.sourceDirectory", defaultValue = "${project.basedir}/src/main/resources")
+    File sourceDirectory;
+
+    /**
+     * The output directory of compiled bundles
+     */
+    @Parameter(property = "ginger.bundles.outputDirectory", defaultValue = "${project.build.outputDirectory}")
+    File outputDirectory;
+
+    /**
+     * The properties files to compile
+     */
+    @Parameter(property = "ginger.bundles.includes", defaultValue = "**/*.properties")
+    String[] includes;
+
+    /**
+     * The properties files to skip
+     */
+    @Parameter(property = "ginger.bundles.excludes")
+    String[] excludes;
+
+    /**
+     * The encoding of properties files
+     */
+    @Parameter(property = "ginger.bundles.encoding", defaultValue = "UTF-8")
+    String encoding;
+
+    /**
+     * Skip this goal
+     */
+    @Parameter(property = "ginger.bundles.skip", defaultValue = "false")
+    boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Ginger bundle compilation skipped");
+            return;
+        }
+        if (!sourceDirectory.exists()) {
+            getLog().warn("Path \"" + sourceDirectory + "\" doesn't exist");
+            return;
+        }
+
+        DirectoryScanner directoryScanner = new DirectoryScanner();
+        directoryScanner.setIncludes(includes);
+        directoryScanner.setExcludes(excludes);
+        directoryScanner.setBasedir(sourceDirectory);
+        directoryScanner.scan();
+
+        PropertiesLocalizationLoader localizationLoader = new PropertiesLocalizationLoader(Charset.forName(encoding));
+        int compiled = 0;
+        for (String fileName : directoryScanner.getIncludedFiles()) {
+            File propertiesFile = new File(sourceDirectory, fileName);
+            File bundleFile = new File(outputDirectory, toBundleFileName(fileName));
+            if (bundleFile.exists() && propertiesFile.lastModified() < bundleFile.lastModified()) {
+                getLog().debug("No changes in " + fileName);
+                continue;
+            }
+            try {
+                compileBundle(localizationLoader, propertiesFile, bundleFile);
+            } catch (Exception e) {
+                throw new MojoExecutionException("Can't compile ginger bundle: " + propertiesFile, e);
+            }
+            compiled++;
+        }
+        getLog().info("Compiled " + compiled + " ginger bundle(s) to " + outputDirectory);
+    }
+
+    private static void compileBundle(PropertiesLocalizationLoader localizationLoader, File propertiesFile,
+                                      File bundleFile) throws IOException {
+        PropertyResolver propertyResolver;
+        InputStream inputStream = new FileInputStream(propertiesFile);
+        try {
+            propertyResolver = localizationLoader.load(inputStream);
+        } finally {
+            inputStream.close();
+        }
+
+        File directory = bundleFile.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory: " + directory);
+        }
+        File temporaryFile = File.createTempFile(bundleFile.getName(), ".tmp", directory);
+        try {
+            OutputStream outputStream = new FileOutputStream(temporaryFile);
+            try {
+                new BundleWriter().write(propertyResolver, outputStream);
+            } finally {
+                outputStream.close();
+            }
+            Files.move(temporaryFile.toPath(), bundleFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temporaryFile.delete();
+        }
+    }
+
+    private static String toBundleFileName(String fileName) {
+        if (fileName.endsWith(PROPERTIES_EXTENSION)) {
+            fileName = fileName.substring(0, fileName.length() - PROPERTIES_EXTENSION.length());
+        }
+        return fileName + BUNDLE_EXTENSION;
+    }
+}
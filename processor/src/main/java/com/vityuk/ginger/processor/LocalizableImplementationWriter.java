@@ -0,0 +1,404 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.processor;
+
+import com.vityuk.ginger.Localizable;
+import com.vityuk.ginger.PluralCount;
+import com.vityuk.ginger.Select;
+import com.vityuk.ginger.provider.IndexedLocalizationProvider;
+import com.vityuk.ginger.provider.LocalizationProvider;
+import com.vityuk.ginger.proxy.PrecompiledLocalizables;
+import com.vityuk.ginger.util.GingerUtils;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes source of {@link Localizable} interface implementation which calls {@link LocalizationProvider} directly.
+ * Validation rules are the same as of runtime proxies, violations are reported as compilation errors.
+ *
+ * @author Andriy Vityuk
+ */
+class LocalizableImplementationWriter {
+    private static final String PROVIDER_TYPE = LocalizationProvider.class.getName();
+    private static final String INDEXED_PROVIDER_TYPE = IndexedLocalizationProvider.class.getName();
+
+    private static final Map<String, String> CONSTANT_GETTERS = createConstantGetters();
+    private static final Map<String, String> PRIMITIVE_CONSTANT_TYPES = createPrimitiveConstantTypes();
+    private static final Set<String> WRAPPER_TYPES = new HashSet<String>(Arrays.asList(
+            Boolean.class.getName(), Character.class.getName(), Byte.class.getName(), Short.class.getName(),
+            Integer.class.getName(), Long.class.getName(), Float.class.getName(), Double.class.getName()));
+    private static final Set<String> PLURAL_COUNT_TYPES = new HashSet<String>(Arrays.asList(
+            "byte", Byte.class.getName(), "short", Short.class.getName(), "int", Integer.class.getName(),
+            "long", Long.class.getName()));
+
+    private final ProcessingEnvironment processingEnv;
+    private final TypeElement type;
+
+    public LocalizableImplementationWriter(ProcessingEnvironment processingEnv, TypeElement type) {
+        this.processingEnv = processingEnv;
+        this.type = type;
+    }
+
+    /**
+     * @return {@code true} if implementation may be written for the interface
+     */
+    public boolean isSupported() {
+        if (!type.getTypeParameters().isEmpty()) {
+            return false;
+        }
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void write() throws IOException {
+        List<MethodBinding> methodBindings = createMethodBindings();
+        if (methodBindings == null) {
+            return;
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String className = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                + PrecompiledLocalizables.IMPLEMENTATION_CLASS_SUFFIX;
+        String qualifiedClassName = packageName.isEmpty() ? className : packageName + '.' + className;
+
+        PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedClassName, type)
+                .openWriter());
+        try {
+            writeClass(out, packageName, className, methodBindings);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeClass(PrintWriter out, String packageName, String className,
+                            List<MethodBinding> methodBindings) {
+        if (!packageName.isEmpty()) {
+            out.println("package " + packageName + ";");
+            out.println();
+        }
+        out.println("/**");
+        out.println(" * Implementation of {@link " + type.getQualifiedName() + "} generated by ginger annotation "
+                + "processor.");
+        out.println(" */");
+        out.println("public final class " + className + " implements " + type.getQualifiedName() + " {");
+        out.println("    private final " + PROVIDER_TYPE + " localizationProvider;");
+        out.println("    private final " + INDEXED_PROVIDER_TYPE + " indexedLocalizationProvider;");
+        for (MethodBinding methodBinding : methodBindings) {
+            if (methodBinding.hasKeyId()) {
+                out.println("    private final int " + methodBinding.getKeyIdField() + ";");
+            }
+        }
+        out.println();
+
+        out.println("    public " + className + "(" + PROVIDER_TYPE + " localizationProvider) {");
+        out.println("        this.localizationProvider = localizationProvider;");
+        out.println("        if (localizationProvider instanceof " + INDEXED_PROVIDER_TYPE + ") {");
+        out.println("            this.indexedLocalizationProvider = (" + INDEXED_PROVIDER_TYPE
+                + ") localizationProvider;");
+        for (MethodBinding methodBinding : methodBindings) {
+            if (methodBinding.hasKeyId()) {
+                out.println("            this." + methodBinding.getKeyIdField()
+                        + " = indexedLocalizationProvider.getKeyId(" + methodBinding.getKeyLiteral() + ");");
+            }
+        }
+        out.println("        } else {");
+        out.println("            this.indexedLocalizationProvider = null;");
+        for (MethodBinding methodBinding : methodBindings) {
+            if (methodBinding.hasKeyId()) {
+                out.println("            this." + methodBinding.getKeyIdField() + " = -1;");
+            }
+        }
+        out.println("        }");
+        out.println("    }");
+
+        for (MethodBinding methodBinding : methodBindings) {
+            out.println();
+            writeMethod(out, methodBinding);
+        }
+        out.println("}");
+    }
+
+    private void writeMethod(PrintWriter out, MethodBinding methodBinding) {
+        List<? extends TypeMirror> parameterTypes = methodBinding.methodType.getParameterTypes();
+        StringBuilder signature = new StringBuilder();
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            if (i > 0) {
+                signature.append(", ");
+            }
+            signature.append(parameterTypes.get(i)).append(" p").append(i);
+        }
+
+        out.println("    @Override");
+        out.println("    public " + methodBinding.methodType.getReturnType() + " "
+                + methodBinding.method.getSimpleName() + "(" + signature + ") {");
+        if (methodBinding.kind == MethodKind.CONSTANT) {
+            String lookup = "localizationProvider." + methodBinding.providerMethod + "("
+                    + methodBinding.getKeyLiteral() + ")";
+            String wrapperType = PRIMITIVE_CONSTANT_TYPES.get(methodBinding.methodType.getReturnType().toString());
+            if (wrapperType != null) {
+                lookup = "(" + wrapperType + ") " + GingerUtils.class.getName() + ".checkPrimitiveConstant(" + lookup
+                        + ", " + methodBinding.getKeyLiteral() + ")";
+            }
+            out.println("        return " + lookup + ";");
+        } else {
+            StringBuilder parameters = new StringBuilder();
+            String argument = "";
+            for (int i = 0; i < parameterTypes.size(); i++) {
+                if (i == methodBinding.argumentIndex) {
+                    argument = methodBinding.kind == MethodKind.SELECTED_MESSAGE
+                            ? "java.lang.String.valueOf(p" + i + "), " : "p" + i + ", ";
+                } else {
+                    if (parameters.length() > 0) {
+                        parameters.append(", ");
+                    }
+                    parameters.append('p').append(i);
+                }
+            }
+            String arguments = argument + "new java.lang.Object[]{" + parameters + "}";
+            out.println("        if (indexedLocalizationProvider != null) {");
+            if (methodBinding.argumentIndex == -1) {
+                out.println("            return indexedLocalizationProvider." + methodBinding.providerMethod + "("
+                        + methodBinding.getKeyIdField() + ", " + arguments + ");");
+            } else {
+                // Provider takes selector or count from arguments itself, so they are not rearranged
+                StringBuilder allArguments = new StringBuilder();
+                for (int i = 0; i < parameterTypes.size(); i++) {
+                    allArguments.append(i > 0 ? ", p" : "p").append(i);
+                }
+                out.println("            return indexedLocalizationProvider." + methodBinding.providerMethod
+                        + "FromArguments(" + methodBinding.getKeyIdField() + ", " + methodBinding.argumentIndex
+                        + ", new java.lang.Object[]{" + allArguments + "});");
+            }
+            out.println("        }");
+            out.println("        return localizationProvider." + methodBinding.providerMethod + "("
+                    + methodBinding.getKeyLiteral() + ", " + arguments + ");");
+        }
+        out.println("    }");
+    }
+
+    /**
+     * @return method bindings or {@code null} if interface has invalid methods, which are reported as errors
+     */
+    private List<MethodBinding> createMethodBindings() {
+        DeclaredType declaredType = (DeclaredType) type.asType();
+        List<MethodBinding> methodBindings = new ArrayList<MethodBinding>();
+        Set<String> signatures = new HashSet<String>();
+        boolean valid = true;
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            ExecutableType methodType = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declaredType, method);
+            // The same method may be inherited from several interfaces
+            if (!signatures.add(method.getSimpleName() + getErasedParameters(methodType))) {
+                continue;
+            }
+            MethodBinding methodBinding = createMethodBinding(method, methodType, methodBindings.size());
+            if (methodBinding == null) {
+                valid = false;
+            } else {
+                methodBindings.add(methodBinding);
+            }
+        }
+        return valid ? methodBindings : null;
+    }
+
+    private MethodBinding createMethodBinding(ExecutableElement method, ExecutableType methodType, int index) {
+        Localizable.Key keyAnnotation = method.getAnnotation(Localizable.Key.class);
+        String key = keyAnnotation != null ? keyAnnotation.value()
+                : GingerUtils.createKeyFromMethodName(method.getSimpleName().toString());
+        String returnType = getErasedName(methodType.getReturnType());
+
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (parameters.isEmpty()) {
+            String wrapperType = PRIMITIVE_CONSTANT_TYPES.get(returnType);
+            String getter = CONSTANT_GETTERS.get(wrapperType == null ? returnType : wrapperType);
+            if (getter == null) {
+                return reportInvalidType("return", methodType.getReturnType(), method);
+            }
+            return new MethodBinding(method, methodType, index, key, MethodKind.CONSTANT, getter, -1);
+        }
+
+        if (!String.class.getName().equals(returnType)) {
+            return reportInvalidType("return", methodType.getReturnType(), method);
+        }
+
+        int selectorParameterIndex = indexOfParameterAnnotation(parameters, Select.class);
+        if (selectorParameterIndex != -1) {
+            TypeMirror parameterType = methodType.getParameterTypes().get(selectorParameterIndex);
+            if (parameterType.getKind().isPrimitive() || WRAPPER_TYPES.contains(getErasedName(parameterType))) {
+                return reportInvalidType("parameter", parameterType, method);
+            }
+            return new MethodBinding(method, methodType, index, key, MethodKind.SELECTED_MESSAGE,
+                    "getSelectedMessage", selectorParameterIndex);
+        }
+
+        int pluralCountParameterIndex = indexOfParameterAnnotation(parameters, PluralCount.class);
+        if (pluralCountParameterIndex != -1) {
+            TypeMirror parameterType = methodType.getParameterTypes().get(pluralCountParameterIndex);
+            if (!PLURAL_COUNT_TYPES.contains(getErasedName(parameterType))) {
+                return reportInvalidType("parameter", parameterType, method);
+            }
+            return new MethodBinding(method, methodType, index, key, MethodKind.PLURAL_MESSAGE, "getPluralMessage",
+                    pluralCountParameterIndex);
+        }
+
+        return new MethodBinding(method, methodType, index, key, MethodKind.MESSAGE, "getMessage", -1);
+    }
+
+    private MethodBinding reportInvalidType(String kind, TypeMirror invalidType, ExecutableElement method) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Invalid " + kind + " type: " + invalidType
+                + " for method: " + method.getSimpleName() + " in " + method.getEnclosingElement(), method);
+        return null;
+    }
+
+    private static int indexOfParameterAnnotation(List<? extends VariableElement> parameters,
+                                                  Class<? extends Annotation> annotationType) {
+        for (int i = 0; i < parameters.size(); i++) {
+            if (parameters.get(i).getAnnotation(annotationType) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String getErasedParameters(ExecutableType methodType) {
+        StringBuilder parameters = new StringBuilder("(");
+        for (TypeMirror parameterType : methodType.getParameterTypes()) {
+            parameters.append(getErasedName(parameterType)).append(';');
+        }
+        return parameters.append(')').toString();
+    }
+
+    private String getErasedName(TypeMirror typeMirror) {
+        if (typeMirror.getKind() == TypeKind.DECLARED) {
+            TypeElement typeElement = (TypeElement) ((DeclaredType) typeMirror).asElement();
+            return typeElement.getQualifiedName().toString();
+        }
+        return processingEnv.getTypeUtils().erasure(typeMirror).toString();
+    }
+
+    private static String toJavaLiteral(String value) {
+        StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                default:
+                    if (c < ' ' || c > '~') {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private static Map<String, String> createConstantGetters() {
+        Map<String, String> getters = new HashMap<String, String>();
+        getters.put(String.class.getName(), "getString");
+        getters.put(Boolean.class.getName(), "getBoolean");
+        getters.put(Integer.class.getName(), "getInteger");
+        getters.put(Long.class.getName(), "getLong");
+        getters.put(Float.class.getName(), "getFloat");
+        getters.put(Double.class.getName(), "getDouble");
+        getters.put(List.class.getName(), "getStringList");
+        getters.put(Map.class.getName(), "getStringMap");
+        return getters;
+    }
+
+    private static Map<String, String> createPrimitiveConstantTypes() {
+        Map<String, String> types = new HashMap<String, String>();
+        types.put("boolean", Boolean.class.getName());
+        types.put("int", Integer.class.getName());
+        types.put("long", Long.class.getName());
+        types.put("float", Float.class.getName());
+        types.put("double", Double.class.getName());
+        return types;
+    }
+
+    private static enum MethodKind {
+        CONSTANT, MESSAGE, SELECTED_MESSAGE, PLURAL_MESSAGE
+    }
+
+    private static class MethodBinding {
+        private final ExecutableElement method;
+        private final ExecutableType methodType;
+        private final int index;
+        private final String key;
+        private final MethodKind kind;
+        private final String providerMethod;
+        // Index of selector or plural count parameter, -1 if absent
+        private final int argumentIndex;
+
+        public MethodBinding(ExecutableElement method, ExecutableType methodType, int index, String key,
+                             MethodKind kind, String providerMethod, int argumentIndex) {
+            this.method = method;
+            this.methodType = methodType;
+            this.index = index;
+            this.key = key;
+            this.kind = kind;
+            this.providerMethod = providerMethod;
+            this.argumentIndex = argumentIndex;
+        }
+
+        public boolean hasKeyId() {
+            return kind != MethodKind.CONSTANT;
+        }
+
+        public String getKeyIdField() {
+            return "keyId" + index;
+        }
+
+        public String getKeyLiteral() {
+            return toJavaLiteral(key);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.processor;
+
+import com.vityuk.ginger.Localizable;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Annotation processor which generates implementations of interfaces extending {@link Localizable}, so they are
+ * created without runtime bytecode generation or reflection.
+ * <p/>
+ * Implementation of {@code com.example.Messages} is {@code com.example.Messages$$GingerImpl}, it is picked up by
+ * {@link com.vityuk.ginger.proxy.ProxyBuilderFactory} when present. Generic and private interfaces are skipped.
+ *
+ * @author Andriy Vityuk
+ */
+@SupportedAnnotationTypes("*")
+public class LocalizableProcessor extends AbstractProcessor {
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement localizableElement = processingEnv.getElementUtils()
+                .getTypeElement(Localizable.class.getCanonicalName());
+        if (localizableElement == null) {
+            return false;
+        }
+        TypeMirror localizableType = localizableElement.asType();
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            processType(type, localizableType);
+        }
+        // Other processors may be interested in the same annotations
+        return false;
+    }
+
+    private void processType(TypeElement type, TypeMirror localizableType) {
+        if (type.getKind() == ElementKind.INTERFACE && isLocalizable(type, localizableType)) {
+            LocalizableImplementationWriter writer = new LocalizableImplementationWriter(processingEnv, type);
+            if (writer.isSupported()) {
+                try {
+                    writer.write();
+                } catch (IOException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Unable to write localizable implementation: " + e.getMessage(), type);
+                }
+            }
+        }
+        for (TypeElement nestedType : ElementFilter.typesIn(type.getEnclosedElements())) {
+            processType(nestedType, localizableType);
+        }
+    }
+
+    private boolean isLocalizable(TypeElement type, TypeMirror localizableType) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type.asType());
+        return !processingEnv.getTypeUtils().isSameType(erasure, localizableType)
+                && processingEnv.getTypeUtils().isAssignable(erasure, localizableType);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.vityuk.ginger.processor;
+
+import com.vityuk.ginger.Localizable;
+import com.vityuk.ginger.PluralCount;
+import com.vityuk.ginger.Select;
+import com.vityuk.ginger.provider.IndexedLocalizationProvider;
+import com.vityuk.ginger.provider.LocalizationProvider;
+import com.vityuk.ginger.proxy.ProxyBuilderFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test localizables are compiled with the processor, so their implementations are generated with test sources.
+ *
+ * @author Andriy Vityuk
+ */
+public class LocalizableProcessorTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testImplementationIsGenerated() throws Exception {
+        Class<?> implementationClass = Class.forName(TestLocalizable.class.getName() + "$$GingerImpl");
+
+        assertThat(TestLocalizable.class.isAssignableFrom(implementationClass)).isTrue();
+        assertThat(TestExtendedLocalizable.class.isAssignableFrom(
+                Class.forName(TestExtendedLocalizable.class.getName() + "$$GingerImpl"))).isTrue();
+    }
+
+    @Test
+    public void testCreateProxyUsesImplementation() throws Exception {
+        LocalizationProvider localizationProvider = mock(LocalizationProvider.class);
+        when(localizationProvider.getString("test.string")).thenReturn("value");
+        when(localizationProvider.getStringMap("custom.key")).thenReturn(Collections.singletonMap("a", "b"));
+        when(localizationProvider.getInteger("test.int")).thenReturn(42);
+        when(localizationProvider.getMessage("message", "a", 2L)).thenReturn("message");
+        when(localizationProvider.getSelectedMessage("selected.message", "male", 7)).thenReturn("selected");
+        when(localizationProvider.getPluralMessage("plural.message", 3, "b")).thenReturn("plural");
+
+        TestLocalizable localizable = ProxyBuilderFactory.createProxy(TestLocalizable.class, localizationProvider);
+
+        assertThat(localizable.getClass().getName()).isEqualTo(TestLocalizable.class.getName() + "$$GingerImpl");
+        assertThat(localizable.testString()).isEqualTo("value");
+        assertThat(localizable.testMap()).isEqualTo(Collections.singletonMap("a", "b"));
+        assertThat(localizable.testInt()).isEqualTo(42);
+        assertThat(localizable.message("a", 2L)).isEqualTo("message");
+        assertThat(localizable.selectedMessage("male", 7)).isEqualTo("selected");
+        assertThat(localizable.pluralMessage(3, "b")).isEqualTo("plural");
+    }
+
+    @Test
+    public void testCreateProxyWithIndexedLocalizationProvider() throws Exception {
+        IndexedLocalizationProvider localizationProvider = mock(IndexedLocalizationProvider.class);
+        when(localizationProvider.getKeyId("message")).thenReturn(4);
+        when(localizationProvider.getKeyId("plural.message")).thenReturn(5);
+        when(localizationProvider.getKeyId("inherited.message")).thenReturn(6);
+        when(localizationProvider.getMessage(4, "a", 2L)).thenReturn("message");
+        when(localizationProvider.getPluralMessageFromArguments(5, 0, new Object[]{3, "b"})).thenReturn("plural");
+        when(localizationProvider.getMessage(6, "c")).thenReturn("inherited");
+
+        TestExtendedLocalizable localizable = ProxyBuilderFactory.createProxy(TestExtendedLocalizable.class,
+                localizationProvider);
+
+        assertThat(localizable.message("a", 2L)).isEqualTo("message");
+        assertThat(localizable.pluralMessage(3, "b")).isEqualTo("plural");
+        assertThat(localizable.inheritedMessage("c")).isEqualTo("inherited");
+    }
+
+    @Test
+    public void testProcessWithInvalidReturnType() throws Exception {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compile("test.Invalid",
+                "package test;\n" +
+                        "public interface Invalid extends com.vityuk.ginger.Localizable {\n" +
+                        "    Character testChar();\n" +
+                        "}\n");
+
+        assertThat(diagnostics).hasSize(1);
+        assertThat(diagnostics.get(0).getKind()).isEqualTo(Diagnostic.Kind.ERROR);
+        assertThat(diagnostics.get(0).getMessage(null))
+                .isEqualTo("Invalid return type: java.lang.Character for method: testChar in test.Invalid");
+    }
+
+    @Test
+    public void testProcessWithInvalidPluralCountType() throws Exception {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compile("test.Invalid",
+                "package test;\n" +
+                        "public interface Invalid extends com.vityuk.ginger.Localizable {\n" +
+                        "    String message(@com.vityuk.ginger.PluralCount float count);\n" +
+                        "}\n");
+
+        assertThat(diagnostics).hasSize(1);
+        assertThat(diagnostics.get(0).getMessage(null))
+                .isEqualTo("Invalid parameter type: float for method: message in test.Invalid");
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(String className, final String source)
+            throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaFileObject sourceFile = new SimpleJavaFileObject(
+                URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        String classPath = new File(Localizable.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath();
+        File outputDirectory = temporaryFolder.newFolder("classes");
+        DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<JavaFileObject>();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnosticCollector,
+                Arrays.asList("-classpath", classPath, "-d", outputDirectory.getPath(), "-proc:only"), null,
+                Collections.singletonList(sourceFile));
+        task.setProcessors(Collections.singletonList(new LocalizableProcessor()));
+        task.call();
+        return diagnosticCollector.getDiagnostics();
+    }
+
+    interface TestLocalizable extends Localizable {
+        String testString();
+
+        @Key("custom.key")
+        Map<String, String> testMap();
+
+        int testInt();
+
+        String message(String arg0, long arg1);
+
+        String selectedMessage(@Select String selector, int arg1);
+
+        String pluralMessage(@PluralCount int count, String arg1);
+    }
+
+    interface TestBaseLocalizable extends Localizable {
+        String inheritedMessage(String arg0);
+
+        String message(String arg0, long arg1);
+    }
+
+    interface TestExtendedLocalizable extends TestBaseLocalizable {
+        String message(String arg0, long arg1);
+
+        String pluralMessage(@PluralCount Integer count, String arg1);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.servlet.tags;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.commons.lang3.text.translate.EntityArrays;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static com.vityuk.ginger.util.Preconditions.checkNotNull;
+
+/**
+ * {@link Writer} which escapes HTML 4 characters the same way as {@link StringEscapeUtils#escapeHtml4(String)} and
+ * writes the result to a target {@code Writer}, so messages can be escaped while being formatted.
+ * <p/>
+ * Entities are looked up by character in a table built from the same entity arrays, runs of characters between
+ * escaped ones are written to target as is, without creating intermediate strings.
+ *
+ * @author Andriy Vityuk
+ */
+class HtmlEscapingWriter extends Writer {
+    private static final String[] ENTITIES = createEntities(EntityArrays.BASIC_ESCAPE(),
+            EntityArrays.ISO8859_1_ESCAPE(), EntityArrays.HTML40_EXTENDED_ESCAPE());
+
+    private final Writer out;
+
+    HtmlEscapingWriter(Writer out) {
+        this.out = checkNotNull(out);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int end = off + len;
+        int runStart = off;
+        for (int i = off; i < end; i++) {
+            String entity = getEntity(cbuf[i]);
+            if (entity != null) {
+                if (i > runStart) {
+                    out.write(cbuf, runStart, i - runStart);
+                }
+                out.write(entity);
+                runStart = i + 1;
+            }
+        }
+        if (end > runStart) {
+            out.write(cbuf, runStart, end - runStart);
+        }
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        append((char) c);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int end = off + len;
+        int runStart = off;
+        for (int i = off; i < end; i++) {
+            String entity = getEntity(str.charAt(i));
+            if (entity != null) {
+                if (i > runStart) {
+                    out.write(str, runStart, i - runStart);
+                }
+                out.write(entity);
+                runStart = i + 1;
+            }
+        }
+        if (end > runStart) {
+            out.write(str, runStart, end - runStart);
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        CharSequence sequence = csq == null ? "null" : csq;
+        return append(sequence, 0, sequence.length());
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        CharSequence sequence = csq == null ? "null" : csq;
+        if (sequence instanceof String) {
+            write((String) sequence, start, end - start);
+            return this;
+        }
+        int runStart = start;
+        for (int i = start; i < end; i++) {
+            String entity = getEntity(sequence.charAt(i));
+            if (entity != null) {
+                if (i > runStart) {
+                    out.append(sequence, runStart, i);
+                }
+                out.write(entity);
+                runStart = i + 1;
+            }
+        }
+        if (end > runStart) {
+            out.append(sequence, runStart, end);
+        }
+        return this;
+    }
+
+    @Override
+    public Writer append(char c) throws IOException {
+        String entity = getEntity(c);
+        if (entity != null) {
+            out.write(entity);
+        } else {
+            out.write(c);
+        }
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Target writer is owned by the caller
+        flush();
+    }
+
+    private static String getEntity(char c) {
+        return c < ENTITIES.length ? ENTITIES[c] : null;
+    }
+
+    /**
+     * @return entities indexed by escaped character, all escaped characters are single chars below
+     *         {@code Character.MIN_SURROGATE}
+     */
+    private static String[] createEntities(String[][]... entityArrays) {
+        int maxChar = 0;
+        for (String[][] entityArray : entityArrays) {
+            for (String[] entry : entityArray) {
+                maxChar = Math.max(maxChar, entry[0].charAt(0));
+            }
+        }
+        String[] entities = new String[maxChar + 1];
+        for (String[][] entityArray : entityArrays) {
+            for (String[] entry : entityArray) {
+                entities[entry[0].charAt(0)] = entry[1];
+            }
+        }
+        return entities;
+    }
+}
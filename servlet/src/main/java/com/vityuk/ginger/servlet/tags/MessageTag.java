@@ -21,7 +21,6 @@ import com.vityuk.ginger.servlet.ServletLocalizationResolver;
 import com.vityuk.ginger.servlet.SimpleServletLocalizationResolver;
 import com.vityuk.ginger.servlet.SpringWebLocalizationResolver;
 import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.lang3.StringEscapeUtils;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletRequest;
@@ -29,6 +28,7 @@ import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.tagext.DynamicAttributes;
 import javax.servlet.jsp.tagext.TagSupport;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -40,6 +40,7 @@ public class MessageTag extends TagSupport implements DynamicAttributes {
 
     private static final String DEFAULT_HTML_ESCAPE_PARAMETER = "defaultHtmlEscape";
     private static final String DYNAMIC_ATTRIBUTE_ARGUMENT_PREFIX = "arg";
+    private static final String NULL_MESSAGE = "null";
 
     private static final String SPRING_WEB_DETECTING_CLASS = "org.springframework.web.context.WebApplicationContext";
 
@@ -60,17 +61,12 @@ public class MessageTag extends TagSupport implements DynamicAttributes {
         boolean escapeHtml = resolveEscapeHtml(servletContext);
 
         Object[] parameters = resolveParameters();
-        final String message;
-        if (selector != null) {
-            message = localization.getSelectedMessage(code, selector, parameters);
-        } else if (count >= 0) {
-            message = localization.getPluralMessage(code, count, parameters);
-        } else {
-            message = localization.getMessage(code, parameters);
-        }
-        String messageOut = escapeHtml ? StringEscapeUtils.escapeHtml4(message) : message;
+        Writer out = pageContext.getOut();
         try {
-            pageContext.getOut().write(String.valueOf(messageOut));
+            // Message is streamed to page without buffering, part written before formatting fails stays in output
+            if (!appendMessage(localization, escapeHtml ? new HtmlEscapingWriter(out) : out, parameters)) {
+                out.write(NULL_MESSAGE);
+            }
         } catch (IOException e) {
             throw new JspException(e);
         }
@@ -107,6 +103,15 @@ public class MessageTag extends TagSupport implements DynamicAttributes {
         return getServletLocalizationResolver().resolve(servletRequest, servletContext);
     }
 
+    private boolean appendMessage(Localization localization, Writer out, Object[] parameters) throws IOException {
+        if (selector != null) {
+            return localization.appendSelectedMessage(out, code, selector, parameters);
+        } else if (count >= 0) {
+            return localization.appendPluralMessage(out, code, count, parameters);
+        }
+        return localization.appendMessage(out, code, parameters);
+    }
+
     private boolean resolveEscapeHtml(ServletContext servletContext) {
         if (htmlEscape == null) {
             return resolveDefaultEscapeHtml(servletContext);
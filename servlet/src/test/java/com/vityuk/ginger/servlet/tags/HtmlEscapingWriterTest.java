@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013 Andriy Vityuk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vityuk.ginger.servlet.tags;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.io.Writer;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * @author Andriy Vityuk
+ */
+public class HtmlEscapingWriterTest {
+    private static final String TEXT = "<a href=\"x\">Tom & Jerry</a> caf\u00e9 \ud83d\ude00";
+
+    @Test
+    public void testWriteIsSameAsEscapeHtml4() throws Exception {
+        StringWriter out = new StringWriter();
+        Writer writer = new HtmlEscapingWriter(out);
+
+        writer.write(TEXT);
+
+        assertThat(out.toString()).isEqualTo(StringEscapeUtils.escapeHtml4(TEXT));
+    }
+
+    @Test
+    public void testAppendInPartsIsSameAsEscapeHtml4() throws Exception {
+        StringWriter out = new StringWriter();
+        Writer writer = new HtmlEscapingWriter(out);
+
+        for (int i = 0; i < TEXT.length(); i += 3) {
+            writer.append(TEXT, i, Math.min(i + 3, TEXT.length()));
+        }
+
+        assertThat(out.toString()).isEqualTo(StringEscapeUtils.escapeHtml4(TEXT));
+    }
+
+    @Test
+    public void testWriteAllCharactersIsSameAsEscapeHtml4() throws Exception {
+        char[] chars = new char[Character.MAX_VALUE + 1];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) i;
+        }
+        StringWriter out = new StringWriter();
+        Writer writer = new HtmlEscapingWriter(out);
+
+        writer.write(chars);
+
+        assertThat(out.toString()).isEqualTo(StringEscapeUtils.escapeHtml4(new String(chars)));
+    }
+
+    @Test
+    public void testAppendStringBuilderIsSameAsEscapeHtml4() throws Exception {
+        StringWriter out = new StringWriter();
+        Writer writer = new HtmlEscapingWriter(out);
+
+        writer.append(new StringBuilder(TEXT)).append(new StringBuilder(TEXT), 1, 12).append(null);
+
+        assertThat(out.toString()).isEqualTo(StringEscapeUtils.escapeHtml4(TEXT + TEXT.substring(1, 12) + "null"));
+    }
+
+    @Test
+    public void testAppendChar() throws Exception {
+        StringWriter out = new StringWriter();
+        Writer writer = new HtmlEscapingWriter(out);
+
+        writer.append('<').append('b').write('>');
+
+        assertThat(out.toString()).isEqualTo("&lt;b&gt;");
+    }
+}
@@ -22,7 +22,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletRequest;
@@ -31,6 +33,10 @@ import javax.servlet.jsp.JspWriter;
 import javax.servlet.jsp.PageContext;
 import java.util.Date;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -77,11 +83,11 @@ public class MessageTagTest {
         String code = "test.code";
         String message = "This is test message";
         tag.setCode(code);
-        when(localization.getMessage(code)).thenReturn(message);
+        when(localization.appendMessage(jspWriter, code)).thenAnswer(appendMessage(message));
 
         renderTag();
 
-        verify(jspWriter).write(message);
+        verify(jspWriter).append(message);
     }
 
     @Test
@@ -93,11 +99,11 @@ public class MessageTagTest {
 
         tag.setCode(code);
         tag.setArguments(new Object[]{arg0, arg1});
-        when(localization.getMessage(code, arg0, arg1)).thenReturn(message);
+        when(localization.appendMessage(jspWriter, code, arg0, arg1)).thenAnswer(appendMessage(message));
 
         renderTag();
 
-        verify(jspWriter).write(message);
+        verify(jspWriter).append(message);
     }
 
     @Test
@@ -110,11 +116,11 @@ public class MessageTagTest {
         tag.setCode(code);
         tag.setDynamicAttribute(null, "arg1", arg1);
         tag.setDynamicAttribute(null, "arg0", arg0);
-        when(localization.getMessage(code, arg0, arg1)).thenReturn(message);
+        when(localization.appendMessage(jspWriter, code, arg0, arg1)).thenAnswer(appendMessage(message));
 
         renderTag();
 
-        verify(jspWriter).write(message);
+        verify(jspWriter).append(message);
     }
 
 
@@ -122,7 +128,7 @@ public class MessageTagTest {
     public void testWithNullMessage() throws Exception {
         String code = "test.code";
         tag.setCode(code);
-        when(localization.getMessage(code)).thenReturn(null);
+        when(localization.appendMessage(jspWriter, code)).thenReturn(false);
 
         renderTag();
 
@@ -140,11 +146,11 @@ public class MessageTagTest {
         tag.setCode(code);
         tag.setSelector(selector);
         tag.setArguments(new Object[]{arg0, arg1});
-        when(localization.getSelectedMessage(code, selector, arg0, arg1)).thenReturn(message);
+        when(localization.appendSelectedMessage(jspWriter, code, selector, arg0, arg1)).thenAnswer(appendMessage(message));
 
         renderTag();
 
-        verify(jspWriter).write(message);
+        verify(jspWriter).append(message);
     }
 
     @Test
@@ -157,15 +163,42 @@ public class MessageTagTest {
         tag.setCode(code);
         tag.setCount(count);
         tag.setArguments(new Object[]{arg1});
-        when(localization.getPluralMessage(code, count, arg1)).thenReturn(message);
+        when(localization.appendPluralMessage(jspWriter, code, count, arg1)).thenAnswer(appendMessage(message));
 
         renderTag();
 
-        verify(jspWriter).write(message);
+        verify(jspWriter).append(message);
+    }
+
+    @Test
+    public void testWithHtmlEscape() throws Exception {
+        String code = "test.code";
+        String message = "<b>Tom & Jerry</b>";
+        tag.setCode(code);
+        tag.setHtmlEscape(true);
+        when(localization.appendMessage(any(Appendable.class), eq(code))).thenAnswer(appendMessage(message));
+
+        renderTag();
+
+        verify(jspWriter, times(2)).write("&lt;");
+        verify(jspWriter).write("&amp;");
+        verify(jspWriter, times(2)).write("&gt;");
+        verify(jspWriter, never()).append(message);
     }
 
     private void renderTag() throws JspException {
         tag.doStartTag();
         tag.doEndTag();
     }
+
+    private static Answer<Boolean> appendMessage(final String message) {
+        return new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                Appendable appendable = (Appendable) invocation.getArguments()[0];
+                appendable.append(message);
+                return true;
+            }
+        };
+    }
 }